@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.operation.impl;
+
+import ddf.catalog.operation.SpatialFacetProperties;
+
+public class SpatialFacetPropertiesImpl implements SpatialFacetProperties {
+
+  public static final int DEFAULT_MAX_CELLS = 1024;
+
+  private String facetAttribute;
+
+  private double west;
+
+  private double south;
+
+  private double east;
+
+  private double north;
+
+  private int maxCells;
+
+  /**
+   * Creates a SpatialFacetPropertiesImpl object to count the results in each cell of a grid of at
+   * most {@link #DEFAULT_MAX_CELLS} cells covering the provided bounding box.
+   *
+   * @param facetAttribute The geometry attribute to facet on
+   * @param west The western longitude of the bounding box
+   * @param south The southern latitude of the bounding box
+   * @param east The eastern longitude of the bounding box
+   * @param north The northern latitude of the bounding box
+   */
+  public SpatialFacetPropertiesImpl(
+      String facetAttribute, double west, double south, double east, double north) {
+    this(facetAttribute, west, south, east, north, DEFAULT_MAX_CELLS);
+  }
+
+  /**
+   * Creates a SpatialFacetPropertiesImpl object to count the results in each cell of a grid of at
+   * most maxCells cells covering the provided bounding box.
+   *
+   * @param facetAttribute The geometry attribute to facet on
+   * @param west The western longitude of the bounding box
+   * @param south The southern latitude of the bounding box
+   * @param east The eastern longitude of the bounding box
+   * @param north The northern latitude of the bounding box
+   * @param maxCells The maximum number of cells in the grid
+   */
+  public SpatialFacetPropertiesImpl(
+      String facetAttribute, double west, double south, double east, double north, int maxCells) {
+    this.facetAttribute = facetAttribute;
+    this.west = west;
+    this.south = south;
+    this.east = east;
+    this.north = north;
+    this.maxCells = maxCells;
+  }
+
+  @Override
+  public String getFacetAttribute() {
+    return facetAttribute;
+  }
+
+  @Override
+  public double getWest() {
+    return west;
+  }
+
+  @Override
+  public double getSouth() {
+    return south;
+  }
+
+  @Override
+  public double getEast() {
+    return east;
+  }
+
+  @Override
+  public double getNorth() {
+    return north;
+  }
+
+  @Override
+  public int getMaxCells() {
+    return maxCells;
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.operation.impl;
+
+import ddf.catalog.operation.SpatialFacetResult;
+
+public class SpatialFacetResultImpl implements SpatialFacetResult {
+
+  private String attributeName;
+
+  private double west;
+
+  private double south;
+
+  private double east;
+
+  private double north;
+
+  private int[][] counts;
+
+  /**
+   * Instantiates a SpatialFacetResultImpl from a grid of counts, where {@code counts[0]} is the
+   * northernmost row and {@code counts[row][0]} the westernmost cell of each row. Every row must
+   * have the same length.
+   *
+   * @param attributeName The attribute name for which faceting data is reported
+   * @param west The western longitude of the grid
+   * @param south The southern latitude of the grid
+   * @param east The eastern longitude of the grid
+   * @param north The northern latitude of the grid
+   * @param counts The number of results in each cell of the grid
+   */
+  public SpatialFacetResultImpl(
+      String attributeName, double west, double south, double east, double north, int[][] counts) {
+    this.attributeName = attributeName;
+    this.west = west;
+    this.south = south;
+    this.east = east;
+    this.north = north;
+    this.counts = counts;
+  }
+
+  @Override
+  public String getAttributeName() {
+    return attributeName;
+  }
+
+  @Override
+  public int getColumns() {
+    return counts.length == 0 ? 0 : counts[0].length;
+  }
+
+  @Override
+  public int getRows() {
+    return counts.length;
+  }
+
+  @Override
+  public double getWest() {
+    return west;
+  }
+
+  @Override
+  public double getSouth() {
+    return south;
+  }
+
+  @Override
+  public double getEast() {
+    return east;
+  }
+
+  @Override
+  public double getNorth() {
+    return north;
+  }
+
+  @Override
+  public int getCount(int row, int column) {
+    return counts[row][column];
+  }
+}
@@ -145,6 +145,10 @@ public final class Constants {
 
   public static final String EXPERIMENTAL_FACET_RESULTS_KEY = "facet-results";
 
+  public static final String EXPERIMENTAL_SPATIAL_FACET_PROPERTIES_KEY = "spatial-facet-properties";
+
+  public static final String EXPERIMENTAL_SPATIAL_FACET_RESULTS_KEY = "spatial-facet-results";
+
   public static final String QUERY_HIGHLIGHT_KEY = "highlight";
 
   public static final String SUGGESTION_QUERY_KEY = "suggestion-query";
@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.operation;
+
+import java.io.Serializable;
+
+/**
+ * <b> This code is experimental. While this interface is functional and tested, it may change or be
+ * removed in a future version of the library. </b>
+ */
+
+/**
+ * SpatialFacetProperties requests the number of results falling in each cell of a grid laid over a
+ * bounding box, for a geometry attribute. Sources that support it return a {@link
+ * SpatialFacetResult} in the response properties.
+ */
+public interface SpatialFacetProperties extends Serializable {
+
+  String getFacetAttribute();
+
+  double getWest();
+
+  double getSouth();
+
+  double getEast();
+
+  double getNorth();
+
+  /** @return the maximum number of cells the grid may have, which sets how fine the grid is */
+  int getMaxCells();
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.operation;
+
+import java.io.Serializable;
+
+/**
+ * <b> This code is experimental. While this interface is functional and tested, it may change or be
+ * removed in a future version of the library. </b>
+ */
+
+/**
+ * SpatialFacetResult holds the result counts of a spatial facet, as a grid of equally sized cells
+ * covering a bounding box. The grid may cover a slightly larger area than the requested bounding
+ * box, since cells are aligned to the source's spatial index.
+ */
+public interface SpatialFacetResult extends Serializable {
+
+  String getAttributeName();
+
+  int getColumns();
+
+  int getRows();
+
+  double getWest();
+
+  double getSouth();
+
+  double getEast();
+
+  double getNorth();
+
+  /**
+   * @param row the row of the cell, 0 being the northernmost row
+   * @param column the column of the cell, 0 being the westernmost column
+   * @return the number of results in the cell
+   */
+  int getCount(int row, int column);
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.plugin;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PolicyPlugin} that builds the policy information of all the {@link Metacard}s of a
+ * create or update request, or of all the {@link Result}s of a query, in a single call.
+ *
+ * <p>The catalog framework calls these methods instead of calling the corresponding single item
+ * methods once per item, so plugins can share work, such as reading their configuration or building
+ * identical policy maps, across the items of a request. The default implementations call the single
+ * item methods.
+ *
+ * <p><b>This code is experimental. While this interface is functional and tested, it may change or
+ * be removed in a future version of the library. </b>
+ */
+public interface BatchPolicyPlugin extends PolicyPlugin {
+
+  /**
+   * Processes the {@link Metacard}s of a {@link ddf.catalog.operation.CreateRequest} to return
+   * their policy information.
+   *
+   * @param metacards the {@link Metacard}s to process
+   * @param properties the request properties
+   * @return the policy information of each {@link Metacard}, in the same order as {@code metacards}
+   * @throws StopProcessingException thrown to halt processing when a critical issue occurs during
+   *     processing. This is intended to prevent other plugins from processing as well.
+   * @see #processPreCreate(Metacard, Map)
+   */
+  default List<PolicyResponse> processPreCreate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    List<PolicyResponse> responses = new ArrayList<>(metacards.size());
+    for (Metacard metacard : metacards) {
+      responses.add(processPreCreate(metacard, properties));
+    }
+    return responses;
+  }
+
+  /**
+   * Processes the new {@link Metacard}s of a {@link ddf.catalog.operation.UpdateRequest}, or the
+   * {@link Metacard}s they replace, to return their policy information.
+   *
+   * @param metacards the {@link Metacard}s to process, which may contain null elements for
+   *     metacards that could not be found
+   * @param properties the request properties
+   * @return the policy information of each {@link Metacard}, in the same order as {@code metacards}
+   * @throws StopProcessingException thrown to halt processing when a critical issue occurs during
+   *     processing. This is intended to prevent other plugins from processing as well.
+   * @see #processPreUpdate(Metacard, Map)
+   */
+  default List<PolicyResponse> processPreUpdate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    List<PolicyResponse> responses = new ArrayList<>(metacards.size());
+    for (Metacard metacard : metacards) {
+      responses.add(processPreUpdate(metacard, properties));
+    }
+    return responses;
+  }
+
+  /**
+   * Processes the {@link Result}s of a {@link ddf.catalog.operation.Query} to return their policy
+   * information.
+   *
+   * @param results the {@link Result}s to process
+   * @param properties the response properties
+   * @return the policy information of each {@link Result}, in the same order as {@code results}
+   * @throws StopProcessingException thrown to halt processing when a critical issue occurs during
+   *     processing. This is intended to prevent other plugins from processing as well.
+   * @see #processPostQuery(Result, Map)
+   */
+  default List<PolicyResponse> processPostQuery(
+      List<Result> results, Map<String, Serializable> properties) throws StopProcessingException {
+    List<PolicyResponse> responses = new ArrayList<>(results.size());
+    for (Result result : results) {
+      responses.add(processPostQuery(result, properties));
+    }
+    return responses;
+  }
+
+  /**
+   * Verifies that a batch method returned the policy information of every item it was given.
+   *
+   * @param policyResponses the policy information returned by a batch method
+   * @param items the {@link Metacard}s or {@link Result}s given to the batch method
+   * @return {@code policyResponses}
+   * @throws StopProcessingException if there is not exactly one response per item
+   */
+  static List<PolicyResponse> verifyPolicyResponses(
+      List<PolicyResponse> policyResponses, List<?> items) throws StopProcessingException {
+    if (policyResponses == null || policyResponses.size() != items.size()) {
+      throw new StopProcessingException(
+          "Policy plugin returned "
+              + (policyResponses == null ? 0 : policyResponses.size())
+              + " policies for "
+              + items.size()
+              + " items.");
+    }
+    return policyResponses;
+  }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.plugin;
+
+/**
+ * Marker for {@link PreIngestPlugin}s and {@link PolicyPlugin}s that are thread safe and whose
+ * processing of a {@link ddf.catalog.data.Metacard} in a {@link
+ * ddf.catalog.operation.CreateRequest} does not depend on the other {@link
+ * ddf.catalog.data.Metacard}s in the same request.
+ *
+ * <p>When chunked ingest is enabled, the catalog framework may split a large {@link
+ * ddf.catalog.operation.CreateRequest} into smaller requests and run plugins implementing this
+ * interface on those requests concurrently. Each chunk request receives its own copy of the
+ * original request properties.
+ *
+ * <p><b>This code is experimental. While this interface is functional and tested, it may change or
+ * be removed in a future version of the library. </b>
+ */
+public interface ConcurrentIngestPlugin {}
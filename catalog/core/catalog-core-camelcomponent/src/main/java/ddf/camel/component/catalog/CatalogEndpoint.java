@@ -60,6 +60,10 @@ public class CatalogEndpoint extends DefaultEndpoint implements MultipleConsumer
 
   private MimeTypeMapper mimeTypeMapper;
 
+  private String journal;
+
+  private int journalWorkers = 1;
+
   /**
    * Constructs a CatalogEndpoint for the specified custom <code>catalog</code> component.
    *
@@ -188,6 +192,32 @@ public MimeTypeMapper getMimeTypeMapper() {
     return mimeTypeMapper;
   }
 
+  /**
+   * @return name of the journal post-ingest responses are kept in until they are processed,
+   *     specified as the {@code journal} parameter in the Camel route node, or null if they are
+   *     only kept in memory
+   */
+  public String getJournal() {
+    return journal;
+  }
+
+  public void setJournal(String journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * @return number of threads delivering the entries of the journal to the route concurrently,
+   *     specified as the {@code journalWorkers} parameter in the Camel route node. Entries are only
+   *     delivered in order with a single worker, the default.
+   */
+  public int getJournalWorkers() {
+    return journalWorkers;
+  }
+
+  public void setJournalWorkers(int journalWorkers) {
+    this.journalWorkers = journalWorkers;
+  }
+
   /*
    * (non-Javadoc)
    *
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.camel.component.catalog.ingest;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.Response;
+import ddf.catalog.operation.Update;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+import ddf.catalog.operation.impl.CreateResponseImpl;
+import ddf.catalog.operation.impl.DeleteRequestImpl;
+import ddf.catalog.operation.impl.DeleteResponseImpl;
+import ddf.catalog.operation.impl.UpdateImpl;
+import ddf.catalog.operation.impl.UpdateRequestImpl;
+import ddf.catalog.operation.impl.UpdateResponseImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The metacards of a post-ingest response, as kept in a {@link PostIngestJournal}.
+ *
+ * <p>Only the metacards are kept since the requests and properties of responses may hold objects
+ * that cannot be serialized, such as the subject, so the responses rebuilt from the journal have
+ * requests with only the metacards or their IDs, and no properties.
+ */
+class JournaledResponse implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String action;
+
+  private final ArrayList<Metacard> metacards;
+
+  private final ArrayList<Metacard> oldMetacards;
+
+  private JournaledResponse(
+      String action, ArrayList<Metacard> metacards, ArrayList<Metacard> oldMetacards) {
+    this.action = action;
+    this.metacards = metacards;
+    this.oldMetacards = oldMetacards;
+  }
+
+  static JournaledResponse of(Response response, String action) {
+    if (response instanceof CreateResponse) {
+      return new JournaledResponse(
+          action, copy(((CreateResponse) response).getCreatedMetacards(), m -> m), null);
+    } else if (response instanceof UpdateResponse) {
+      List<Update> updates = ((UpdateResponse) response).getUpdatedMetacards();
+      return new JournaledResponse(
+          action, copy(updates, Update::getNewMetacard), copy(updates, Update::getOldMetacard));
+    } else if (response instanceof DeleteResponse) {
+      return new JournaledResponse(
+          action, copy(((DeleteResponse) response).getDeletedMetacards(), m -> m), null);
+    }
+    throw new IllegalArgumentException("Unsupported post-ingest response: " + response);
+  }
+
+  static JournaledResponse fromBytes(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (JournaledResponse) input.readObject();
+    }
+  }
+
+  byte[] toBytes() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(this);
+    }
+    return bytes.toByteArray();
+  }
+
+  String getAction() {
+    return action;
+  }
+
+  Response toResponse() {
+    switch (action) {
+      case PostIngestConsumer.CREATE:
+        return new CreateResponseImpl(new CreateRequestImpl(metacards), new HashMap<>(), metacards);
+      case PostIngestConsumer.UPDATE:
+        List<Update> updates = new ArrayList<>(metacards.size());
+        for (int i = 0; i < metacards.size(); i++) {
+          updates.add(new UpdateImpl(metacards.get(i), oldMetacards.get(i)));
+        }
+        return new UpdateResponseImpl(
+            new UpdateRequestImpl(ids(), metacards), new HashMap<>(), updates);
+      case PostIngestConsumer.DELETE:
+        return new DeleteResponseImpl(new DeleteRequestImpl(ids()), new HashMap<>(), metacards);
+      default:
+        throw new IllegalStateException("Unsupported post-ingest action: " + action);
+    }
+  }
+
+  private String[] ids() {
+    return metacards.stream().map(m -> m == null ? null : m.getId()).toArray(String[]::new);
+  }
+
+  // Metacards are copied into MetacardImpls since those serialize their attributes regardless of
+  // the implementation they were copied from.
+  private static <T> ArrayList<Metacard> copy(List<T> items, Function<T, Metacard> toMetacard) {
+    if (items == null) {
+      return new ArrayList<>();
+    }
+
+    ArrayList<Metacard> copies = new ArrayList<>(items.size());
+    for (T item : items) {
+      Metacard metacard = toMetacard.apply(item);
+      copies.add(metacard == null ? null : new MetacardImpl(metacard));
+    }
+    return copies;
+  }
+}
@@ -20,12 +20,32 @@
 import ddf.catalog.operation.UpdateResponse;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PostIngestPlugin;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.apache.camel.impl.DefaultConsumer;
@@ -37,8 +57,25 @@
 /**
  * Camel Consumer Post Ingest plugin used to provide the responses passed to Post Ingest Plugins to
  * camel routes.
+ *
+ * <p>Responses are processed asynchronously. By default they are queued in memory and lost if the
+ * system stops before they are processed. If the route node names a journal, e.g. {@code
+ * catalog:postingest?journal=backup}, they are appended to a {@link PostIngestJournal} instead and
+ * processed in batches by a thread of this consumer, in order and at least once, including after a
+ * restart.
+ *
+ * <p>A journaled response the route fails to process is retried with an exponential backoff until
+ * it succeeds, and its batch is only acknowledged once all of its responses were processed. Entries
+ * that cannot be read back are moved to the {@value #DEAD_LETTER_DIRECTORY} directory of the
+ * journal. The {@code journalWorkers} parameter, e.g. {@code
+ * catalog:postingest?journal=backup&journalWorkers=4}, lets several threads process the responses
+ * of a batch concurrently, in which case they are no longer processed in order.
+ *
+ * <p>The number of responses waiting to be processed is published through {@link
+ * PostIngestConsumerMBean}.
  */
-public class PostIngestConsumer extends DefaultConsumer implements PostIngestPlugin {
+public class PostIngestConsumer extends DefaultConsumer
+    implements PostIngestPlugin, PostIngestConsumerMBean {
   public static final String CREATE = "create";
 
   public static final String UPDATE = "update";
@@ -49,11 +86,41 @@ public class PostIngestConsumer extends DefaultConsumer implements PostIngestPlu
 
   private static final int THREAD_POOL_DEFAULT_SIZE = 5;
 
+  private static final int JOURNAL_SEGMENT_ENTRIES = 1000;
+
+  private static final int JOURNAL_BATCH_SIZE = 100;
+
+  private static final long JOURNAL_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+  private static final long INITIAL_DELIVERY_RETRY_DELAY_MILLIS = 250;
+
+  private static final long MAX_DELIVERY_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  /** Number of failed attempts after which a response that keeps failing is logged as a warning. */
+  private static final int DELIVERY_ATTEMPTS_BEFORE_WARNING = 5;
+
+  static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+  /** The names of the journals read by a started consumer. */
+  private static final Set<String> OPEN_JOURNALS = ConcurrentHashMap.newKeySet();
+
   private CatalogEndpoint endpoint;
 
   private ServiceRegistration registration;
 
-  private ExecutorService threadExecutor;
+  private ThreadPoolExecutor threadExecutor;
+
+  private volatile PostIngestJournal journal;
+
+  private ExecutorService journalExecutor;
+
+  private ExecutorService deliveryExecutor;
+
+  private final AtomicLong failedDeliveryCount = new AtomicLong();
+
+  private ObjectName objectName;
+
+  private MBeanServer mBeanServer;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PostIngestConsumer.class);
 
@@ -100,18 +167,62 @@ public DeleteResponse process(DeleteResponse input) throws PluginExecutionExcept
     return input;
   }
 
+  @Override
+  public long getPendingCount() {
+    PostIngestJournal currentJournal = journal;
+    return threadExecutor.getQueue().size()
+        + (currentJournal == null ? 0 : currentJournal.getPendingCount());
+  }
+
+  @Override
+  public long getFailedDeliveryCount() {
+    return failedDeliveryCount.get();
+  }
+
   @Override
   protected void doStop() throws Exception {
     super.doStop();
     if (registration != null) {
       registration.unregister();
     }
+    unregisterMBean();
+
+    if (journal != null) {
+      journalExecutor.shutdownNow();
+      if (deliveryExecutor != null) {
+        deliveryExecutor.shutdownNow();
+      }
+      if (!journalExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+        LOGGER.debug("Post-ingest journal {} did not stop in time", endpoint.getJournal());
+      }
+      journal.close();
+      journal = null;
+      OPEN_JOURNALS.remove(endpoint.getJournal());
+    }
   }
 
   @Override
   protected void doStart() throws Exception {
     super.doStart();
 
+    if (endpoint.getJournal() != null) {
+      journal = new PostIngestJournal(getJournalDirectory(), JOURNAL_SEGMENT_ENTRIES);
+      journalExecutor =
+          Executors.newSingleThreadExecutor(
+              StandardThreadFactoryBuilder.newThreadFactory("postIngestJournalThread"));
+      int workers = endpoint.getJournalWorkers();
+      deliveryExecutor =
+          workers > 1
+              ? Executors.newFixedThreadPool(
+                  workers,
+                  StandardThreadFactoryBuilder.newThreadFactory("postIngestDeliveryThread"))
+              : null;
+      PostIngestJournal startedJournal = journal;
+      journalExecutor.submit(() -> processJournal(startedJournal));
+      OPEN_JOURNALS.add(endpoint.getJournal());
+      logUnreadJournals();
+    }
+
     Dictionary<String, String> props = new Hashtable<>();
 
     registration =
@@ -119,21 +230,209 @@ protected void doStart() throws Exception {
             .getComponent()
             .getBundleContext()
             .registerService(PostIngestPlugin.class.getName(), this, props);
+    registerMBean();
+  }
+
+  private void registerMBean() {
+    try {
+      objectName =
+          new ObjectName(
+              OBJECT_NAME
+                  + ",endpoint="
+                  + ObjectName.quote(String.valueOf(endpoint.getEndpointUri())));
+      mBeanServer = ManagementFactory.getPlatformMBeanServer();
+      try {
+        mBeanServer.registerMBean(this, objectName);
+      } catch (InstanceAlreadyExistsException e) {
+        LOGGER.debug("Re-registering post-ingest consumer MBean");
+        mBeanServer.unregisterMBean(objectName);
+        mBeanServer.registerMBean(this, objectName);
+      }
+    } catch (Exception e) {
+      LOGGER.info("Could not register post-ingest consumer MBean.", e);
+    }
+  }
+
+  private void unregisterMBean() {
+    try {
+      if (objectName != null && mBeanServer != null && mBeanServer.isRegistered(objectName)) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+    } catch (Exception e) {
+      LOGGER.debug("Exception unregistering post-ingest consumer MBean: ", e);
+    }
   }
 
   private void processRequest(Response input, String action) {
+    PostIngestJournal currentJournal = journal;
+    if (currentJournal != null) {
+      try {
+        currentJournal.append(JournaledResponse.of(input, action).toBytes());
+        return;
+      } catch (IOException | RuntimeException e) {
+        LOGGER.debug("Unable to journal {} response, processing it from memory", action, e);
+      }
+    }
+
     Runnable request = () -> sendMessage(input, action);
     threadExecutor.submit(request);
   }
 
-  private void sendMessage(Response input, String action) {
+  private Path getJournalDirectory() {
+    return getJournalsDirectory().resolve(endpoint.getJournal());
+  }
+
+  private static Path getJournalsDirectory() {
+    return Paths.get(System.getProperty("ddf.data", "data"), "postingest");
+  }
+
+  /**
+   * Logs the journals that still hold entries but are not read by any route, e.g. because the
+   * journal of a route is named after a destination that changed since.
+   */
+  private static void logUnreadJournals() {
+    try (DirectoryStream<Path> directories =
+        Files.newDirectoryStream(getJournalsDirectory(), Files::isDirectory)) {
+      for (Path directory : directories) {
+        if (!OPEN_JOURNALS.contains(directory.getFileName().toString())
+            && PostIngestJournal.hasPendingEntries(directory)) {
+          LOGGER.info(
+              "Post-ingest journal {} holds entries that no route is processing. They are "
+                  + "processed once a route uses that journal again, otherwise it can be deleted.",
+              directory);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Unable to look for unread post-ingest journals", e);
+    }
+  }
+
+  private void processJournal(PostIngestJournal currentJournal) {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        PostIngestJournal.Batch batch = currentJournal.read(JOURNAL_BATCH_SIZE);
+        if (batch.isEmpty()) {
+          currentJournal.awaitEntries(1, TimeUnit.SECONDS);
+          continue;
+        }
+
+        processJournalEntries(batch.getEntries());
+        // Entries of a batch interrupted by a stop are not acknowledged, so they are processed
+        // again on the next start
+        currentJournal.acknowledge(batch);
+        LOGGER.trace(
+            "Processed {} entries of post-ingest journal {}, {} pending",
+            batch.getEntries().size(),
+            endpoint.getJournal(),
+            currentJournal.getPendingCount());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (IOException e) {
+        LOGGER.warn("Unable to read post-ingest journal {}", endpoint.getJournal(), e);
+        try {
+          Thread.sleep(JOURNAL_RETRY_DELAY_MILLIS);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  /** Processes the entries of a batch, returning only once every one of them was processed. */
+  private void processJournalEntries(List<byte[]> entries) throws InterruptedException {
+    if (deliveryExecutor == null) {
+      for (byte[] entry : entries) {
+        processJournalEntry(entry);
+      }
+      return;
+    }
+
+    List<Callable<Void>> deliveries = new ArrayList<>(entries.size());
+    for (byte[] entry : entries) {
+      deliveries.add(
+          () -> {
+            processJournalEntry(entry);
+            return null;
+          });
+    }
+    for (Future<Void> delivery : deliveryExecutor.invokeAll(deliveries)) {
+      try {
+        delivery.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        // Otherwise the delivery was interrupted, the batch is then processed again on restart
+        throw new InterruptedException();
+      } catch (CancellationException e) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  private void processJournalEntry(byte[] entry) throws InterruptedException {
+    JournaledResponse response;
+    try {
+      response = JournaledResponse.fromBytes(entry);
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      LOGGER.warn("Unable to read entry of post-ingest journal {}", endpoint.getJournal(), e);
+      deadLetter(entry);
+      return;
+    }
+
+    long delay = INITIAL_DELIVERY_RETRY_DELAY_MILLIS;
+    for (int attempt = 1; ; attempt++) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedException();
+      }
+      if (sendMessage(response.toResponse(), response.getAction())) {
+        return;
+      }
+      failedDeliveryCount.incrementAndGet();
+      if (attempt == DELIVERY_ATTEMPTS_BEFORE_WARNING) {
+        LOGGER.warn(
+            "Unable to process {} entry of post-ingest journal {} after {} attempts, retrying "
+                + "until it succeeds",
+            response.getAction(),
+            endpoint.getJournal(),
+            attempt);
+      }
+      Thread.sleep(delay);
+      delay = Math.min(delay * 2, MAX_DELIVERY_RETRY_DELAY_MILLIS);
+    }
+  }
+
+  /** Keeps an entry that can never be processed out of the journal without losing it. */
+  private void deadLetter(byte[] entry) throws InterruptedException {
+    Path deadLetters = getJournalDirectory().resolve(DEAD_LETTER_DIRECTORY);
+    while (true) {
+      try {
+        Files.createDirectories(deadLetters);
+        Path file = deadLetters.resolve(UUID.randomUUID() + ".entry");
+        Files.write(file, entry);
+        LOGGER.warn("Moved unreadable entry of post-ingest journal to {}", file);
+        return;
+      } catch (IOException e) {
+        LOGGER.warn("Unable to move unreadable post-ingest journal entry to {}", deadLetters, e);
+        Thread.sleep(MAX_DELIVERY_RETRY_DELAY_MILLIS);
+      }
+    }
+  }
+
+  private boolean sendMessage(Response input, String action) {
     try {
       Exchange exchange = getEndpoint().createExchange();
       exchange.getIn().setHeader(ACTION, action);
       exchange.getIn().setBody(input);
       getProcessor().process(exchange);
+      if (exchange.getException() != null) {
+        LOGGER.debug("Unable to backup data", exchange.getException());
+        return false;
+      }
+      return true;
     } catch (Exception e) {
       LOGGER.debug("Unable to backup data", e);
+      return false;
     }
   }
 }
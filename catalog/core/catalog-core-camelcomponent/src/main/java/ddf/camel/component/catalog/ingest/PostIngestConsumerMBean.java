@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.camel.component.catalog.ingest;
+
+/** MBean interface describing the post-ingest responses a catalog:postingest route processes. */
+public interface PostIngestConsumerMBean {
+
+  /**
+   * Object name of the consumers, to be completed with an {@code endpoint} key naming the
+   * consumer's endpoint URI.
+   */
+  String OBJECT_NAME = PostIngestConsumer.class.getName() + ":service=post-ingest-consumer";
+
+  /**
+   * Gets the number of responses received but not yet processed, including those in the journal.
+   *
+   * @return the number of pending responses
+   */
+  long getPendingCount();
+
+  /**
+   * Gets the number of attempts to process a journaled response that failed and will be retried.
+   *
+   * @return the number of failed attempts
+   */
+  long getFailedDeliveryCount();
+}
@@ -0,0 +1,409 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.camel.component.catalog.ingest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only journal of post-ingest entries, stored in numbered segment files in a directory.
+ *
+ * <p>Entries are read in batches and stay in the journal until their batch is acknowledged, so
+ * entries that were not acknowledged before the journal is reopened are read again, i.e. delivery
+ * is at least once. The position of the first unacknowledged entry is kept in a cursor file, and
+ * segments are deleted once all of their entries are acknowledged.
+ *
+ * <p>Entries are written through to the file system on append but not forced to the disk, so they
+ * survive the process stopping but not necessarily the operating system failing. Each entry is
+ * written with its length and a CRC-32 checksum. When the journal is opened, each segment is
+ * truncated at its first entry that cannot be read back, e.g. one cut off by a crash, since the
+ * length of the entries following it cannot be trusted.
+ */
+public class PostIngestJournal implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PostIngestJournal.class);
+
+  private static final String SEGMENT_PREFIX = "segment-";
+
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private static final String CURSOR_FILE = "cursor";
+
+  /** The largest entry accepted, so that a corrupted length cannot exhaust the memory. */
+  static final int MAX_ENTRY_BYTES = 64 * 1024 * 1024;
+
+  private static final int ENTRY_HEADER_BYTES = 2 * Integer.BYTES;
+
+  private final Path directory;
+
+  private final int entriesPerSegment;
+
+  private final TreeSet<Long> segments = new TreeSet<>();
+
+  private DataOutputStream writer;
+
+  private long writeSegment;
+
+  private int writeSegmentEntries;
+
+  // position of the first entry not yet returned by read
+  private Position readPosition;
+
+  // position of the first entry not yet acknowledged
+  private Position ackPosition;
+
+  private long pending;
+
+  private long inFlight;
+
+  /**
+   * @param directory the directory of the journal, created if it does not exist
+   * @param entriesPerSegment the number of entries after which a new segment is started
+   * @throws IOException if the journal cannot be opened
+   */
+  public PostIngestJournal(Path directory, int entriesPerSegment) throws IOException {
+    this.directory = directory;
+    this.entriesPerSegment = entriesPerSegment;
+    Files.createDirectories(directory);
+
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        segments.add(segmentNumber(file));
+      }
+    }
+
+    ackPosition = readCursor();
+    new ArrayList<>(segments.headSet(ackPosition.segment)).forEach(this::deleteSegment);
+    if (!segments.isEmpty() && segments.first() > ackPosition.segment) {
+      ackPosition = new Position(segments.first(), 0);
+    }
+    readPosition = ackPosition;
+    pending = recover();
+
+    // A new segment is started on every open so that an entry cut off by a crash can only be at
+    // the end of a segment that is no longer written to.
+    writeSegment = segments.isEmpty() ? ackPosition.segment : segments.last() + 1;
+    openWriteSegment();
+
+    if (pending > 0) {
+      LOGGER.debug("Recovered {} post-ingest entries from journal {}", pending, directory);
+    }
+  }
+
+  /**
+   * Appends an entry to the journal.
+   *
+   * @param entry the entry to append
+   * @throws IOException if the entry cannot be written
+   */
+  public synchronized void append(byte[] entry) throws IOException {
+    if (entry.length > MAX_ENTRY_BYTES) {
+      throw new IOException(
+          String.format(
+              "Post-ingest journal entry of %d bytes exceeds the limit of %d bytes",
+              entry.length, MAX_ENTRY_BYTES));
+    }
+    if (writeSegmentEntries >= entriesPerSegment) {
+      writer.close();
+      writeSegment++;
+      openWriteSegment();
+    }
+
+    writer.writeInt(entry.length);
+    writer.writeInt(checksum(entry));
+    writer.write(entry);
+    writer.flush();
+    writeSegmentEntries++;
+    pending++;
+    notifyAll();
+  }
+
+  /**
+   * Reads the entries following the last batch read, without acknowledging them.
+   *
+   * @param maxEntries the maximum number of entries to read
+   * @return the entries read, which may be none
+   * @throws IOException if the entries cannot be read
+   */
+  public synchronized Batch read(int maxEntries) throws IOException {
+    List<byte[]> entries = new ArrayList<>();
+    Position position = readPosition;
+    while (entries.size() < maxEntries && segments.contains(position.segment)) {
+      position = readSegment(position, maxEntries, entries);
+      if (entries.size() < maxEntries && position.segment < writeSegment) {
+        position = new Position(position.segment + 1, 0);
+      } else {
+        break;
+      }
+    }
+
+    readPosition = position;
+    inFlight += entries.size();
+    return new Batch(entries, position);
+  }
+
+  /**
+   * Waits until entries follow the last batch read.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the unit of {@code timeout}
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public synchronized void awaitEntries(long timeout, TimeUnit unit) throws InterruptedException {
+    if (pending <= inFlight) {
+      TimeUnit.MILLISECONDS.timedWait(this, unit.toMillis(timeout));
+    }
+  }
+
+  /**
+   * Acknowledges the entries of a batch, so they are not read again after the journal is reopened.
+   * Batches must be acknowledged in the order they were read.
+   *
+   * @param batch the batch to acknowledge
+   * @throws IOException if the acknowledgement cannot be stored
+   */
+  public synchronized void acknowledge(Batch batch) throws IOException {
+    Path cursor = directory.resolve(CURSOR_FILE);
+    Path tempCursor = directory.resolve(CURSOR_FILE + ".tmp");
+    Files.write(tempCursor, batch.position.toString().getBytes(StandardCharsets.UTF_8));
+    Files.move(tempCursor, cursor, StandardCopyOption.REPLACE_EXISTING);
+
+    ackPosition = batch.position;
+    pending -= batch.entries.size();
+    inFlight -= batch.entries.size();
+    new ArrayList<>(segments.headSet(ackPosition.segment)).forEach(this::deleteSegment);
+  }
+
+  /**
+   * Tells whether a journal that is not open has entries that were not acknowledged, without
+   * changing it.
+   *
+   * @param directory the directory of the journal
+   * @return true if the journal has entries that were not acknowledged
+   * @throws IOException if the journal cannot be read
+   */
+  public static boolean hasPendingEntries(Path directory) throws IOException {
+    Path cursorFile = directory.resolve(CURSOR_FILE);
+    Position cursor =
+        cursorFile.toFile().exists() ? Position.parse(Files.readAllBytes(cursorFile)) : null;
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        long segment = segmentNumber(file);
+        if (cursor == null || segment > cursor.segment) {
+          if (Files.size(file) > 0) {
+            return true;
+          }
+        } else if (segment == cursor.segment && Files.size(file) > cursor.offset) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** @return the number of entries appended but not yet acknowledged */
+  public synchronized long getPendingCount() {
+    return pending;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  private void openWriteSegment() throws IOException {
+    writer =
+        new DataOutputStream(
+            new BufferedOutputStream(
+                new FileOutputStream(segmentFile(writeSegment).toFile(), true)));
+    segments.add(writeSegment);
+    writeSegmentEntries = 0;
+  }
+
+  private Position readSegment(Position position, int maxEntries, List<byte[]> entries)
+      throws IOException {
+    long offset = position.offset;
+    try (InputStream inputStream = Files.newInputStream(segmentFile(position.segment));
+        DataInputStream input = new DataInputStream(inputStream)) {
+      skipFully(input, offset);
+      byte[] entry;
+      while (entries.size() < maxEntries && (entry = readEntry(input)) != null) {
+        entries.add(entry);
+        offset += ENTRY_HEADER_BYTES + entry.length;
+      }
+    }
+    return new Position(position.segment, offset);
+  }
+
+  /**
+   * Truncates each segment at its first unreadable entry and counts the entries following the
+   * acknowledged position.
+   */
+  private long recover() throws IOException {
+    long count = 0;
+    for (long segment : segments) {
+      Path file = segmentFile(segment);
+      long offset = 0;
+      try (DataInputStream input =
+          new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+        byte[] entry;
+        while ((entry = readEntry(input)) != null) {
+          offset += ENTRY_HEADER_BYTES + entry.length;
+          if (segment > ackPosition.segment || offset > ackPosition.offset) {
+            count++;
+          }
+        }
+      }
+
+      long size = Files.size(file);
+      if (offset < size) {
+        LOGGER.warn(
+            "Dropping {} bytes of post-ingest journal segment {} from its first unreadable entry",
+            size - offset,
+            file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+          channel.truncate(offset);
+        }
+      }
+    }
+    return count;
+  }
+
+  /** @return the next entry, or null if it is cut off or corrupted */
+  private static byte[] readEntry(DataInputStream input) throws IOException {
+    try {
+      int length = input.readInt();
+      if (length < 0 || length > MAX_ENTRY_BYTES) {
+        return null;
+      }
+      int checksum = input.readInt();
+      byte[] entry = new byte[length];
+      input.readFully(entry);
+      return checksum(entry) == checksum ? entry : null;
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  private static int checksum(byte[] entry) {
+    CRC32 crc = new CRC32();
+    crc.update(entry, 0, entry.length);
+    return (int) crc.getValue();
+  }
+
+  private Position readCursor() throws IOException {
+    Path cursor = directory.resolve(CURSOR_FILE);
+    if (!cursor.toFile().exists()) {
+      return new Position(segments.isEmpty() ? 0 : segments.first(), 0);
+    }
+    return Position.parse(Files.readAllBytes(cursor));
+  }
+
+  private void deleteSegment(long segment) {
+    segments.remove(segment);
+    try {
+      Files.deleteIfExists(segmentFile(segment));
+    } catch (IOException e) {
+      LOGGER.debug("Unable to delete post-ingest journal segment {}", segment, e);
+    }
+  }
+
+  private Path segmentFile(long segment) {
+    return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+  }
+
+  private static long segmentNumber(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private static void skipFully(InputStream input, long bytes) throws IOException {
+    long remaining = bytes;
+    while (remaining > 0) {
+      long skipped = input.skip(remaining);
+      if (skipped <= 0) {
+        throw new EOFException("Post-ingest journal segment is shorter than its cursor");
+      }
+      remaining -= skipped;
+    }
+  }
+
+  /** Entries read from the journal together, acknowledged together. */
+  public static class Batch {
+
+    private final List<byte[]> entries;
+
+    private final Position position;
+
+    private Batch(List<byte[]> entries, Position position) {
+      this.entries = Collections.unmodifiableList(entries);
+      this.position = position;
+    }
+
+    public List<byte[]> getEntries() {
+      return entries;
+    }
+
+    public boolean isEmpty() {
+      return entries.isEmpty();
+    }
+  }
+
+  private static class Position {
+
+    private final long segment;
+
+    private final long offset;
+
+    private Position(long segment, long offset) {
+      this.segment = segment;
+      this.offset = offset;
+    }
+
+    private static Position parse(byte[] cursor) {
+      String[] parts = new String(cursor, StandardCharsets.UTF_8).split(" ");
+      return new Position(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    @Override
+    public String toString() {
+      return segment + " " + offset;
+    }
+  }
+}
@@ -13,26 +13,48 @@
  */
 package ddf.camel.component.catalog;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.camel.component.catalog.ingest.PostIngestConsumer;
+import ddf.camel.component.catalog.ingest.PostIngestConsumerMBean;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+import ddf.catalog.operation.impl.CreateResponseImpl;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
 import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 
 public class PostIngestConsumerTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private CatalogEndpoint mockEndpoint = mock(CatalogEndpoint.class);
 
   private Processor mockProcessor = mock(Processor.class);
@@ -55,8 +77,13 @@ public class PostIngestConsumerTest {
 
   private PostIngestConsumer postIngestConsumer;
 
+  private String ddfData;
+
   @Before
   public void setUp() {
+    ddfData = System.getProperty("ddf.data");
+    System.setProperty("ddf.data", temporaryFolder.getRoot().getAbsolutePath());
+
     when(mockEndpoint.getComponent()).thenReturn(mockCatalogComponent);
     when(mockCatalogComponent.getBundleContext()).thenReturn(mockBundleContext);
     when(mockEndpoint
@@ -69,6 +96,16 @@ public void setUp() {
     postIngestConsumer = new PostIngestConsumer(mockEndpoint, mockProcessor);
   }
 
+  @After
+  public void tearDown() throws Exception {
+    postIngestConsumer.stop();
+    if (ddfData == null) {
+      System.clearProperty("ddf.data");
+    } else {
+      System.setProperty("ddf.data", ddfData);
+    }
+  }
+
   @Test
   public void testCreate() throws Exception {
     postIngestConsumer.process(mockCreateResponse);
@@ -86,4 +123,116 @@ public void testDelete() throws Exception {
     postIngestConsumer.process(mockDeleteResponse);
     verify(mockProcessor, timeout(5000).atLeastOnce()).process(any());
   }
+
+  @Test
+  public void testJournaledCreate() throws Exception {
+    when(mockEndpoint.getJournal()).thenReturn("test");
+    postIngestConsumer.start();
+
+    postIngestConsumer.process(createResponse("id"));
+
+    ArgumentCaptor<Object> body = ArgumentCaptor.forClass(Object.class);
+    verify(mockMessage, timeout(5000)).setBody(body.capture());
+    List<Metacard> created = ((CreateResponse) body.getValue()).getCreatedMetacards();
+    assertThat(created.get(0).getId(), is("id"));
+    verify(mockMessage, timeout(5000))
+        .setHeader(PostIngestConsumer.ACTION, PostIngestConsumer.CREATE);
+    verify(mockProcessor, timeout(5000)).process(any());
+  }
+
+  @Test
+  public void testJournaledCreateIsRetried() throws Exception {
+    when(mockEndpoint.getJournal()).thenReturn("test");
+    doThrow(new IllegalStateException()).doNothing().when(mockProcessor).process(any());
+    postIngestConsumer.start();
+
+    postIngestConsumer.process(createResponse("id"));
+
+    verify(mockProcessor, timeout(5000).times(2)).process(any());
+  }
+
+  @Test
+  public void testUnprocessedJournaledCreateIsProcessedAfterRestart() throws Exception {
+    when(mockEndpoint.getJournal()).thenReturn("test");
+    postIngestConsumer.start();
+    doThrow(new IllegalStateException()).when(mockProcessor).process(any());
+    postIngestConsumer.process(createResponse("id"));
+    verify(mockProcessor, timeout(5000)).process(any());
+    postIngestConsumer.stop();
+
+    doNothing().when(mockProcessor).process(any());
+    PostIngestConsumer restartedConsumer = new PostIngestConsumer(mockEndpoint, mockProcessor);
+    restartedConsumer.start();
+    try {
+      verify(mockProcessor, timeout(5000).times(2)).process(any());
+    } finally {
+      restartedConsumer.stop();
+    }
+  }
+
+  @Test
+  public void testJournaledCreateIsRetriedUntilProcessed() throws Exception {
+    when(mockEndpoint.getJournal()).thenReturn("test");
+    doThrow(new IllegalStateException())
+        .doThrow(new IllegalStateException())
+        .doThrow(new IllegalStateException())
+        .doThrow(new IllegalStateException())
+        .doNothing()
+        .when(mockProcessor)
+        .process(any());
+    postIngestConsumer.start();
+
+    postIngestConsumer.process(createResponse("id"));
+
+    verify(mockProcessor, timeout(10000).times(5)).process(any());
+    await(() -> postIngestConsumer.getPendingCount() == 0);
+    assertThat(postIngestConsumer.getFailedDeliveryCount(), is(4L));
+  }
+
+  @Test
+  public void testJournaledCreatesAreProcessedByWorkers() throws Exception {
+    when(mockEndpoint.getJournal()).thenReturn("test");
+    when(mockEndpoint.getJournalWorkers()).thenReturn(4);
+    postIngestConsumer.start();
+
+    for (int i = 0; i < 20; i++) {
+      postIngestConsumer.process(createResponse("id" + i));
+    }
+
+    verify(mockProcessor, timeout(5000).times(20)).process(any());
+    await(() -> postIngestConsumer.getPendingCount() == 0);
+  }
+
+  @Test
+  public void testPendingCountIsPublishedAsAnMBean() throws Exception {
+    when(mockEndpoint.getEndpointUri()).thenReturn("catalog:postingest?journal=test");
+    when(mockEndpoint.getJournal()).thenReturn("test");
+    postIngestConsumer.start();
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName =
+        new ObjectName(
+            PostIngestConsumerMBean.OBJECT_NAME
+                + ",endpoint="
+                + ObjectName.quote("catalog:postingest?journal=test"));
+
+    assertThat(mBeanServer.getAttribute(objectName, "PendingCount"), is(0L));
+
+    postIngestConsumer.stop();
+    assertThat(mBeanServer.isRegistered(objectName), is(false));
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertThat(System.currentTimeMillis() < deadline, is(true));
+      Thread.sleep(10);
+    }
+  }
+
+  private static CreateResponse createResponse(String id) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId(id);
+    List<Metacard> metacards = Collections.singletonList(metacard);
+    return new CreateResponseImpl(new CreateRequestImpl(metacards), new HashMap<>(), metacards);
+  }
 }
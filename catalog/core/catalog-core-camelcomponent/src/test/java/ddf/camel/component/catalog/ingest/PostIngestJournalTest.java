@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.camel.component.catalog.ingest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PostIngestJournalTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+
+  @Before
+  public void setUp() {
+    directory = temporaryFolder.getRoot().toPath().resolve("journal");
+  }
+
+  @Test
+  public void readsEntriesInBatches() throws Exception {
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 2)) {
+      append(journal, "a", "b", "c", "d", "e");
+
+      assertThat(toStrings(journal.read(3)), contains("a", "b", "c"));
+      assertThat(toStrings(journal.read(3)), contains("d", "e"));
+      assertThat(journal.read(3).isEmpty(), is(true));
+      assertThat(journal.getPendingCount(), is(5L));
+    }
+  }
+
+  @Test
+  public void unacknowledgedEntriesAreReadAfterReopening() throws Exception {
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 2)) {
+      append(journal, "a", "b", "c");
+      journal.acknowledge(journal.read(1));
+      journal.read(2);
+    }
+
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 2)) {
+      assertThat(journal.getPendingCount(), is(2L));
+      append(journal, "d");
+
+      assertThat(toStrings(journal.read(10)), contains("b", "c", "d"));
+    }
+  }
+
+  @Test
+  public void acknowledgedSegmentsAreDeleted() throws Exception {
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 2)) {
+      append(journal, "a", "b", "c", "d", "e");
+      journal.acknowledge(journal.read(4));
+
+      assertThat(
+          segments(),
+          contains("segment-0000000000000000001.log", "segment-0000000000000000002.log"));
+      assertThat(journal.getPendingCount(), is(1L));
+
+      journal.acknowledge(journal.read(4));
+      assertThat(journal.getPendingCount(), is(0L));
+    }
+
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 2)) {
+      assertThat(journal.read(10).getEntries(), is(empty()));
+      assertThat(journal.getPendingCount(), is(0L));
+    }
+  }
+
+  @Test
+  public void entryCutOffByCrashIsSkipped() throws Exception {
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      append(journal, "a");
+    }
+    Files.write(
+        directory.resolve("segment-0000000000000000000.log"),
+        new byte[] {0, 0, 0, 5, 'x'},
+        StandardOpenOption.APPEND);
+
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      append(journal, "b");
+
+      assertThat(toStrings(journal.read(10)), contains("a", "b"));
+    }
+  }
+
+  @Test
+  public void segmentIsTruncatedAtCorruptedEntry() throws Exception {
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      append(journal, "a", "b", "c");
+    }
+    Path segment = directory.resolve("segment-0000000000000000000.log");
+    byte[] content = Files.readAllBytes(segment);
+    // the content of the second entry follows the first entry and its own header
+    content[2 * 9 - 1] = 'x';
+    Files.write(segment, content);
+
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      assertThat(journal.getPendingCount(), is(1L));
+      assertThat(Files.size(segment), is(9L));
+      append(journal, "d");
+
+      assertThat(toStrings(journal.read(10)), contains("a", "d"));
+    }
+  }
+
+  @Test
+  public void entryWithImpossibleLengthIsSkipped() throws Exception {
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      append(journal, "a");
+    }
+    Files.write(
+        directory.resolve("segment-0000000000000000000.log"),
+        new byte[] {0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0, 0, 0, 0, 'x'},
+        StandardOpenOption.APPEND);
+
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      assertThat(toStrings(journal.read(10)), contains("a"));
+    }
+  }
+
+  @Test
+  public void pendingEntriesAreFoundWithoutOpeningTheJournal() throws Exception {
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      append(journal, "a", "b");
+      journal.acknowledge(journal.read(1));
+    }
+    assertThat(PostIngestJournal.hasPendingEntries(directory), is(true));
+
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      journal.acknowledge(journal.read(10));
+    }
+    assertThat(PostIngestJournal.hasPendingEntries(directory), is(false));
+  }
+
+  @Test(timeout = 5000)
+  public void awaitReturnsWhenEntryIsAppended() throws Exception {
+    try (PostIngestJournal journal = new PostIngestJournal(directory, 10)) {
+      Thread appender =
+          new Thread(
+              () -> {
+                try {
+                  Thread.sleep(100);
+                  append(journal, "a");
+                } catch (Exception e) {
+                  throw new IllegalStateException(e);
+                }
+              });
+      appender.start();
+
+      journal.awaitEntries(1, TimeUnit.MINUTES);
+
+      assertThat(toStrings(journal.read(10)), contains("a"));
+    }
+  }
+
+  private static void append(PostIngestJournal journal, String... entries) throws IOException {
+    for (String entry : entries) {
+      journal.append(entry.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private static List<String> toStrings(PostIngestJournal.Batch batch) {
+    return batch
+        .getEntries()
+        .stream()
+        .map(entry -> new String(entry, StandardCharsets.UTF_8))
+        .collect(Collectors.toList());
+  }
+
+  private List<String> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .map(file -> file.getFileName().toString())
+          .filter(name -> name.startsWith("segment-"))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -41,6 +41,8 @@ public abstract class AbstractDurableFileConsumer extends GenericFileConsumer<Fi
 
   protected ObjectPersistentStore jsonSerializer;
 
+  protected AsyncFileEntryStore entryStore;
+
   private String remaining;
 
   AbstractDurableFileConsumer(
@@ -141,15 +143,15 @@ String getMetacardIdFromReference(
       String catalogOperation,
       FileSystemPersistenceProvider productToMetacardIdMap) {
     String ref = getShaFor(referenceKey);
-    if (!productToMetacardIdMap.loadAllKeys().contains(ref)) {
+    String metacardId = (String) productToMetacardIdMap.loadFromPersistence(ref);
+    if (metacardId == null) {
       LOGGER.debug(
           "Received a [{}] operation, but no mapped metacardIds were available for product [{}].",
           catalogOperation,
           referenceKey);
-      return null;
     }
 
-    return (String) productToMetacardIdMap.loadFromPersistence(ref);
+    return metacardId;
   }
 
   private String getShaFor(String value) {
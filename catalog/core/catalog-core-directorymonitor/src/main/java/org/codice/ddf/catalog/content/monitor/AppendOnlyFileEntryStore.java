@@ -0,0 +1,353 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.monitor;
+
+import static ddf.catalog.Constants.CDM_LOGGER_NAME;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.codice.ddf.configuration.AbsolutePathResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link AsyncFileEntryStore} backed by an append-only log file. Every {@link #put(AsyncFileEntry)}
+ * and {@link #remove(AsyncFileEntry)} appends a single checksummed record containing the path, size
+ * and modification time of the entry, so committing a file costs the same regardless of the size of
+ * the monitored directory.
+ *
+ * <p>On {@link #load(File)} the log is replayed; a truncated or corrupt tail (e.g. from a crash in
+ * the middle of a write) is discarded. The log is compacted into one record per live entry once
+ * superseded records outnumber live ones.
+ *
+ * <p>{@link #flush()} forces the appended records to disk. If a record could not be appended, the
+ * next flush rewrites the whole log from the records held in memory instead.
+ */
+public class AppendOnlyFileEntryStore implements AsyncFileEntryStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CDM_LOGGER_NAME);
+
+  private static final String LOG_FILE_SUFFIX = ".log";
+
+  private static final String COMPACTION_FILE_SUFFIX = ".compact";
+
+  private static final byte PUT = 1;
+
+  private static final byte REMOVE = 2;
+
+  private static final int MIN_RECORDS_BEFORE_COMPACTION = 1024;
+
+  //  Paths are written with writeUTF, so a valid record can never be larger than this
+  private static final int MAX_RECORD_LENGTH = 1 + 2 + 65535 + 2 + 2 * Long.BYTES;
+
+  private final Path logFile;
+
+  private final Map<String, Record> records = new HashMap<>();
+
+  private FileOutputStream outputFile;
+
+  private DataOutputStream output;
+
+  private long appendedRecords = 0;
+
+  private boolean appendFailed = false;
+
+  public AppendOnlyFileEntryStore(String mapName, File observedFile) {
+    this(
+        Paths.get(new AbsolutePathResolver("data").getPath(), mapName)
+            .resolve(DigestUtils.sha1Hex(observedFile.getPath()) + LOG_FILE_SUFFIX));
+  }
+
+  @VisibleForTesting
+  AppendOnlyFileEntryStore(Path logFile) {
+    this.logFile = logFile;
+  }
+
+  @Override
+  public synchronized void put(AsyncFileEntry entry) {
+    Record record =
+        new Record(entry.exists(), entry.isDirectory(), entry.getLastModified(), entry.getLength());
+    records.put(entry.getFile().getPath(), record);
+    append(PUT, entry.getFile().getPath(), record);
+  }
+
+  @Override
+  public synchronized void remove(AsyncFileEntry entry) {
+    if (records.remove(entry.getFile().getPath()) != null) {
+      append(REMOVE, entry.getFile().getPath(), null);
+    }
+  }
+
+  @Nullable
+  @Override
+  public synchronized AsyncFileEntry load(File root) {
+    replay();
+
+    Record rootRecord = records.get(root.getPath());
+    if (rootRecord == null) {
+      return null;
+    }
+
+    //  Parents always sort before their children, so each parent is built before it is needed
+    Map<String, AsyncFileEntry> entries = new HashMap<>();
+    for (Map.Entry<String, Record> stored : new TreeMap<>(records).entrySet()) {
+      File file = new File(stored.getKey());
+      AsyncFileEntry parent = null;
+      if (!stored.getKey().equals(root.getPath())) {
+        parent = file.getParent() == null ? null : entries.get(file.getParent());
+        if (parent == null) {
+          LOGGER.debug("No parent was stored for [{}], skipping it.", file);
+          continue;
+        }
+      }
+
+      Record record = stored.getValue();
+      AsyncFileEntry entry =
+          new AsyncFileEntry(
+              parent, file, record.exists, record.directory, record.lastModified, record.length);
+      if (parent != null) {
+        parent.addChild(entry);
+      }
+      entries.put(stored.getKey(), entry);
+    }
+
+    return entries.get(root.getPath());
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+    if (appendFailed
+        || (appendedRecords > MIN_RECORDS_BEFORE_COMPACTION
+            && appendedRecords > 2L * records.size())) {
+      compact();
+      appendFailed = false;
+      return;
+    }
+
+    if (output == null) {
+      return;
+    }
+
+    try {
+      output.flush();
+      outputFile.getFD().sync();
+    } catch (IOException e) {
+      closeOutput();
+      appendFailed = true;
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      flush();
+    } catch (IOException e) {
+      LOGGER.info("Unable to write the file entry log [{}] while closing it", logFile, e);
+    }
+    closeOutput();
+  }
+
+  @VisibleForTesting
+  long getAppendedRecords() {
+    return appendedRecords;
+  }
+
+  private void append(byte operation, String path, @Nullable Record record) {
+    try {
+      if (output == null) {
+        openOutput();
+      }
+      writeRecord(output, operation, path, record);
+      appendedRecords++;
+    } catch (IOException e) {
+      LOGGER.debug("Unable to write the record for [{}] to [{}]", path, logFile, e);
+      closeOutput();
+      appendFailed = true;
+    }
+  }
+
+  private void openOutput() throws IOException {
+    Files.createDirectories(logFile.getParent());
+    outputFile = new FileOutputStream(logFile.toFile(), true);
+    output = new DataOutputStream(new BufferedOutputStream(outputFile));
+  }
+
+  private void closeOutput() {
+    IOUtils.closeQuietly(output);
+    IOUtils.closeQuietly(outputFile);
+    output = null;
+    outputFile = null;
+  }
+
+  /**
+   * Reads every valid record from the log into memory. Anything after the first invalid record is
+   * truncated so that new records are never appended behind garbage.
+   */
+  private void replay() {
+    closeOutput();
+    records.clear();
+    appendedRecords = 0;
+    appendFailed = false;
+
+    if (!logFile.toFile().exists()) {
+      return;
+    }
+
+    long validLength = 0;
+    try (InputStream fileStream = new FileInputStream(logFile.toFile());
+        DataInputStream input = new DataInputStream(new BufferedInputStream(fileStream))) {
+      while (true) {
+        int length = input.readInt();
+        if (length <= 0 || length > MAX_RECORD_LENGTH) {
+          break;
+        }
+        byte[] body = new byte[length];
+        input.readFully(body);
+        if (checksum(body) != input.readLong()) {
+          LOGGER.debug("Found a corrupt record in [{}], ignoring the rest of the log", logFile);
+          break;
+        }
+        readRecord(body);
+        appendedRecords++;
+        validLength += Integer.BYTES + length + Long.BYTES;
+      }
+    } catch (EOFException e) {
+      LOGGER.trace("Reached the end of [{}]", logFile);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to read the file entry log [{}]", logFile, e);
+    }
+
+    truncate(validLength);
+  }
+
+  private void readRecord(byte[] body) throws IOException {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(body))) {
+      byte operation = input.readByte();
+      String path = input.readUTF();
+      if (operation == PUT) {
+        records.put(
+            path,
+            new Record(
+                input.readBoolean(), input.readBoolean(), input.readLong(), input.readLong()));
+      } else {
+        records.remove(path);
+      }
+    }
+  }
+
+  private void truncate(long validLength) {
+    try (RandomAccessFile file = new RandomAccessFile(logFile.toFile(), "rw")) {
+      if (file.length() > validLength) {
+        LOGGER.debug(
+            "Discarding {} bytes from the end of [{}]", file.length() - validLength, logFile);
+        file.setLength(validLength);
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Unable to truncate the file entry log [{}]", logFile, e);
+    }
+  }
+
+  /**
+   * Rewrites the log with a single record per live entry, forces it to disk and atomically replaces
+   * the old log with it.
+   */
+  private void compact() throws IOException {
+    closeOutput();
+
+    Files.createDirectories(logFile.getParent());
+    Path compacted = logFile.resolveSibling(logFile.getFileName() + COMPACTION_FILE_SUFFIX);
+    try (FileOutputStream compactFile = new FileOutputStream(compacted.toFile());
+        DataOutputStream compactOutput =
+            new DataOutputStream(new BufferedOutputStream(compactFile))) {
+      for (Map.Entry<String, Record> entry : records.entrySet()) {
+        writeRecord(compactOutput, PUT, entry.getKey(), entry.getValue());
+      }
+      compactOutput.flush();
+      compactFile.getFD().sync();
+    }
+    Files.move(
+        compacted, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    LOGGER.debug("Compacted [{}] from {} to {} records", logFile, appendedRecords, records.size());
+    appendedRecords = records.size();
+  }
+
+  private static void writeRecord(
+      DataOutputStream output, byte operation, String path, @Nullable Record record)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream body = new DataOutputStream(bytes)) {
+      body.writeByte(operation);
+      body.writeUTF(path);
+      if (record != null) {
+        body.writeBoolean(record.exists);
+        body.writeBoolean(record.directory);
+        body.writeLong(record.lastModified);
+        body.writeLong(record.length);
+      }
+    }
+
+    byte[] buffer = bytes.toByteArray();
+    output.writeInt(buffer.length);
+    output.write(buffer);
+    output.writeLong(checksum(buffer));
+  }
+
+  private static long checksum(byte[] buffer) {
+    CRC32 crc = new CRC32();
+    crc.update(buffer, 0, buffer.length);
+    return crc.getValue();
+  }
+
+  private static class Record {
+
+    private final boolean exists;
+
+    private final boolean directory;
+
+    private final long lastModified;
+
+    private final long length;
+
+    private Record(boolean exists, boolean directory, long lastModified, long length) {
+      this.exists = exists;
+      this.directory = directory;
+      this.lastModified = lastModified;
+      this.length = length;
+    }
+  }
+}
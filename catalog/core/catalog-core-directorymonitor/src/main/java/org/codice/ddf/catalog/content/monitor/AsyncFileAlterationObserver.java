@@ -17,6 +17,7 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
@@ -64,7 +65,8 @@ public class AsyncFileAlterationObserver {
   private AsyncFileAlterationListener listener = null;
   private final Set<AsyncFileEntry> processing = ConcurrentHashMap.newKeySet();
   private final Object listenerLock = new Object();
-  private final ObjectPersistentStore serializer;
+  @Nullable private final ObjectPersistentStore serializer;
+  @Nullable private final AsyncFileEntryStore entryStore;
   private final Object processingLock = new Object();
 
   private Timer timer;
@@ -76,16 +78,21 @@ public AsyncFileAlterationObserver(File fileToObserve, ObjectPersistentStore ser
       throw new IllegalArgumentException("Arguments can not be null");
     }
     this.serializer = serializer;
+    this.entryStore = null;
     rootFile = new AsyncFileEntry(fileToObserve);
   }
 
-  private AsyncFileAlterationObserver(AsyncFileEntry entry, ObjectPersistentStore serializer) {
+  private AsyncFileAlterationObserver(
+      AsyncFileEntry entry,
+      @Nullable ObjectPersistentStore serializer,
+      @Nullable AsyncFileEntryStore entryStore) {
     if (entry == null) {
       throw new IllegalArgumentException("Arguments can not be null");
     }
     rootFile = entry;
     rootFile.initialize();
     this.serializer = serializer;
+    this.entryStore = entryStore;
   }
 
   /**
@@ -103,7 +110,65 @@ private AsyncFileAlterationObserver(AsyncFileEntry entry, ObjectPersistentStore
     if (temp == null) {
       return null;
     }
-    return new AsyncFileAlterationObserver(temp, store);
+    return new AsyncFileAlterationObserver(temp, store, null);
+  }
+
+  /**
+   * Creates an observer that records each committed file individually in {@code entryStore} instead
+   * of serializing the whole snapshot tree after every batch.
+   *
+   * @param fileToObserve
+   * @param entryStore
+   * @return a new AsyncFileAlterationObserver that has not been initialized yet
+   */
+  public static AsyncFileAlterationObserver create(
+      File fileToObserve, AsyncFileEntryStore entryStore) {
+    if (fileToObserve == null || entryStore == null) {
+      throw new IllegalArgumentException("Arguments can not be null");
+    }
+    AsyncFileEntry root = new AsyncFileEntry(fileToObserve);
+    entryStore.put(root);
+    return new AsyncFileAlterationObserver(root, null, entryStore);
+  }
+
+  /**
+   * @param observedFile
+   * @param entryStore
+   * @return returns a AsyncFileAlterationObserver if {@code observedFile} has entries recorded in
+   *     the {@link AsyncFileEntryStore} Otherwise returns {@code null}
+   */
+  public static @Nullable AsyncFileAlterationObserver restore(
+      File observedFile, AsyncFileEntryStore entryStore) {
+    if (observedFile == null || entryStore == null) {
+      throw new IllegalArgumentException("Arguments can not be null");
+    }
+    AsyncFileEntry temp = entryStore.load(observedFile);
+    if (temp == null) {
+      return null;
+    }
+    return new AsyncFileAlterationObserver(temp, null, entryStore);
+  }
+
+  /**
+   * Creates an observer recording to {@code entryStore} from a snapshot tree loaded through the
+   * legacy {@link ObjectPersistentStore}. Every entry of the tree is copied into {@code
+   * entryStore}.
+   *
+   * @return the migrated observer, or {@code null} if nothing was stored in {@code store}
+   */
+  public static @Nullable AsyncFileAlterationObserver migrate(
+      File observedFile, ObjectPersistentStore store, AsyncFileEntryStore entryStore) {
+    if (observedFile == null || store == null || entryStore == null) {
+      throw new IllegalArgumentException("Arguments can not be null");
+    }
+    AsyncFileEntry temp = store.load(observedFile.getName(), AsyncFileEntry.class);
+    if (temp == null) {
+      return null;
+    }
+    AsyncFileAlterationObserver migrated = new AsyncFileAlterationObserver(temp, null, entryStore);
+    migrated.storeAll(temp);
+    migrated.flushEntryStore();
+    return migrated;
   }
 
   /**
@@ -114,7 +179,18 @@ private AsyncFileAlterationObserver(AsyncFileEntry entry, ObjectPersistentStore
    */
   public void initialize() throws IllegalStateException {
     initChildEntries(rootFile);
-    serializer.store(rootFile.getName(), rootFile);
+    if (entryStore != null) {
+      storeAll(rootFile);
+      try {
+        entryStore.flush();
+      } catch (IOException e) {
+        LOGGER.debug("Error while storing the entries of [{}]", rootFile.getName(), e);
+        throw new IllegalStateException("Failed to initialize the FileObserver");
+      }
+    }
+    if (serializer != null) {
+      serializer.store(rootFile.getName(), rootFile);
+    }
   }
 
   /**
@@ -132,6 +208,10 @@ public void initializePeriodicLogging() {
   public void destroy() {
     rootFile.destroy();
 
+    if (entryStore != null) {
+      entryStore.close();
+    }
+
     if (timer != null) {
       timer.cancel();
       timer.purge();
@@ -238,6 +318,9 @@ private void commitCreate(AsyncFileEntry entry, boolean success) {
       if (success) {
         entry.commit();
         entry.getParent().ifPresent(e -> e.addChild(entry));
+        if (entryStore != null) {
+          entryStore.put(entry);
+        }
         LOGGER.debug(
             "File {} committed to {}",
             entry.getName(),
@@ -283,6 +366,9 @@ private void commitMatch(AsyncFileEntry entry, boolean success) {
       if (success) {
         LOGGER.trace("commitMatch({},{}): Starting...", entry.getName(), success);
         entry.commit();
+        if (entryStore != null) {
+          entryStore.put(entry);
+        }
         LOGGER.debug("{} committed", entry.getName());
       } else {
         LOGGER.debug("Match task failed for {}", entry.getName());
@@ -326,6 +412,9 @@ private void commitDelete(AsyncFileEntry entry, boolean success) {
       if (success) {
         entry.getParent().ifPresent(e -> e.removeChild(entry));
         entry.destroy();
+        if (entryStore != null) {
+          entryStore.remove(entry);
+        }
         LOGGER.debug(
             "{} was removed from {}",
             entry.getName(),
@@ -414,12 +503,35 @@ private void initChildEntries(AsyncFileEntry parent) throws IllegalStateExceptio
     }
   }
 
+  private void storeAll(AsyncFileEntry entry) {
+    entryStore.put(entry);
+    for (AsyncFileEntry child : entry.getChildren()) {
+      storeAll(child);
+    }
+  }
+
+  private void flushEntryStore() {
+    try {
+      entryStore.flush();
+    } catch (IOException e) {
+      LOGGER.info(
+          "Unable to store the processed files of [{}], they may be processed again after a restart.",
+          rootFile.getName(),
+          e);
+    }
+  }
+
   private void onFinish(AsyncFileEntry entry) {
     synchronized (processingLock) {
       processing.remove(entry);
       if (processing.isEmpty()) {
         LOGGER.debug("All files finished processing");
-        serializer.store(rootFile.getName(), rootFile);
+        if (entryStore != null) {
+          flushEntryStore();
+        }
+        if (serializer != null) {
+          serializer.store(rootFile.getName(), rootFile);
+        }
         isProcessing = false;
       }
     }
@@ -61,6 +61,27 @@ public AsyncFileEntry(@Nullable AsyncFileEntry parent, File file) {
     refresh();
   }
 
+  /**
+   * Recreates an entry from a previously committed meta-snapshot without touching the file system.
+   *
+   * @see AsyncFileEntryStore
+   */
+  AsyncFileEntry(
+      @Nullable AsyncFileEntry parent,
+      File file,
+      boolean exists,
+      boolean directory,
+      long lastModified,
+      long length) {
+    this.parent = parent;
+    this.contentFile = file;
+    this.name = file.getName();
+    this.exists = exists;
+    this.directory = directory;
+    this.lastModified = lastModified;
+    this.length = length;
+  }
+
   //  For GSON deserialization
   private AsyncFileEntry() {
     contentFile = null;
@@ -96,6 +117,18 @@ public boolean isDirectory() {
     return directory;
   }
 
+  boolean exists() {
+    return exists;
+  }
+
+  long getLastModified() {
+    return lastModified;
+  }
+
+  long getLength() {
+    return length;
+  }
+
   public Optional<AsyncFileEntry> getParent() {
     return Optional.ofNullable(parent);
   }
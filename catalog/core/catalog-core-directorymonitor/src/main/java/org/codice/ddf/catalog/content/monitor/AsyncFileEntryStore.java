@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.monitor;
+
+import java.io.File;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * Persistent store holding one record per committed {@link AsyncFileEntry}, keyed by the entry's
+ * path. Unlike {@link ObjectPersistentStore}, which rewrites the whole entry tree, committing a
+ * single file only writes that file's record.
+ *
+ * @implNote Implementations must be safe to call from multiple threads, since entries are committed
+ *     from asynchronous exchange callbacks.
+ */
+public interface AsyncFileEntryStore {
+
+  /**
+   * Records the current meta-snapshot of {@code entry}, replacing any previous record for the same
+   * path.
+   *
+   * @param entry the committed entry
+   */
+  void put(AsyncFileEntry entry);
+
+  /**
+   * Removes the record of {@code entry}, if there is one.
+   *
+   * @param entry the deleted entry
+   */
+  void remove(AsyncFileEntry entry);
+
+  /**
+   * Rebuilds the entry tree rooted at {@code root} from the stored records.
+   *
+   * @param root the observed file
+   * @return the root entry, or {@code null} if nothing has been stored for {@code root}
+   */
+  @Nullable
+  AsyncFileEntry load(File root);
+
+  /**
+   * Makes all previously recorded changes durable.
+   *
+   * @throws IOException if the changes could not be written to disk
+   */
+  void flush() throws IOException;
+
+  /** Releases any resources held by the store. */
+  void close();
+}
@@ -152,16 +152,17 @@ private String getMetacardIdFromReference(
       String referenceKey,
       String catalogOperation,
       FileSystemPersistenceProvider productToMetacardIdMap) {
+    //  Looking up the single key avoids listing every mapping on each change
     String ref = DigestUtils.sha1Hex(referenceKey);
-    if (!productToMetacardIdMap.loadAllKeys().contains(ref)) {
+    String metacardId = (String) productToMetacardIdMap.loadFromPersistence(ref);
+    if (metacardId == null) {
       LOGGER.debug(
           "Received a [{}] operation, but no mapped metacardIds were available for product [{}].",
           catalogOperation,
           referenceKey);
-      return null;
     }
 
-    return (String) productToMetacardIdMap.loadFromPersistence(ref);
+    return metacardId;
   }
 
   /**
@@ -64,15 +64,25 @@ protected void initialize(String fileName) {
       jsonSerializer = new JsonPersistantStore(getClass().getSimpleName());
     }
 
+    if (entryStore == null && fileName != null) {
+      entryStore =
+          new AppendOnlyFileEntryStore(getClass().getSimpleName() + "-entries", new File(fileName));
+    }
+
     if (observer == null && fileName != null) {
 
-      observer = AsyncFileAlterationObserver.load(new File(fileName), jsonSerializer);
+      observer = AsyncFileAlterationObserver.restore(new File(fileName), entryStore);
 
       //  Backwards Compatibility
+      if (observer == null) {
+        observer =
+            AsyncFileAlterationObserver.migrate(new File(fileName), jsonSerializer, entryStore);
+      }
+
       if (observer == null && isOldVersion(fileName)) {
         observer = backwardsCompatibility(fileName);
       } else if (observer == null) {
-        observer = new AsyncFileAlterationObserver(new File(fileName), jsonSerializer);
+        observer = AsyncFileAlterationObserver.create(new File(fileName), entryStore);
         observer.initializePeriodicLogging();
       }
     }
@@ -87,7 +97,7 @@ private AsyncFileAlterationObserver backwardsCompatibility(String fileName) {
 
     String sha1 = DigestUtils.sha1Hex(fileName);
     AsyncFileAlterationObserver newObserver =
-        new AsyncFileAlterationObserver(new File(fileName), jsonSerializer);
+        AsyncFileAlterationObserver.create(new File(fileName), entryStore);
     FileAlterationObserver oldObserver =
         (FileAlterationObserver) fileSystemPersistenceProvider.loadFromPersistence(sha1);
 
@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.content.monitor;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AppendOnlyFileEntryStoreTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File monitoredDirectory;
+
+  private Path logFile;
+
+  private AppendOnlyFileEntryStore store;
+
+  @Before
+  public void setup() throws IOException {
+    monitoredDirectory = temporaryFolder.newFolder("inbox");
+    logFile = temporaryFolder.getRoot().toPath().resolve("store").resolve("entries.log");
+    store = new AppendOnlyFileEntryStore(logFile);
+  }
+
+  @Test
+  public void testLoadWithNothingStored() {
+    assertThat(store.load(monitoredDirectory), is(nullValue()));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    File child = createFile(monitoredDirectory, "child.txt", "duck");
+    File directory = new File(monitoredDirectory, "dir");
+    assertThat(directory.mkdir(), is(true));
+    File grandchild = createFile(directory, "grandchild.txt", "goose");
+
+    AsyncFileEntry root = new AsyncFileEntry(monitoredDirectory);
+    AsyncFileEntry childEntry = new AsyncFileEntry(root, child);
+    AsyncFileEntry directoryEntry = new AsyncFileEntry(root, directory);
+    AsyncFileEntry grandchildEntry = new AsyncFileEntry(directoryEntry, grandchild);
+
+    store.put(root);
+    store.put(childEntry);
+    store.put(directoryEntry);
+    store.put(grandchildEntry);
+    store.close();
+
+    AsyncFileEntry loaded = new AppendOnlyFileEntryStore(logFile).load(monitoredDirectory);
+
+    assertThat(loaded, is(notNullValue()));
+    assertThat(loaded.getChildren().size(), is(2));
+    assertThat(loaded.getChildren().get(0).getFile(), is(child));
+    assertThat(loaded.getChildren().get(0).hasChanged(), is(false));
+    assertThat(loaded.getChildren().get(1).getChildren().get(0).getFile(), is(grandchild));
+    assertThat(
+        loaded.getChildren().get(1).getChildren().get(0).getParent().get().getFile(),
+        is(directory));
+  }
+
+  @Test
+  public void testLoadedEntryDetectsChange() throws IOException {
+    File child = createFile(monitoredDirectory, "child.txt", "duck");
+    AsyncFileEntry root = new AsyncFileEntry(monitoredDirectory);
+    store.put(root);
+    store.put(new AsyncFileEntry(root, child));
+    store.close();
+
+    FileUtils.writeStringToFile(child, "a much longer duck", StandardCharsets.UTF_8);
+
+    AsyncFileEntry loaded = new AppendOnlyFileEntryStore(logFile).load(monitoredDirectory);
+    assertThat(loaded.getChildren().get(0).hasChanged(), is(true));
+  }
+
+  @Test
+  public void testRemove() throws IOException {
+    File child = createFile(monitoredDirectory, "child.txt", "duck");
+    AsyncFileEntry root = new AsyncFileEntry(monitoredDirectory);
+    AsyncFileEntry childEntry = new AsyncFileEntry(root, child);
+    store.put(root);
+    store.put(childEntry);
+    store.remove(childEntry);
+    store.close();
+
+    AsyncFileEntry loaded = new AppendOnlyFileEntryStore(logFile).load(monitoredDirectory);
+    assertThat(loaded.hasChildren(), is(false));
+  }
+
+  @Test
+  public void testCorruptTailIsDiscarded() throws IOException {
+    File child = createFile(monitoredDirectory, "child.txt", "duck");
+    AsyncFileEntry root = new AsyncFileEntry(monitoredDirectory);
+    store.put(root);
+    store.put(new AsyncFileEntry(root, child));
+    store.close();
+
+    try (OutputStream output = new FileOutputStream(logFile.toFile(), true)) {
+      output.write(new byte[] {0, 0, 0, 42, 1, 2, 3});
+    }
+    long corruptLength = logFile.toFile().length();
+
+    AppendOnlyFileEntryStore reopened = new AppendOnlyFileEntryStore(logFile);
+    AsyncFileEntry loaded = reopened.load(monitoredDirectory);
+
+    assertThat(loaded.getChildren().size(), is(1));
+    assertThat(logFile.toFile().length(), lessThan(corruptLength));
+  }
+
+  @Test
+  public void testCompaction() throws IOException {
+    File child = createFile(monitoredDirectory, "child.txt", "duck");
+    AsyncFileEntry root = new AsyncFileEntry(monitoredDirectory);
+    AsyncFileEntry childEntry = new AsyncFileEntry(root, child);
+    store.put(root);
+    for (int i = 0; i < 2000; i++) {
+      store.put(childEntry);
+    }
+    store.flush();
+
+    assertThat(store.getAppendedRecords(), is(2L));
+
+    store.close();
+    AsyncFileEntry loaded = new AppendOnlyFileEntryStore(logFile).load(monitoredDirectory);
+    assertThat(loaded.getChildren().size(), is(1));
+  }
+
+  @Test
+  public void testFailedAppendIsReportedAndRewrittenOnFlush() throws IOException {
+    File child = createFile(monitoredDirectory, "child.txt", "duck");
+    AsyncFileEntry root = new AsyncFileEntry(monitoredDirectory);
+    AsyncFileEntry childEntry = new AsyncFileEntry(root, child);
+    File blockingFile = createFile(temporaryFolder.getRoot(), "store", "not a directory");
+    store.put(root);
+    store.put(childEntry);
+
+    try {
+      store.flush();
+      fail("Expected the failed append to be reported");
+    } catch (IOException e) {
+      assertThat(logFile.toFile().exists(), is(false));
+    }
+
+    assertThat(blockingFile.delete(), is(true));
+    store.flush();
+
+    AsyncFileEntry loaded = new AppendOnlyFileEntryStore(logFile).load(monitoredDirectory);
+    assertThat(loaded.getChildren().size(), is(1));
+  }
+
+  private File createFile(File parent, String name, String contents) throws IOException {
+    File file = new File(parent, name);
+    FileUtils.writeStringToFile(file, contents, StandardCharsets.UTF_8);
+    return file;
+  }
+}
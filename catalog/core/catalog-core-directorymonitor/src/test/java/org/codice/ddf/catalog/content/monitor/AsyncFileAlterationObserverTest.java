@@ -1200,6 +1200,34 @@ public void testJsonSerial() throws Exception {
     verify(fileListener, times(3)).onFileCreate(any(File.class), any(Synchronization.class));
   }
 
+  @Test
+  public void testEntryStoreRestore() throws Exception {
+    AsyncFileEntryStore entryStore =
+        new AppendOnlyFileEntryStore(temporaryFolder.getRoot().toPath().resolve("entries.log"));
+    observer = AsyncFileAlterationObserver.create(monitoredDirectory, entryStore);
+    observer.setListener(fileListener);
+
+    initNestedDirectory(10, 1, 0, 0);
+    observer.checkAndNotify();
+    entryStore.close();
+
+    initFiles(1, monitoredDirectory, "zz00");
+
+    AsyncFileAlterationObserver two =
+        AsyncFileAlterationObserver.restore(
+            monitoredDirectory,
+            new AppendOnlyFileEntryStore(
+                temporaryFolder.getRoot().toPath().resolve("entries.log")));
+
+    init();
+    two.setListener(fileListener);
+    two.checkAndNotify();
+
+    verify(fileListener, times(1)).onFileCreate(any(File.class), any(Synchronization.class));
+    verify(fileListener, never()).onFileChange(any(File.class), any(Synchronization.class));
+    verify(fileListener, never()).onFileDelete(any(File.class), any(Synchronization.class));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testloadNull() {
     AsyncFileAlterationObserver.load(new File("File"), null);
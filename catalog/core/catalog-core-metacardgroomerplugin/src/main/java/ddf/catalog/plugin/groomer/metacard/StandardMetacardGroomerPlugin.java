@@ -20,6 +20,7 @@
 import ddf.catalog.data.types.Core;
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.UpdateRequest;
+import ddf.catalog.plugin.ConcurrentIngestPlugin;
 import ddf.catalog.plugin.groomer.AbstractMetacardGroomerPlugin;
 import java.io.Serializable;
 import java.net.URI;
@@ -33,7 +34,8 @@
  * Applies general Create and Update grooming rules such as populating the {@link Metacard#ID},
  * {@link Metacard#MODIFIED}, and {@link Metacard#CREATED} fields.
  */
-public class StandardMetacardGroomerPlugin extends AbstractMetacardGroomerPlugin {
+public class StandardMetacardGroomerPlugin extends AbstractMetacardGroomerPlugin
+    implements ConcurrentIngestPlugin {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(StandardMetacardGroomerPlugin.class);
 
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Evicts the least recently used product first, regardless of its size. */
+public class LruEvictionPolicy implements ProductCacheEvictionPolicy {
+
+  public static final String NAME = "LRU";
+
+  // In access order, so the first key is the least recently used
+  private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  @Override
+  public void added(String key, long size) {
+    entries.put(key, size);
+  }
+
+  @Override
+  public void accessed(String key) {
+    entries.get(key);
+  }
+
+  @Override
+  public void removed(String key) {
+    entries.remove(key);
+  }
+
+  @Override
+  public String nextVictim() {
+    Iterator<String> keys = entries.keySet().iterator();
+    return keys.hasNext() ? keys.next() : null;
+  }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import ddf.catalog.resource.data.ReliableResource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A resource being written to the product cache by a download. Other requests for the same resource
+ * read the cache file as it is written, at their own pace, instead of retrieving the resource from
+ * its source again.
+ */
+public class PendingResource {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PendingResource.class);
+
+  private static final long DEFAULT_READER_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private enum State {
+    IN_PROGRESS,
+    COMPLETE,
+    FAILED
+  }
+
+  private final ReliableResource reliableResource;
+
+  private final long readerIdleTimeoutMillis;
+
+  private final Set<CacheFileInputStream> readers = ConcurrentHashMap.newKeySet();
+
+  private State state = State.IN_PROGRESS;
+
+  private long progress;
+
+  private long size;
+
+  PendingResource(ReliableResource reliableResource) {
+    this(reliableResource, DEFAULT_READER_IDLE_TIMEOUT_MILLIS);
+  }
+
+  PendingResource(ReliableResource reliableResource, long readerIdleTimeoutMillis) {
+    this.reliableResource = reliableResource;
+    this.readerIdleTimeoutMillis = readerIdleTimeoutMillis;
+  }
+
+  /** @return the resource being written to the product cache */
+  public ReliableResource getReliableResource() {
+    return reliableResource;
+  }
+
+  /**
+   * A stream returned by {@link #newInputStream()} that is open but has not been read from for a
+   * while is considered abandoned, so that a client that never closes its stream does not keep the
+   * resource being cached after its download was canceled.
+   *
+   * @return true if any stream returned by {@link #newInputStream()} is still being read
+   */
+  public boolean hasReaders() {
+    long now = System.currentTimeMillis();
+    return readers.stream().anyMatch(reader -> reader.isActive(now));
+  }
+
+  /**
+   * Returns a stream of the resource that reads the cache file as it is written. Reads block until
+   * more of the resource is written, end when the resource is completely cached, and fail if
+   * caching it fails.
+   *
+   * @return a new stream of the resource
+   */
+  public InputStream newInputStream() {
+    CacheFileInputStream reader = new CacheFileInputStream();
+    readers.add(reader);
+    return reader;
+  }
+
+  /** Wakes up the readers waiting for more of the resource to be written to the cache file. */
+  public synchronized void signalProgress() {
+    progress++;
+    notifyAll();
+  }
+
+  synchronized void complete(long size) {
+    this.size = size;
+    state = State.COMPLETE;
+    notifyAll();
+  }
+
+  synchronized void fail() {
+    if (state == State.IN_PROGRESS) {
+      state = State.FAILED;
+      notifyAll();
+    }
+  }
+
+  private synchronized State getState() {
+    return state;
+  }
+
+  private synchronized long getProgress() {
+    return progress;
+  }
+
+  private synchronized void awaitProgress(long lastProgress) throws InterruptedIOException {
+    try {
+      while (state == State.IN_PROGRESS && progress == lastProgress) {
+        wait();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the product to be cached");
+    }
+  }
+
+  private class CacheFileInputStream extends InputStream {
+
+    private InputStream input;
+
+    private long position;
+
+    private boolean closed;
+
+    private volatile boolean reading;
+
+    private volatile long lastReadMillis = System.currentTimeMillis();
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int n = read(b, 0, 1);
+      return n == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      } else if (len == 0) {
+        return 0;
+      }
+
+      reading = true;
+      try {
+        return readAvailable(b, off, len);
+      } finally {
+        lastReadMillis = System.currentTimeMillis();
+        reading = false;
+      }
+    }
+
+    private int readAvailable(byte[] b, int off, int len) throws IOException {
+      while (true) {
+        // The progress and state are read before the file so that neither a write made after the
+        // file was read nor a complete resource is missed.
+        long lastProgress = getProgress();
+        State current = getState();
+        if (current == State.FAILED) {
+          throw new IOException("Caching of product " + reliableResource.getKey() + " failed");
+        }
+
+        int n = readFile(b, off, len);
+        if (n > 0) {
+          position += n;
+          return n;
+        } else if (current == State.COMPLETE) {
+          if (position < size) {
+            throw new IOException(
+                "Cached product " + reliableResource.getKey() + " is shorter than expected");
+          }
+          return -1;
+        }
+
+        awaitProgress(lastProgress);
+      }
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        IOUtils.closeQuietly(input);
+        readers.remove(this);
+      }
+    }
+
+    boolean isActive(long now) {
+      return reading || now - lastReadMillis < readerIdleTimeoutMillis;
+    }
+
+    private int readFile(byte[] b, int off, int len) throws IOException {
+      if (input == null) {
+        File file = new File(reliableResource.getFilePath());
+        if (!file.exists()) {
+          return 0;
+        }
+        LOGGER.debug("Reading product {} while it is being cached", reliableResource.getKey());
+        input = new FileInputStream(file);
+      }
+      return Math.max(input.read(b, off, len), 0);
+    }
+  }
+}
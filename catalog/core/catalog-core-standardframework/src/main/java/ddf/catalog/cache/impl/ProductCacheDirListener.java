@@ -20,14 +20,13 @@
 import com.hazelcast.core.IAtomicLong;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.MapEvent;
-import com.hazelcast.query.PagingPredicate;
 import ddf.catalog.resource.data.ReliableResource;
-import ddf.catalog.resource.data.ReliableResourceComparator;
 import java.io.File;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,8 +37,6 @@
 
   private static final String PRODUCT_CACHE_NAME = "Product_Cache";
 
-  private static final int DEFAULT_PAGE_SIZE = 10;
-
   private static final Logger LOGGER = LoggerFactory.getLogger(ProductCacheDirListener.class);
 
   private IMap<String, ReliableResource> map;
@@ -50,6 +47,10 @@
 
   private Set<String> manuallyEvictedEntries = Collections.synchronizedSet(new HashSet<String>());
 
+  private final ProductCacheStatistics statistics = new ProductCacheStatistics();
+
+  private ProductCacheEvictionPolicy evictionPolicy = new LruEvictionPolicy();
+
   /**
    * Constructor for new Hazelcast listener
    *
@@ -58,6 +59,7 @@
   public ProductCacheDirListener(final long maxDirSizeBytes) {
     synchronized (this) {
       this.maxDirSizeBytes = maxDirSizeBytes;
+      evictionPolicy.setMaxSizeBytes(maxDirSizeBytes);
     }
   }
 
@@ -66,6 +68,8 @@ public void setHazelcastInstance(HazelcastInstance hc) {
     LOGGER.trace("Setting hazelcast instance");
     synchronized (this) {
       this.map = hc.getMap(PRODUCT_CACHE_NAME);
+      // Products the policy knows of that are not in this map are dropped when chosen for eviction
+      setEvictionPolicy(evictionPolicy);
     }
     this.cacheDirSize = hc.getAtomicLong(CACHE_DIR_SIZE);
   }
@@ -77,34 +81,44 @@ public synchronized void entryAdded(EntryEvent<K, V> event) {
       ReliableResource resource = (ReliableResource) value;
       LOGGER.debug("entry added event triggered: {}", resource.getKey());
 
+      evictionPolicy.added(resource.getKey(), resource.getSize());
+      statistics.recordCached(resource.getSize());
       long currentCacheDirSize = cacheDirSize.addAndGet(resource.getSize());
-      if (maxDirSizeBytes > 0 && maxDirSizeBytes < currentCacheDirSize) {
-        PagingPredicate pp =
-            new PagingPredicate(new ReliableResourceComparator(), DEFAULT_PAGE_SIZE);
-        Collection<ReliableResource> lruResourceEntries = map.values(pp);
-
-        Iterator<ReliableResource> itr = lruResourceEntries.iterator();
-        while (maxDirSizeBytes < currentCacheDirSize) {
-          if (itr.hasNext()) {
-            ReliableResource rr = itr.next();
-            deleteFromCache(map, rr);
-            currentCacheDirSize -= rr.getSize();
-          } else {
-            pp.nextPage();
-            lruResourceEntries = map.values(pp);
-            itr = lruResourceEntries.iterator();
-          }
+      while (maxDirSizeBytes > 0 && maxDirSizeBytes < currentCacheDirSize) {
+        String victimKey = evictionPolicy.nextVictim();
+        if (victimKey == null) {
+          break;
+        }
+
+        ReliableResource rr = map.get(victimKey);
+        if (rr == null) {
+          LOGGER.debug("entry to evict is no longer in the cache: {}", victimKey);
+          evictionPolicy.removed(victimKey);
+        } else {
+          deleteFromCache(map, rr);
+          currentCacheDirSize -= rr.getSize();
         }
       }
     }
   }
 
+  /**
+   * Called when a valid product is retrieved from the cache.
+   *
+   * @param resource the cached product
+   */
+  public synchronized void entryAccessed(ReliableResource resource) {
+    evictionPolicy.accessed(resource.getKey());
+    statistics.recordHit(resource.getSize());
+  }
+
   @Override
   public void entryRemoved(EntryEvent<K, V> event) {
     V value = event.getValue();
     if (value.getClass().isAssignableFrom(ReliableResource.class)) {
       ReliableResource resource = (ReliableResource) value;
       LOGGER.debug("entry removed event triggered: {}", resource.getKey());
+      removeFromEvictionPolicy(resource);
       if (manuallyEvictedEntries.contains(resource.getKey())) {
         manuallyEvictedEntries.remove(resource.getKey());
       } else {
@@ -116,6 +130,13 @@ public void entryRemoved(EntryEvent<K, V> event) {
   @Override
   public void entryUpdated(EntryEvent<K, V> event) {
     LOGGER.debug("entry updated event triggered");
+    V value = event.getValue();
+    if (value != null && value.getClass().isAssignableFrom(ReliableResource.class)) {
+      ReliableResource resource = (ReliableResource) value;
+      synchronized (this) {
+        evictionPolicy.added(resource.getKey(), resource.getSize());
+      }
+    }
   }
 
   @Override
@@ -124,6 +145,7 @@ public void entryEvicted(EntryEvent<K, V> event) {
     if (value.getClass().isAssignableFrom(ReliableResource.class)) {
       ReliableResource resource = (ReliableResource) value;
       LOGGER.debug("entry evicted event triggered: {}", resource.getKey());
+      removeFromEvictionPolicy(resource);
       cacheDirSize.addAndGet(-resource.getSize());
     }
   }
@@ -144,6 +166,12 @@ private void deleteFromCache(IMap<String, ReliableResource> cacheMap, ReliableRe
       }
     }
     cacheDirSize.addAndGet(-rr.getSize());
+    evictionPolicy.removed(rr.getKey());
+    statistics.recordEviction(rr.getSize());
+  }
+
+  private synchronized void removeFromEvictionPolicy(ReliableResource resource) {
+    evictionPolicy.removed(resource.getKey());
   }
 
   public synchronized long getMaxDirSizeBytes() {
@@ -152,6 +180,31 @@ public synchronized long getMaxDirSizeBytes() {
 
   public synchronized void setMaxDirSizeBytes(long maxDirSizeBytes) {
     this.maxDirSizeBytes = maxDirSizeBytes;
+    evictionPolicy.setMaxSizeBytes(maxDirSizeBytes);
+  }
+
+  public synchronized ProductCacheEvictionPolicy getEvictionPolicy() {
+    return evictionPolicy;
+  }
+
+  /**
+   * Replaces the eviction policy, adding the products already cached to the new policy from least
+   * to most recently cached.
+   *
+   * @param evictionPolicy the new eviction policy
+   */
+  public synchronized void setEvictionPolicy(ProductCacheEvictionPolicy evictionPolicy) {
+    if (map != null) {
+      List<ReliableResource> cached = new ArrayList<>(map.values());
+      cached.sort(Comparator.comparingLong(ReliableResource::getLastTouchedMillis));
+      cached.forEach(rr -> evictionPolicy.added(rr.getKey(), rr.getSize()));
+    }
+    evictionPolicy.setMaxSizeBytes(maxDirSizeBytes);
+    this.evictionPolicy = evictionPolicy;
+  }
+
+  public ProductCacheStatistics getStatistics() {
+    return statistics;
   }
 
   @Override
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+/**
+ * Decides which product to remove from the product cache when it exceeds its maximum size. Every
+ * operation must take constant time, since the policy is consulted on every cache hit and every
+ * product added to the cache.
+ *
+ * <p>Implementations do not need to be thread-safe, {@link ProductCacheDirListener} serializes all
+ * calls to its policy.
+ */
+public interface ProductCacheEvictionPolicy {
+
+  /**
+   * Called when a product is added to the cache, or replaced in it.
+   *
+   * @param key the cache key of the product
+   * @param size the size of the cached product in bytes
+   */
+  void added(String key, long size);
+
+  /**
+   * Called when a cached product is retrieved from the cache.
+   *
+   * @param key the cache key of the product
+   */
+  void accessed(String key);
+
+  /**
+   * Called when a product is no longer in the cache, whether or not it was evicted by the policy.
+   *
+   * @param key the cache key of the product
+   */
+  void removed(String key);
+
+  /**
+   * @return the cache key of the product to evict next, or null if the policy has no products. The
+   *     product stays in the policy until {@link #removed(String)} is called for it.
+   */
+  String nextVictim();
+
+  /**
+   * Called when the maximum size of the cache is set, for policies that size their segments by it.
+   *
+   * @param maxSizeBytes the maximum size of the cache in bytes, or 0 if it is unlimited
+   */
+  default void setMaxSizeBytes(long maxSizeBytes) {}
+}
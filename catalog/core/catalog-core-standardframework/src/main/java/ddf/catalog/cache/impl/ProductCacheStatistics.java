@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts product cache hits, misses and evictions. The byte hit ratio compares the bytes served
+ * from the cache to the bytes that had to be retrieved and cached, which is what the cache saves
+ * when products vary widely in size.
+ */
+public class ProductCacheStatistics {
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  private final AtomicLong hitBytes = new AtomicLong();
+
+  private final AtomicLong cachedBytes = new AtomicLong();
+
+  private final AtomicLong evictions = new AtomicLong();
+
+  private final AtomicLong evictedBytes = new AtomicLong();
+
+  void recordHit(long size) {
+    hits.incrementAndGet();
+    hitBytes.addAndGet(size);
+  }
+
+  void recordMiss() {
+    misses.incrementAndGet();
+  }
+
+  void recordCached(long size) {
+    cachedBytes.addAndGet(size);
+  }
+
+  void recordEviction(long size) {
+    evictions.incrementAndGet();
+    evictedBytes.addAndGet(size);
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /** @return the ratio of lookups that found a valid product in the cache, or 0 if none */
+  public double getHitRatio() {
+    return ratio(hits.get(), misses.get());
+  }
+
+  /** @return the ratio of bytes served from the cache to bytes served or cached, or 0 if none */
+  public double getByteHitRatio() {
+    return ratio(hitBytes.get(), cachedBytes.get());
+  }
+
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  public long getEvictedBytes() {
+    return evictedBytes.get();
+  }
+
+  private static double ratio(long hit, long other) {
+    long total = hit + other;
+    return total == 0 ? 0 : (double) hit / total;
+  }
+}
@@ -31,9 +31,9 @@
 import ddf.catalog.resource.Resource;
 import ddf.catalog.resource.data.ReliableResource;
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.apache.commons.io.FileUtils;
 import org.codice.ddf.configuration.PropertyResolver;
 import org.slf4j.Logger;
@@ -55,7 +55,7 @@ public class ResourceCacheImpl implements ResourceCacheInterface {
 
   private static final long DEFAULT_MAX_CACHE_DIR_SIZE_BYTES = 10737418240L; // 10 GB
 
-  private List<String> pendingCache = new ArrayList<>();
+  private final ConcurrentMap<String, PendingResource> pendingCache = new ConcurrentHashMap<>();
 
   /** Directory for products cached to file system */
   private String productCacheDirectory;
@@ -109,6 +109,31 @@ public void setCacheDirMaxSizeMegabytes(long cacheDirMaxSizeMegabytes) {
     cacheListener.setMaxDirSizeBytes(cacheDirMaxSizeMegabytes * BYTES_IN_MEGABYTES);
   }
 
+  /** @return the name of the policy used to evict products when the cache is full */
+  public String getCacheEvictionPolicy() {
+    return cacheListener.getEvictionPolicy() instanceof SegmentedLruEvictionPolicy
+        ? SegmentedLruEvictionPolicy.NAME
+        : LruEvictionPolicy.NAME;
+  }
+
+  /**
+   * @param cacheEvictionPolicy {@link SegmentedLruEvictionPolicy#NAME} or {@link
+   *     LruEvictionPolicy#NAME}, which is also used for any other value
+   */
+  public void setCacheEvictionPolicy(String cacheEvictionPolicy) {
+    LOGGER.debug("Setting product cache eviction policy: {}", cacheEvictionPolicy);
+    boolean segmented = SegmentedLruEvictionPolicy.NAME.equals(cacheEvictionPolicy);
+    if (segmented != cacheListener.getEvictionPolicy() instanceof SegmentedLruEvictionPolicy) {
+      cacheListener.setEvictionPolicy(
+          segmented ? new SegmentedLruEvictionPolicy() : new LruEvictionPolicy());
+    }
+  }
+
+  /** @return the hit, miss and eviction counts of the product cache */
+  public ProductCacheStatistics getStatistics() {
+    return cacheListener.getStatistics();
+  }
+
   public String getProductCacheDirectory() {
     return productCacheDirectory;
   }
@@ -127,7 +152,41 @@ public void setProductCacheDirectory(String productCacheDirectory) {
    */
   @Override
   public boolean isPending(String key) {
-    return pendingCache.contains(key);
+    return pendingCache.containsKey(key);
+  }
+
+  /**
+   * Adds a resource to the resources being cached unless a resource with the same key is already
+   * being cached, as a single step so that only one of the downloads of a resource caches it.
+   *
+   * @param reliableResource the resource about to be cached
+   * @return true if a resource with the same key was already being cached, in which case {@code
+   *     reliableResource} was not added
+   */
+  public boolean isPendingOrAdd(ReliableResource reliableResource) {
+    return pendingCache.putIfAbsent(
+            reliableResource.getKey(), new PendingResource(reliableResource))
+        != null;
+  }
+
+  /**
+   * Gets a resource being cached, for the same metacard as the latest one in the Catalog.
+   *
+   * @param key the cache key of the resource
+   * @param latestMetacard the metacard of the resource from the Catalog
+   * @return the resource being cached, or null if it is not being cached or is being cached for an
+   *     out-of-date metacard
+   */
+  public PendingResource getPending(String key, Metacard latestMetacard) {
+    PendingResource pendingResource = pendingCache.get(key);
+    if (pendingResource != null
+        && !isSame(
+            pendingResource.getReliableResource().getMetacard(),
+            new MetacardImpl(latestMetacard))) {
+      LOGGER.debug("Pending cache entry with key = {} is for an out-of-date metacard", key);
+      return null;
+    }
+    return pendingResource;
   }
 
   /**
@@ -141,16 +200,25 @@ public void put(ReliableResource reliableResource) {
     LOGGER.trace("ENTERING: put(ReliableResource)");
     reliableResource.setLastTouchedMillis(System.currentTimeMillis());
     cache.put(reliableResource.getKey(), reliableResource);
-    removePendingCacheEntry(reliableResource.getKey());
+    PendingResource pendingResource = pendingCache.remove(reliableResource.getKey());
+    if (pendingResource != null) {
+      pendingResource.complete(reliableResource.getSize());
+      LOGGER.debug("Removed pending cache entry with key = {}", reliableResource.getKey());
+    } else {
+      LOGGER.debug("Did not find pending cache entry with key = {}", reliableResource.getKey());
+    }
 
     LOGGER.trace("EXITING: put(ReliableResource)");
   }
 
   @Override
   public void removePendingCacheEntry(String cacheKey) {
-    if (!pendingCache.remove(cacheKey)) {
+    PendingResource pendingResource = pendingCache.remove(cacheKey);
+    if (pendingResource == null) {
       LOGGER.debug("Did not find pending cache entry with key = {}", cacheKey);
     } else {
+      // Readers of the pending resource cannot get the rest of it once it is no longer cached
+      pendingResource.fail();
       LOGGER.debug("Removed pending cache entry with key = {}", cacheKey);
     }
   }
@@ -162,8 +230,8 @@ public void addPendingCacheEntry(ReliableResource reliableResource) {
       LOGGER.debug("Cache entry with key = {} is already pending", cacheKey);
     } else if (containsValid(cacheKey, reliableResource.getMetacard())) {
       LOGGER.debug("Cache entry with key = {} is already in cache", cacheKey);
-    } else {
-      pendingCache.add(cacheKey);
+    } else if (isPendingOrAdd(reliableResource)) {
+      LOGGER.debug("Cache entry with key = {} is already pending", cacheKey);
     }
   }
 
@@ -192,20 +260,24 @@ public Resource getValid(String key, Metacard latestMetacard) {
         LOGGER.debug(
             "Entry found in cache was out-of-date or otherwise invalid.  Will need to be re-cached.  Entry key: {}",
             key);
+        cacheListener.getStatistics().recordMiss();
         return null;
       }
 
       if (cachedResource.hasProduct()) {
+        cacheListener.entryAccessed(cachedResource);
         LOGGER.trace("EXITING: get() for key {}", key);
         return cachedResource;
       } else {
         cache.remove(key);
         LOGGER.debug(
             "Entry found in the cache, but no product found in cache directory for key = {}", key);
+        cacheListener.getStatistics().recordMiss();
         return null;
       }
     } else {
       LOGGER.debug("No product found in cache for key = {}", key);
+      cacheListener.getStatistics().recordMiss();
       return null;
     }
   }
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Segmented LRU. Products enter a probationary segment and move to a protected segment when they
+ * are retrieved from the cache again. Products are evicted from the probationary segment first, so
+ * adding a large product that is never retrieved again evicts other such products, or itself,
+ * before it evicts products that are retrieved often.
+ *
+ * <p>The protected segment is kept to at most {@link #PROTECTED_RATIO} of the maximum size of the
+ * cache by moving its least recently used products back to the probationary segment.
+ */
+public class SegmentedLruEvictionPolicy implements ProductCacheEvictionPolicy {
+
+  public static final String NAME = "SLRU";
+
+  static final double PROTECTED_RATIO = 0.8;
+
+  // Both in access order, so the first key of each is its least recently used
+  private final Map<String, Long> probationary = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final Map<String, Long> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long probationaryBytes;
+
+  private long protectedBytes;
+
+  private long maxSizeBytes;
+
+  @Override
+  public void added(String key, long size) {
+    if (protectedSegment.containsKey(key)) {
+      protectedBytes += size - protectedSegment.put(key, size);
+      demote();
+    } else {
+      Long previous = probationary.put(key, size);
+      probationaryBytes += size - (previous == null ? 0 : previous);
+    }
+  }
+
+  @Override
+  public void accessed(String key) {
+    if (protectedSegment.get(key) != null) {
+      return;
+    }
+
+    Long size = probationary.remove(key);
+    if (size != null) {
+      probationaryBytes -= size;
+      protectedSegment.put(key, size);
+      protectedBytes += size;
+      demote();
+    }
+  }
+
+  @Override
+  public void removed(String key) {
+    Long size = probationary.remove(key);
+    if (size != null) {
+      probationaryBytes -= size;
+    } else {
+      size = protectedSegment.remove(key);
+      if (size != null) {
+        protectedBytes -= size;
+      }
+    }
+  }
+
+  @Override
+  public String nextVictim() {
+    String victim = first(probationary);
+    return victim != null ? victim : first(protectedSegment);
+  }
+
+  @Override
+  public void setMaxSizeBytes(long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+    demote();
+  }
+
+  private void demote() {
+    // The most recently protected product always stays protected
+    while (maxSizeBytes > 0
+        && protectedSegment.size() > 1
+        && protectedBytes > PROTECTED_RATIO * maxSizeBytes) {
+      Iterator<Map.Entry<String, Long>> lru = protectedSegment.entrySet().iterator();
+      Map.Entry<String, Long> entry = lru.next();
+      lru.remove();
+      protectedBytes -= entry.getValue();
+      probationary.put(entry.getKey(), entry.getValue());
+      probationaryBytes += entry.getValue();
+    }
+  }
+
+  private static String first(Map<String, Long> segment) {
+    Iterator<String> keys = segment.keySet().iterator();
+    return keys.hasNext() ? keys.next() : null;
+  }
+}
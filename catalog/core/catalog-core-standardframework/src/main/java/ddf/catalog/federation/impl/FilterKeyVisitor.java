@@ -0,0 +1,542 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.ExcludeFilter;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.Id;
+import org.opengis.filter.IncludeFilter;
+import org.opengis.filter.Not;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNil;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Add;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Divide;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.ExpressionVisitor;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.Multiply;
+import org.opengis.filter.expression.NilExpression;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.expression.Subtract;
+import org.opengis.filter.identity.Identifier;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.Beyond;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.spatial.Contains;
+import org.opengis.filter.spatial.Crosses;
+import org.opengis.filter.spatial.DWithin;
+import org.opengis.filter.spatial.Disjoint;
+import org.opengis.filter.spatial.DistanceBufferOperator;
+import org.opengis.filter.spatial.Equals;
+import org.opengis.filter.spatial.Intersects;
+import org.opengis.filter.spatial.Overlaps;
+import org.opengis.filter.spatial.Touches;
+import org.opengis.filter.spatial.Within;
+import org.opengis.filter.temporal.After;
+import org.opengis.filter.temporal.AnyInteracts;
+import org.opengis.filter.temporal.Before;
+import org.opengis.filter.temporal.Begins;
+import org.opengis.filter.temporal.BegunBy;
+import org.opengis.filter.temporal.BinaryTemporalOperator;
+import org.opengis.filter.temporal.During;
+import org.opengis.filter.temporal.EndedBy;
+import org.opengis.filter.temporal.Ends;
+import org.opengis.filter.temporal.Meets;
+import org.opengis.filter.temporal.MetBy;
+import org.opengis.filter.temporal.OverlappedBy;
+import org.opengis.filter.temporal.TContains;
+import org.opengis.filter.temporal.TEquals;
+import org.opengis.filter.temporal.TOverlaps;
+import org.opengis.temporal.Instant;
+import org.opengis.temporal.Period;
+
+/**
+ * Writes a filter to a {@link StringBuilder} passed as the extra data of the visit, so that two
+ * filters are written the same only if they select the same metacards. Unlike the {@code
+ * toString()} of the filters, every operand and option is written, such as the case sensitivity and
+ * the wildcard characters of a {@link PropertyIsLike}, and strings are quoted so that their content
+ * cannot be mistaken for the structure of the filter.
+ *
+ * <p>Literals are written from their value. A literal whose value has no {@code toString()} of its
+ * own cannot be written and makes the visit throw an {@link UnsupportedOperationException}.
+ */
+class FilterKeyVisitor implements FilterVisitor, ExpressionVisitor {
+
+  static final FilterKeyVisitor INSTANCE = new FilterKeyVisitor();
+
+  /**
+   * Writes a value, such as the value of a literal or of a request property.
+   *
+   * @throws UnsupportedOperationException if the value cannot be written
+   */
+  static void appendValue(StringBuilder key, Object value) {
+    if (value == null) {
+      key.append("null");
+    } else if (value instanceof CharSequence) {
+      appendString(key, value.toString());
+    } else if (value instanceof Number || value instanceof Boolean) {
+      key.append(value.getClass().getSimpleName()).append(':').append(value);
+    } else if (value instanceof Date) {
+      key.append("Date:").append(((Date) value).getTime());
+    } else if (value instanceof Instant) {
+      key.append("Instant:");
+      appendValue(key, ((Instant) value).getPosition().getDate());
+    } else if (value instanceof Period) {
+      key.append("Period:");
+      appendValue(key, ((Period) value).getBeginning());
+      key.append('/');
+      appendValue(key, ((Period) value).getEnding());
+    } else if (value instanceof Map) {
+      Map<String, Object> sorted = new TreeMap<>();
+      ((Map<?, ?>) value).forEach((k, v) -> sorted.put(String.valueOf(k), v));
+      key.append('{');
+      sorted.forEach(
+          (k, v) -> {
+            appendString(key, k);
+            key.append('=');
+            appendValue(key, v);
+            key.append(';');
+          });
+      key.append('}');
+    } else if (value instanceof Collection || value instanceof Object[]) {
+      Collection<?> values =
+          value instanceof Collection ? (Collection<?>) value : Arrays.asList((Object[]) value);
+      List<String> elements = new ArrayList<>(values.size());
+      for (Object element : values) {
+        StringBuilder elementKey = new StringBuilder();
+        appendValue(elementKey, element);
+        elements.add(elementKey.toString());
+      }
+      // The order of the elements of a set is not part of its value
+      if (value instanceof Set) {
+        elements.sort(null);
+      }
+      key.append(elements);
+    } else if (hasOwnToString(value)) {
+      key.append(value.getClass().getName()).append(':');
+      appendString(key, value.toString());
+    } else {
+      throw new UnsupportedOperationException(
+          "Unable to write value of type " + value.getClass().getName());
+    }
+  }
+
+  @Override
+  public Object visitNullFilter(Object extraData) {
+    return key(extraData).append("NULL");
+  }
+
+  @Override
+  public Object visit(ExcludeFilter filter, Object extraData) {
+    return key(extraData).append("EXCLUDE");
+  }
+
+  @Override
+  public Object visit(IncludeFilter filter, Object extraData) {
+    return key(extraData).append("INCLUDE");
+  }
+
+  @Override
+  public Object visit(And filter, Object extraData) {
+    return logic("AND", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Id filter, Object extraData) {
+    List<String> ids = new ArrayList<>();
+    for (Identifier identifier : filter.getIdentifiers()) {
+      StringBuilder id = new StringBuilder();
+      appendValue(id, identifier.getID());
+      ids.add(id.toString());
+    }
+    ids.sort(null);
+    return key(extraData).append("ID").append(ids);
+  }
+
+  @Override
+  public Object visit(Not filter, Object extraData) {
+    StringBuilder key = key(extraData).append("NOT(");
+    accept(filter.getFilter(), key);
+    return key.append(')');
+  }
+
+  @Override
+  public Object visit(Or filter, Object extraData) {
+    return logic("OR", filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsBetween filter, Object extraData) {
+    StringBuilder key = key(extraData).append("BETWEEN(");
+    expressions(key, filter.getExpression(), filter.getLowerBoundary(), filter.getUpperBoundary());
+    return key.append(',').append(filter.getMatchAction()).append(')');
+  }
+
+  @Override
+  public Object visit(PropertyIsEqualTo filter, Object extraData) {
+    return comparison("EQ", filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsNotEqualTo filter, Object extraData) {
+    return comparison("NEQ", filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsGreaterThan filter, Object extraData) {
+    return comparison("GT", filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsGreaterThanOrEqualTo filter, Object extraData) {
+    return comparison("GTE", filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsLessThan filter, Object extraData) {
+    return comparison("LT", filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsLessThanOrEqualTo filter, Object extraData) {
+    return comparison("LTE", filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsLike filter, Object extraData) {
+    StringBuilder key = key(extraData).append("LIKE(");
+    expressions(key, filter.getExpression());
+    key.append(',');
+    appendString(key, filter.getLiteral());
+    key.append(',');
+    appendString(key, filter.getWildCard());
+    key.append(',');
+    appendString(key, filter.getSingleChar());
+    key.append(',');
+    appendString(key, filter.getEscape());
+    return key.append(',')
+        .append(filter.isMatchingCase())
+        .append(',')
+        .append(filter.getMatchAction())
+        .append(')');
+  }
+
+  @Override
+  public Object visit(PropertyIsNull filter, Object extraData) {
+    StringBuilder key = key(extraData).append("NULL(");
+    expressions(key, filter.getExpression());
+    return key.append(')');
+  }
+
+  @Override
+  public Object visit(PropertyIsNil filter, Object extraData) {
+    StringBuilder key = key(extraData).append("NIL(");
+    expressions(key, filter.getExpression());
+    key.append(',');
+    appendValue(key, filter.getNilReason());
+    return key.append(')');
+  }
+
+  @Override
+  public Object visit(BBOX filter, Object extraData) {
+    return spatial("BBOX", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Beyond filter, Object extraData) {
+    return spatial("BEYOND", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Contains filter, Object extraData) {
+    return spatial("CONTAINS", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Crosses filter, Object extraData) {
+    return spatial("CROSSES", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Disjoint filter, Object extraData) {
+    return spatial("DISJOINT", filter, extraData);
+  }
+
+  @Override
+  public Object visit(DWithin filter, Object extraData) {
+    return spatial("DWITHIN", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Equals filter, Object extraData) {
+    return spatial("EQUALS", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Intersects filter, Object extraData) {
+    return spatial("INTERSECTS", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Overlaps filter, Object extraData) {
+    return spatial("OVERLAPS", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Touches filter, Object extraData) {
+    return spatial("TOUCHES", filter, extraData);
+  }
+
+  @Override
+  public Object visit(Within filter, Object extraData) {
+    return spatial("WITHIN", filter, extraData);
+  }
+
+  @Override
+  public Object visit(After after, Object extraData) {
+    return temporal("AFTER", after, extraData);
+  }
+
+  @Override
+  public Object visit(AnyInteracts anyInteracts, Object extraData) {
+    return temporal("ANYINTERACTS", anyInteracts, extraData);
+  }
+
+  @Override
+  public Object visit(Before before, Object extraData) {
+    return temporal("BEFORE", before, extraData);
+  }
+
+  @Override
+  public Object visit(Begins begins, Object extraData) {
+    return temporal("BEGINS", begins, extraData);
+  }
+
+  @Override
+  public Object visit(BegunBy begunBy, Object extraData) {
+    return temporal("BEGUNBY", begunBy, extraData);
+  }
+
+  @Override
+  public Object visit(During during, Object extraData) {
+    return temporal("DURING", during, extraData);
+  }
+
+  @Override
+  public Object visit(EndedBy endedBy, Object extraData) {
+    return temporal("ENDEDBY", endedBy, extraData);
+  }
+
+  @Override
+  public Object visit(Ends ends, Object extraData) {
+    return temporal("ENDS", ends, extraData);
+  }
+
+  @Override
+  public Object visit(Meets meets, Object extraData) {
+    return temporal("MEETS", meets, extraData);
+  }
+
+  @Override
+  public Object visit(MetBy metBy, Object extraData) {
+    return temporal("METBY", metBy, extraData);
+  }
+
+  @Override
+  public Object visit(OverlappedBy overlappedBy, Object extraData) {
+    return temporal("OVERLAPPEDBY", overlappedBy, extraData);
+  }
+
+  @Override
+  public Object visit(TContains contains, Object extraData) {
+    return temporal("TCONTAINS", contains, extraData);
+  }
+
+  @Override
+  public Object visit(TEquals equals, Object extraData) {
+    return temporal("TEQUALS", equals, extraData);
+  }
+
+  @Override
+  public Object visit(TOverlaps contains, Object extraData) {
+    return temporal("TOVERLAPS", contains, extraData);
+  }
+
+  @Override
+  public Object visit(NilExpression expression, Object extraData) {
+    return key(extraData).append("nil");
+  }
+
+  @Override
+  public Object visit(Add expression, Object extraData) {
+    return arithmetic("add", expression, extraData);
+  }
+
+  @Override
+  public Object visit(Divide expression, Object extraData) {
+    return arithmetic("divide", expression, extraData);
+  }
+
+  @Override
+  public Object visit(Function expression, Object extraData) {
+    StringBuilder key = key(extraData).append("function:");
+    appendString(key, expression.getName());
+    key.append('(');
+    List<Expression> parameters = expression.getParameters();
+    if (parameters != null) {
+      expressions(key, parameters.toArray(new Expression[0]));
+    }
+    key.append(',');
+    expressions(key, expression.getFallbackValue());
+    return key.append(')');
+  }
+
+  @Override
+  public Object visit(Literal expression, Object extraData) {
+    StringBuilder key = key(extraData).append("literal:");
+    appendValue(key, expression.getValue());
+    return key;
+  }
+
+  @Override
+  public Object visit(Multiply expression, Object extraData) {
+    return arithmetic("multiply", expression, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyName expression, Object extraData) {
+    StringBuilder key = key(extraData).append("property:");
+    appendString(key, expression.getPropertyName());
+    return key;
+  }
+
+  @Override
+  public Object visit(Subtract expression, Object extraData) {
+    return arithmetic("subtract", expression, extraData);
+  }
+
+  private Object logic(String operator, BinaryLogicOperator filter, Object extraData) {
+    StringBuilder key = key(extraData).append(operator).append('(');
+    for (Filter child : filter.getChildren()) {
+      accept(child, key);
+      key.append(';');
+    }
+    return key.append(')');
+  }
+
+  private Object comparison(String operator, BinaryComparisonOperator filter, Object extraData) {
+    StringBuilder key = key(extraData).append(operator).append('(');
+    expressions(key, filter.getExpression1(), filter.getExpression2());
+    return key.append(',')
+        .append(filter.isMatchingCase())
+        .append(',')
+        .append(filter.getMatchAction())
+        .append(')');
+  }
+
+  private Object spatial(String operator, BinarySpatialOperator filter, Object extraData) {
+    StringBuilder key = key(extraData).append(operator).append('(');
+    expressions(key, filter.getExpression1(), filter.getExpression2());
+    if (filter instanceof DistanceBufferOperator) {
+      DistanceBufferOperator distance = (DistanceBufferOperator) filter;
+      key.append(',').append(distance.getDistance()).append(',');
+      appendString(key, distance.getDistanceUnits());
+    }
+    return key.append(',').append(filter.getMatchAction()).append(')');
+  }
+
+  private Object temporal(String operator, BinaryTemporalOperator filter, Object extraData) {
+    StringBuilder key = key(extraData).append(operator).append('(');
+    expressions(key, filter.getExpression1(), filter.getExpression2());
+    return key.append(',').append(filter.getMatchAction()).append(')');
+  }
+
+  private Object arithmetic(String operator, BinaryExpression expression, Object extraData) {
+    StringBuilder key = key(extraData).append(operator).append('(');
+    expressions(key, expression.getExpression1(), expression.getExpression2());
+    return key.append(')');
+  }
+
+  private void expressions(StringBuilder key, Expression... expressions) {
+    for (int i = 0; i < expressions.length; i++) {
+      if (i > 0) {
+        key.append(',');
+      }
+      if (expressions[i] == null) {
+        key.append("null");
+      } else {
+        expressions[i].accept(this, key);
+      }
+    }
+  }
+
+  private void accept(Filter filter, StringBuilder key) {
+    if (filter == null) {
+      visitNullFilter(key);
+    } else {
+      filter.accept(this, key);
+    }
+  }
+
+  private static StringBuilder key(Object extraData) {
+    return (StringBuilder) extraData;
+  }
+
+  private static void appendString(StringBuilder key, String value) {
+    if (value == null) {
+      key.append("null");
+      return;
+    }
+    key.append('\'');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\'' || c == '\\') {
+        key.append('\\');
+      }
+      key.append(c);
+    }
+    key.append('\'');
+  }
+
+  private static boolean hasOwnToString(Object value) {
+    try {
+      return value.getClass().getMethod("toString").getDeclaringClass() != Object.class;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+}
@@ -28,17 +28,29 @@
 import ddf.catalog.plugin.PreFederatedQueryPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.source.Source;
+import ddf.catalog.source.UnsupportedQueryException;
 import ddf.catalog.util.impl.RelevanceResultComparator;
+import ddf.security.SubjectOperations;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.opengis.filter.sort.SortOrder;
 import org.slf4j.Logger;
@@ -60,6 +72,13 @@
  * org.opengis.filter.sort.SortOrder#ASCENDING}. For this class to function properly a sort value
  * and sort order must be provided.
  *
+ * <p>Each source runs a limited number of queries at the same time, so that a slow source cannot
+ * take over the query threads. The limit of a source is lowered while its queries fail or take much
+ * longer than usual, and queries over the limit fail right away. Sources backed by several replicas
+ * can be sent a second, hedged query when they are slow to respond. The responses of slow sources
+ * can be cached, so that repeated queries are answered right away while the cached responses are
+ * refreshed in the background.
+ *
  * @see ddf.catalog.data.Metacard
  * @see ddf.catalog.operation.Query
  * @see org.opengis.filter.sort.SortBy
@@ -76,6 +95,16 @@ public class SortedFederationStrategy implements FederationStrategy {
   /** package-private to allow for unit testing */
   static final int DEFAULT_MAX_START_INDEX = 50000;
 
+  static final int DEFAULT_MAX_CONCURRENT_QUERIES_PER_SOURCE = 32;
+
+  static final long DEFAULT_MIN_HEDGE_DELAY_MILLIS = 100;
+
+  static final long DEFAULT_RESPONSE_CACHE_TIME_TO_LIVE_SECONDS = 60;
+
+  static final long DEFAULT_RESPONSE_CACHE_STALE_SECONDS = 300;
+
+  static final int DEFAULT_RESPONSE_CACHE_MAX_ENTRIES = 1000;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(SortedFederationStrategy.class);
 
   /**
@@ -96,6 +125,17 @@ public class SortedFederationStrategy implements FederationStrategy {
 
   private int maxStartIndex;
 
+  private final ConcurrentMap<String, SourceConcurrencyLimit> sourceLimits =
+      new ConcurrentHashMap<>();
+
+  private volatile int maxConcurrentQueriesPerSource = DEFAULT_MAX_CONCURRENT_QUERIES_PER_SOURCE;
+
+  private volatile Set<String> hedgedSourceIds = Collections.emptySet();
+
+  private volatile long minHedgeDelayMillis = DEFAULT_MIN_HEDGE_DELAY_MILLIS;
+
+  private final SourceResponseCache responseCache;
+
   /**
    * Instantiates an {@code AbstractFederationStrategy} with the provided {@link ExecutorService}.
    *
@@ -128,6 +168,12 @@ public SortedFederationStrategy(
     this.postQuery = postQuery;
     this.maxStartIndex = DEFAULT_MAX_START_INDEX;
     this.sortedQueryMonitorFactory = sortedQueryMonitorFactory;
+    this.responseCache =
+        new SourceResponseCache(
+            queryExecutorService,
+            TimeUnit.SECONDS.toMillis(DEFAULT_RESPONSE_CACHE_TIME_TO_LIVE_SECONDS),
+            TimeUnit.SECONDS.toMillis(DEFAULT_RESPONSE_CACHE_STALE_SECONDS),
+            DEFAULT_RESPONSE_CACHE_MAX_ENTRIES);
   }
 
   @Override
@@ -194,7 +240,7 @@ public QueryResponse federate(List<Source> sources, QueryRequest queryRequest) {
 
         QueryRequest finalSourceQueryRequest = sourceQueryRequest;
         futures.put(
-            queryCompletion.submit(() -> new TimedSource(source).query(finalSourceQueryRequest)),
+            queryCompletion.submit(() -> querySource(source, finalSourceQueryRequest)),
             sourceQueryRequest);
       }
     }
@@ -290,6 +336,206 @@ public void setMaxStartIndex(int maxStartIndex) {
     }
   }
 
+  /**
+   * To be set via Spring/Blueprint
+   *
+   * @param maxConcurrentQueriesPerSource the most queries run on a single source at the same time.
+   *     The limit of each source is lowered from this value while the source is slow or failing.
+   */
+  public void setMaxConcurrentQueriesPerSource(int maxConcurrentQueriesPerSource) {
+    if (maxConcurrentQueriesPerSource > 0) {
+      this.maxConcurrentQueriesPerSource = maxConcurrentQueriesPerSource;
+    } else {
+      this.maxConcurrentQueriesPerSource = DEFAULT_MAX_CONCURRENT_QUERIES_PER_SOURCE;
+      LOGGER.debug(
+          "Invalid max concurrent queries per source input. Reset to default value: {}",
+          this.maxConcurrentQueriesPerSource);
+    }
+    sourceLimits.clear();
+  }
+
+  /**
+   * To be set via Spring/Blueprint
+   *
+   * @param hedgedSourceIds the IDs of the sources backed by several replicas, which are sent a
+   *     second, hedged query when they take much longer than usual to respond
+   */
+  public void setHedgedSourceIds(List<String> hedgedSourceIds) {
+    this.hedgedSourceIds = toSourceIdSet(hedgedSourceIds);
+  }
+
+  /**
+   * To be set via Spring/Blueprint
+   *
+   * @param minHedgeDelayMillis the least time to wait for a source to respond before sending it a
+   *     hedged query
+   */
+  public void setMinHedgeDelayMillis(long minHedgeDelayMillis) {
+    this.minHedgeDelayMillis = Math.max(0, minHedgeDelayMillis);
+  }
+
+  /**
+   * To be set via Spring/Blueprint
+   *
+   * @param cachedSourceIds the IDs of the sources whose responses are cached, so that repeated
+   *     queries are answered without waiting for them
+   */
+  public void setCachedSourceIds(List<String> cachedSourceIds) {
+    responseCache.setSourceIds(toSourceIdSet(cachedSourceIds));
+  }
+
+  /**
+   * To be set via Spring/Blueprint
+   *
+   * @param timeToLiveSeconds how long a cached response is used before the source is queried again
+   */
+  public void setResponseCacheTimeToLiveSeconds(long timeToLiveSeconds) {
+    responseCache.setTimeToLiveMillis(TimeUnit.SECONDS.toMillis(Math.max(0, timeToLiveSeconds)));
+  }
+
+  /**
+   * To be set via Spring/Blueprint
+   *
+   * @param staleSeconds how long after its time to live a cached response is still used while it is
+   *     refreshed in the background
+   */
+  public void setResponseCacheStaleSeconds(long staleSeconds) {
+    responseCache.setStaleMillis(TimeUnit.SECONDS.toMillis(Math.max(0, staleSeconds)));
+  }
+
+  /**
+   * To be set via Spring/Blueprint
+   *
+   * @param maxEntries the most responses cached, beyond which the least recently used are dropped
+   */
+  public void setResponseCacheMaxEntries(int maxEntries) {
+    if (maxEntries > 0) {
+      responseCache.setMaxEntries(maxEntries);
+    } else {
+      responseCache.setMaxEntries(DEFAULT_RESPONSE_CACHE_MAX_ENTRIES);
+      LOGGER.debug(
+          "Invalid response cache max entries input. Reset to default value: {}",
+          DEFAULT_RESPONSE_CACHE_MAX_ENTRIES);
+    }
+  }
+
+  /**
+   * To be set via Spring/Blueprint
+   *
+   * @param subjectOperations used to key cached responses by the attributes of the subject
+   */
+  public void setSubjectOperations(SubjectOperations subjectOperations) {
+    responseCache.setSubjectOperations(subjectOperations);
+  }
+
+  private SourceResponse querySource(Source source, QueryRequest request) throws Exception {
+    if (responseCache.isCached(source.getId())) {
+      return responseCache.query(source.getId(), request, () -> queryLive(source, request));
+    }
+    return queryLive(source, request);
+  }
+
+  /**
+   * Queries a source, sending it a second query if it is a hedged source that takes much longer
+   * than usual to respond. Queries are only reads, so the response to either query can be used and
+   * the other one cancelled.
+   */
+  private SourceResponse queryLive(Source source, QueryRequest request) throws Exception {
+    SourceConcurrencyLimit limit =
+        sourceLimits.computeIfAbsent(
+            String.valueOf(source.getId()),
+            id -> new SourceConcurrencyLimit(maxConcurrentQueriesPerSource));
+
+    long usualLatency = limit.getUsualLatencyMillis();
+    if (usualLatency == 0 || !hedgedSourceIds.contains(source.getId())) {
+      return queryWithinLimit(source, request, limit, new AtomicBoolean());
+    }
+
+    long hedgeDelay =
+        Math.max(
+            minHedgeDelayMillis, (long) (usualLatency * SourceConcurrencyLimit.LATENCY_TOLERANCE));
+    CompletionService<SourceResponse> attempts =
+        new ExecutorCompletionService<>(queryExecutorService);
+    List<Future<SourceResponse>> started = new ArrayList<>();
+    AtomicBoolean settled = new AtomicBoolean();
+    started.add(attempts.submit(() -> queryWithinLimit(source, request, limit, settled)));
+    try {
+      Future<SourceResponse> completed = attempts.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+      if (completed == null) {
+        LOGGER.debug(
+            "Source {} did not respond within {} ms, sending a hedged query",
+            source.getId(),
+            hedgeDelay);
+        started.add(attempts.submit(() -> queryWithinLimit(source, request, limit, settled)));
+        completed = attempts.take();
+      }
+
+      try {
+        return completed.get();
+      } catch (ExecutionException e) {
+        if (started.size() == 1) {
+          throw unwrap(e);
+        }
+        LOGGER.debug("Query on source {} failed, waiting for the hedged query", source.getId());
+        try {
+          return attempts.take().get();
+        } catch (ExecutionException hedgeException) {
+          throw unwrap(hedgeException);
+        }
+      }
+    } finally {
+      settled.set(true);
+      started.forEach(future -> future.cancel(true));
+    }
+  }
+
+  /**
+   * @param settled set once the query is no longer needed, in which case a failure is caused by the
+   *     query being cancelled rather than by the source and does not lower its limit
+   */
+  private SourceResponse queryWithinLimit(
+      Source source, QueryRequest request, SourceConcurrencyLimit limit, AtomicBoolean settled)
+      throws UnsupportedQueryException {
+    if (!limit.tryAcquire()) {
+      throw new RejectedExecutionException(
+          String.format(
+              "Source %s is already running its limit of %d queries",
+              source.getId(), limit.getLimit()));
+    }
+
+    long start = System.currentTimeMillis();
+    boolean succeeded = false;
+    try {
+      SourceResponse response = new TimedSource(source).query(request);
+      succeeded = true;
+      return response;
+    } finally {
+      if (!succeeded && (settled.get() || Thread.currentThread().isInterrupted())) {
+        limit.releaseCancelled();
+      } else {
+        limit.release(System.currentTimeMillis() - start, succeeded);
+      }
+    }
+  }
+
+  SourceConcurrencyLimit getSourceLimit(String sourceId) {
+    return sourceLimits.get(sourceId);
+  }
+
+  private static Set<String> toSourceIdSet(List<String> sourceIds) {
+    return sourceIds == null
+        ? Collections.emptySet()
+        : sourceIds
+            .stream()
+            .filter(StringUtils::isNotBlank)
+            .map(String::trim)
+            .collect(Collectors.toSet());
+  }
+
+  private static Exception unwrap(ExecutionException e) {
+    return e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+  }
+
   static class OffsetResultHandler implements Runnable {
 
     private QueryResponseImpl originalResults = null;
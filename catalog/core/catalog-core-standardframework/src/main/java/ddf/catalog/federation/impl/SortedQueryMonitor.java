@@ -160,6 +160,7 @@ public void run() {
           future = completionService.poll(getTimeRemaining(deadline), TimeUnit.MILLISECONDS);
           if (future == null) {
             timeoutRemainingSources(detailsOfReturnResults);
+            cancelRemainingSources();
             break;
           }
         }
@@ -191,6 +192,7 @@ public void run() {
 
         // Then add the interrupted exception for the remaining sources
         interruptRemainingSources(detailsOfReturnResults, e);
+        cancelRemainingSources();
         Thread.currentThread().interrupt();
         break;
       } catch (ExecutionException e) {
@@ -271,6 +273,13 @@ private void interruptRemainingSources(
     }
   }
 
+  /** Stops the queries no longer waited for, so they do not hold on to query threads. */
+  private void cancelRemainingSources() {
+    for (Future<SourceResponse> future : futures.keySet()) {
+      future.cancel(true);
+    }
+  }
+
   private long getTimeRemaining(long deadline) {
     long timeLeft;
     if (System.currentTimeMillis() > deadline) {
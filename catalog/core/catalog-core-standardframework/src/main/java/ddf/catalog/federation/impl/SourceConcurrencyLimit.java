@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+/**
+ * Limits the number of queries run on a source at the same time, so that a slow or stalled source
+ * cannot take over the threads shared by every federated query.
+ *
+ * <p>The limit adapts to the latency of the source, as measured by {@link TimedSource}: it is
+ * lowered whenever a query fails or takes much longer than the source usually takes, and raised
+ * slowly again while queries are fast and the limit is reached.
+ */
+class SourceConcurrencyLimit {
+
+  /** How much the most recent query counts towards the recent latency. */
+  private static final double RECENT_WEIGHT = 0.2;
+
+  /** How much the most recent query counts towards the usual latency. */
+  private static final double USUAL_WEIGHT = 0.02;
+
+  /** How many times the usual latency the recent latency may reach before the limit is lowered. */
+  static final double LATENCY_TOLERANCE = 2.0;
+
+  private static final double DECREASE_RATIO = 0.9;
+
+  private static final int MIN_LIMIT = 1;
+
+  private final int maxLimit;
+
+  private double limit;
+
+  private int inFlight;
+
+  private double recentLatencyMillis;
+
+  private double usualLatencyMillis;
+
+  /** @param maxLimit the most queries allowed at the same time, which is also the initial limit */
+  SourceConcurrencyLimit(int maxLimit) {
+    this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+    this.limit = this.maxLimit;
+  }
+
+  /**
+   * Reserves a query on the source, if the limit allows it. Every successful call must be followed
+   * by a call to {@link #release(long, boolean)}.
+   *
+   * @return true if the query may be run
+   */
+  synchronized boolean tryAcquire() {
+    if (inFlight >= (int) limit) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+
+  /**
+   * Releases a query reserved by {@link #tryAcquire()} and adapts the limit to how it went.
+   *
+   * @param latencyMillis how long the query took
+   * @param succeeded false if the query failed
+   */
+  synchronized void release(long latencyMillis, boolean succeeded) {
+    boolean limited = inFlight >= (int) limit;
+    inFlight = Math.max(0, inFlight - 1);
+
+    if (usualLatencyMillis == 0) {
+      recentLatencyMillis = latencyMillis;
+      usualLatencyMillis = Math.max(1, latencyMillis);
+    } else {
+      recentLatencyMillis += (latencyMillis - recentLatencyMillis) * RECENT_WEIGHT;
+      usualLatencyMillis += (latencyMillis - usualLatencyMillis) * USUAL_WEIGHT;
+    }
+
+    if (!succeeded || recentLatencyMillis > usualLatencyMillis * LATENCY_TOLERANCE) {
+      limit = Math.max(MIN_LIMIT, limit * DECREASE_RATIO);
+    } else if (limited) {
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+  }
+
+  /**
+   * Releases a query reserved by {@link #tryAcquire()} that was cancelled before it completed,
+   * without adapting the limit, since a cancelled query says nothing about the source.
+   */
+  synchronized void releaseCancelled() {
+    inFlight = Math.max(0, inFlight - 1);
+  }
+
+  /** @return the number of queries currently allowed at the same time */
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  /** @return the number of queries currently running */
+  synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /** @return the usual latency of the source, or 0 if no query has completed yet */
+  synchronized long getUsualLatencyMillis() {
+    return Math.round(usualLatencyMillis);
+  }
+}
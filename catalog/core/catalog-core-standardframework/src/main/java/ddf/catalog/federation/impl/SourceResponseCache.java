@@ -0,0 +1,379 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+import static ddf.catalog.Constants.ADDITIONAL_SORT_BYS;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceProcessingDetails;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.security.SecurityConstants;
+import ddf.security.Subject;
+import ddf.security.SubjectOperations;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.opengis.filter.sort.SortBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the responses of federated sources, so that a query repeated within a short time, such as
+ * a dashboard being refreshed, is answered without waiting for the source.
+ *
+ * <p>Responses are keyed by the source, the query, the properties of the request and the attributes
+ * of the subject running it, so a response is only reused for users with the same attributes. The
+ * filter of the query is written with a {@link FilterKeyVisitor}, and queries whose filter or
+ * properties cannot be written completely are not cached. A cached response is used as is until it
+ * reaches the time to live. For a while after that it is still used, but the source is queried
+ * again in the background to refresh it. Responses with processing details are not cached, since
+ * they are usually incomplete.
+ *
+ * <p>Queries missing the cache at the same time for the same key share a single query to the
+ * source, so a response expiring while many users look at it does not send them all to the source.
+ *
+ * <p>Callers may change the metacards of the responses they are given, so every response is cached
+ * and served as a copy of its results and metacards.
+ */
+class SourceResponseCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SourceResponseCache.class);
+
+  private final ExecutorService refreshExecutor;
+
+  private final Map<String, CachedResponse> responses =
+      new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+          return size() > maxEntries;
+        }
+      };
+
+  private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+  private final Map<String, CompletableFuture<SourceResponse>> loading = new ConcurrentHashMap<>();
+
+  private volatile Set<String> sourceIds = Collections.emptySet();
+
+  private volatile long timeToLiveMillis;
+
+  private volatile long staleMillis;
+
+  private volatile int maxEntries;
+
+  private volatile SubjectOperations subjectOperations;
+
+  /**
+   * @param refreshExecutor runs the queries refreshing stale responses
+   * @param timeToLiveMillis how long a response is used before it is refreshed
+   * @param staleMillis how long after its time to live a response is still used while refreshing it
+   * @param maxEntries the most responses kept, beyond which the least recently used are dropped
+   */
+  SourceResponseCache(
+      ExecutorService refreshExecutor, long timeToLiveMillis, long staleMillis, int maxEntries) {
+    this.refreshExecutor = refreshExecutor;
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.staleMillis = staleMillis;
+    this.maxEntries = maxEntries;
+  }
+
+  /** @return true if the responses of the source are cached */
+  boolean isCached(String sourceId) {
+    return sourceIds.contains(sourceId);
+  }
+
+  /**
+   * Returns the response of a source to a query, from the cache if it has one that can be used.
+   *
+   * @param sourceId the ID of the source
+   * @param request the query sent to the source
+   * @param liveQuery queries the source itself
+   * @return the response of the source
+   * @throws Exception if the source has to be queried and the query fails
+   */
+  SourceResponse query(String sourceId, QueryRequest request, Callable<SourceResponse> liveQuery)
+      throws Exception {
+    String key = key(sourceId, request);
+    if (key == null) {
+      return liveQuery.call();
+    }
+
+    CachedResponse cached;
+    synchronized (responses) {
+      cached = responses.get(key);
+    }
+
+    if (cached != null) {
+      long age = System.currentTimeMillis() - cached.storedMillis;
+      if (age < timeToLiveMillis) {
+        LOGGER.trace("Answering query on source {} from the cache", sourceId);
+        return copy(cached.response, request);
+      } else if (age < timeToLiveMillis + staleMillis) {
+        LOGGER.trace("Answering query on source {} from the cache while refreshing it", sourceId);
+        refresh(key, liveQuery);
+        return copy(cached.response, request);
+      }
+    }
+
+    return load(key, request, liveQuery);
+  }
+
+  void setSourceIds(Set<String> sourceIds) {
+    this.sourceIds = sourceIds;
+    clear();
+  }
+
+  void setTimeToLiveMillis(long timeToLiveMillis) {
+    this.timeToLiveMillis = timeToLiveMillis;
+  }
+
+  void setStaleMillis(long staleMillis) {
+    this.staleMillis = staleMillis;
+  }
+
+  void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+    clear();
+  }
+
+  void setSubjectOperations(SubjectOperations subjectOperations) {
+    this.subjectOperations = subjectOperations;
+  }
+
+  int size() {
+    synchronized (responses) {
+      return responses.size();
+    }
+  }
+
+  private void clear() {
+    synchronized (responses) {
+      responses.clear();
+    }
+  }
+
+  /**
+   * Queries the source, unless the same query is already being sent to it, and caches the response.
+   */
+  private SourceResponse load(String key, QueryRequest request, Callable<SourceResponse> liveQuery)
+      throws Exception {
+    CompletableFuture<SourceResponse> load = new CompletableFuture<>();
+    CompletableFuture<SourceResponse> current = loading.putIfAbsent(key, load);
+    if (current != null) {
+      LOGGER.trace("Waiting for the response of the same query to the source");
+      SourceResponse response = await(current);
+      return response == null ? null : copy(response, request);
+    }
+
+    try {
+      SourceResponse response = liveQuery.call();
+      store(key, response);
+      load.complete(response);
+      return response;
+    } catch (Exception | Error e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(key, load);
+    }
+  }
+
+  private static SourceResponse await(CompletableFuture<SourceResponse> load) throws Exception {
+    try {
+      return load.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  private void refresh(String key, Callable<SourceResponse> liveQuery) {
+    if (!refreshing.add(key)) {
+      return;
+    }
+
+    try {
+      refreshExecutor.execute(
+          () -> {
+            try {
+              store(key, liveQuery.call());
+            } catch (Exception e) {
+              LOGGER.debug("Unable to refresh cached source response", e);
+            } finally {
+              refreshing.remove(key);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      refreshing.remove(key);
+      LOGGER.debug("Unable to refresh cached source response", e);
+    }
+  }
+
+  private void store(String key, SourceResponse response) {
+    if (response == null
+        || (response.getProcessingDetails() != null
+            && !response.getProcessingDetails().isEmpty())) {
+      return;
+    }
+
+    CachedResponse cached =
+        new CachedResponse(copy(response, response.getRequest()), System.currentTimeMillis());
+    synchronized (responses) {
+      responses.put(key, cached);
+    }
+  }
+
+  /**
+   * Builds the key of a query, or returns null if the query cannot be cached because its filter,
+   * its properties or the attributes of its subject cannot be written.
+   */
+  private String key(String sourceId, QueryRequest request) {
+    Query query = request.getQuery();
+    if (query == null) {
+      return null;
+    }
+
+    Map<String, ? extends Set<String>> subjectAttributes = Collections.emptyMap();
+    Serializable subject = request.getPropertyValue(SecurityConstants.SECURITY_SUBJECT);
+    if (subject instanceof Subject) {
+      SubjectOperations operations = subjectOperations;
+      if (operations == null) {
+        return null;
+      }
+      subjectAttributes = operations.getSubjectAttributes((Subject) subject);
+    }
+
+    StringBuilder key = new StringBuilder(sourceId).append('\n');
+    try {
+      query.accept(FilterKeyVisitor.INSTANCE, key);
+      key.append('\n');
+      appendProperties(key, request.getProperties());
+    } catch (UnsupportedOperationException e) {
+      LOGGER.debug("Not caching query on source {}: {}", sourceId, e.getMessage());
+      return null;
+    }
+
+    key.append('\n')
+        .append(query.getStartIndex())
+        .append(' ')
+        .append(query.getPageSize())
+        .append(' ')
+        .append(query.requestsTotalResultsCount())
+        .append('\n');
+    appendSortBy(key, query.getSortBy());
+    Serializable additionalSortBys = request.getPropertyValue(ADDITIONAL_SORT_BYS);
+    if (additionalSortBys instanceof SortBy[]) {
+      for (SortBy sortBy : (SortBy[]) additionalSortBys) {
+        appendSortBy(key, sortBy);
+      }
+    }
+    key.append('\n');
+    FilterKeyVisitor.appendValue(key, subjectAttributes);
+    return key.toString();
+  }
+
+  /**
+   * Writes the properties of a request sources may use to answer it. The subject is left out, it is
+   * represented by its attributes, and so are the additional sort bys, written with the sort of the
+   * query.
+   */
+  private static void appendProperties(StringBuilder key, Map<String, Serializable> properties) {
+    if (properties == null) {
+      return;
+    }
+
+    Map<String, Serializable> sorted = new TreeMap<>(properties);
+    sorted.remove(SecurityConstants.SECURITY_SUBJECT);
+    sorted.remove(ADDITIONAL_SORT_BYS);
+    FilterKeyVisitor.appendValue(key, sorted);
+  }
+
+  private static void appendSortBy(StringBuilder key, SortBy sortBy) {
+    if (sortBy != null && sortBy.getPropertyName() != null) {
+      key.append(sortBy.getPropertyName().getPropertyName())
+          .append(' ')
+          .append(sortBy.getSortOrder())
+          .append(';');
+    }
+  }
+
+  private static SourceResponse copy(SourceResponse response, QueryRequest request) {
+    Map<String, Serializable> properties =
+        response.getProperties() == null
+            ? new HashMap<>()
+            : new HashMap<>(response.getProperties());
+    return new SourceResponseImpl(
+        request,
+        properties,
+        copy(response.getResults()),
+        response.getHits(),
+        response.getProcessingDetails() == null
+            ? new HashSet<>()
+            : new HashSet<SourceProcessingDetails>(response.getProcessingDetails()));
+  }
+
+  private static List<Result> copy(List<Result> results) {
+    List<Result> copies = new ArrayList<>();
+    if (results == null) {
+      return copies;
+    }
+
+    for (Result result : results) {
+      Metacard metacard = result.getMetacard();
+      ResultImpl copy =
+          new ResultImpl(
+              metacard == null ? null : new MetacardImpl(metacard, metacard.getMetacardType()));
+      copy.setDistanceInMeters(result.getDistanceInMeters());
+      copy.setRelevanceScore(result.getRelevanceScore());
+      copies.add(copy);
+    }
+    return copies;
+  }
+
+  private static class CachedResponse {
+
+    private final SourceResponse response;
+
+    private final long storedMillis;
+
+    private CachedResponse(SourceResponse response, long storedMillis) {
+      this.response = response;
+      this.storedMillis = storedMillis;
+    }
+  }
+}
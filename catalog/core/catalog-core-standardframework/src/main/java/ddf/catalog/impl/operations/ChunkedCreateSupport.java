@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import com.google.common.collect.Lists;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.operation.CreateRequest;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+import ddf.catalog.plugin.StopProcessingException;
+import ddf.catalog.source.IngestException;
+import ddf.catalog.source.InternalIngestException;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.SubjectCallable;
+import org.apache.shiro.util.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Support class for running create stages of the {@code CreateOperations} concurrently on
+ * fixed-size chunks of a large {@link CreateRequest}.
+ *
+ * <p>Each chunk is processed as its own {@link CreateRequest} holding a copy of the original
+ * request properties. Once every chunk is done, the metacards are reassembled in their original
+ * order and the chunk properties are merged back into the original request properties. At most
+ * {@code maxChunksInFlight} chunks are submitted to the executor at a time, so a very large request
+ * neither floods the executor nor copies its properties for every chunk up front.
+ */
+class ChunkedCreateSupport {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedCreateSupport.class);
+
+  /** A create stage that is applied to a single chunk. */
+  @FunctionalInterface
+  interface ChunkProcessor {
+    CreateRequest process(CreateRequest chunk) throws StopProcessingException;
+  }
+
+  private final ExecutorService executor;
+
+  private final int chunkSize;
+
+  private final int maxChunksInFlight;
+
+  ChunkedCreateSupport(ExecutorService executor, int chunkSize, int maxChunksInFlight) {
+    this.executor = executor;
+    this.chunkSize = chunkSize;
+    this.maxChunksInFlight = maxChunksInFlight;
+  }
+
+  /**
+   * @param createRequest the request to check
+   * @return true if {@code createRequest} holds more than one chunk of metacards
+   */
+  boolean isChunked(CreateRequest createRequest) {
+    return executor != null
+        && chunkSize > 0
+        && createRequest.getMetacards() != null
+        && createRequest.getMetacards().size() > chunkSize;
+  }
+
+  /**
+   * Applies {@code processor} to every chunk of {@code createRequest} concurrently.
+   *
+   * @param createRequest the request to split
+   * @param processor the stage applied to each chunk
+   * @param propertyMerger merges a property of a processed chunk into the properties of the
+   *     reassembled request
+   * @return a request holding the processed metacards of all chunks, in chunk order
+   * @throws StopProcessingException if the stage stopped processing of any chunk
+   * @throws IngestException if a chunk could not be processed
+   */
+  CreateRequest process(
+      CreateRequest createRequest,
+      ChunkProcessor processor,
+      BiConsumer<Map<String, Serializable>, Map.Entry<String, Serializable>> propertyMerger)
+      throws StopProcessingException, IngestException {
+    List<List<Metacard>> chunks = Lists.partition(createRequest.getMetacards(), chunkSize);
+    LOGGER.debug(
+        "Processing {} metacards in {} chunks.",
+        createRequest.getMetacards().size(),
+        chunks.size());
+
+    Subject subject = ThreadContext.getSubject();
+    // later chunks are submitted while earlier ones are merged into the request properties
+    Map<String, Serializable> requestProperties = new HashMap<>(createRequest.getProperties());
+    Iterator<List<Metacard>> remainingChunks = chunks.iterator();
+    Deque<Future<CreateRequest>> futures = new ArrayDeque<>(maxChunksInFlight);
+    List<Metacard> metacards = new ArrayList<>(createRequest.getMetacards().size());
+    Map<String, Serializable> properties = createRequest.getProperties();
+    try {
+      while (futures.size() < maxChunksInFlight && remainingChunks.hasNext()) {
+        futures.add(
+            submit(createRequest, requestProperties, remainingChunks.next(), processor, subject));
+      }
+
+      while (!futures.isEmpty()) {
+        CreateRequest processed = getChunk(futures.peek());
+        futures.remove();
+        if (remainingChunks.hasNext()) {
+          futures.add(
+              submit(createRequest, requestProperties, remainingChunks.next(), processor, subject));
+        }
+
+        metacards.addAll(processed.getMetacards());
+        for (Map.Entry<String, Serializable> property : processed.getProperties().entrySet()) {
+          propertyMerger.accept(properties, property);
+        }
+      }
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+
+    return new CreateRequestImpl(metacards, properties, createRequest.getStoreIds());
+  }
+
+  private Future<CreateRequest> submit(
+      CreateRequest createRequest,
+      Map<String, Serializable> requestProperties,
+      List<Metacard> chunk,
+      ChunkProcessor processor,
+      Subject subject) {
+    CreateRequest chunkRequest =
+        new CreateRequestImpl(
+            new ArrayList<>(chunk), new HashMap<>(requestProperties), createRequest.getStoreIds());
+    Callable<CreateRequest> task = () -> processor.process(chunkRequest);
+    return executor.submit(subject == null ? task : new SubjectCallable<>(subject, task));
+  }
+
+  /** Merges chunk properties by letting the value of the last chunk win. */
+  static void replaceProperty(
+      Map<String, Serializable> properties, Map.Entry<String, Serializable> property) {
+    properties.put(property.getKey(), property.getValue());
+  }
+
+  private CreateRequest getChunk(Future<CreateRequest> future)
+      throws StopProcessingException, IngestException {
+    try {
+      CreateRequest processed = future.get();
+      if (processed == null || processed.getMetacards() == null) {
+        throw new IngestException("A chunk of the CreateRequest was processed into a null request");
+      }
+      return processed;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IngestException("Interrupted while processing the CreateRequest in chunks", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof StopProcessingException) {
+        throw (StopProcessingException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw new InternalIngestException(
+            "Exception during runtime while processing a chunk of the create request", cause);
+      }
+      throw new IngestException("Unable to process a chunk of the CreateRequest", cause);
+    }
+  }
+}
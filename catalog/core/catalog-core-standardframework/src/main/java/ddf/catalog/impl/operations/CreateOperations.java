@@ -36,6 +36,8 @@
 import ddf.catalog.operation.impl.OperationTransactionImpl;
 import ddf.catalog.operation.impl.ProcessingDetailsImpl;
 import ddf.catalog.plugin.AccessPlugin;
+import ddf.catalog.plugin.BatchPolicyPlugin;
+import ddf.catalog.plugin.ConcurrentIngestPlugin;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PolicyPlugin;
 import ddf.catalog.plugin.PolicyResponse;
@@ -61,9 +63,14 @@
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -80,6 +87,10 @@ public class CreateOperations {
 
   private static final String PRE_INGEST_ERROR = "Error during pre-ingest:\n\n";
 
+  public static final int DEFAULT_INGEST_THREADS = 8;
+
+  private static final long INGEST_THREAD_KEEP_ALIVE_SECONDS = 60;
+
   // Inject properties
   private final FrameworkProperties frameworkProperties;
 
@@ -95,6 +106,16 @@ public class CreateOperations {
 
   private final OperationsStorageSupport opsStorageSupport;
 
+  private final ThreadPoolExecutor ingestThreadPool;
+
+  private ExecutorService ingestExecutor;
+
+  private int ingestThreads = DEFAULT_INGEST_THREADS;
+
+  private int ingestChunkSize = 0;
+
+  private ChunkedCreateSupport chunkedCreateSupport;
+
   public CreateOperations(
       FrameworkProperties frameworkProperties,
       QueryOperations queryOperations,
@@ -110,6 +131,78 @@ public CreateOperations(
     this.opsMetacardSupport = opsMetacardSupport;
     this.opsCatStoreSupport = opsCatStoreSupport;
     this.opsStorageSupport = opsStorageSupport;
+
+    ingestThreadPool =
+        new ThreadPoolExecutor(
+            ingestThreads,
+            ingestThreads,
+            INGEST_THREAD_KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            StandardThreadFactoryBuilder.newThreadFactory("ingestChunkThread"));
+    ingestThreadPool.allowCoreThreadTimeOut(true);
+    ingestExecutor = ingestThreadPool;
+    updateChunkedCreateSupport();
+  }
+
+  /** Shuts down the thread pool used to process chunks of large {@link CreateRequest}s. */
+  public void destroy() {
+    ingestThreadPool.shutdown();
+  }
+
+  /**
+   * Sets the executor used to process chunks of large {@link CreateRequest}s concurrently in place
+   * of the thread pool owned by this class. At most {@link #setIngestThreads(int)} chunks are
+   * submitted to it at a time.
+   *
+   * @param ingestExecutor the executor, or {@code null} to process every request sequentially
+   */
+  public void setIngestExecutor(ExecutorService ingestExecutor) {
+    this.ingestExecutor = ingestExecutor;
+    updateChunkedCreateSupport();
+  }
+
+  /**
+   * Sets the number of threads used to process chunks of large {@link CreateRequest}s. This is also
+   * the number of chunks of a single request that are processed at the same time.
+   *
+   * @param ingestThreads the number of threads, must be at least 1
+   */
+  public void setIngestThreads(int ingestThreads) {
+    if (ingestThreads < 1) {
+      LOGGER.debug(
+          "Invalid number of ingest threads [{}]. Keeping [{}].",
+          ingestThreads,
+          this.ingestThreads);
+      return;
+    }
+
+    // the maximum pool size may never be lower than the core pool size
+    if (ingestThreads > ingestThreadPool.getMaximumPoolSize()) {
+      ingestThreadPool.setMaximumPoolSize(ingestThreads);
+      ingestThreadPool.setCorePoolSize(ingestThreads);
+    } else {
+      ingestThreadPool.setCorePoolSize(ingestThreads);
+      ingestThreadPool.setMaximumPoolSize(ingestThreads);
+    }
+    this.ingestThreads = ingestThreads;
+    updateChunkedCreateSupport();
+  }
+
+  /**
+   * Sets the number of metacards above which a {@link CreateRequest} is split into chunks whose
+   * attribute injection, policy and {@link ConcurrentIngestPlugin} pre-ingest stages are processed
+   * concurrently.
+   *
+   * @param ingestChunkSize the chunk size, or {@code 0} to process every request sequentially
+   */
+  public void setIngestChunkSize(int ingestChunkSize) {
+    this.ingestChunkSize = ingestChunkSize;
+    updateChunkedCreateSupport();
+  }
+
+  private void updateChunkedCreateSupport() {
+    chunkedCreateSupport = new ChunkedCreateSupport(ingestExecutor, ingestChunkSize, ingestThreads);
   }
 
   //
@@ -258,8 +351,7 @@ private CreateResponse doCreate(CreateRequest createRequest)
 
     try {
       INGEST_LOGGER.info("Started ingesting metacard with titles: {}.", fileNames);
-      createRequest = injectAttributes(createRequest);
-      createRequest = setDefaultValues(createRequest);
+      createRequest = injectAttributesAndDefaultValues(createRequest);
       createRequest = processPreAuthorizationPlugins(createRequest);
       createRequest = updateCreateRequestPolicyMap(createRequest);
       createRequest = processPrecreateAccessPlugins(createRequest);
@@ -379,6 +471,19 @@ private CreateRequest injectAttributes(CreateRequest request) {
     return new CreateRequestImpl(metacards, request.getProperties(), request.getStoreIds());
   }
 
+  private CreateRequest injectAttributesAndDefaultValues(CreateRequest createRequest)
+      throws IngestException, StopProcessingException {
+    ChunkedCreateSupport chunkSupport = chunkedCreateSupport;
+    if (!chunkSupport.isChunked(createRequest)) {
+      return setDefaultValues(injectAttributes(createRequest));
+    }
+
+    return chunkSupport.process(
+        createRequest,
+        chunk -> setDefaultValues(injectAttributes(chunk)),
+        ChunkedCreateSupport::replaceProperty);
+  }
+
   private CreateRequest setDefaultValues(CreateRequest createRequest) {
     createRequest
         .getMetacards()
@@ -528,9 +633,47 @@ private CreateResponse getCreateResponse(CreateRequest createRequest) throws Ing
     return sourceOperations.getCatalog().create(createRequest);
   }
 
+  /**
+   * Runs the pre-ingest plugins in order. When the request is large enough to be chunked, each run
+   * of consecutive {@link ConcurrentIngestPlugin}s is applied to all chunks concurrently, while the
+   * remaining plugins still see the whole request.
+   */
   private CreateRequest processPreIngestPlugins(CreateRequest createRequest)
-      throws StopProcessingException {
-    for (PreIngestPlugin plugin : frameworkProperties.getPreIngest()) {
+      throws StopProcessingException, IngestException {
+    ChunkedCreateSupport chunkSupport = chunkedCreateSupport;
+    if (!chunkSupport.isChunked(createRequest)) {
+      return processPreIngestPlugins(createRequest, frameworkProperties.getPreIngest());
+    }
+
+    List<PreIngestPlugin> plugins = new ArrayList<>(frameworkProperties.getPreIngest());
+    int start = 0;
+    while (start < plugins.size()) {
+      int end = start;
+      while (end < plugins.size() && plugins.get(end) instanceof ConcurrentIngestPlugin) {
+        end++;
+      }
+
+      if (end == start) {
+        createRequest = processPreIngestPlugins(createRequest, plugins.subList(start, start + 1));
+        start++;
+      } else {
+        List<PreIngestPlugin> stage = plugins.subList(start, end);
+        createRequest =
+            chunkSupport.isChunked(createRequest)
+                ? chunkSupport.process(
+                    createRequest,
+                    chunk -> processPreIngestPlugins(chunk, stage),
+                    ChunkedCreateSupport::replaceProperty)
+                : processPreIngestPlugins(createRequest, stage);
+        start = end;
+      }
+    }
+    return createRequest;
+  }
+
+  private CreateRequest processPreIngestPlugins(
+      CreateRequest createRequest, List<PreIngestPlugin> plugins) throws StopProcessingException {
+    for (PreIngestPlugin plugin : plugins) {
       try {
         createRequest = plugin.process(createRequest);
       } catch (PluginExecutionException e) {
@@ -557,27 +700,82 @@ private CreateRequest processPreAuthorizationPlugins(CreateRequest createRequest
   }
 
   private CreateRequest updateCreateRequestPolicyMap(CreateRequest createRequest)
+      throws StopProcessingException, IngestException {
+    ChunkedCreateSupport chunkSupport = chunkedCreateSupport;
+    if (!chunkSupport.isChunked(createRequest)
+        || !frameworkProperties
+            .getPolicyPlugins()
+            .stream()
+            .allMatch(ConcurrentIngestPlugin.class::isInstance)) {
+      return updateChunkPolicyMap(createRequest);
+    }
+
+    createRequest.getProperties().remove(PolicyPlugin.OPERATION_SECURITY);
+    return chunkSupport.process(createRequest, this::updateChunkPolicyMap, this::mergePolicyMap);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mergePolicyMap(
+      Map<String, Serializable> properties, Map.Entry<String, Serializable> property) {
+    if (!PolicyPlugin.OPERATION_SECURITY.equals(property.getKey())) {
+      ChunkedCreateSupport.replaceProperty(properties, property);
+      return;
+    }
+
+    HashMap<String, Set<String>> requestPolicyMap =
+        (HashMap<String, Set<String>>)
+            properties.computeIfAbsent(
+                PolicyPlugin.OPERATION_SECURITY, key -> new HashMap<String, Set<String>>());
+    opsSecuritySupport.buildPolicyMap(
+        requestPolicyMap, ((Map<String, Set<String>>) property.getValue()).entrySet());
+  }
+
+  private CreateRequest updateChunkPolicyMap(CreateRequest createRequest)
       throws StopProcessingException {
     Map<String, Serializable> unmodifiablePropertiesMap =
         Collections.unmodifiableMap(createRequest.getProperties());
     HashMap<String, Set<String>> requestPolicyMap = new HashMap<>();
-    for (Metacard metacard : createRequest.getMetacards()) {
-      HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
-      for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-        PolicyResponse policyResponse =
-            plugin.processPreCreate(metacard, unmodifiablePropertiesMap);
-        opsSecuritySupport.buildPolicyMap(itemPolicyMap, policyResponse.itemPolicy().entrySet());
+    List<Metacard> metacards = new ArrayList<>(createRequest.getMetacards());
+    List<HashMap<String, Set<String>>> itemPolicyMaps = new ArrayList<>(metacards.size());
+    for (int i = 0; i < metacards.size(); i++) {
+      itemPolicyMaps.add(new HashMap<>());
+    }
+
+    for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
+      List<PolicyResponse> policyResponses =
+          processPreCreatePolicy(plugin, metacards, unmodifiablePropertiesMap);
+      for (int i = 0; i < metacards.size(); i++) {
+        PolicyResponse policyResponse = policyResponses.get(i);
+        opsSecuritySupport.buildPolicyMap(
+            itemPolicyMaps.get(i), policyResponse.itemPolicy().entrySet());
         opsSecuritySupport.buildPolicyMap(
             requestPolicyMap, policyResponse.operationPolicy().entrySet());
       }
+    }
 
-      metacard.setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
+    for (int i = 0; i < metacards.size(); i++) {
+      metacards.get(i).setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMaps.get(i)));
     }
     createRequest.getProperties().put(PolicyPlugin.OPERATION_SECURITY, requestPolicyMap);
 
     return createRequest;
   }
 
+  private List<PolicyResponse> processPreCreatePolicy(
+      PolicyPlugin plugin, List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    if (plugin instanceof BatchPolicyPlugin) {
+      return BatchPolicyPlugin.verifyPolicyResponses(
+          ((BatchPolicyPlugin) plugin).processPreCreate(metacards, properties), metacards);
+    }
+
+    List<PolicyResponse> policyResponses = new ArrayList<>(metacards.size());
+    for (Metacard metacard : metacards) {
+      policyResponses.add(plugin.processPreCreate(metacard, properties));
+    }
+    return policyResponses;
+  }
+
   private CreateRequest validateLocalSource(CreateRequest createRequest)
       throws SourceUnavailableException {
     if (Requests.isLocal(createRequest)
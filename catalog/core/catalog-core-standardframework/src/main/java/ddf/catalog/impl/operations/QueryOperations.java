@@ -40,6 +40,7 @@
 import ddf.catalog.operation.impl.QueryRequestImpl;
 import ddf.catalog.operation.impl.QueryResponseImpl;
 import ddf.catalog.plugin.AccessPlugin;
+import ddf.catalog.plugin.BatchPolicyPlugin;
 import ddf.catalog.plugin.OAuthPluginException;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PolicyPlugin;
@@ -433,25 +434,54 @@ private QueryResponse populateQueryResponsePolicyMap(QueryResponse queryResponse
     HashMap<String, Set<String>> responsePolicyMap = new HashMap<>();
     Map<String, Serializable> unmodifiableProperties =
         Collections.unmodifiableMap(queryResponse.getProperties());
-    for (Result result : queryResponse.getResults()) {
-      HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
-      for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-        try {
-          PolicyResponse policyResponse = plugin.processPostQuery(result, unmodifiableProperties);
-          opsSecuritySupport.buildPolicyMap(itemPolicyMap, policyResponse.itemPolicy().entrySet());
+    List<Result> results = new ArrayList<>(queryResponse.getResults());
+    List<HashMap<String, Set<String>>> itemPolicyMaps = new ArrayList<>(results.size());
+    for (int i = 0; i < results.size(); i++) {
+      itemPolicyMaps.add(new HashMap<>());
+    }
+
+    for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
+      try {
+        List<PolicyResponse> policyResponses =
+            processPostQueryPolicy(plugin, results, unmodifiableProperties);
+        for (int i = 0; i < results.size(); i++) {
+          PolicyResponse policyResponse = policyResponses.get(i);
+          opsSecuritySupport.buildPolicyMap(
+              itemPolicyMaps.get(i), policyResponse.itemPolicy().entrySet());
           opsSecuritySupport.buildPolicyMap(
               responsePolicyMap, policyResponse.operationPolicy().entrySet());
-        } catch (StopProcessingException e) {
-          throw new FederationException("Query could not be executed.", e);
         }
+      } catch (StopProcessingException e) {
+        throw new FederationException("Query could not be executed.", e);
       }
-      result.getMetacard().setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
+    }
+
+    for (int i = 0; i < results.size(); i++) {
+      results
+          .get(i)
+          .getMetacard()
+          .setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMaps.get(i)));
     }
     queryResponse.getProperties().put(PolicyPlugin.OPERATION_SECURITY, responsePolicyMap);
 
     return queryResponse;
   }
 
+  private List<PolicyResponse> processPostQueryPolicy(
+      PolicyPlugin plugin, List<Result> results, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    if (plugin instanceof BatchPolicyPlugin) {
+      return BatchPolicyPlugin.verifyPolicyResponses(
+          ((BatchPolicyPlugin) plugin).processPostQuery(results, properties), results);
+    }
+
+    List<PolicyResponse> policyResponses = new ArrayList<>(results.size());
+    for (Result result : results) {
+      policyResponses.add(plugin.processPostQuery(result, properties));
+    }
+    return policyResponses;
+  }
+
   private QueryRequest processPreQueryPlugins(QueryRequest queryReq) throws FederationException {
     for (PreQueryPlugin service : frameworkProperties.getPreQuery()) {
       try {
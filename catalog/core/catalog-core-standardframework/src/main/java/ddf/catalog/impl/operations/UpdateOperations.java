@@ -46,6 +46,7 @@
 import ddf.catalog.operation.impl.UpdateRequestImpl;
 import ddf.catalog.operation.impl.UpdateResponseImpl;
 import ddf.catalog.plugin.AccessPlugin;
+import ddf.catalog.plugin.BatchPolicyPlugin;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PolicyPlugin;
 import ddf.catalog.plugin.PolicyResponse;
@@ -540,30 +541,43 @@ private UpdateRequest processPreUpdateAccessPlugins(UpdateRequest updateRequest)
   private UpdateRequest populateUpdateRequestPolicyMap(UpdateRequest updateRequest)
       throws StopProcessingException {
     Map<String, Metacard> metacardMap = getUpdateMap(updateRequest);
+    Map<String, Serializable> unmodifiableProperties =
+        Collections.unmodifiableMap(updateRequest.getProperties());
     HashMap<String, Set<String>> requestPolicyMap = new HashMap<>();
-    for (Map.Entry<Serializable, Metacard> update : updateRequest.getUpdates()) {
-      HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
-      HashMap<String, Set<String>> oldItemPolicyMap = new HashMap<>();
-      Metacard oldMetacard = metacardMap.get(update.getKey().toString());
-
-      for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-        PolicyResponse updatePolicyResponse =
-            plugin.processPreUpdate(
-                update.getValue(), Collections.unmodifiableMap(updateRequest.getProperties()));
-        PolicyResponse oldPolicyResponse =
-            plugin.processPreUpdate(
-                oldMetacard, Collections.unmodifiableMap(updateRequest.getProperties()));
+    List<Map.Entry<Serializable, Metacard>> updates = updateRequest.getUpdates();
+    List<Metacard> newMetacards = new ArrayList<>(updates.size());
+    List<Metacard> oldMetacards = new ArrayList<>(updates.size());
+    List<HashMap<String, Set<String>>> itemPolicyMaps = new ArrayList<>(updates.size());
+    List<HashMap<String, Set<String>>> oldItemPolicyMaps = new ArrayList<>(updates.size());
+    for (Map.Entry<Serializable, Metacard> update : updates) {
+      newMetacards.add(update.getValue());
+      oldMetacards.add(metacardMap.get(update.getKey().toString()));
+      itemPolicyMaps.add(new HashMap<>());
+      oldItemPolicyMaps.add(new HashMap<>());
+    }
+
+    for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
+      List<PolicyResponse> updatePolicyResponses =
+          processPreUpdatePolicy(plugin, newMetacards, unmodifiableProperties);
+      List<PolicyResponse> oldPolicyResponses =
+          processPreUpdatePolicy(plugin, oldMetacards, unmodifiableProperties);
 
+      for (int i = 0; i < updates.size(); i++) {
+        PolicyResponse updatePolicyResponse = updatePolicyResponses.get(i);
         opsSecuritySupport.buildPolicyMap(
-            itemPolicyMap, updatePolicyResponse.itemPolicy().entrySet());
+            itemPolicyMaps.get(i), updatePolicyResponse.itemPolicy().entrySet());
         opsSecuritySupport.buildPolicyMap(
-            oldItemPolicyMap, oldPolicyResponse.itemPolicy().entrySet());
+            oldItemPolicyMaps.get(i), oldPolicyResponses.get(i).itemPolicy().entrySet());
         opsSecuritySupport.buildPolicyMap(
             requestPolicyMap, updatePolicyResponse.operationPolicy().entrySet());
       }
-      update.getValue().setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
+    }
+
+    for (int i = 0; i < updates.size(); i++) {
+      newMetacards.get(i).setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMaps.get(i)));
+      Metacard oldMetacard = oldMetacards.get(i);
       if (oldMetacard != null) {
-        oldMetacard.setAttribute(new AttributeImpl(Metacard.SECURITY, oldItemPolicyMap));
+        oldMetacard.setAttribute(new AttributeImpl(Metacard.SECURITY, oldItemPolicyMaps.get(i)));
       }
     }
     updateRequest.getProperties().put(PolicyPlugin.OPERATION_SECURITY, requestPolicyMap);
@@ -571,6 +585,21 @@ private UpdateRequest populateUpdateRequestPolicyMap(UpdateRequest updateRequest
     return updateRequest;
   }
 
+  private List<PolicyResponse> processPreUpdatePolicy(
+      PolicyPlugin plugin, List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    if (plugin instanceof BatchPolicyPlugin) {
+      return BatchPolicyPlugin.verifyPolicyResponses(
+          ((BatchPolicyPlugin) plugin).processPreUpdate(metacards, properties), metacards);
+    }
+
+    List<PolicyResponse> policyResponses = new ArrayList<>(metacards.size());
+    for (Metacard metacard : metacards) {
+      policyResponses.add(plugin.processPreUpdate(metacard, properties));
+    }
+    return policyResponses;
+  }
+
   private UpdateRequest populateMetacards(UpdateRequest updateRequest) throws IngestException {
     QueryRequestImpl queryRequest = createQueryRequest(updateRequest);
     QueryResponse queryResponse;
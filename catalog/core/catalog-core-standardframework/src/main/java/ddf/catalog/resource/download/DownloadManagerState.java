@@ -26,12 +26,45 @@ public class DownloadManagerState {
 
   private boolean continueCaching;
 
-  public DownloadState getDownloadState() {
+  // Incremented whenever more of the product is available or the state changes, so that a reader
+  // can tell whether anything happened since it last looked
+  private long progress;
+
+  public synchronized DownloadState getDownloadState() {
     return state;
   }
 
-  public void setDownloadState(DownloadState state) {
+  public synchronized void setDownloadState(DownloadState state) {
     this.state = state;
+    signalProgress();
+  }
+
+  /** @return the current progress, to pass to {@link #awaitProgress(long, long)} */
+  public synchronized long getProgress() {
+    return progress;
+  }
+
+  /** Wakes up the readers waiting for more of the product to be downloaded. */
+  public synchronized void signalProgress() {
+    progress++;
+    notifyAll();
+  }
+
+  /**
+   * Waits until more of the product is downloaded or the state of the download changes.
+   *
+   * @param lastProgress the progress when the reader last found nothing to read
+   * @param timeoutMillis the maximum time to wait
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public synchronized void awaitProgress(long lastProgress, long timeoutMillis)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    long remaining = timeoutMillis;
+    while (progress == lastProgress && remaining > 0) {
+      wait(remaining);
+      remaining = deadline - System.currentTimeMillis();
+    }
   }
 
   public boolean isCacheEnabled() {
@@ -15,6 +15,9 @@
 
 import com.google.common.base.Stopwatch;
 import ddf.catalog.cache.impl.CacheKey;
+import ddf.catalog.cache.impl.PendingResource;
+import ddf.catalog.cache.impl.ProductCacheStatistics;
+import ddf.catalog.cache.impl.ResourceCacheImpl;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.event.retrievestatus.DownloadStatusInfo;
 import ddf.catalog.operation.ResourceRequest;
@@ -23,7 +26,9 @@
 import ddf.catalog.resource.Resource;
 import ddf.catalog.resource.ResourceNotFoundException;
 import ddf.catalog.resource.ResourceNotSupportedException;
+import ddf.catalog.resource.data.ReliableResource;
 import ddf.catalog.resource.download.DownloadManagerState.DownloadState;
+import ddf.catalog.resource.impl.ResourceImpl;
 import ddf.catalog.resourceretriever.ResourceRetriever;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -108,10 +113,12 @@ public ResourceResponse download(
     }
 
     if (downloaderConfig.isCacheEnabled()) {
-      Resource cachedResource =
-          downloaderConfig
-              .getResourceCache()
-              .getValid(new CacheKey(metacard, resourceRequest).generateKey(), metacard);
+      ResourceCacheImpl resourceCache = downloaderConfig.getResourceCache();
+      String key = new CacheKey(metacard, resourceRequest).generateKey();
+      Resource cachedResource = resourceCache.getValid(key, metacard);
+      if (cachedResource == null) {
+        cachedResource = getPendingResource(resourceCache.getPending(key, metacard), metacard);
+      }
       if (cachedResource != null) {
         resourceResponse =
             new ResourceResponseImpl(
@@ -183,6 +190,14 @@ public void setProductCacheDirectory(String productCacheDirectory) {
     this.downloaderConfig.getResourceCache().setProductCacheDirectory(productCacheDirectory);
   }
 
+  public void setCacheEvictionPolicy(String cacheEvictionPolicy) {
+    this.downloaderConfig.getResourceCache().setCacheEvictionPolicy(cacheEvictionPolicy);
+  }
+
+  public ProductCacheStatistics getCacheStatistics() {
+    return downloaderConfig.getResourceCache().getStatistics();
+  }
+
   public List<DownloadInfo> getDownloadsInProgress() {
     List<DownloadInfo> downloadsInProgress = new ArrayList<>();
     for (String downloadIdentifier : downloadStatusInfo.getAllDownloads()) {
@@ -196,6 +211,25 @@ public List<DownloadInfo> getDownloadsInProgress() {
     return downloadsInProgress;
   }
 
+  /**
+   * Returns the resource being cached by another download, read from the cache file as it is
+   * written, so that concurrent requests for a product retrieve it from its source only once.
+   */
+  private Resource getPendingResource(PendingResource pendingResource, Metacard metacard) {
+    if (pendingResource == null) {
+      return null;
+    }
+
+    ReliableResource reliableResource = pendingResource.getReliableResource();
+    LOGGER.debug(
+        "Reading resource for metacard ID = {} as it is being cached by another download",
+        metacard.getId());
+    return new ResourceImpl(
+        pendingResource.newInputStream(),
+        reliableResource.getMimeType(),
+        reliableResource.getName());
+  }
+
   private ResourceResponse startDownload(
       String downloadIdentifier,
       ResourceResponse resourceResponse,
@@ -17,6 +17,7 @@
 import com.google.common.io.CountingOutputStream;
 import com.google.common.io.FileBackedOutputStream;
 import ddf.catalog.cache.impl.CacheKey;
+import ddf.catalog.cache.impl.PendingResource;
 import ddf.catalog.cache.impl.ResourceCacheImpl;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.event.retrievestatus.DownloadStatusInfo;
@@ -34,9 +35,12 @@
 import ddf.catalog.resource.impl.ResourceImpl;
 import ddf.catalog.resourceretriever.ResourceRetriever;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Timer;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
@@ -140,7 +144,8 @@ public ResourceResponse setupDownload(Metacard metacard, DownloadStatusInfo down
     String resourceName = resource.getName();
 
     fbos = new FileBackedOutputStream(DEFAULT_FILE_BACKED_OUTPUT_STREAM_THRESHOLD);
-    countingFbos = new CountingOutputStream(fbos);
+    countingFbos =
+        new CountingOutputStream(new ProgressSignallingOutputStream(fbos, downloadState));
     streamReadByClient =
         new ReliableResourceInputStream(
             fbos, countingFbos, downloadState, downloadIdentifier, resourceResponse);
@@ -173,30 +178,34 @@ public ResourceResponse setupDownload(Metacard metacard, DownloadStatusInfo down
         return resourceResponse;
       }
 
-      if (!resourceCache.isPending(key)) {
-
-        // Fully qualified path to cache file that will be written to.
-        // Example:
-        // <INSTALL-DIR>/data/product-cache/<source-id>-<metacard-id>
-        // <INSTALL-DIR>/data/product-cache/ddf.distribution-abc123
-        filePath = FilenameUtils.concat(resourceCache.getProductCacheDirectory(), key);
-        if (filePath == null) {
-          LOGGER.info(
-              "Unable to create cache for cache directory {} and key {} - no caching will be done.",
-              resourceCache.getProductCacheDirectory(),
-              key);
-          return resourceResponse;
-        }
-
-        reliableResource = new ReliableResource(key, filePath, mimeType, resourceName, metacard);
-        resourceCache.addPendingCacheEntry(reliableResource);
+      // Fully qualified path to cache file that will be written to.
+      // Example:
+      // <INSTALL-DIR>/data/product-cache/<source-id>-<metacard-id>
+      // <INSTALL-DIR>/data/product-cache/ddf.distribution-abc123
+      filePath = FilenameUtils.concat(resourceCache.getProductCacheDirectory(), key);
+      if (filePath == null) {
+        LOGGER.info(
+            "Unable to create cache for cache directory {} and key {} - no caching will be done.",
+            resourceCache.getProductCacheDirectory(),
+            key);
+        return resourceResponse;
+      }
 
+      ReliableResource pendingResource =
+          new ReliableResource(key, filePath, mimeType, resourceName, metacard);
+      if (!resourceCache.isPendingOrAdd(pendingResource)) {
+        reliableResource = pendingResource;
         try {
-          fos = FileUtils.openOutputStream(new File(filePath));
+          File cacheFile = new File(filePath);
+          FileUtils.forceMkdirParent(cacheFile);
+          fos =
+              new ProgressSignallingFileOutputStream(
+                  cacheFile, resourceCache.getPending(key, metacard));
           doCaching = true;
           this.downloadState.setCacheEnabled(true);
         } catch (IOException e) {
           LOGGER.info("Unable to open cache file {} - no caching will be done.", filePath);
+          resourceCache.removePendingCacheEntry(key);
         }
       } else {
         LOGGER.debug("Cache key {} is already pending caching", key);
@@ -438,7 +447,7 @@ public void run() {
                 "",
                 reliableResourceStatus.getBytesRead(),
                 downloadIdentifier);
-            if (doCaching && downloaderConfig.isCacheWhenCanceled()) {
+            if (doCaching && (downloaderConfig.isCacheWhenCanceled() || hasPendingReaders())) {
               LOGGER.debug("Continuing to cache product");
               reliableResourceCallable =
                   constructReliableResourceCallable(
@@ -538,6 +547,15 @@ private ReliableResourceCallable retrieveResource(long bytesRead) {
     return reliableResourceCallable;
   }
 
+  /**
+   * Other requests for the product may be reading it from the cache file instead of retrieving it,
+   * so caching continues for them even if the client of this download canceled it.
+   */
+  private boolean hasPendingReaders() {
+    PendingResource pendingResource = resourceCache.getPending(reliableResource.getKey(), metacard);
+    return pendingResource != null && pendingResource.hasReaders();
+  }
+
   private void deleteCacheFile(FileOutputStream fos) {
     LOGGER.debug("Deleting partially cached file {}", filePath);
     IOUtils.closeQuietly(fos);
@@ -659,4 +677,53 @@ ResourceRetrievalMonitor constructResourceRetrievalMonitor() {
         metacard,
         downloadIdentifier);
   }
+
+  /**
+   * Wakes up the other requests reading the product from the cache file whenever a chunk is written
+   * to it. The chunk is written straight to the file, so it can already be read when they wake up.
+   */
+  private static class ProgressSignallingFileOutputStream extends FileOutputStream {
+
+    private final PendingResource pendingResource;
+
+    ProgressSignallingFileOutputStream(File file, PendingResource pendingResource)
+        throws FileNotFoundException {
+      super(file);
+      this.pendingResource = pendingResource;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      super.write(b, off, len);
+      if (pendingResource != null) {
+        pendingResource.signalProgress();
+      }
+    }
+  }
+
+  /**
+   * Wakes up the client reading the product whenever a chunk written to the FileBackedOutputStream
+   * is flushed. Since it is wrapped by the CountingOutputStream, the count already includes the
+   * chunk when the client wakes up.
+   */
+  private static class ProgressSignallingOutputStream extends FilterOutputStream {
+
+    private final DownloadManagerState downloadState;
+
+    ProgressSignallingOutputStream(OutputStream out, DownloadManagerState downloadState) {
+      super(out);
+      this.downloadState = downloadState;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+      downloadState.signalProgress();
+    }
+  }
 }
@@ -31,6 +31,10 @@ public class ReliableResourceInputStream extends InputStream {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ReliableResourceInputStream.class);
 
+  // Readers are woken up as soon as more of the product is written, this only bounds how long a
+  // missed signal can delay a read
+  private static final long MAX_WAIT_MILLIS = 1000;
+
   String downloadIdentifier;
 
   ResourceResponse resourceResponse;
@@ -181,6 +185,9 @@ public int read(byte b[], int off, int len) throws IOException {
               && downloadState.getDownloadState() != DownloadManagerState.DownloadState.CANCELED
               && downloadState.getDownloadState() != null)) {
 
+        // Read before the stream so that progress made while reading is not waited for
+        long progress = downloadState.getProgress();
+        fbosCount = countingFbos.getCount();
         numBytesRead = readFromFbosInputStream(b, off, len);
 
         if (numBytesRead > 0) {
@@ -192,7 +199,7 @@ public int read(byte b[], int off, int len) throws IOException {
           break;
         } else {
           try {
-            Thread.sleep(100);
+            downloadState.awaitProgress(progress, MAX_WAIT_MILLIS);
           } catch (InterruptedException e) {
             downloadState.setDownloadState(DownloadManagerState.DownloadState.CANCELED);
 
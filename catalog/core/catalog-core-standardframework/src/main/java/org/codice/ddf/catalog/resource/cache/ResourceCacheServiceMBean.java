@@ -47,4 +47,32 @@ public interface ResourceCacheServiceMBean {
    * @return {@code true} if the resource is in the cache, {@code false} otherwise.
    */
   boolean containsById(String metacardId);
+
+  /**
+   * Gets the ratio of product retrievals that found a valid product in the resource cache.
+   *
+   * @return the hit ratio, or 0 if no products have been retrieved
+   */
+  double getHitRatio();
+
+  /**
+   * Gets the ratio of bytes served from the resource cache to bytes served from it or added to it.
+   *
+   * @return the byte hit ratio, or 0 if no products have been retrieved
+   */
+  double getByteHitRatio();
+
+  /**
+   * Gets the number of products evicted from the resource cache because it was full.
+   *
+   * @return the number of evicted products
+   */
+  long getEvictionCount();
+
+  /**
+   * Gets the number of bytes evicted from the resource cache because it was full.
+   *
+   * @return the number of evicted bytes
+   */
+  long getEvictedBytes();
 }
@@ -103,6 +103,26 @@ public boolean containsById(String metacardId) {
         : false;
   }
 
+  @Override
+  public double getHitRatio() {
+    return downloadManager.getCacheStatistics().getHitRatio();
+  }
+
+  @Override
+  public double getByteHitRatio() {
+    return downloadManager.getCacheStatistics().getByteHitRatio();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return downloadManager.getCacheStatistics().getEvictionCount();
+  }
+
+  @Override
+  public long getEvictedBytes() {
+    return downloadManager.getCacheStatistics().getEvictedBytes();
+  }
+
   private Optional<Metacard> queryForMetacard(String metacardId) {
     Filter filter =
         frameworkProperties
@@ -13,6 +13,8 @@
  */
 package ddf.catalog.cache;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -24,6 +26,7 @@
 import com.hazelcast.core.IMap;
 import com.hazelcast.test.TestHazelcastInstanceFactory;
 import ddf.catalog.cache.impl.ProductCacheDirListener;
+import ddf.catalog.cache.impl.SegmentedLruEvictionPolicy;
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.resource.data.ReliableResource;
 import java.io.File;
@@ -249,6 +252,32 @@ public void testCacheDirMaxSizePaging() throws IOException, InterruptedException
     verifyCached(cacheMap, rrKeyPrefix + indexOf125Bytes, oneTwentyFiveBytesFileName);
   }
 
+  @Test
+  public void testSegmentedLruKeepsRetrievedProducts() throws IOException, InterruptedException {
+    HazelcastInstance instance = initializeTestHazelcastInstance();
+    listener.setHazelcastInstance(instance);
+    listener.setEvictionPolicy(new SegmentedLruEvictionPolicy());
+    listener.setMaxDirSizeBytes(140);
+    IMap<String, ReliableResource> cacheMap = instance.getMap(PRODUCT_CACHE_NAME);
+
+    ReliableResource rr1 = simulateAddFileToProductCache("rr1", "10bytes.txt", "rr1.txt", cacheMap);
+    ReliableResource rr2 = simulateAddFileToProductCache("rr2", "10bytes.txt", "rr2.txt", cacheMap);
+    listener.entryAccessed(rr1);
+    listener.entryAccessed(rr2);
+    listener.entryAccessed(rr2);
+
+    // A large product retrieved once is evicted before products retrieved again
+    simulateAddFileToProductCache("rr3", "125bytes.txt", "rr3.txt", cacheMap);
+    simulateAddFileToProductCache("rr4", "15bytes.txt", "rr4.txt", cacheMap);
+
+    verifyRemovedFromCache(cacheMap, "rr3", "rr3.txt");
+    verifyCached(cacheMap, "rr1", "rr1.txt");
+    verifyCached(cacheMap, "rr2", "rr2.txt");
+    verifyCached(cacheMap, "rr4", "rr4.txt");
+    assertThat(listener.getStatistics().getEvictionCount(), is(1L));
+    assertThat(listener.getStatistics().getEvictedBytes(), is(125L));
+  }
+
   @Test
   public void testCacheDirMaxSize0() throws IOException, InterruptedException {
     HazelcastInstance instance = initializeTestHazelcastInstance();
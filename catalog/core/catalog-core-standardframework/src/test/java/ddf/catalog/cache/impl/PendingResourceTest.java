@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.resource.data.ReliableResource;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PendingResourceTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File cacheFile;
+
+  private PendingResource pendingResource;
+
+  private ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @Before
+  public void setUp() {
+    cacheFile = new File(temporaryFolder.getRoot(), "source-id-metacard-id");
+    pendingResource =
+        new PendingResource(
+            new ReliableResource(
+                "key", cacheFile.getAbsolutePath(), null, "name", new MetacardImpl()));
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test(timeout = 5000)
+  public void testReadWhileCaching() throws Exception {
+    try (FileOutputStream fos = new FileOutputStream(cacheFile)) {
+      InputStream input = pendingResource.newInputStream();
+      Future<String> read = executor.submit(() -> IOUtils.toString(input, StandardCharsets.UTF_8));
+
+      fos.write(bytes("first "));
+      pendingResource.signalProgress();
+      Thread.sleep(50);
+      fos.write(bytes("second"));
+      pendingResource.signalProgress();
+      pendingResource.complete(12);
+
+      assertThat(read.get(), is("first second"));
+      assertThat(pendingResource.hasReaders(), is(true));
+      input.close();
+      assertThat(pendingResource.hasReaders(), is(false));
+    }
+  }
+
+  @Test(timeout = 5000)
+  public void testReadWakesUpWhenProgressIsSignalled() throws Exception {
+    try (FileOutputStream fos = new FileOutputStream(cacheFile)) {
+      InputStream input = pendingResource.newInputStream();
+      Future<Integer> read = executor.submit(() -> input.read(new byte[16]));
+
+      Thread.sleep(50);
+      fos.write(bytes("first"));
+      pendingResource.signalProgress();
+
+      assertThat(read.get(), is(5));
+      input.close();
+    }
+  }
+
+  @Test
+  public void testAbandonedReaderIsNotCounted() throws Exception {
+    pendingResource =
+        new PendingResource(
+            new ReliableResource(
+                "key", cacheFile.getAbsolutePath(), null, "name", new MetacardImpl()),
+            50);
+
+    InputStream input = pendingResource.newInputStream();
+    assertThat(pendingResource.hasReaders(), is(true));
+
+    Thread.sleep(100);
+    assertThat(pendingResource.hasReaders(), is(false));
+    input.close();
+  }
+
+  @Test(timeout = 5000)
+  public void testReadBeforeCacheFileIsCreated() throws Exception {
+    InputStream input = pendingResource.newInputStream();
+    Future<String> read = executor.submit(() -> IOUtils.toString(input, StandardCharsets.UTF_8));
+
+    Thread.sleep(50);
+    try (FileOutputStream fos = new FileOutputStream(cacheFile)) {
+      fos.write(bytes("content"));
+    }
+    pendingResource.complete(7);
+
+    assertThat(read.get(), is("content"));
+  }
+
+  @Test(expected = IOException.class, timeout = 5000)
+  public void testReadWhenCachingFails() throws Exception {
+    try (FileOutputStream fos = new FileOutputStream(cacheFile)) {
+      fos.write(bytes("partial"));
+    }
+    pendingResource.fail();
+
+    IOUtils.toString(pendingResource.newInputStream(), StandardCharsets.UTF_8);
+  }
+
+  @Test(expected = IOException.class, timeout = 5000)
+  public void testReadOfTruncatedCacheFile() throws Exception {
+    try (FileOutputStream fos = new FileOutputStream(cacheFile)) {
+      fos.write(bytes("partial"));
+    }
+    pendingResource.complete(100);
+
+    IOUtils.toString(pendingResource.newInputStream(), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] bytes(String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ProductCacheEvictionPolicyTest {
+
+  @Test
+  public void testLruEvictsLeastRecentlyAccessedFirst() {
+    ProductCacheEvictionPolicy policy = new LruEvictionPolicy();
+    policy.added("a", 10);
+    policy.added("b", 10);
+    policy.added("c", 10);
+    policy.accessed("a");
+
+    assertThat(drain(policy), contains("b", "c", "a"));
+  }
+
+  @Test
+  public void testLruWhenEmpty() {
+    assertThat(new LruEvictionPolicy().nextVictim(), is(nullValue()));
+  }
+
+  @Test
+  public void testSegmentedLruEvictsProductsAccessedOnceFirst() {
+    ProductCacheEvictionPolicy policy = new SegmentedLruEvictionPolicy();
+    policy.added("small", 10);
+    policy.accessed("small");
+    policy.added("large", 1000);
+    policy.added("new", 10);
+
+    assertThat(drain(policy), contains("large", "new", "small"));
+  }
+
+  @Test
+  public void testSegmentedLruDemotesWhenProtectedSegmentIsFull() {
+    ProductCacheEvictionPolicy policy = new SegmentedLruEvictionPolicy();
+    policy.setMaxSizeBytes(20);
+    policy.added("a", 10);
+    policy.added("b", 10);
+    policy.accessed("a");
+    // Protecting both would exceed the protected segment's share of the cache, so a is demoted
+    policy.accessed("b");
+
+    assertThat(drain(policy), contains("a", "b"));
+  }
+
+  @Test
+  public void testSegmentedLruRemoved() {
+    ProductCacheEvictionPolicy policy = new SegmentedLruEvictionPolicy();
+    policy.added("a", 10);
+    policy.added("b", 10);
+    policy.accessed("b");
+    policy.removed("a");
+    policy.removed("b");
+
+    assertThat(policy.nextVictim(), is(nullValue()));
+  }
+
+  @Test
+  public void testSegmentedLruAccessOfUnknownProduct() {
+    ProductCacheEvictionPolicy policy = new SegmentedLruEvictionPolicy();
+    policy.accessed("a");
+
+    assertThat(policy.nextVictim(), is(nullValue()));
+  }
+
+  private static List<String> drain(ProductCacheEvictionPolicy policy) {
+    List<String> victims = new ArrayList<>();
+    for (String victim = policy.nextVictim(); victim != null; victim = policy.nextVictim()) {
+      victims.add(victim);
+      policy.removed(victim);
+    }
+    return victims;
+  }
+}
@@ -121,6 +121,31 @@ public void testPutThenGetNotPending() throws URISyntaxException {
             reliableResource, resourceCache.getValid(CACHED_RESOURCE_KEY, metacard)));
   }
 
+  @Test
+  public void testHitRatio() throws URISyntaxException {
+    MetacardImpl metacard = generateMetacard();
+    ReliableResource reliableResource = createCachedResource(metacard);
+
+    assertNull(resourceCache.getValid(CACHED_RESOURCE_KEY, metacard));
+    resourceCache.put(reliableResource);
+    resourceCache.getValid(CACHED_RESOURCE_KEY, metacard);
+    resourceCache.getValid(CACHED_RESOURCE_KEY, metacard);
+    resourceCache.getValid(CACHED_RESOURCE_KEY, metacard);
+
+    assertThat(resourceCache.getStatistics().getHitCount(), is(3L));
+    assertThat(resourceCache.getStatistics().getMissCount(), is(1L));
+    assertThat(resourceCache.getStatistics().getHitRatio(), is(0.75));
+  }
+
+  @Test
+  public void testSetCacheEvictionPolicy() {
+    assertThat(resourceCache.getCacheEvictionPolicy(), is(LruEvictionPolicy.NAME));
+    resourceCache.setCacheEvictionPolicy(SegmentedLruEvictionPolicy.NAME);
+    assertThat(resourceCache.getCacheEvictionPolicy(), is(SegmentedLruEvictionPolicy.NAME));
+    resourceCache.setCacheEvictionPolicy("unknown");
+    assertThat(resourceCache.getCacheEvictionPolicy(), is(LruEvictionPolicy.NAME));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testGetValidWhenNullKey() {
     resourceCache.getValid(null, new MetacardImpl());
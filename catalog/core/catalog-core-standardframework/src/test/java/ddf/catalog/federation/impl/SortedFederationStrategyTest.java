@@ -15,12 +15,14 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -55,7 +57,11 @@
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.geotools.filter.NullFilterImpl;
 import org.junit.Before;
@@ -64,6 +70,7 @@
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.opengis.filter.Filter;
 import org.opengis.filter.sort.SortBy;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -407,6 +414,142 @@ public void testResponseWithProcessingDetails() throws UnsupportedQueryException
         containsInAnyOrder(processingDetailsForNullPointer, processingDetailsForUnsupportedQuery));
   }
 
+  @Test(timeout = 10000)
+  public void testSourceOverItsLimitFailsFast() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      strategy = new SortedFederationStrategy(executor, new ArrayList<>(), new ArrayList<>());
+      strategy.setMaxConcurrentQueriesPerSource(1);
+
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      Source source = getMockSource();
+      when(source.query(any(QueryRequest.class)))
+          .thenAnswer(
+              invocation -> {
+                started.countDown();
+                release.await();
+                return mockResponse;
+              });
+      when(mockResponse.getProperties()).thenReturn(new HashMap<>());
+
+      QueryResponse slowResponse =
+          strategy.federate(
+              Collections.singletonList(source), new QueryRequestImpl(mockQuery, properties));
+      started.await();
+      QueryResponse rejectedResponse =
+          strategy.federate(
+              Collections.singletonList(source), new QueryRequestImpl(mockQuery, properties));
+
+      assertThat(rejectedResponse.getResults().size(), is(0));
+      release.countDown();
+
+      assertThat(slowResponse.getResults().size(), is(1));
+      assertThat(
+          rejectedResponse.getProcessingDetails().iterator().next().getException().getCause(),
+          instanceOf(RejectedExecutionException.class));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testHedgedQueryIsSentToSlowSource() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      strategy = new SortedFederationStrategy(executor, new ArrayList<>(), new ArrayList<>());
+      Source source = getMockSource();
+      strategy.setHedgedSourceIds(Collections.singletonList(source.getId()));
+      strategy.setMinHedgeDelayMillis(0);
+      when(mockResponse.getProperties()).thenReturn(new HashMap<>());
+
+      // The first query only establishes the usual latency of the source
+      strategy
+          .federate(Collections.singletonList(source), new QueryRequestImpl(mockQuery, properties))
+          .getResults();
+
+      CountDownLatch stalled = new CountDownLatch(1);
+      AtomicInteger calls = new AtomicInteger();
+      when(source.query(any(QueryRequest.class)))
+          .thenAnswer(
+              invocation -> {
+                if (calls.incrementAndGet() == 1) {
+                  stalled.await();
+                }
+                return mockResponse;
+              });
+
+      QueryResponse response =
+          strategy.federate(
+              Collections.singletonList(source), new QueryRequestImpl(mockQuery, properties));
+
+      assertThat(response.getResults().size(), is(1));
+      assertThat(calls.get(), is(2));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testCancelledHedgeDoesNotLowerTheLimit() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      strategy = new SortedFederationStrategy(executor, new ArrayList<>(), new ArrayList<>());
+      strategy.setMaxConcurrentQueriesPerSource(10);
+      Source source = getMockSource();
+      strategy.setHedgedSourceIds(Collections.singletonList(source.getId()));
+      strategy.setMinHedgeDelayMillis(0);
+      when(mockResponse.getProperties()).thenReturn(new HashMap<>());
+
+      // The first query only establishes the usual latency of the source
+      strategy
+          .federate(Collections.singletonList(source), new QueryRequestImpl(mockQuery, properties))
+          .getResults();
+
+      CountDownLatch stalled = new CountDownLatch(1);
+      AtomicInteger calls = new AtomicInteger();
+      when(source.query(any(QueryRequest.class)))
+          .thenAnswer(
+              invocation -> {
+                if (calls.incrementAndGet() == 1) {
+                  stalled.await();
+                }
+                return mockResponse;
+              });
+
+      strategy
+          .federate(Collections.singletonList(source), new QueryRequestImpl(mockQuery, properties))
+          .getResults();
+
+      SourceConcurrencyLimit limit = strategy.getSourceLimit(source.getId());
+      while (limit.getInFlight() > 0) {
+        Thread.sleep(10);
+      }
+      assertThat(calls.get(), is(2));
+      assertThat(limit.getLimit(), is(10));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCachedSourceIsQueriedOnce() throws Exception {
+    Source cachedSource = getMockSource();
+    Source liveSource = getMockSource();
+    strategy.setCachedSourceIds(Collections.singletonList(cachedSource.getId()));
+    when(mockResponse.getProperties()).thenReturn(new HashMap<>());
+    List<Source> sources = ImmutableList.of(cachedSource, liveSource);
+
+    Query query = new QueryImpl(mock(Filter.class), 0, -1, null, false, LONG_TIMEOUT);
+
+    strategy.federate(sources, new QueryRequestImpl(query, properties)).getResults();
+    QueryResponse response = strategy.federate(sources, new QueryRequestImpl(query, properties));
+
+    assertThat(response.getResults().size(), is(2));
+    verify(cachedSource, times(1)).query(any(QueryRequest.class));
+    verify(liveSource, times(2)).query(any(QueryRequest.class));
+  }
+
   @Test(expected = NullPointerException.class)
   public void testNullQueryExecutorService() throws Exception {
     strategy = new SortedFederationStrategy(null, Arrays.asList(preQueryPlugin), new ArrayList<>());
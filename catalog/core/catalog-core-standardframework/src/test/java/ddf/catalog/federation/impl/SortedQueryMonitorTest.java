@@ -17,6 +17,7 @@
 import static org.assertj.core.extractor.Extractors.byName;
 import static org.awaitility.Awaitility.with;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
@@ -174,6 +175,10 @@ public void shortQueryTimeout() throws Exception {
     queryMonitor.run();
     verify(completionService, times(3)).poll(anyLong(), eq(TimeUnit.MILLISECONDS));
     verify(completionService, never()).take();
+    verify(futureKeys.get(0), never()).cancel(anyBoolean());
+    for (Future<SourceResponse> remaining : futures.keySet()) {
+      verify(remaining).cancel(true);
+    }
 
     assertThat(queryResponse.getResults().size()).isEqualTo(3);
     assertThat(queryResponse.getHits()).isEqualTo(3);
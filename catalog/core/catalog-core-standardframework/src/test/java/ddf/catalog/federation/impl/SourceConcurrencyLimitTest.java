@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class SourceConcurrencyLimitTest {
+
+  @Test
+  public void queriesOverTheLimitAreRejected() {
+    SourceConcurrencyLimit limit = new SourceConcurrencyLimit(2);
+
+    assertThat(limit.tryAcquire(), is(true));
+    assertThat(limit.tryAcquire(), is(true));
+    assertThat(limit.tryAcquire(), is(false));
+
+    limit.release(10, true);
+    assertThat(limit.getInFlight(), is(1));
+    assertThat(limit.tryAcquire(), is(true));
+  }
+
+  @Test
+  public void limitIsLoweredWhenQueriesFail() {
+    SourceConcurrencyLimit limit = new SourceConcurrencyLimit(10);
+
+    for (int i = 0; i < 5; i++) {
+      limit.tryAcquire();
+      limit.release(10, false);
+    }
+
+    assertThat(limit.getLimit(), lessThan(10));
+  }
+
+  @Test
+  public void limitIsLoweredWhenQueriesSlowDown() {
+    SourceConcurrencyLimit limit = new SourceConcurrencyLimit(10);
+    for (int i = 0; i < 20; i++) {
+      limit.tryAcquire();
+      limit.release(10, true);
+    }
+    assertThat(limit.getLimit(), is(10));
+    assertThat(limit.getUsualLatencyMillis(), is(10L));
+
+    for (int i = 0; i < 10; i++) {
+      limit.tryAcquire();
+      limit.release(1000, true);
+    }
+
+    assertThat(limit.getLimit(), lessThan(10));
+  }
+
+  @Test
+  public void limitIsRaisedAgainWhileQueriesAreFast() {
+    SourceConcurrencyLimit limit = new SourceConcurrencyLimit(4);
+    for (int i = 0; i < 20; i++) {
+      limit.tryAcquire();
+      limit.release(10, false);
+    }
+    assertThat(limit.getLimit(), is(1));
+
+    for (int i = 0; i < 20; i++) {
+      assertThat(limit.tryAcquire(), is(true));
+      limit.release(10, true);
+    }
+
+    assertThat(limit.getLimit(), greaterThan(1));
+  }
+
+  @Test
+  public void cancelledQueriesDoNotChangeTheLimit() {
+    SourceConcurrencyLimit limit = new SourceConcurrencyLimit(2);
+    limit.tryAcquire();
+    limit.release(10, true);
+
+    for (int i = 0; i < 5; i++) {
+      limit.tryAcquire();
+      limit.releaseCancelled();
+    }
+
+    assertThat(limit.getLimit(), is(2));
+    assertThat(limit.getInFlight(), is(0));
+    assertThat(limit.getUsualLatencyMillis(), is(10L));
+  }
+
+  @Test
+  public void limitNeverDropsBelowOne() {
+    SourceConcurrencyLimit limit = new SourceConcurrencyLimit(0);
+
+    for (int i = 0; i < 50; i++) {
+      limit.tryAcquire();
+      limit.release(10, false);
+    }
+
+    assertThat(limit.getLimit(), is(1));
+    assertThat(limit.tryAcquire(), is(true));
+  }
+}
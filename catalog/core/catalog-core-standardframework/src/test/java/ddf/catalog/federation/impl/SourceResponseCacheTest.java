@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.ProcessingDetailsImpl;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.security.SecurityConstants;
+import ddf.security.Subject;
+import ddf.security.SubjectOperations;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.geotools.filter.FilterFactoryImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.filter.FilterFactory;
+
+public class SourceResponseCacheTest {
+
+  private static final String SOURCE_ID = "source";
+
+  private static final FilterBuilder FILTER_BUILDER = new GeotoolsFilterBuilder();
+
+  private SourceResponseCache cache;
+
+  private Query query;
+
+  private AtomicInteger liveQueries = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    cache = new SourceResponseCache(MoreExecutors.newDirectExecutorService(), 60000, 60000, 10);
+    cache.setSourceIds(Collections.singleton(SOURCE_ID));
+    query = new QueryImpl(FILTER_BUILDER.attribute(Metacard.ANY_TEXT).is().like().text("*"));
+  }
+
+  @Test
+  public void onlyConfiguredSourcesAreCached() {
+    assertThat(cache.isCached(SOURCE_ID), is(true));
+    assertThat(cache.isCached("other"), is(false));
+  }
+
+  @Test
+  public void repeatedQueryIsAnsweredFromTheCache() throws Exception {
+    QueryRequest request = new QueryRequestImpl(query);
+
+    SourceResponse first = cache.query(SOURCE_ID, request, liveQuery(request));
+    SourceResponse second = cache.query(SOURCE_ID, request, liveQuery(request));
+
+    assertThat(liveQueries.get(), is(1));
+    assertThat(second.getResults().get(0).getMetacard().getTitle(), is("1"));
+    assertThat(second.getHits(), is(1L));
+  }
+
+  @Test
+  public void changesToServedMetacardsDoNotChangeTheCache() throws Exception {
+    QueryRequest request = new QueryRequestImpl(query);
+    SourceResponse first = cache.query(SOURCE_ID, request, liveQuery(request));
+    first.getResults().get(0).getMetacard().setAttribute(new AttributeImpl(Metacard.TITLE, "a"));
+
+    SourceResponse second = cache.query(SOURCE_ID, request, liveQuery(request));
+    second.getResults().get(0).getMetacard().setAttribute(new AttributeImpl(Metacard.TITLE, "b"));
+
+    SourceResponse third = cache.query(SOURCE_ID, request, liveQuery(request));
+    assertThat(liveQueries.get(), is(1));
+    assertThat(third.getResults().get(0).getMetacard().getTitle(), is("1"));
+  }
+
+  @Test
+  public void queriesWithoutComparableFiltersAreNotCached() throws Exception {
+    FilterFactory filterFactory = new FilterFactoryImpl();
+    QueryRequest request =
+        new QueryRequestImpl(
+            new QueryImpl(
+                filterFactory.equals(
+                    filterFactory.property(Metacard.TITLE), filterFactory.literal(new Object()))));
+
+    cache.query(SOURCE_ID, request, liveQuery(request));
+    cache.query(SOURCE_ID, request, liveQuery(request));
+
+    assertThat(liveQueries.get(), is(2));
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void likeQueriesAreKeyedByCaseSensitivity() throws Exception {
+    QueryRequest insensitive =
+        new QueryRequestImpl(
+            new QueryImpl(FILTER_BUILDER.attribute(Metacard.TITLE).is().like().text("Secret")));
+    QueryRequest sensitive =
+        new QueryRequestImpl(
+            new QueryImpl(
+                FILTER_BUILDER.attribute(Metacard.TITLE).is().like().caseSensitiveText("Secret")));
+
+    cache.query(SOURCE_ID, insensitive, liveQuery(insensitive));
+    SourceResponse response = cache.query(SOURCE_ID, sensitive, liveQuery(sensitive));
+    cache.query(SOURCE_ID, sensitive, liveQuery(sensitive));
+
+    assertThat(liveQueries.get(), is(2));
+    assertThat(response.getResults().get(0).getMetacard().getTitle(), is("2"));
+  }
+
+  @Test
+  public void responsesAreKeyedByRequestProperties() throws Exception {
+    QueryRequest plain = new QueryRequestImpl(query);
+    QueryRequest excluding =
+        new QueryRequestImpl(
+            query,
+            new HashMap<>(
+                Collections.singletonMap(
+                    "excludeAttributes", new HashSet<>(Collections.singleton(Metacard.METADATA)))));
+
+    cache.query(SOURCE_ID, plain, liveQuery(plain));
+    cache.query(SOURCE_ID, excluding, liveQuery(excluding));
+    cache.query(SOURCE_ID, excluding, liveQuery(excluding));
+
+    assertThat(liveQueries.get(), is(2));
+  }
+
+  @Test
+  public void queriesWithUnknownPropertiesAreNotCached() throws Exception {
+    QueryRequest request =
+        new QueryRequestImpl(
+            query, new HashMap<>(Collections.singletonMap("unknown", new Serializable() {})));
+
+    cache.query(SOURCE_ID, request, liveQuery(request));
+    cache.query(SOURCE_ID, request, liveQuery(request));
+
+    assertThat(liveQueries.get(), is(2));
+  }
+
+  @Test(timeout = 10000)
+  public void concurrentMissesShareOneLiveQuery() throws Exception {
+    cache.setTimeToLiveMillis(0);
+    cache.setStaleMillis(0);
+    QueryRequest request = new QueryRequestImpl(query);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Callable<SourceResponse> slowQuery =
+        () -> {
+          started.countDown();
+          release.await();
+          return liveQuery(request).call();
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      Future<SourceResponse> first =
+          executor.submit(() -> cache.query(SOURCE_ID, request, slowQuery));
+      started.await();
+      AtomicReference<Thread> waiter = new AtomicReference<>();
+      Future<SourceResponse> second =
+          executor.submit(
+              () -> {
+                waiter.set(Thread.currentThread());
+                return cache.query(SOURCE_ID, request, slowQuery);
+              });
+      while (waiter.get() == null || waiter.get().getState() != Thread.State.WAITING) {
+        Thread.sleep(10);
+      }
+      release.countDown();
+
+      assertThat(first.get().getResults().get(0).getMetacard().getTitle(), is("1"));
+      assertThat(second.get().getResults().get(0).getMetacard().getTitle(), is("1"));
+      assertThat(liveQueries.get(), is(1));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void staleResponseIsUsedWhileItIsRefreshed() throws Exception {
+    cache.setTimeToLiveMillis(0);
+    QueryRequest request = new QueryRequestImpl(query);
+    SourceResponse first = cache.query(SOURCE_ID, request, liveQuery(request));
+
+    SourceResponse stale = cache.query(SOURCE_ID, request, liveQuery(request));
+    SourceResponse refreshed = cache.query(SOURCE_ID, request, liveQuery(request));
+
+    assertThat(
+        stale.getResults().get(0).getMetacard().getTitle(),
+        is(first.getResults().get(0).getMetacard().getTitle()));
+    assertThat(liveQueries.get(), is(3));
+    assertThat(refreshed.getResults().get(0).getMetacard().getTitle(), is("2"));
+  }
+
+  @Test
+  public void expiredResponseIsNotUsed() throws Exception {
+    cache.setTimeToLiveMillis(0);
+    cache.setStaleMillis(0);
+    QueryRequest request = new QueryRequestImpl(query);
+    cache.query(SOURCE_ID, request, liveQuery(request));
+
+    SourceResponse response = cache.query(SOURCE_ID, request, liveQuery(request));
+
+    assertThat(liveQueries.get(), is(2));
+    assertThat(response.getResults().get(0).getMetacard().getTitle(), is("2"));
+  }
+
+  @Test
+  public void responsesAreKeyedBySubjectAttributes() throws Exception {
+    SubjectOperations subjectOperations = mock(SubjectOperations.class);
+    Subject first = mock(Subject.class);
+    Subject second = mock(Subject.class);
+    Subject sameAsFirst = mock(Subject.class);
+    when(subjectOperations.getSubjectAttributes(first)).thenReturn(attributes("secret"));
+    when(subjectOperations.getSubjectAttributes(second)).thenReturn(attributes("public"));
+    when(subjectOperations.getSubjectAttributes(sameAsFirst)).thenReturn(attributes("secret"));
+    cache.setSubjectOperations(subjectOperations);
+
+    cache.query(SOURCE_ID, request(first), liveQuery(request(first)));
+    cache.query(SOURCE_ID, request(second), liveQuery(request(second)));
+    cache.query(SOURCE_ID, request(sameAsFirst), liveQuery(request(sameAsFirst)));
+
+    assertThat(liveQueries.get(), is(2));
+  }
+
+  @Test
+  public void queriesWithSubjectsAreNotCachedWithoutSubjectOperations() throws Exception {
+    Subject subject = mock(Subject.class);
+
+    cache.query(SOURCE_ID, request(subject), liveQuery(request(subject)));
+    cache.query(SOURCE_ID, request(subject), liveQuery(request(subject)));
+
+    assertThat(liveQueries.get(), is(2));
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void responsesWithProcessingDetailsAreNotCached() throws Exception {
+    QueryRequest request = new QueryRequestImpl(query);
+    SourceResponse failed =
+        new SourceResponseImpl(
+            request,
+            null,
+            Collections.emptyList(),
+            0,
+            Collections.singleton(new ProcessingDetailsImpl(SOURCE_ID, new Exception())));
+
+    SourceResponse response = cache.query(SOURCE_ID, request, () -> failed);
+
+    assertThat(response, is(sameInstance(failed)));
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void leastRecentlyUsedResponsesAreDropped() throws Exception {
+    cache.setMaxEntries(2);
+    QueryRequest first = request("first");
+    QueryRequest second = request("second");
+    QueryRequest third = request("third");
+
+    cache.query(SOURCE_ID, first, liveQuery(first));
+    cache.query(SOURCE_ID, second, liveQuery(second));
+    cache.query(SOURCE_ID, first, liveQuery(first));
+    cache.query(SOURCE_ID, third, liveQuery(third));
+    cache.query(SOURCE_ID, first, liveQuery(first));
+    cache.query(SOURCE_ID, second, liveQuery(second));
+
+    assertThat(cache.size(), is(2));
+    assertThat(liveQueries.get(), is(4));
+  }
+
+  private static QueryRequest request(String title) {
+    return new QueryRequestImpl(
+        new QueryImpl(FILTER_BUILDER.attribute(Metacard.TITLE).is().equalTo().text(title)));
+  }
+
+  private QueryRequest request(Subject subject) {
+    Map<String, Serializable> properties = new HashMap<>();
+    properties.put(SecurityConstants.SECURITY_SUBJECT, subject);
+    return new QueryRequestImpl(query, properties);
+  }
+
+  private Callable<SourceResponse> liveQuery(QueryRequest request) {
+    return () -> {
+      MetacardImpl metacard = new MetacardImpl();
+      metacard.setTitle(String.valueOf(liveQueries.incrementAndGet()));
+      return new SourceResponseImpl(
+          request, Collections.<Result>singletonList(new ResultImpl(metacard)));
+    };
+  }
+
+  private static Map<String, SortedSet<String>> attributes(String classification) {
+    return Collections.singletonMap(
+        "classification", new TreeSet<>(Collections.singleton(classification)));
+  }
+}
@@ -27,6 +27,7 @@
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.AdditionalAnswers.returnsSecondArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -36,8 +37,10 @@
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteSource;
@@ -114,10 +117,12 @@
 import ddf.catalog.operation.impl.SourceInfoRequestSources;
 import ddf.catalog.operation.impl.SourceResponseImpl;
 import ddf.catalog.operation.impl.UpdateRequestImpl;
+import ddf.catalog.plugin.ConcurrentIngestPlugin;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PostIngestPlugin;
 import ddf.catalog.plugin.PostQueryPlugin;
 import ddf.catalog.plugin.PostResourcePlugin;
+import ddf.catalog.plugin.PreIngestPlugin;
 import ddf.catalog.plugin.PreQueryPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.resource.Resource;
@@ -165,6 +170,8 @@
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.activation.MimeType;
@@ -232,6 +239,10 @@ public class CatalogFrameworkImplTest {
 
   DeleteOperations deleteOperations;
 
+  CreateOperations createOperations;
+
+  FrameworkProperties frameworkProperties;
+
   RemoteDeleteOperations mockRemoteDeleteOperations;
 
   private ActionRegistry sourceActionRegistry;
@@ -333,7 +344,7 @@ public void setup()
 
     mockRemoteDeleteOperations = mock(RemoteDeleteOperations.class);
 
-    FrameworkProperties frameworkProperties = new FrameworkProperties();
+    frameworkProperties = new FrameworkProperties();
     frameworkProperties.setAccessPlugins(new ArrayList<>());
     frameworkProperties.setPolicyPlugins(new ArrayList<>());
     frameworkProperties.setCatalogProviders(Collections.singletonList((CatalogProvider) provider));
@@ -413,7 +424,7 @@ public void setup()
 
     OperationsCatalogStoreSupport opsCatStore =
         new OperationsCatalogStoreSupport(frameworkProperties, sourceOperations);
-    CreateOperations createOperations =
+    createOperations =
         new CreateOperations(
             frameworkProperties,
             queryOperations,
@@ -521,6 +532,47 @@ public void testCreate() throws Exception {
     assertEquals(eventAdmin.getLastEvent(), array[array.length - 1]);
   }
 
+  @Test
+  public void testCreateInChunks() throws Exception {
+    PreIngestPlugin concurrentPlugin =
+        mock(PreIngestPlugin.class, withSettings().extraInterfaces(ConcurrentIngestPlugin.class));
+    when(concurrentPlugin.process(any(CreateRequest.class))).thenAnswer(returnsFirstArg());
+    PreIngestPlugin sequentialPlugin = mock(PreIngestPlugin.class);
+    when(sequentialPlugin.process(any(CreateRequest.class))).thenAnswer(returnsFirstArg());
+    frameworkProperties.getPreIngest().add(concurrentPlugin);
+    frameworkProperties.getPreIngest().add(sequentialPlugin);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    createOperations.setIngestExecutor(executor);
+    createOperations.setIngestChunkSize(2);
+
+    // more chunks than are submitted to the executor at a time
+    List<Metacard> metacards = new ArrayList<>();
+    List<String> expectedTitles = new ArrayList<>();
+    for (int i = 0; i < 21; i++) {
+      MetacardImpl metacard = new MetacardImpl();
+      metacard.setTitle(String.valueOf(i));
+      metacards.add(metacard);
+      expectedTitles.add(String.valueOf(i));
+    }
+
+    try {
+      CreateResponse response = framework.create(new CreateRequestImpl(metacards, null));
+
+      List<String> titles =
+          response
+              .getCreatedMetacards()
+              .stream()
+              .map(Metacard::getTitle)
+              .collect(Collectors.toList());
+      assertThat(titles, is(expectedTitles));
+      verify(concurrentPlugin, times(11)).process(any(CreateRequest.class));
+      verify(sequentialPlugin, times(1)).process(any(CreateRequest.class));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   public void testInjectsAttributesOnCreate() throws Exception {
     final String title = "Create";
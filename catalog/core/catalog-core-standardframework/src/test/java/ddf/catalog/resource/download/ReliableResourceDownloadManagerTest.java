@@ -20,8 +20,10 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
@@ -29,6 +31,7 @@
 
 import ddf.catalog.cache.MockInputStream;
 import ddf.catalog.cache.impl.CacheKey;
+import ddf.catalog.cache.impl.PendingResource;
 import ddf.catalog.cache.impl.ResourceCacheImpl;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.impl.MetacardImpl;
@@ -274,7 +277,7 @@ public void testDownloadWithCaching() throws Exception {
 
     CacheKey cacheKey = new CacheKey(metacard, resourceResponse.getRequest());
     String key = cacheKey.generateKey();
-    when(resourceCache.isPending(key)).thenReturn(false);
+    when(resourceCache.isPendingOrAdd(any(ReliableResource.class))).thenReturn(false);
 
     int chunkSize = 50;
     startDownload(true, chunkSize, false, metacard, retriever);
@@ -292,6 +295,31 @@ public void testDownloadWithCaching() throws Exception {
     cleanup();
   }
 
+  @Test
+  public void testDownloadOfResourceBeingCached() throws Exception {
+    Metacard metacard = getMockMetacard(EXPECTED_METACARD_ID, EXPECTED_METACARD_SOURCE_ID);
+    resourceResponse = getMockResourceResponse();
+    ResourceRetriever retriever = mock(ResourceRetriever.class);
+
+    String key = new CacheKey(metacard, resourceResponse.getRequest()).generateKey();
+    ReliableResource reliableResource =
+        new ReliableResource(
+            key, productInputFilename, new MimeType("text/plain"), "test-resource", metacard);
+    PendingResource pendingResource = mock(PendingResource.class);
+    when(pendingResource.getReliableResource()).thenReturn(reliableResource);
+    when(pendingResource.newInputStream()).thenReturn(new MockInputStream(productInputFilename));
+    when(resourceCache.getPending(key, metacard)).thenReturn(pendingResource);
+    downloadMgr.setCacheEnabled(true);
+
+    ResourceResponse newResourceResponse =
+        downloadMgr.download(resourceRequest, metacard, retriever);
+
+    assertThat(newResourceResponse.getResource().getName(), is("test-resource"));
+    assertEquals(
+        expectedFileContents, IOUtils.toString(newResourceResponse.getResource().getInputStream()));
+    verify(retriever, never()).retrieveResource();
+  }
+
   /**
    * Verifies that if client is reading from @ReliableResourceInputStream slower than {@link
    * ReliableResourceCallable} is reading from product InputStream and writing to
@@ -312,7 +340,7 @@ public void testDownloadWithCachingDifferentChunkSizes() throws Exception {
 
     CacheKey cacheKey = new CacheKey(metacard, resourceResponse.getRequest());
     String key = cacheKey.generateKey();
-    when(resourceCache.isPending(key)).thenReturn(false);
+    when(resourceCache.isPendingOrAdd(any(ReliableResource.class))).thenReturn(false);
 
     int chunkSize = 50;
     startDownload(true, chunkSize, false, metacard, retriever);
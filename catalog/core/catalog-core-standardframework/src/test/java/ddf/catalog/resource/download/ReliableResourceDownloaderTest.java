@@ -110,7 +110,7 @@ public void testBadKeyName() throws Exception {
     ResourceResponse mockResponse = getMockResourceResponse(mockStream);
 
     ResourceCacheImpl mockCache = mock(ResourceCacheImpl.class);
-    when(mockCache.isPending(anyString())).thenReturn(false);
+    when(mockCache.isPendingOrAdd(any(ReliableResource.class))).thenReturn(false);
     when(mockCache.getProductCacheDirectory()).thenReturn(productCacheDirectory);
     downloaderConfig.setResourceCache(mockCache);
 
@@ -156,7 +156,7 @@ public void testCacheExceptionDuringWrite() throws Exception {
     downloaderConfig.setCacheEnabled(true);
 
     ResourceCacheImpl mockCache = mock(ResourceCacheImpl.class);
-    when(mockCache.isPending(anyString())).thenReturn(false);
+    when(mockCache.isPendingOrAdd(any(ReliableResource.class))).thenReturn(false);
     when(mockCache.getProductCacheDirectory()).thenReturn(productCacheDirectory);
     downloaderConfig.setResourceCache(mockCache);
 
@@ -196,7 +196,7 @@ public void testClientOutputStreamException() throws Exception {
     downloaderConfig.setCacheEnabled(true);
 
     ResourceCacheImpl mockCache = mock(ResourceCacheImpl.class);
-    when(mockCache.isPending(anyString())).thenReturn(false);
+    when(mockCache.isPendingOrAdd(any(ReliableResource.class))).thenReturn(false);
     when(mockCache.getProductCacheDirectory()).thenReturn(productCacheDirectory);
     downloaderConfig.setResourceCache(mockCache);
 
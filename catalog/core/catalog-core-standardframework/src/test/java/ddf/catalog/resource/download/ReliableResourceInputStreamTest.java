@@ -30,6 +30,7 @@
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.log4j.Appender;
 import org.apache.log4j.Layout;
 import org.apache.log4j.Level;
@@ -192,6 +193,43 @@ public Integer call() {
     is.close();
   }
 
+  @Test(timeout = 5000)
+  public void testReadByteBufferIsWokenUpWhenFbosBytesFlushed() throws Exception {
+    DownloadManagerState inProgressState = new DownloadManagerState();
+    inProgressState.setDownloadState(DownloadManagerState.DownloadState.IN_PROGRESS);
+    final ReliableResourceInputStream is =
+        new ReliableResourceInputStream(
+            fbos, countingFbos, inProgressState, downloadIdentifier, resourceResponse);
+    is.setCallableAndItsFuture(reliableResourceCallable, downloadFuture);
+    final byte[] buffer = new byte[50];
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Integer> future = executor.submit(() -> is.read(buffer, 0, buffer.length));
+
+    byte[] bytes = "Hello World".getBytes();
+    countingFbos.write(bytes, 0, bytes.length);
+    countingFbos.flush();
+    inProgressState.signalProgress();
+
+    // Well before the reader would have been woken up without the signal
+    assertThat(future.get(500, TimeUnit.MILLISECONDS), is(bytes.length));
+    assertThat(new String(buffer, 0, bytes.length), is("Hello World"));
+    executor.shutdownNow();
+  }
+
+  @Test(timeout = 5000)
+  public void testAwaitProgressReturnsWhenDownloadStateChanges() throws Exception {
+    DownloadManagerState state = new DownloadManagerState();
+    long progress = state.getProgress();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.submit(() -> state.setDownloadState(DownloadManagerState.DownloadState.COMPLETED));
+
+    state.awaitProgress(progress, 60000);
+    assertThat(state.getDownloadState(), is(DownloadManagerState.DownloadState.COMPLETED));
+    executor.shutdownNow();
+  }
+
   @Test(expected = NullPointerException.class)
   public void testReadByteBufferWithNullBuffer() throws Exception {
     ReliableResourceInputStream is =
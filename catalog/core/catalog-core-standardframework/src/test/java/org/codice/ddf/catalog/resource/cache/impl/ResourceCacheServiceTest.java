@@ -18,11 +18,13 @@
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.cache.impl.ProductCacheStatistics;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.impl.FrameworkProperties;
@@ -91,6 +93,23 @@ public void testIsCacheEnabled() throws Exception {
     assertThat(isCacheEnabled, is(true));
   }
 
+  @Test
+  public void testCacheStatistics() throws Exception {
+    ProductCacheStatistics statistics = mock(ProductCacheStatistics.class);
+    when(statistics.getHitRatio()).thenReturn(0.5);
+    when(statistics.getByteHitRatio()).thenReturn(0.25);
+    when(statistics.getEvictionCount()).thenReturn(2L);
+    when(statistics.getEvictedBytes()).thenReturn(100L);
+    when(mockDownloadManager.getCacheStatistics()).thenReturn(statistics);
+
+    ResourceCacheServiceMBean resourceCacheService = createResourceCacheServiceMBean();
+
+    assertThat(resourceCacheService.getHitRatio(), is(0.5));
+    assertThat(resourceCacheService.getByteHitRatio(), is(0.25));
+    assertThat(resourceCacheService.getEvictionCount(), is(2L));
+    assertThat(resourceCacheService.getEvictedBytes(), is(100L));
+  }
+
   @Test
   public void testContainsResourceNotInCache() throws Exception {
     // Setup
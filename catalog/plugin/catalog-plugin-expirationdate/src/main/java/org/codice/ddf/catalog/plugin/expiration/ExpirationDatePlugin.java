@@ -20,6 +20,7 @@
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.DeleteRequest;
 import ddf.catalog.operation.UpdateRequest;
+import ddf.catalog.plugin.ConcurrentIngestPlugin;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PreIngestPlugin;
 import ddf.catalog.plugin.StopProcessingException;
@@ -31,7 +32,7 @@
 import org.slf4j.LoggerFactory;
 
 /** Pre-Ingest Plugin to overwrite Metacard expiration dates. */
-public class ExpirationDatePlugin implements PreIngestPlugin {
+public class ExpirationDatePlugin implements PreIngestPlugin, ConcurrentIngestPlugin {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ExpirationDatePlugin.class);
 
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/** A create, update or delete of a metacard waiting in the {@link ReplicationOutbox}. */
+public class ReplicationOperation {
+
+  public enum Type {
+    CREATE,
+    UPDATE,
+    DELETE
+  }
+
+  private final Type type;
+
+  private final String id;
+
+  private final String mimeType;
+
+  private final byte[] payload;
+
+  private final long createdMillis;
+
+  /**
+   * @param type the type of the operation
+   * @param id the ID of the metacard, which may be null for a create
+   * @param mimeType the MIME type of the payload, or null for a delete
+   * @param payload the transformed metacard, or an empty array for a delete
+   */
+  public ReplicationOperation(Type type, String id, String mimeType, byte[] payload) {
+    this(type, id, mimeType, payload, System.currentTimeMillis());
+  }
+
+  private ReplicationOperation(
+      Type type, String id, String mimeType, byte[] payload, long createdMillis) {
+    this.type = type;
+    this.id = id;
+    this.mimeType = mimeType;
+    this.payload = payload;
+    this.createdMillis = createdMillis;
+  }
+
+  static ReplicationOperation read(DataInputStream input) throws IOException {
+    Type type = Type.valueOf(input.readUTF());
+    String id = readOptional(input);
+    String mimeType = readOptional(input);
+    long createdMillis = input.readLong();
+    byte[] payload = new byte[input.readInt()];
+    input.readFully(payload);
+    return new ReplicationOperation(type, id, mimeType, payload, createdMillis);
+  }
+
+  void write(DataOutputStream output) throws IOException {
+    output.writeUTF(type.name());
+    writeOptional(output, id);
+    writeOptional(output, mimeType);
+    output.writeLong(createdMillis);
+    output.writeInt(payload.length);
+    output.write(payload);
+  }
+
+  private static String readOptional(DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+
+  private static void writeOptional(DataOutputStream output, String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeUTF(value);
+    }
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getMimeType() {
+    return mimeType;
+  }
+
+  public byte[] getPayload() {
+    return payload;
+  }
+
+  /** @return when the operation was added to the outbox, in milliseconds since the epoch */
+  public long getCreatedMillis() {
+    return createdMillis;
+  }
+
+  @Override
+  public String toString() {
+    return type + " " + id;
+  }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Operations waiting to be replicated, stored one file per operation in a directory so that they
+ * survive a restart and can be removed in any order once replicated.
+ *
+ * <p>Operations are written through to the file system when added but not forced to the disk, so
+ * they survive the process stopping but not necessarily the operating system failing.
+ */
+public class ReplicationOutbox {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationOutbox.class);
+
+  private static final String OPERATION_SUFFIX = ".op";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path directory;
+
+  // Sequence numbers of the operations in the outbox, in the order they were added, mapped to when
+  // the operations were created so the lag is known without reading them back
+  private final TreeMap<Long, Long> sequences = new TreeMap<>();
+
+  private long nextSequence;
+
+  /**
+   * @param directory the directory of the outbox, created if it does not exist
+   * @throws IOException if the outbox cannot be opened
+   */
+  public ReplicationOutbox(Path directory) throws IOException {
+    this.directory = directory;
+    Files.createDirectories(directory);
+
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(OPERATION_SUFFIX)) {
+          // The file is written when the operation is added, right after it is created
+          sequences.put(
+              Long.parseLong(name.substring(0, name.length() - OPERATION_SUFFIX.length())),
+              Files.getLastModifiedTime(file).toMillis());
+        } else if (name.endsWith(TEMP_SUFFIX)) {
+          // Cut off while being added, so it was never in the outbox
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+
+    nextSequence = sequences.isEmpty() ? 0 : sequences.lastKey() + 1;
+    if (!sequences.isEmpty()) {
+      LOGGER.debug("Recovered {} replication operations from {}", sequences.size(), directory);
+    }
+  }
+
+  /**
+   * Adds an operation to the end of the outbox.
+   *
+   * @param operation the operation to add
+   * @throws IOException if the operation cannot be written
+   */
+  public synchronized void add(ReplicationOperation operation) throws IOException {
+    long sequence = nextSequence++;
+    Path temp = directory.resolve(sequence + TEMP_SUFFIX);
+    try (DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      operation.write(output);
+    }
+    Files.move(temp, file(sequence), StandardCopyOption.ATOMIC_MOVE);
+
+    sequences.put(sequence, operation.getCreatedMillis());
+    notifyAll();
+  }
+
+  /**
+   * Reads the first operations of the outbox without removing them.
+   *
+   * @param maxOperations the maximum number of operations to read
+   * @return the operations read, in the order they were added, which may be none
+   */
+  public synchronized List<Entry> peek(int maxOperations) {
+    List<Entry> entries = new ArrayList<>();
+    Iterator<Long> iterator = sequences.keySet().iterator();
+    while (entries.size() < maxOperations && iterator.hasNext()) {
+      long sequence = iterator.next();
+      try {
+        entries.add(new Entry(sequence, read(sequence)));
+      } catch (IOException e) {
+        LOGGER.info("Unable to read replication operation {}, discarding it", file(sequence));
+        LOGGER.debug("Unable to read replication operation {}", file(sequence), e);
+        iterator.remove();
+        delete(sequence);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Waits until the outbox has operations.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the unit of {@code timeout}
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public synchronized void awaitOperations(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    if (sequences.isEmpty()) {
+      TimeUnit.MILLISECONDS.timedWait(this, unit.toMillis(timeout));
+    }
+  }
+
+  /**
+   * Removes an operation from the outbox once it no longer needs to be replicated.
+   *
+   * @param entry the operation to remove
+   */
+  public synchronized void remove(Entry entry) {
+    if (sequences.remove(entry.sequence) != null) {
+      delete(entry.sequence);
+    }
+  }
+
+  /** @return the number of operations in the outbox */
+  public synchronized int size() {
+    return sequences.size();
+  }
+
+  /**
+   * @return when the first operation in the outbox was created, in milliseconds since the epoch, or
+   *     0 if the outbox is empty
+   */
+  public synchronized long getOldestCreatedMillis() {
+    return sequences.isEmpty() ? 0 : sequences.firstEntry().getValue();
+  }
+
+  private ReplicationOperation read(long sequence) throws IOException {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file(sequence))))) {
+      return ReplicationOperation.read(input);
+    }
+  }
+
+  private void delete(long sequence) {
+    try {
+      Files.deleteIfExists(file(sequence));
+    } catch (IOException e) {
+      LOGGER.debug("Unable to delete replication operation {}", file(sequence), e);
+    }
+  }
+
+  private Path file(long sequence) {
+    return directory.resolve(sequence + OPERATION_SUFFIX);
+  }
+
+  /** An operation in the outbox. */
+  public static class Entry {
+
+    private final long sequence;
+
+    private final ReplicationOperation operation;
+
+    private Entry(long sequence, ReplicationOperation operation) {
+      this.sequence = sequence;
+      this.operation = operation;
+    }
+
+    public ReplicationOperation getOperation() {
+      return operation;
+    }
+
+    @Override
+    public String toString() {
+      return sequence + ": " + operation;
+    }
+  }
+}
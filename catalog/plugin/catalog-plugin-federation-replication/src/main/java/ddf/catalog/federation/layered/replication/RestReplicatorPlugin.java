@@ -15,6 +15,7 @@
 
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.federation.layered.replication.ReplicationOperation.Type;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.Update;
@@ -26,32 +27,150 @@
 import ddf.catalog.transform.MetacardTransformer;
 import ddf.catalog.util.impl.Requests;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.codice.ddf.configuration.PropertyResolver;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class RestReplicatorPlugin implements PostIngestPlugin {
+/**
+ * Replicates the metacards created, updated and deleted locally to a parent catalog.
+ *
+ * <p>Metacards are transformed during ingest but sent to the parent in the background, from a
+ * {@link ReplicationOutbox} that survives restarts, so a slow or unavailable parent does not slow
+ * down ingest. The outbox is drained in batches whose operations are sent in parallel, except that
+ * the operations on one metacard are always sent in the order they happened. Operations the parent
+ * fails to process are retried with an exponential backoff, while operations it rejects are
+ * dropped. The progress of the replication is published as an MBean.
+ */
+public class RestReplicatorPlugin implements PostIngestPlugin, RestReplicatorPluginMBean {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RestReplicatorPlugin.class);
 
-  private static final String RESPONSE = "RESPONSE: [{}]";
+  private static final long INITIAL_RETRY_DELAY_MILLIS = 1000;
+
+  private static final long AWAIT_OPERATIONS_SECONDS = 1;
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private static final long THROUGHPUT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
 
   /** A configurable property of parent's location. */
   private PropertyResolver parentAddress = null;
 
   private MetacardTransformer transformer = null;
 
-  private WebClient client;
+  private volatile WebClient client;
+
+  private final Path outboxDirectory;
+
+  private volatile ReplicationOutbox outbox;
+
+  private ExecutorService dispatchExecutor;
+
+  private volatile ThreadPoolExecutor sendExecutor;
+
+  private volatile int batchSize = 100;
+
+  private volatile int replicationThreads = 4;
+
+  private volatile long maxRetryDelayMillis = TimeUnit.MINUTES.toMillis(5);
+
+  private final AtomicLong replicatedCount = new AtomicLong();
+
+  private final AtomicLong failedAttemptCount = new AtomicLong();
+
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  // When each recent batch completed and how many operations it replicated
+  private final Deque<long[]> recentBatches = new ArrayDeque<>();
+
+  private ObjectName objectName;
+
+  private MBeanServer mBeanServer;
 
   public RestReplicatorPlugin(String endpointAddress) {
+    this(
+        endpointAddress,
+        Paths.get(System.getProperty("ddf.data", "data"), "replication", "outbox"));
+  }
+
+  public RestReplicatorPlugin(String endpointAddress, Path outboxDirectory) {
+    this.outboxDirectory = outboxDirectory;
     setParentAddress(endpointAddress);
+    try {
+      objectName = new ObjectName(OBJECT_NAME);
+      mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    } catch (MalformedObjectNameException e) {
+      LOGGER.debug("Could not create objectName.", e);
+    }
+  }
+
+  /** Opens the outbox and starts replicating the operations in it. */
+  public synchronized void init() {
+    registerMBean();
+    try {
+      outbox = new ReplicationOutbox(outboxDirectory);
+    } catch (IOException e) {
+      LOGGER.warn(
+          "Unable to open the replication outbox {}, metacards will not be replicated",
+          outboxDirectory,
+          e);
+      return;
+    }
+
+    sendExecutor =
+        (ThreadPoolExecutor)
+            Executors.newFixedThreadPool(
+                replicationThreads,
+                StandardThreadFactoryBuilder.newThreadFactory("restReplicatorSendThread"));
+    dispatchExecutor =
+        Executors.newSingleThreadExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("restReplicatorDispatchThread"));
+    ReplicationOutbox opened = outbox;
+    dispatchExecutor.execute(() -> dispatch(opened));
+  }
+
+  /** Stops replicating, leaving the operations not yet replicated in the outbox. */
+  public synchronized void destroy() {
+    unregisterMBean();
+    if (dispatchExecutor == null) {
+      return;
+    }
+
+    dispatchExecutor.shutdownNow();
+    sendExecutor.shutdownNow();
+    try {
+      if (!dispatchExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOGGER.debug("Replication is still in progress after stopping it");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    dispatchExecutor = null;
+    outbox = null;
   }
 
   @Override
@@ -60,14 +179,7 @@ public CreateResponse process(CreateResponse input) throws PluginExecutionExcept
     if (Requests.isLocal(input.getRequest()) && client != null && transformer != null) {
 
       for (Metacard m : input.getCreatedMetacards()) {
-
-        String data = transform(m, client);
-
-        Response r = client.post(data);
-        if (LOGGER.isDebugEnabled()) {
-          LOGGER.debug("Posted the following GeoJSON: {}\n", data);
-          LOGGER.debug(RESPONSE, ToStringBuilder.reflectionToString(r));
-        }
+        enqueue(transform(Type.CREATE, m.getId(), m));
       }
     }
 
@@ -79,10 +191,6 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
 
     if (Requests.isLocal(input.getRequest()) && client != null && transformer != null) {
 
-      WebClient updateClient = WebClient.fromClient(client);
-
-      updateClient.type(MediaType.APPLICATION_JSON);
-
       List<Update> updates = input.getUpdatedMetacards();
 
       if (updates == null) {
@@ -105,16 +213,9 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
             && request.getUpdates().get(i) != null
             && request.getUpdates().get(i).getKey() != null) {
 
-          updateClient.path(request.getUpdates().get(i).getKey());
-
-          Metacard newMetacard = update.getNewMetacard();
+          String id = request.getUpdates().get(i).getKey().toString();
 
-          String newData = transform(newMetacard, updateClient);
-
-          Response r = updateClient.put(newData);
-          if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(RESPONSE, ToStringBuilder.reflectionToString(r));
-          }
+          enqueue(transform(Type.UPDATE, id, update.getNewMetacard()));
         }
       }
     }
@@ -127,26 +228,14 @@ public DeleteResponse process(DeleteResponse input) throws PluginExecutionExcept
 
     if (input != null && Requests.isLocal(input.getRequest()) && client != null) {
 
-      WebClient updateClient = WebClient.fromClient(client);
-
-      updateClient.type(MediaType.APPLICATION_JSON);
-
       if (input.getDeletedMetacards() == null || input.getDeletedMetacards().isEmpty()) {
         return input;
       }
 
-      for (int i = 0; i < input.getDeletedMetacards().size(); i++) {
-
-        Metacard metacard = input.getDeletedMetacards().get(i);
+      for (Metacard metacard : input.getDeletedMetacards()) {
 
         if (metacard != null && metacard.getId() != null) {
-
-          updateClient.path(metacard.getId());
-
-          Response r = updateClient.delete();
-          if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(RESPONSE, ToStringBuilder.reflectionToString(r));
-          }
+          enqueue(new ReplicationOperation(Type.DELETE, metacard.getId(), null, new byte[0]));
         }
       }
     }
@@ -189,13 +278,278 @@ public void setTransformer(MetacardTransformer transformer) {
     LOGGER.debug("Changed transformer to [{}]", this.transformer);
   }
 
-  private String transform(Metacard m, WebClient client) throws PluginExecutionException {
+  /** @param batchSize the maximum number of operations taken from the outbox at a time */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /** @param replicationThreads the maximum number of operations sent to the parent in parallel */
+  public synchronized void setReplicationThreads(int replicationThreads) {
+    int threads = Math.max(1, replicationThreads);
+    if (sendExecutor != null) {
+      if (threads > sendExecutor.getMaximumPoolSize()) {
+        sendExecutor.setMaximumPoolSize(threads);
+        sendExecutor.setCorePoolSize(threads);
+      } else {
+        sendExecutor.setCorePoolSize(threads);
+        sendExecutor.setMaximumPoolSize(threads);
+      }
+    }
+    this.replicationThreads = threads;
+  }
+
+  /** @param maxRetryDelaySeconds the maximum time to wait before retrying failed operations */
+  public void setMaxRetryDelaySeconds(long maxRetryDelaySeconds) {
+    this.maxRetryDelayMillis =
+        Math.max(INITIAL_RETRY_DELAY_MILLIS, TimeUnit.SECONDS.toMillis(maxRetryDelaySeconds));
+  }
+
+  @Override
+  public int getPendingCount() {
+    ReplicationOutbox current = outbox;
+    return current == null ? 0 : current.size();
+  }
+
+  @Override
+  public long getLagMillis() {
+    ReplicationOutbox current = outbox;
+    long oldest = current == null ? 0 : current.getOldestCreatedMillis();
+    return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+  }
+
+  @Override
+  public long getReplicatedLastMinute() {
+    synchronized (recentBatches) {
+      pruneRecentBatches(System.currentTimeMillis());
+      return recentBatches.stream().mapToLong(batch -> batch[1]).sum();
+    }
+  }
+
+  @Override
+  public long getReplicatedCount() {
+    return replicatedCount.get();
+  }
+
+  @Override
+  public long getFailedAttemptCount() {
+    return failedAttemptCount.get();
+  }
+
+  @Override
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  private void recordBatch(long replicated) {
+    long now = System.currentTimeMillis();
+    synchronized (recentBatches) {
+      if (replicated > 0) {
+        recentBatches.addLast(new long[] {now, replicated});
+      }
+      pruneRecentBatches(now);
+    }
+  }
+
+  private void pruneRecentBatches(long now) {
+    while (!recentBatches.isEmpty()
+        && now - recentBatches.peekFirst()[0] > THROUGHPUT_WINDOW_MILLIS) {
+      recentBatches.removeFirst();
+    }
+  }
+
+  private void registerMBean() {
+    if (objectName == null || mBeanServer == null) {
+      return;
+    }
+    try {
+      try {
+        mBeanServer.registerMBean(this, objectName);
+      } catch (InstanceAlreadyExistsException e) {
+        LOGGER.debug("Re-registering REST replicator MBean");
+        mBeanServer.unregisterMBean(objectName);
+        mBeanServer.registerMBean(this, objectName);
+      }
+    } catch (Exception e) {
+      LOGGER.info("Could not register REST replicator MBean.", e);
+    }
+  }
+
+  private void unregisterMBean() {
+    try {
+      if (objectName != null && mBeanServer != null && mBeanServer.isRegistered(objectName)) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+    } catch (Exception e) {
+      LOGGER.debug("Exception unregistering REST replicator MBean: ", e);
+    }
+  }
+
+  private void enqueue(ReplicationOperation operation) throws PluginExecutionException {
+    ReplicationOutbox current = outbox;
+    if (current == null) {
+      LOGGER.debug("Replication outbox is not open, not replicating {}", operation);
+      return;
+    }
+
+    try {
+      current.add(operation);
+    } catch (IOException e) {
+      LOGGER.debug("Could not add {} to the replication outbox.", operation, e);
+      throw new PluginExecutionException("Could not replicate metacard.");
+    }
+  }
+
+  private void dispatch(ReplicationOutbox outbox) {
+    long retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        outbox.awaitOperations(AWAIT_OPERATIONS_SECONDS, TimeUnit.SECONDS);
+        List<ReplicationOutbox.Entry> batch = outbox.peek(batchSize);
+        if (batch.isEmpty()) {
+          continue;
+        }
+
+        long replicatedBefore = replicatedCount.get();
+        boolean sent = sendBatch(outbox, batch);
+        recordBatch(replicatedCount.get() - replicatedBefore);
+        if (sent) {
+          retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+        } else {
+          LOGGER.debug(
+              "Unable to replicate all of {} operations, retrying in {} ms",
+              batch.size(),
+              retryDelayMillis);
+          Thread.sleep(retryDelayMillis);
+          retryDelayMillis = Math.min(retryDelayMillis * 2, maxRetryDelayMillis);
+        }
+        LOGGER.debug(
+            "Replicated {} operations, {} pending, lagging by {} ms",
+            replicatedCount.get(),
+            getPendingCount(),
+            getLagMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException e) {
+        LOGGER.debug("Unexpected error replicating metacards", e);
+      }
+    }
+  }
+
+  /**
+   * Sends a batch of operations to the parent. The operations are split into one lane per thread by
+   * metacard ID, and each lane is sent in order, stopping at the first operation to fail.
+   *
+   * @return true if every operation was either replicated or dropped
+   */
+  private boolean sendBatch(ReplicationOutbox outbox, List<ReplicationOutbox.Entry> batch)
+      throws InterruptedException {
+    WebClient parent = client;
+    if (parent == null) {
+      return false;
+    }
+
+    int laneCount = Math.min(replicationThreads, batch.size());
+    List<List<ReplicationOutbox.Entry>> lanes = new ArrayList<>(laneCount);
+    for (int i = 0; i < laneCount; i++) {
+      lanes.add(new ArrayList<>());
+    }
+    for (ReplicationOutbox.Entry entry : batch) {
+      lanes
+          .get(Math.floorMod(Objects.hashCode(entry.getOperation().getId()), laneCount))
+          .add(entry);
+    }
+
+    List<Future<Boolean>> results = new ArrayList<>(laneCount);
+    for (List<ReplicationOutbox.Entry> lane : lanes) {
+      if (!lane.isEmpty()) {
+        results.add(sendExecutor.submit(() -> sendLane(outbox, parent, lane)));
+      }
+    }
+
+    boolean sent = true;
+    for (Future<Boolean> result : results) {
+      try {
+        sent &= result.get();
+      } catch (ExecutionException e) {
+        LOGGER.debug("Unable to replicate metacards", e);
+        sent = false;
+      }
+    }
+    return sent;
+  }
+
+  private boolean sendLane(
+      ReplicationOutbox outbox, WebClient parent, List<ReplicationOutbox.Entry> lane) {
+    for (ReplicationOutbox.Entry entry : lane) {
+      ReplicationOperation operation = entry.getOperation();
+      int status;
+      try {
+        status = send(parent, operation);
+      } catch (RuntimeException e) {
+        failedAttemptCount.incrementAndGet();
+        LOGGER.debug("Unable to replicate {}", operation, e);
+        return false;
+      }
+
+      if (Response.Status.Family.familyOf(status) == Response.Status.Family.SUCCESSFUL) {
+        outbox.remove(entry);
+        replicatedCount.incrementAndGet();
+      } else if (isRetryable(status)) {
+        failedAttemptCount.incrementAndGet();
+        LOGGER.debug("Parent responded to {} with status {}, will retry", operation, status);
+        return false;
+      } else {
+        outbox.remove(entry);
+        droppedCount.incrementAndGet();
+        LOGGER.info("Parent rejected {} with status {}, not replicating it", operation, status);
+      }
+    }
+    return true;
+  }
+
+  private int send(WebClient parent, ReplicationOperation operation) {
+    WebClient request = WebClient.fromClient(parent);
+    Response response;
+    switch (operation.getType()) {
+      case CREATE:
+        response = request.type(operation.getMimeType()).post(operation.getPayload());
+        break;
+      case UPDATE:
+        response =
+            request
+                .path(operation.getId())
+                .type(operation.getMimeType())
+                .put(operation.getPayload());
+        break;
+      default:
+        response = request.path(operation.getId()).type(MediaType.APPLICATION_JSON).delete();
+        break;
+    }
+
+    int status = response.getStatus();
+    response.close();
+    LOGGER.trace("Sent {}, status {}", operation, status);
+    return status;
+  }
+
+  private static boolean isRetryable(int status) {
+    return status >= 500
+        || status == Response.Status.REQUEST_TIMEOUT.getStatusCode()
+        || status == Response.Status.TOO_MANY_REQUESTS.getStatusCode();
+  }
+
+  private ReplicationOperation transform(Type type, String id, Metacard m)
+      throws PluginExecutionException {
 
     BinaryContent binaryContent;
     try {
       binaryContent = transformer.transform(m, new HashMap<>());
-      client.type(getValidMimeType(binaryContent.getMimeTypeValue()));
-      return new String(binaryContent.getByteArray(), StandardCharsets.UTF_8);
+      return new ReplicationOperation(
+          type,
+          id,
+          getValidMimeType(binaryContent.getMimeTypeValue()),
+          binaryContent.getByteArray());
     } catch (IOException e) {
       LOGGER.debug("Could not understand metacard.", e);
       throw new PluginExecutionException("Could not send metacard.");
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+/** MBean interface describing the progress of the replication to the parent catalog. */
+public interface RestReplicatorPluginMBean {
+
+  String OBJECT_NAME = RestReplicatorPlugin.class.getName() + ":service=rest-replicator";
+
+  /**
+   * Gets the number of operations waiting to be replicated.
+   *
+   * @return the number of pending operations
+   */
+  int getPendingCount();
+
+  /**
+   * Gets how long the oldest operation waiting to be replicated has waited.
+   *
+   * @return the lag of the replication, in milliseconds, or 0 if no operation is waiting
+   */
+  long getLagMillis();
+
+  /**
+   * Gets the number of operations replicated over the last minute.
+   *
+   * @return the recent throughput of the replication, in operations per minute
+   */
+  long getReplicatedLastMinute();
+
+  /**
+   * Gets the number of operations replicated since the plugin started.
+   *
+   * @return the number of replicated operations
+   */
+  long getReplicatedCount();
+
+  /**
+   * Gets the number of attempts to send an operation that will be retried.
+   *
+   * @return the number of failed attempts
+   */
+  long getFailedAttemptCount();
+
+  /**
+   * Gets the number of operations the parent rejected, which are not retried.
+   *
+   * @return the number of dropped operations
+   */
+  long getDroppedCount();
+}
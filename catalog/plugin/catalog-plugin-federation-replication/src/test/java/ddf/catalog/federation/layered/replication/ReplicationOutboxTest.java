@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import ddf.catalog.federation.layered.replication.ReplicationOperation.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReplicationOutboxTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+
+  @Before
+  public void setUp() {
+    directory = temporaryFolder.getRoot().toPath().resolve("outbox");
+  }
+
+  @Test
+  public void operationsArePeekedInOrder() throws Exception {
+    ReplicationOutbox outbox = new ReplicationOutbox(directory);
+    outbox.add(operation(Type.CREATE, "a"));
+    outbox.add(operation(Type.UPDATE, "b"));
+    outbox.add(operation(Type.DELETE, "a"));
+
+    assertThat(ids(outbox.peek(2)), contains("CREATE a", "UPDATE b"));
+    assertThat(ids(outbox.peek(10)), contains("CREATE a", "UPDATE b", "DELETE a"));
+    assertThat(outbox.size(), is(3));
+  }
+
+  @Test
+  public void removedOperationsAreNotPeeked() throws Exception {
+    ReplicationOutbox outbox = new ReplicationOutbox(directory);
+    outbox.add(operation(Type.CREATE, "a"));
+    outbox.add(operation(Type.CREATE, "b"));
+
+    outbox.remove(outbox.peek(1).get(0));
+
+    assertThat(ids(outbox.peek(10)), contains("CREATE b"));
+    outbox.remove(outbox.peek(1).get(0));
+    assertThat(outbox.peek(10), is(empty()));
+    assertThat(outbox.getOldestCreatedMillis(), is(0L));
+  }
+
+  @Test
+  public void operationsSurviveReopening() throws Exception {
+    ReplicationOutbox outbox = new ReplicationOutbox(directory);
+    outbox.add(operation(Type.CREATE, "a"));
+    outbox.add(operation(Type.UPDATE, "a"));
+    outbox.remove(outbox.peek(1).get(0));
+
+    ReplicationOutbox reopened = new ReplicationOutbox(directory);
+    reopened.add(operation(Type.DELETE, "a"));
+
+    List<ReplicationOutbox.Entry> entries = reopened.peek(10);
+    assertThat(ids(entries), contains("UPDATE a", "DELETE a"));
+    ReplicationOperation update = entries.get(0).getOperation();
+    assertThat(update.getMimeType(), is("application/json"));
+    assertThat(new String(update.getPayload(), StandardCharsets.UTF_8), is("{\"id\":\"a\"}"));
+  }
+
+  @Test
+  public void oldestCreatedTimeIsTrackedAcrossReopening() throws Exception {
+    ReplicationOutbox outbox = new ReplicationOutbox(directory);
+    ReplicationOperation first = operation(Type.CREATE, "a");
+    outbox.add(first);
+    outbox.add(operation(Type.CREATE, "b"));
+
+    assertThat(outbox.getOldestCreatedMillis(), is(first.getCreatedMillis()));
+
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.collect(Collectors.toList())) {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1000));
+      }
+    }
+    ReplicationOutbox reopened = new ReplicationOutbox(directory);
+
+    assertThat(reopened.getOldestCreatedMillis(), is(1000L));
+  }
+
+  @Test
+  public void operationsCutOffWhileBeingAddedAreDiscarded() throws Exception {
+    new ReplicationOutbox(directory).add(operation(Type.CREATE, "a"));
+    Files.write(directory.resolve("1.tmp"), new byte[] {1, 2});
+    Files.write(directory.resolve("2.op"), new byte[] {1, 2});
+
+    ReplicationOutbox reopened = new ReplicationOutbox(directory);
+
+    assertThat(ids(reopened.peek(10)), contains("CREATE a"));
+    assertThat(Files.exists(directory.resolve("1.tmp")), is(false));
+    assertThat(Files.exists(directory.resolve("2.op")), is(false));
+  }
+
+  private static ReplicationOperation operation(Type type, String id) {
+    return new ReplicationOperation(
+        type, id, "application/json", ("{\"id\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<String> ids(List<ReplicationOutbox.Entry> entries) {
+    return entries.stream().map(e -> e.getOperation().toString()).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sun.net.httpserver.HttpServer;
+import ddf.catalog.data.BinaryContent;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.BinaryContentImpl;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+import ddf.catalog.operation.impl.CreateResponseImpl;
+import ddf.catalog.operation.impl.DeleteResponseImpl;
+import ddf.catalog.operation.impl.UpdateRequestImpl;
+import ddf.catalog.operation.impl.UpdateResponseImpl;
+import ddf.catalog.transform.MetacardTransformer;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import javax.activation.MimeType;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RestReplicatorPluginTest {
+
+  private static final String CONTEXT = "/services/catalog";
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpServer server;
+
+  private List<String> received = new CopyOnWriteArrayList<>();
+
+  private Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+
+  private RestReplicatorPlugin plugin;
+
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        CONTEXT,
+        exchange -> {
+          String body =
+              new BufferedReader(
+                      new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))
+                  .lines()
+                  .collect(Collectors.joining());
+          received.add(
+              (exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " " + body)
+                  .trim());
+          Integer status = statuses.poll();
+          exchange.sendResponseHeaders(status == null ? 200 : status, -1);
+          exchange.close();
+        });
+    server.start();
+
+    MetacardTransformer transformer = mock(MetacardTransformer.class);
+    when(transformer.transform(any(Metacard.class), anyMap()))
+        .thenAnswer(
+            invocation -> {
+              Metacard metacard = invocation.getArgument(0);
+              BinaryContent content =
+                  new BinaryContentImpl(
+                      new ByteArrayInputStream(
+                          metacard.getTitle().getBytes(StandardCharsets.UTF_8)),
+                      new MimeType("application/json"));
+              return content;
+            });
+
+    plugin =
+        new RestReplicatorPlugin(
+            "http://localhost:" + server.getAddress().getPort() + CONTEXT,
+            temporaryFolder.getRoot().toPath());
+    plugin.setTransformer(transformer);
+    plugin.setMaxRetryDelaySeconds(1);
+    plugin.init();
+  }
+
+  @After
+  public void tearDown() {
+    plugin.destroy();
+    server.stop(0);
+  }
+
+  @Test(timeout = 10000)
+  public void operationsOnAMetacardAreReplicatedInOrder() throws Exception {
+    Metacard metacard = metacard("23", "first");
+    plugin.process(create(metacard));
+    plugin.process(
+        new UpdateResponseImpl(
+            new UpdateRequestImpl("23", metacard("23", "second")),
+            null,
+            Collections.singletonList(metacard("23", "second")),
+            Collections.singletonList(metacard)));
+    plugin.process(new DeleteResponseImpl(null, null, Collections.singletonList(metacard)));
+
+    await(() -> plugin.getReplicatedCount() == 3);
+
+    assertThat(
+        received,
+        contains(
+            "POST " + CONTEXT + " first",
+            "PUT " + CONTEXT + "/23 second",
+            "DELETE " + CONTEXT + "/23"));
+    assertThat(plugin.getPendingCount(), is(0));
+    assertThat(plugin.getLagMillis(), is(0L));
+    await(() -> plugin.getReplicatedLastMinute() == 3);
+  }
+
+  @Test
+  public void progressIsPublishedAsAnMBean() throws Exception {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName = new ObjectName(RestReplicatorPluginMBean.OBJECT_NAME);
+
+    assertThat(mBeanServer.getAttribute(objectName, "PendingCount"), is(0));
+
+    plugin.destroy();
+    assertThat(mBeanServer.isRegistered(objectName), is(false));
+  }
+
+  @Test(timeout = 10000)
+  public void batchesAreSentInParallel() throws Exception {
+    plugin.setReplicationThreads(2);
+    plugin.process(create(metacard("1", "a"), metacard("2", "b"), metacard("3", "c")));
+
+    await(() -> plugin.getReplicatedCount() == 3);
+
+    assertThat(
+        received,
+        containsInAnyOrder(
+            "POST " + CONTEXT + " a", "POST " + CONTEXT + " b", "POST " + CONTEXT + " c"));
+  }
+
+  @Test(timeout = 10000)
+  public void failedOperationsAreRetried() throws Exception {
+    statuses.add(503);
+    statuses.add(429);
+
+    plugin.process(create(metacard("23", "first")));
+
+    await(() -> plugin.getReplicatedCount() == 1);
+
+    assertThat(plugin.getFailedAttemptCount(), is(2L));
+    assertThat(received, contains(Collections.nCopies(3, "POST " + CONTEXT + " first").toArray()));
+  }
+
+  @Test(timeout = 10000)
+  public void rejectedOperationsAreDropped() throws Exception {
+    statuses.add(400);
+
+    plugin.process(create(metacard("1", "rejected"), metacard("1", "accepted")));
+
+    await(() -> plugin.getReplicatedCount() == 1);
+
+    assertThat(plugin.getDroppedCount(), is(1L));
+    assertThat(plugin.getFailedAttemptCount(), is(0L));
+    assertThat(plugin.getPendingCount(), is(0));
+  }
+
+  @Test(timeout = 10000)
+  public void operationsAreReplicatedAfterRestart() throws Exception {
+    plugin.destroy();
+    RestReplicatorPlugin unreachable =
+        new RestReplicatorPlugin(
+            "http://localhost:" + unusedPort() + CONTEXT, temporaryFolder.getRoot().toPath());
+    unreachable.setTransformer(plugin.getTransformer());
+    unreachable.init();
+    unreachable.process(create(metacard("23", "first")));
+    await(() -> unreachable.getFailedAttemptCount() > 0);
+    unreachable.destroy();
+    assertThat(received, is(empty()));
+
+    plugin.init();
+
+    await(() -> plugin.getReplicatedCount() == 1);
+    assertThat(received, contains("POST " + CONTEXT + " first"));
+  }
+
+  private static CreateResponse create(Metacard... metacards) {
+    return new CreateResponseImpl(
+        new CreateRequestImpl(Arrays.asList(metacards)), null, Arrays.asList(metacards));
+  }
+
+  private static Metacard metacard(String id, String title) {
+    Metacard metacard = mock(Metacard.class);
+    when(metacard.getId()).thenReturn(id);
+    when(metacard.getTitle()).thenReturn(title);
+    return metacard;
+  }
+
+  private static int unusedPort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    while (!condition.getAsBoolean()) {
+      Thread.sleep(10);
+    }
+  }
+}
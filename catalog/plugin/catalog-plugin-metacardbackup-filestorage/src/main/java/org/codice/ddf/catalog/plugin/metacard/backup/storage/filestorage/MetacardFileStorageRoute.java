@@ -23,13 +23,17 @@
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.apache.camel.CamelContext;
+import org.apache.camel.model.ChoiceDefinition;
 import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardSegmentWriter;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardStorageRoute;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardTemplate;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.ResponseMetacardActionSplitter;
@@ -38,7 +42,9 @@
 
 /**
  * Creates a camel route for storing metacards from post-ingest on the local file system. This route
- * will transform the metacard using the configured metacard transformer prior to storage.
+ * will transform the metacard using the configured metacard transformer prior to storage. In
+ * segment mode the transformed metacards are packed into segments stored in the segment path
+ * instead of each being stored in its own file.
  */
 public class MetacardFileStorageRoute extends MetacardStorageRoute {
   public static final String OUTPUT_PATH_TEMPLATE = "outputPathTemplate";
@@ -67,49 +73,67 @@ public void configure() throws Exception {
 
     String metacardRouteId = "metacard-" + UUID.randomUUID().toString();
     String route1Id = metacardRouteId + "1";
-    from("catalog:postingest")
+    from(getPostIngestUri(outputPathTemplate))
         .routeId(route1Id)
         .split(method(ResponseMetacardActionSplitter.class, "split(${body})"))
         .to("direct:" + metacardRouteId);
     routeIds.add(route1Id);
 
     String route2Id = metacardRouteId + "2";
-    from("direct:" + metacardRouteId + "?block=true")
-        .routeId(route2Id)
-        .setHeader(METACARD_TRANSFORMER_ID_RTE_PROP, simple(metacardTransformerId, String.class))
-        .setHeader(
-            METACARD_BACKUP_INVALID_RTE_PROP,
-            simple(String.valueOf(backupInvalidMetacards), Boolean.class))
-        .setHeader(
-            METACARD_BACKUP_KEEP_DELETED_RTE_PROP,
-            simple(String.valueOf(keepDeletedMetacards), Boolean.class))
-        .choice()
-        .when(not(getShouldBackupPredicate()))
-        .stop()
-        .otherwise()
-        .setHeader(
-            TEMPLATED_STRING_HEADER_RTE_PROP,
-            method(new MetacardTemplate(outputPathTemplate), "applyTemplate(${body})"))
-        .to("catalog:metacardtransformer")
-        .choice()
-        .when(
-            and(
-                header(PostIngestConsumer.ACTION).isEqualTo(PostIngestConsumer.DELETE),
-                getCheckDeletePredicate()))
-        .bean(
-            MetacardFileStorageRoute.class,
-            String.format(
-                "deleteFile(%s, ${in.headers.%s})",
-                URLEncoder.encode(getStartingDir(), StandardCharsets.UTF_8.name()),
-                URLEncoder.encode(TEMPLATED_STRING_HEADER_RTE_PROP, StandardCharsets.UTF_8.name())))
-        .stop()
-        .otherwise()
-        .to(
-            "file://"
-                + getStartingDir()
-                + "?fileName=${in.headers."
-                + TEMPLATED_STRING_HEADER_RTE_PROP
-                + "}");
+    ChoiceDefinition storeChoice =
+        from("direct:" + metacardRouteId + "?block=true")
+            .routeId(route2Id)
+            .setHeader(
+                METACARD_TRANSFORMER_ID_RTE_PROP, simple(metacardTransformerId, String.class))
+            .setHeader(
+                METACARD_BACKUP_INVALID_RTE_PROP,
+                simple(String.valueOf(backupInvalidMetacards), Boolean.class))
+            .setHeader(
+                METACARD_BACKUP_KEEP_DELETED_RTE_PROP,
+                simple(String.valueOf(keepDeletedMetacards), Boolean.class))
+            .choice()
+            .when(not(getShouldBackupPredicate()))
+            .stop()
+            .otherwise()
+            .setHeader(
+                TEMPLATED_STRING_HEADER_RTE_PROP,
+                method(new MetacardTemplate(outputPathTemplate), "applyTemplate(${body})"))
+            .to("catalog:metacardtransformer")
+            .choice()
+            .when(
+                and(
+                    header(PostIngestConsumer.ACTION).isEqualTo(PostIngestConsumer.DELETE),
+                    getCheckDeletePredicate()));
+
+    if (segmentMode) {
+      Path segmentDir = getSegmentDir();
+      MetacardSegmentWriter writer =
+          openSegmentWriter(
+              segmentDir.toString(),
+              (name, segment, manifest) -> storeSegment(segmentDir, segment, manifest));
+      storeChoice
+          .bean(writer, "delete(${in.headers." + TEMPLATED_STRING_HEADER_RTE_PROP + "})")
+          .stop()
+          .otherwise()
+          .bean(writer, "write(${in.headers." + TEMPLATED_STRING_HEADER_RTE_PROP + "}, ${body})");
+    } else {
+      storeChoice
+          .bean(
+              MetacardFileStorageRoute.class,
+              String.format(
+                  "deleteFile(%s, ${in.headers.%s})",
+                  URLEncoder.encode(getStartingDir(), StandardCharsets.UTF_8.name()),
+                  URLEncoder.encode(
+                      TEMPLATED_STRING_HEADER_RTE_PROP, StandardCharsets.UTF_8.name())))
+          .stop()
+          .otherwise()
+          .to(
+              "file://"
+                  + getStartingDir()
+                  + "?fileName=${in.headers."
+                  + TEMPLATED_STRING_HEADER_RTE_PROP
+                  + "}");
+    }
     routeIds.add(route2Id);
 
     LOGGER.trace("Starting metacard file storage route: {}", this);
@@ -148,6 +172,29 @@ public static void deleteFile(String startingDir, String fileName) {
     }
   }
 
+  /**
+   * Moves a completed segment into the segment directory, the segment first so that a manifest in
+   * the directory always refers to a segment in it.
+   */
+  static void storeSegment(Path segmentDir, Path segment, Path manifest) throws IOException {
+    Files.createDirectories(segmentDir);
+    Files.move(
+        segment, segmentDir.resolve(segment.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+    Files.move(
+        manifest, segmentDir.resolve(manifest.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+    LOGGER.trace("Stored metacard segment {} in {}", segment.getFileName(), segmentDir);
+  }
+
+  private Path getSegmentDir() {
+    Path path = Paths.get(segmentPath);
+    if (path.isAbsolute()) {
+      return path;
+    }
+
+    String home = System.getProperty("karaf.home");
+    return Paths.get(home == null ? File.separator : home).resolve(path);
+  }
+
   private String getStartingDir() {
     String startDir;
     if (outputPathTemplate.startsWith(File.separator)) {
@@ -92,4 +92,47 @@ public void testRefreshEmptyStrings() throws Exception {
     metacardFileStorageRoute.refresh(properties);
     assertThat(metacardFileStorageRoute.getOutputPathTemplate(), is(OUTPUT_PATH_TEMPLATE));
   }
+
+  @Test
+  public void testRefreshSegmentMode() throws Exception {
+    String ddfData = System.getProperty("ddf.data");
+    System.setProperty("ddf.data", temporaryFolder.getRoot().getAbsolutePath());
+    String segmentPath = temporaryFolder.newFolder("segments").getAbsolutePath();
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("segmentMode", true);
+    properties.put("segmentPath", segmentPath);
+    properties.put("segmentMaxSizeKb", 1024);
+    properties.put("segmentMaxAgeSeconds", 0);
+    properties.put("segmentStoreThreads", 2);
+
+    try {
+      metacardFileStorageRoute.refresh(properties);
+      assertThat(metacardFileStorageRoute.isSegmentMode(), is(true));
+      assertThat(metacardFileStorageRoute.getSegmentPath(), is(segmentPath));
+      assertThat(metacardFileStorageRoute.getSegmentMaxSizeKb(), is(1024));
+      assertThat(metacardFileStorageRoute.getSegmentMaxAgeSeconds(), is(0));
+      assertThat(metacardFileStorageRoute.getSegmentStoreThreads(), is(2));
+    } finally {
+      metacardFileStorageRoute.stop(0);
+      if (ddfData == null) {
+        System.clearProperty("ddf.data");
+      } else {
+        System.setProperty("ddf.data", ddfData);
+      }
+    }
+  }
+
+  @Test
+  public void testStoreSegment() throws IOException {
+    File segment = temporaryFolder.newFile("segment-1.gz");
+    File manifest = temporaryFolder.newFile("segment-1.manifest");
+    File segmentDir = new File(temporaryFolder.getRoot(), "segments");
+
+    MetacardFileStorageRoute.storeSegment(segmentDir.toPath(), segment.toPath(), manifest.toPath());
+
+    assertThat(new File(segmentDir, "segment-1.gz").exists(), is(true));
+    assertThat(new File(segmentDir, "segment-1.manifest").exists(), is(true));
+    assertThat(segment.exists(), is(false));
+  }
 }
@@ -32,7 +32,9 @@
 import org.apache.camel.component.aws.s3.S3Constants;
 import org.apache.camel.impl.CompositeRegistry;
 import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.model.ChoiceDefinition;
 import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardSegmentWriter;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardStorageRoute;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardTemplate;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.ResponseMetacardActionSplitter;
@@ -41,7 +43,9 @@
 
 /**
  * Creates a camel route for storing metacards from post-ingest in Amazon S3. This route will
- * transform the metacard using the configured metacard transformer prior to storage.
+ * transform the metacard using the configured metacard transformer prior to storage. In segment
+ * mode the transformed metacards are packed into segments stored under the segment path instead of
+ * each being stored as its own object.
  */
 public class MetacardS3StorageRoute extends MetacardStorageRoute {
   public static final String OBJECT_TEMPLATE = "objectTemplate";
@@ -177,7 +181,7 @@ public void configure() throws Exception {
     String metacardRouteId = "metacard-" + UUID.randomUUID().toString();
     String route1Id = metacardRouteId + "1";
 
-    from("catalog:postingest")
+    from(getPostIngestUri(s3Endpoint + "/" + s3Bucket + "/" + objectTemplate))
         .routeId(route1Id)
         .autoStartup(true)
         .split(method(ResponseMetacardActionSplitter.class, "split(${body})"))
@@ -185,32 +189,53 @@ public void configure() throws Exception {
     routeIds.add(route1Id);
 
     String route2Id = metacardRouteId + "2";
-    from("direct:" + metacardRouteId + "?block=true")
-        .routeId(route2Id)
-        .setHeader(METACARD_TRANSFORMER_ID_RTE_PROP, simple(metacardTransformerId, String.class))
-        .setHeader(
-            METACARD_BACKUP_INVALID_RTE_PROP,
-            simple(String.valueOf(backupInvalidMetacards), Boolean.class))
-        .setHeader(
-            METACARD_BACKUP_KEEP_DELETED_RTE_PROP,
-            simple(String.valueOf(keepDeletedMetacards), Boolean.class))
-        .setHeader(S3Constants.KEY, method(metacardTemplate, "applyTemplate(${body})"))
-        .choice()
-        .when(
-            and(
-                header(PostIngestConsumer.ACTION).isEqualTo(PostIngestConsumer.DELETE),
-                getCheckDeletePredicate()))
-        .bean(deleteBean, "delete")
-        .stop()
-        .otherwise()
-        .choice()
-        .when(not(getShouldBackupPredicate()))
-        .stop()
-        .otherwise()
-        .to("catalog:metacardtransformer")
-        .setHeader(S3Constants.CANNED_ACL, simple(s3CannedAclName))
-        .setHeader(S3Constants.CONTENT_LENGTH, simple("${body.length}"))
-        .to(s3Uri);
+    ChoiceDefinition storeChoice =
+        from("direct:" + metacardRouteId + "?block=true")
+            .routeId(route2Id)
+            .setHeader(
+                METACARD_TRANSFORMER_ID_RTE_PROP, simple(metacardTransformerId, String.class))
+            .setHeader(
+                METACARD_BACKUP_INVALID_RTE_PROP,
+                simple(String.valueOf(backupInvalidMetacards), Boolean.class))
+            .setHeader(
+                METACARD_BACKUP_KEEP_DELETED_RTE_PROP,
+                simple(String.valueOf(keepDeletedMetacards), Boolean.class))
+            .setHeader(S3Constants.KEY, method(metacardTemplate, "applyTemplate(${body})"))
+            .choice()
+            .when(
+                and(
+                    header(PostIngestConsumer.ACTION).isEqualTo(PostIngestConsumer.DELETE),
+                    getCheckDeletePredicate()));
+
+    if (segmentMode) {
+      MetacardSegmentWriter writer =
+          openSegmentWriter(
+              s3Endpoint + "/" + s3Bucket + "/" + segmentPath,
+              new S3SegmentStore(s3Client, s3Bucket, segmentPath, s3CannedAclName));
+      storeChoice
+          .bean(writer, "delete(${header." + S3Constants.KEY + "})")
+          .stop()
+          .otherwise()
+          .choice()
+          .when(not(getShouldBackupPredicate()))
+          .stop()
+          .otherwise()
+          .to("catalog:metacardtransformer")
+          .bean(writer, "write(${header." + S3Constants.KEY + "}, ${body})");
+    } else {
+      storeChoice
+          .bean(deleteBean, "delete")
+          .stop()
+          .otherwise()
+          .choice()
+          .when(not(getShouldBackupPredicate()))
+          .stop()
+          .otherwise()
+          .to("catalog:metacardtransformer")
+          .setHeader(S3Constants.CANNED_ACL, simple(s3CannedAclName))
+          .setHeader(S3Constants.CONTENT_LENGTH, simple("${body.length}"))
+          .to(s3Uri);
+    }
     routeIds.add(route2Id);
 
     LOGGER.trace("Starting metacard S3 storage route: {}", this);
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.plugin.metacard.backup.storage.s3storage;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.catalog.plugin.metacard.backup.common.SegmentStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Stores completed metacard segments as objects under a key prefix of a bucket. */
+public class S3SegmentStore implements SegmentStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(S3SegmentStore.class);
+
+  private final AmazonS3 s3Client;
+
+  private final String s3Bucket;
+
+  private final String keyPrefix;
+
+  private final CannedAccessControlList cannedAcl;
+
+  public S3SegmentStore(
+      AmazonS3 s3Client, String s3Bucket, String segmentPath, String s3CannedAclName) {
+    this.s3Client = s3Client;
+    this.s3Bucket = s3Bucket;
+    this.keyPrefix =
+        StringUtils.isBlank(segmentPath) ? "" : StringUtils.removeEnd(segmentPath, "/") + "/";
+    this.cannedAcl = toCannedAcl(s3CannedAclName);
+  }
+
+  @Override
+  public void store(String name, Path segment, Path manifest) throws IOException {
+    put(segment);
+    put(manifest);
+  }
+
+  private void put(Path file) throws IOException {
+    String key = keyPrefix + file.getFileName();
+    LOGGER.trace("Storing: {} / {}", s3Bucket, key);
+    PutObjectRequest request = new PutObjectRequest(s3Bucket, key, file.toFile());
+    if (cannedAcl != null) {
+      request.setCannedAcl(cannedAcl);
+    }
+
+    try {
+      s3Client.putObject(request);
+    } catch (SdkClientException e) {
+      throw new IOException("Unable to store " + key + " in " + s3Bucket, e);
+    }
+  }
+
+  private static CannedAccessControlList toCannedAcl(String s3CannedAclName) {
+    if (StringUtils.isBlank(s3CannedAclName)) {
+      return null;
+    }
+
+    try {
+      return CannedAccessControlList.valueOf(s3CannedAclName);
+    } catch (IllegalArgumentException e) {
+      LOGGER.debug("Unknown S3 canned ACL {}, storing segments without one", s3CannedAclName, e);
+      return null;
+    }
+  }
+}
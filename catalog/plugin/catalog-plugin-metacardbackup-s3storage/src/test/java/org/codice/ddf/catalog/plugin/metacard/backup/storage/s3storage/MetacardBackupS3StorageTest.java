@@ -16,14 +16,22 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isEmptyOrNullString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 import java.io.File;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.camel.CamelContext;
 import org.apache.camel.impl.DefaultCamelContext;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class MetacardBackupS3StorageTest {
 
@@ -137,4 +145,19 @@ public void testRemovePrecedingSlash() throws Exception {
     s3StorageProvider.refresh(properties);
     assertThat(s3StorageProvider.getObjectTemplate(), is("slash/to/remove"));
   }
+
+  @Test
+  public void testSegmentStorePutsSegmentBeforeManifest() throws Exception {
+    AmazonS3 s3Client = mock(AmazonS3.class);
+    S3SegmentStore store = new S3SegmentStore(s3Client, BUCKET, "segments/", CANNED_ACL);
+
+    store.store("segment-1", Paths.get("segment-1.gz"), Paths.get("segment-1.manifest"));
+
+    ArgumentCaptor<PutObjectRequest> requests = ArgumentCaptor.forClass(PutObjectRequest.class);
+    verify(s3Client, times(2)).putObject(requests.capture());
+    assertThat(requests.getAllValues().get(0).getKey(), is("segments/segment-1.gz"));
+    assertThat(requests.getAllValues().get(1).getKey(), is("segments/segment-1.manifest"));
+    assertThat(requests.getAllValues().get(0).getBucketName(), is(BUCKET));
+    assertThat(requests.getAllValues().get(0).getCannedAcl(), is(CannedAccessControlList.Private));
+  }
 }
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.plugin.metacard.backup.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Packs transformed metacards into compressed segments instead of storing each one on its own, so
+ * that a bulk ingest results in a few large writes rather than one write per metacard.
+ *
+ * <p>Segments are written to a staging directory along with their {@link SegmentManifest}, and
+ * handed to a {@link SegmentStore} once they reach the maximum size or age. Segments are stored in
+ * parallel, and a segment that could not be stored stays staged and is stored again with the next
+ * completed segment or after {@link #RETRY_INTERVAL_SECONDS}. Since the manifest only lists entries
+ * once they are written to the segment, a segment staged when the system stopped is stored as is
+ * when the writer is reopened.
+ *
+ * <p>Segment names are made of the time the segment was started and a random id of the writer, so
+ * that writers on different nodes sharing the same store do not overwrite each other's segments.
+ * See {@link SegmentManifest#getSegmentTime(String)}.
+ */
+public class MetacardSegmentWriter implements Closeable {
+
+  public static final String SEGMENT_SUFFIX = ".gz";
+
+  public static final String MANIFEST_SUFFIX = ".manifest";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetacardSegmentWriter.class);
+
+  static final long RETRY_INTERVAL_SECONDS = 60;
+
+  private static final long STORE_TIMEOUT_SECONDS = 30;
+
+  private final Path stagingDirectory;
+
+  private final SegmentStore store;
+
+  private final long maxSegmentBytes;
+
+  private final long maxSegmentAgeMillis;
+
+  private final ExecutorService storeExecutor;
+
+  private final ScheduledExecutorService rollExecutor;
+
+  private final String writerId = UUID.randomUUID().toString();
+
+  private final Set<String> failedSegments = ConcurrentHashMap.newKeySet();
+
+  private String segmentName;
+
+  private OutputStream segmentOutput;
+
+  private OutputStream manifestOutput;
+
+  private long segmentBytes;
+
+  private long segmentStarted;
+
+  private long lastSegmentTime;
+
+  /**
+   * @param stagingDirectory the directory segments are written to until they are stored, created if
+   *     it does not exist
+   * @param store where completed segments are stored
+   * @param maxSegmentBytes the compressed size after which a segment is completed
+   * @param maxSegmentAgeMillis the time after its first entry that a segment is completed, or 0 to
+   *     only complete segments by size
+   * @param storeThreads the number of segments stored in parallel
+   * @throws IOException if the staging directory cannot be read
+   */
+  public MetacardSegmentWriter(
+      Path stagingDirectory,
+      SegmentStore store,
+      long maxSegmentBytes,
+      long maxSegmentAgeMillis,
+      int storeThreads)
+      throws IOException {
+    this.stagingDirectory = stagingDirectory;
+    this.store = store;
+    this.maxSegmentBytes = maxSegmentBytes;
+    this.maxSegmentAgeMillis = maxSegmentAgeMillis;
+    Files.createDirectories(stagingDirectory);
+
+    storeExecutor =
+        Executors.newFixedThreadPool(
+            Math.max(1, storeThreads),
+            StandardThreadFactoryBuilder.newThreadFactory("metacardSegmentStoreThread"));
+    rollExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("metacardSegmentRollThread"));
+
+    for (String name : stagedSegments()) {
+      LOGGER.debug("Storing metacard segment {} staged before the writer was reopened", name);
+      submitStore(name);
+    }
+
+    if (maxSegmentAgeMillis > 0) {
+      long period = Math.max(1, maxSegmentAgeMillis / 4);
+      rollExecutor.scheduleWithFixedDelay(
+          this::rollIfExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+    rollExecutor.scheduleWithFixedDelay(
+        this::retryFailedSegments,
+        RETRY_INTERVAL_SECONDS,
+        RETRY_INTERVAL_SECONDS,
+        TimeUnit.SECONDS);
+  }
+
+  /**
+   * Writes the content of a metacard to the current segment.
+   *
+   * @param key the key of the metacard, e.g. the path it would be stored at on its own
+   * @param content the transformed metacard
+   * @throws IOException if the content cannot be written
+   */
+  public synchronized void write(String key, byte[] content) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(content);
+    }
+
+    openSegment();
+    segmentOutput.write(compressed.toByteArray());
+    segmentOutput.flush();
+    writeManifestLine(SegmentManifest.line(key, segmentBytes, compressed.size()));
+    segmentBytes += compressed.size();
+
+    if (segmentBytes >= maxSegmentBytes) {
+      roll();
+    }
+  }
+
+  /**
+   * Writes a tombstone for a metacard to the current segment, since the segments holding its
+   * content are not rewritten.
+   *
+   * @param key the key of the deleted metacard
+   * @throws IOException if the tombstone cannot be written
+   */
+  public synchronized void delete(String key) throws IOException {
+    openSegment();
+    writeManifestLine(SegmentManifest.tombstoneLine(key));
+  }
+
+  /**
+   * Completes the current segment, if any, and stores it in the background along with the segments
+   * that previously failed to be stored.
+   *
+   * @throws IOException if the segment cannot be completed
+   */
+  public synchronized void roll() throws IOException {
+    if (segmentName == null) {
+      return;
+    }
+
+    String name = segmentName;
+    segmentName = null;
+    try {
+      segmentOutput.close();
+    } finally {
+      manifestOutput.close();
+    }
+    LOGGER.trace("Completed metacard segment {} of {} bytes", name, segmentBytes);
+    submitStore(name);
+    retryFailedSegments();
+  }
+
+  /**
+   * Completes the current segment and waits for the segments being stored before returning.
+   *
+   * @throws IOException if the current segment cannot be completed
+   */
+  @Override
+  public void close() throws IOException {
+    rollExecutor.shutdownNow();
+    try {
+      roll();
+    } finally {
+      storeExecutor.shutdown();
+      try {
+        if (!storeExecutor.awaitTermination(STORE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          LOGGER.debug("Metacard segments are still being stored after closing the writer");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  int getFailedSegmentCount() {
+    return failedSegments.size();
+  }
+
+  private void openSegment() throws IOException {
+    if (segmentName != null) {
+      return;
+    }
+
+    // Names only need to be increasing within a writer, which the time alone may not be.
+    lastSegmentTime = Math.max(System.currentTimeMillis(), lastSegmentTime + 1);
+    String name = SegmentManifest.segmentName(lastSegmentTime, writerId);
+    segmentOutput = new FileOutputStream(segmentFile(name).toFile());
+    try {
+      manifestOutput = new FileOutputStream(manifestFile(name).toFile());
+    } catch (IOException e) {
+      segmentOutput.close();
+      throw e;
+    }
+    segmentName = name;
+    segmentBytes = 0;
+    segmentStarted = System.currentTimeMillis();
+  }
+
+  private void writeManifestLine(String line) throws IOException {
+    manifestOutput.write(line.getBytes(StandardCharsets.UTF_8));
+    manifestOutput.flush();
+  }
+
+  private synchronized void rollIfExpired() {
+    if (segmentName != null && System.currentTimeMillis() - segmentStarted >= maxSegmentAgeMillis) {
+      try {
+        roll();
+      } catch (IOException e) {
+        LOGGER.debug("Unable to complete metacard segment {}", segmentName, e);
+      }
+    }
+  }
+
+  private synchronized void retryFailedSegments() {
+    if (storeExecutor.isShutdown()) {
+      return;
+    }
+    for (String name : failedSegments) {
+      if (failedSegments.remove(name)) {
+        LOGGER.debug("Retrying to store metacard segment {}", name);
+        submitStore(name);
+      }
+    }
+  }
+
+  private void submitStore(String name) {
+    storeExecutor.execute(
+        () -> {
+          Path segment = segmentFile(name);
+          Path manifest = manifestFile(name);
+          try {
+            store.store(name, segment, manifest);
+            Files.deleteIfExists(segment);
+            Files.deleteIfExists(manifest);
+            LOGGER.trace("Stored metacard segment {}", name);
+          } catch (IOException | RuntimeException e) {
+            LOGGER.info("Unable to store metacard segment {}, keeping it staged", name);
+            LOGGER.debug("Unable to store metacard segment {}", name, e);
+            failedSegments.add(name);
+          }
+        });
+  }
+
+  private List<String> stagedSegments() throws IOException {
+    List<String> names = new ArrayList<>();
+    try (DirectoryStream<Path> manifests =
+        Files.newDirectoryStream(
+            stagingDirectory, SegmentManifest.SEGMENT_PREFIX + "*" + MANIFEST_SUFFIX)) {
+      for (Path manifest : manifests) {
+        String fileName = manifest.getFileName().toString();
+        String name = fileName.substring(0, fileName.length() - MANIFEST_SUFFIX.length());
+        if (segmentFile(name).toFile().exists()) {
+          names.add(name);
+        }
+      }
+    }
+    Collections.sort(names);
+    for (String name : names) {
+      lastSegmentTime = Math.max(lastSegmentTime, SegmentManifest.getSegmentTime(name));
+    }
+    return names;
+  }
+
+  private Path segmentFile(String name) {
+    return stagingDirectory.resolve(name + SEGMENT_SUFFIX);
+  }
+
+  private Path manifestFile(String name) {
+    return stagingDirectory.resolve(name + MANIFEST_SUFFIX);
+  }
+}
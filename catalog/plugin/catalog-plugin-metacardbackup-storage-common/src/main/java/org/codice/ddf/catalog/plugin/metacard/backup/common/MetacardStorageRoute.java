@@ -16,9 +16,15 @@
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.types.Core;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Predicate;
@@ -26,6 +32,7 @@
 import org.apache.camel.model.RouteDefinition;
 import org.apache.camel.model.RoutesDefinition;
 import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.CollectionUtils;
@@ -47,8 +54,22 @@ public abstract class MetacardStorageRoute extends RouteBuilder {
 
   public static final String METACARD_BACKUP_TAGS_PROPERTY = "backupMetacardTags";
 
+  public static final String SEGMENT_MODE_PROPERTY = "segmentMode";
+
+  public static final String SEGMENT_PATH_PROPERTY = "segmentPath";
+
+  public static final String SEGMENT_MAX_SIZE_PROPERTY = "segmentMaxSizeKb";
+
+  public static final String SEGMENT_MAX_AGE_PROPERTY = "segmentMaxAgeSeconds";
+
+  public static final String SEGMENT_STORE_THREADS_PROPERTY = "segmentStoreThreads";
+
   private static final String INVALID_TAG = "INVALID";
 
+  private static final int MAX_READABLE_NAME_LENGTH = 64;
+
+  private static final int NAME_DIGEST_BYTES = 16;
+
   protected boolean backupInvalidMetacards;
 
   protected boolean keepDeletedMetacards;
@@ -57,6 +78,18 @@ public abstract class MetacardStorageRoute extends RouteBuilder {
 
   protected List<String> backupMetacardTags;
 
+  protected boolean segmentMode;
+
+  protected String segmentPath = "data/backup/metacard/segments";
+
+  protected int segmentMaxSizeKb = 65536;
+
+  protected int segmentMaxAgeSeconds = 300;
+
+  protected int segmentStoreThreads = 4;
+
+  protected MetacardSegmentWriter segmentWriter;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(MetacardStorageRoute.class);
 
   public MetacardStorageRoute(CamelContext camelContext) {
@@ -90,10 +123,84 @@ public void stop(int code) {
     } catch (Exception e) {
       LOGGER.error("Could not stop route: {}", toString(), e);
     }
+
+    closeSegmentWriter();
   }
 
   public abstract List<String> getRouteIds();
 
+  /**
+   * Metacards are journaled until the route stores them, so they are still stored if the system
+   * stops before. The journal is named after the destination, so that the route storing to the same
+   * destination after a restart resumes it.
+   *
+   * @param destination where the route stores metacards
+   * @return the URI of the post-ingest route node of the route
+   */
+  protected String getPostIngestUri(String destination) {
+    return "catalog:postingest?journal=" + getStorageName(destination);
+  }
+
+  /**
+   * Opens the writer of the route in segment mode, replacing the previous one. Segments are staged
+   * in a directory named after the destination, so that segments staged before a restart are stored
+   * by the route storing to the same destination.
+   *
+   * @param destination where the route stores metacards
+   * @param store stores the completed segments at the destination
+   * @return the writer of the route
+   * @throws IOException if the writer cannot be opened
+   */
+  protected MetacardSegmentWriter openSegmentWriter(String destination, SegmentStore store)
+      throws IOException {
+    closeSegmentWriter();
+    segmentWriter =
+        new MetacardSegmentWriter(
+            Paths.get(
+                System.getProperty("ddf.data", "data"),
+                "backup",
+                "segments",
+                getStorageName(destination)),
+            store,
+            segmentMaxSizeKb * 1024L,
+            TimeUnit.SECONDS.toMillis(segmentMaxAgeSeconds),
+            segmentStoreThreads);
+    return segmentWriter;
+  }
+
+  private void closeSegmentWriter() {
+    if (segmentWriter != null) {
+      try {
+        segmentWriter.close();
+      } catch (IOException e) {
+        LOGGER.debug("Unable to complete the current metacard segment of {}", this, e);
+      }
+      segmentWriter = null;
+    }
+  }
+
+  /**
+   * @return a name made of the destination, with the characters that are not safe in a file name
+   *     replaced, and of a digest of the destination, so that different destinations never share a
+   *     name
+   */
+  String getStorageName(String destination) {
+    String value = String.valueOf(destination);
+    String readable =
+        StringUtils.left(value.replaceAll("[^A-Za-z0-9._-]+", "_"), MAX_READABLE_NAME_LENGTH);
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported", e);
+    }
+    StringBuilder name = new StringBuilder(getClass().getSimpleName() + "-" + readable + "-");
+    for (int i = 0; i < NAME_DIGEST_BYTES; i++) {
+      name.append(String.format("%02x", digest[i]));
+    }
+    return name.toString();
+  }
+
   public String getMetacardTransformerId() {
     return metacardTransformerId;
   }
@@ -126,6 +233,46 @@ public void setBackupMetacardTags(List<String> backupMetacardTags) {
     this.backupMetacardTags = backupMetacardTags;
   }
 
+  public boolean isSegmentMode() {
+    return segmentMode;
+  }
+
+  public void setSegmentMode(boolean segmentMode) {
+    this.segmentMode = segmentMode;
+  }
+
+  public String getSegmentPath() {
+    return segmentPath;
+  }
+
+  public void setSegmentPath(String segmentPath) {
+    this.segmentPath = segmentPath;
+  }
+
+  public int getSegmentMaxSizeKb() {
+    return segmentMaxSizeKb;
+  }
+
+  public void setSegmentMaxSizeKb(int segmentMaxSizeKb) {
+    this.segmentMaxSizeKb = segmentMaxSizeKb;
+  }
+
+  public int getSegmentMaxAgeSeconds() {
+    return segmentMaxAgeSeconds;
+  }
+
+  public void setSegmentMaxAgeSeconds(int segmentMaxAgeSeconds) {
+    this.segmentMaxAgeSeconds = segmentMaxAgeSeconds;
+  }
+
+  public int getSegmentStoreThreads() {
+    return segmentStoreThreads;
+  }
+
+  public void setSegmentStoreThreads(int segmentStoreThreads) {
+    this.segmentStoreThreads = segmentStoreThreads;
+  }
+
   public void refresh(Map<String, Object> properties) throws Exception {
     Object backupInvalidProp = properties.get(BACKUP_INVALID_PROPERTY);
     if (backupInvalidProp instanceof Boolean) {
@@ -147,6 +294,31 @@ public void refresh(Map<String, Object> properties) throws Exception {
       this.backupMetacardTags = (List<String>) metacardTagsProp;
     }
 
+    Object segmentModeProp = properties.get(SEGMENT_MODE_PROPERTY);
+    if (segmentModeProp instanceof Boolean) {
+      this.segmentMode = (Boolean) segmentModeProp;
+    }
+
+    Object segmentPathProp = properties.get(SEGMENT_PATH_PROPERTY);
+    if (segmentPathProp instanceof String && StringUtils.isNotBlank((String) segmentPathProp)) {
+      this.segmentPath = (String) segmentPathProp;
+    }
+
+    Object segmentMaxSizeProp = properties.get(SEGMENT_MAX_SIZE_PROPERTY);
+    if (segmentMaxSizeProp instanceof Integer && (Integer) segmentMaxSizeProp > 0) {
+      this.segmentMaxSizeKb = (Integer) segmentMaxSizeProp;
+    }
+
+    Object segmentMaxAgeProp = properties.get(SEGMENT_MAX_AGE_PROPERTY);
+    if (segmentMaxAgeProp instanceof Integer && (Integer) segmentMaxAgeProp >= 0) {
+      this.segmentMaxAgeSeconds = (Integer) segmentMaxAgeProp;
+    }
+
+    Object segmentStoreThreadsProp = properties.get(SEGMENT_STORE_THREADS_PROPERTY);
+    if (segmentStoreThreadsProp instanceof Integer && (Integer) segmentStoreThreadsProp > 0) {
+      this.segmentStoreThreads = (Integer) segmentStoreThreadsProp;
+    }
+
     stop(0);
     configure();
     start();
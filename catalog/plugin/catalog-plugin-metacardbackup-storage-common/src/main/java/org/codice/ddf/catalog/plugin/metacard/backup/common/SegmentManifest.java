@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.plugin.metacard.backup.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The index of a segment written by a {@link MetacardSegmentWriter}, mapping the key of each
+ * metacard in the segment to where its compressed content is, or to a tombstone if the metacard was
+ * deleted.
+ *
+ * <p>A manifest has one line per entry, {@code <offset> <length> <key>}, where a tombstone has an
+ * offset of -1. Later lines replace earlier lines for the same key, and a last line that is not
+ * terminated was cut off while being written and is ignored. Each entry of a segment is a separate
+ * gzip member, so it can be read on its own, e.g. with a ranged request, and the whole segment is
+ * still a valid gzip file.
+ *
+ * <p>Segments are named {@code segment-<time>-<writer id>}, where the time is zero padded so that
+ * ordering segment names orders them by the time they were started.
+ */
+public class SegmentManifest {
+
+  static final String SEGMENT_PREFIX = "segment-";
+
+  private static final long TOMBSTONE_OFFSET = -1;
+
+  private final Map<String, Entry> entries;
+
+  private SegmentManifest(Map<String, Entry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * @param input the manifest to read, which is not closed
+   * @return the manifest read
+   * @throws IOException if the manifest cannot be read
+   */
+  public static SegmentManifest read(InputStream input) throws IOException {
+    String manifest = IOUtils.toString(input, StandardCharsets.UTF_8);
+    int end = manifest.lastIndexOf('\n');
+
+    Map<String, Entry> entries = new LinkedHashMap<>();
+    if (end >= 0) {
+      for (String line : manifest.substring(0, end).split("\n")) {
+        String[] parts = line.split(" ", 3);
+        if (parts.length == 3) {
+          entries.put(parts[2], new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1])));
+        }
+      }
+    }
+    return new SegmentManifest(entries);
+  }
+
+  /**
+   * @param name the name of a segment
+   * @return the time, in milliseconds since the epoch, the segment was started
+   * @throws IllegalArgumentException if the name is not the name of a segment
+   */
+  public static long getSegmentTime(String name) {
+    if (!name.startsWith(SEGMENT_PREFIX)) {
+      throw new IllegalArgumentException("Not the name of a segment: " + name);
+    }
+    int end = name.indexOf('-', SEGMENT_PREFIX.length());
+    if (end < 0) {
+      end = name.length();
+    }
+    try {
+      return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), end));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not the name of a segment: " + name, e);
+    }
+  }
+
+  static String segmentName(long time, String writerId) {
+    return String.format("%s%019d-%s", SEGMENT_PREFIX, time, writerId);
+  }
+
+  static String line(String key, long offset, long length) {
+    return offset + " " + length + " " + key + "\n";
+  }
+
+  static String tombstoneLine(String key) {
+    return line(key, TOMBSTONE_OFFSET, 0);
+  }
+
+  /**
+   * @param key the key of a metacard
+   * @return the entry of the metacard in the segment, or null if the segment has none
+   */
+  public Entry get(String key) {
+    return entries.get(key);
+  }
+
+  /** @return the keys of the entries of the segment, including tombstones, in written order */
+  public Set<String> getKeys() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  /** The location of a metacard in a segment. */
+  public static class Entry {
+
+    private final long offset;
+
+    private final long length;
+
+    private Entry(long offset, long length) {
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /** @return true if the metacard was deleted, in which case the segment has no content for it */
+    public boolean isDeleted() {
+      return offset == TOMBSTONE_OFFSET;
+    }
+
+    /** @return the offset of the compressed content in the segment */
+    public long getOffset() {
+      return offset;
+    }
+
+    /** @return the length of the compressed content in the segment */
+    public long getLength() {
+      return length;
+    }
+
+    /**
+     * @param segment the whole segment, positioned at its start, which is not closed
+     * @return the uncompressed content of the metacard
+     * @throws IOException if the content cannot be read
+     */
+    public byte[] read(InputStream segment) throws IOException {
+      if (isDeleted()) {
+        throw new IllegalStateException("A deleted metacard has no content");
+      }
+
+      long skipped = IOUtils.skip(segment, offset);
+      if (skipped < offset) {
+        throw new EOFException("Segment is shorter than its manifest");
+      }
+      byte[] compressed = new byte[Math.toIntExact(length)];
+      IOUtils.readFully(segment, compressed);
+      return decompress(compressed);
+    }
+
+    /**
+     * @param compressed the compressed content of the metacard, e.g. read with a ranged request
+     * @return the uncompressed content of the metacard
+     * @throws IOException if the content cannot be decompressed
+     */
+    public static byte[] decompress(byte[] compressed) throws IOException {
+      try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+        return IOUtils.toByteArray(input);
+      }
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.plugin.metacard.backup.common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/** Stores the segments completed by a {@link MetacardSegmentWriter}. */
+@FunctionalInterface
+public interface SegmentStore {
+
+  /**
+   * Stores a completed segment. The segment must be stored before its manifest, so that a stored
+   * manifest always refers to a stored segment. Stores may be called concurrently for different
+   * segments.
+   *
+   * @param name the name of the segment, unique across writers and increasing within a writer
+   * @param segment the file of the segment, named {@code name} with {@link
+   *     MetacardSegmentWriter#SEGMENT_SUFFIX}
+   * @param manifest the file of the manifest, named {@code name} with {@link
+   *     MetacardSegmentWriter#MANIFEST_SUFFIX}
+   * @throws IOException if the segment cannot be stored, in which case it is stored again later
+   */
+  void store(String name, Path segment, Path manifest) throws IOException;
+}
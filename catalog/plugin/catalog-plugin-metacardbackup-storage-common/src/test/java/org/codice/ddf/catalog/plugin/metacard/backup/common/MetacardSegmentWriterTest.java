@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.plugin.metacard.backup.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MetacardSegmentWriterTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path stagingDir;
+
+  private Path storeDir;
+
+  private List<String> stored = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    stagingDir = temporaryFolder.getRoot().toPath().resolve("staging");
+    storeDir = temporaryFolder.newFolder("store").toPath();
+  }
+
+  @Test
+  public void entriesAreReadableThroughTheManifest() throws Exception {
+    try (MetacardSegmentWriter writer = newWriter(1024 * 1024, 0)) {
+      writer.write("a/1.xml", bytes("first"));
+      writer.write("b/2.xml", bytes("second"));
+    }
+
+    assertThat(stored, hasSize(1));
+    String name = stored.get(0);
+    SegmentManifest manifest = readManifest(name);
+    assertThat(manifest.getKeys(), contains("a/1.xml", "b/2.xml"));
+    assertThat(readEntry(name, manifest.get("b/2.xml")), is("second"));
+    assertThat(readEntry(name, manifest.get("a/1.xml")), is("first"));
+    assertThat(manifest.get("c/3.xml"), is(nullValue()));
+  }
+
+  @Test
+  public void segmentIsAValidGzipFile() throws Exception {
+    try (MetacardSegmentWriter writer = newWriter(1024 * 1024, 0)) {
+      writer.write("a", bytes("first"));
+      writer.write("b", bytes("second"));
+    }
+
+    try (InputStream input =
+        new GZIPInputStream(Files.newInputStream(segmentFile(stored.get(0))))) {
+      assertThat(IOUtils.toString(input, StandardCharsets.UTF_8), is("firstsecond"));
+    }
+  }
+
+  @Test
+  public void deletesAreTombstones() throws Exception {
+    try (MetacardSegmentWriter writer = newWriter(1024 * 1024, 0)) {
+      writer.write("a", bytes("first"));
+      writer.delete("a");
+      writer.delete("b");
+    }
+
+    SegmentManifest manifest = readManifest(stored.get(0));
+    assertThat(manifest.get("a").isDeleted(), is(true));
+    assertThat(manifest.get("b").isDeleted(), is(true));
+  }
+
+  @Test
+  public void segmentsAreRolledBySize() throws Exception {
+    try (MetacardSegmentWriter writer = newWriter(1, 0)) {
+      writer.write("a", bytes("first"));
+      writer.write("b", bytes("second"));
+      writer.write("c", bytes("third"));
+    }
+
+    assertThat(stored, hasSize(3));
+  }
+
+  @Test(timeout = 5000)
+  public void segmentsAreRolledByAge() throws Exception {
+    try (MetacardSegmentWriter writer = newWriter(1024 * 1024, 50)) {
+      writer.write("a", bytes("first"));
+      while (stored.isEmpty()) {
+        Thread.sleep(10);
+      }
+      assertThat(readManifest(stored.get(0)).getKeys(), contains("a"));
+    }
+  }
+
+  @Test
+  public void segmentsThatFailToStoreAreStoredWhenReopened() throws Exception {
+    try (MetacardSegmentWriter writer =
+        new MetacardSegmentWriter(
+            stagingDir,
+            (name, segment, manifest) -> {
+              throw new IOException("unavailable");
+            },
+            1024 * 1024,
+            0,
+            1)) {
+      writer.write("a", bytes("first"));
+    }
+    assertThat(stored, is(empty()));
+
+    newWriter(1024 * 1024, 0).close();
+
+    assertThat(stored, hasSize(1));
+    assertThat(readEntry(stored.get(0), readManifest(stored.get(0)).get("a")), is("first"));
+  }
+
+  @Test(timeout = 5000)
+  public void segmentsThatFailToStoreAreRetriedWithTheNextSegment() throws Exception {
+    AtomicBoolean available = new AtomicBoolean(false);
+    SegmentStore store = newStore();
+    try (MetacardSegmentWriter writer =
+        new MetacardSegmentWriter(
+            stagingDir,
+            (name, segment, manifest) -> {
+              if (!available.get()) {
+                throw new IOException("unavailable");
+              }
+              store.store(name, segment, manifest);
+            },
+            1,
+            0,
+            1)) {
+      writer.write("a", bytes("first"));
+      while (writer.getFailedSegmentCount() == 0) {
+        Thread.sleep(10);
+      }
+      available.set(true);
+      writer.write("b", bytes("second"));
+    }
+
+    assertThat(stored, hasSize(2));
+    assertThat(readManifest(stored.get(0)).getKeys(), contains("b"));
+    assertThat(readManifest(stored.get(1)).getKeys(), contains("a"));
+  }
+
+  @Test
+  public void writersDoNotShareSegmentNames() throws Exception {
+    long before = System.currentTimeMillis();
+    try (MetacardSegmentWriter first = newWriter(1024 * 1024, 0);
+        MetacardSegmentWriter second =
+            new MetacardSegmentWriter(
+                temporaryFolder.newFolder("other").toPath(), newStore(), 1024 * 1024, 0, 1)) {
+      first.write("a", bytes("first"));
+      second.write("a", bytes("second"));
+    }
+
+    assertThat(stored, hasSize(2));
+    assertThat(stored.get(0), is(not(stored.get(1))));
+    for (String name : stored) {
+      assertThat(SegmentManifest.getSegmentTime(name), is(greaterThanOrEqualTo(before)));
+    }
+  }
+
+  @Test
+  public void segmentTimeIsParsedFromTheName() {
+    assertThat(
+        SegmentManifest.getSegmentTime(
+            "segment-0000000000000000042-4c2d57e4-2b8a-4a5e-9d3b-2f0e7c1f6a10"),
+        is(42L));
+    assertThat(SegmentManifest.getSegmentTime("segment-0000000000000000042"), is(42L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void segmentTimeOfOtherNamesIsRejected() {
+    SegmentManifest.getSegmentTime("journal-1");
+  }
+
+  @Test
+  public void manifestLineCutOffIsIgnored() throws Exception {
+    byte[] manifest = "0 10 a\n10 5 b\n20 3".getBytes(StandardCharsets.UTF_8);
+
+    SegmentManifest read = SegmentManifest.read(new ByteArrayInputStream(manifest));
+
+    assertThat(read.getKeys(), contains("a", "b"));
+    assertThat(read.get("b").getOffset(), is(10L));
+    assertThat(read.get("b").getLength(), is(5L));
+  }
+
+  private MetacardSegmentWriter newWriter(long maxBytes, long maxAgeMillis) throws IOException {
+    return new MetacardSegmentWriter(stagingDir, newStore(), maxBytes, maxAgeMillis, 2);
+  }
+
+  private SegmentStore newStore() {
+    return (name, segment, manifest) -> {
+      Files.move(segment, storeDir.resolve(segment.getFileName()));
+      Files.move(
+          manifest, storeDir.resolve(manifest.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+      stored.add(name);
+    };
+  }
+
+  private SegmentManifest readManifest(String name) throws IOException {
+    try (InputStream input =
+        Files.newInputStream(storeDir.resolve(name + MetacardSegmentWriter.MANIFEST_SUFFIX))) {
+      return SegmentManifest.read(input);
+    }
+  }
+
+  private String readEntry(String name, SegmentManifest.Entry entry) throws IOException {
+    try (InputStream input = Files.newInputStream(segmentFile(name))) {
+      return new String(entry.read(input), StandardCharsets.UTF_8);
+    }
+  }
+
+  private Path segmentFile(String name) {
+    return storeDir.resolve(name + MetacardSegmentWriter.SEGMENT_SUFFIX);
+  }
+
+  private static byte[] bytes(String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -17,6 +17,7 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -74,6 +75,15 @@ public void testRefreshValid() throws Exception {
         storageRoute.getBackupMetacardTags(), containsInAnyOrder(tags.toArray(new String[0])));
   }
 
+  @Test
+  public void testStorageNameIsStableAndUniquePerDestination() {
+    String name = storageRoute.getStorageName("data/backup/{{id}}");
+
+    assertThat(storageRoute.getStorageName("data/backup/{{id}}"), is(name));
+    assertThat(name.matches(".*-data_backup_id_-[0-9a-f]{32}"), is(true));
+    assertThat(storageRoute.getStorageName("data:backup:{{id}}"), is(not(name)));
+  }
+
   @Test
   public void testRefreshInvalid() throws Exception {
     Map<String, Object> properties = new HashMap<>();
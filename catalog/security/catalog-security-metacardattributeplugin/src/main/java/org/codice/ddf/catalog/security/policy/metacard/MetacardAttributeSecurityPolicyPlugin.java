@@ -20,12 +20,13 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.ResourceRequest;
 import ddf.catalog.operation.ResourceResponse;
-import ddf.catalog.plugin.PolicyPlugin;
+import ddf.catalog.plugin.BatchPolicyPlugin;
 import ddf.catalog.plugin.PolicyResponse;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.plugin.impl.PolicyResponseImpl;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -35,8 +36,13 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Plugin that parses Metacard attributes for security policy information */
-public class MetacardAttributeSecurityPolicyPlugin implements PolicyPlugin {
+/**
+ * Plugin that parses Metacard attributes for security policy information
+ *
+ * <p>Batches of metacards are processed with the configuration read once, without holding the lock
+ * of the plugin while the metacards are processed.
+ */
+public class MetacardAttributeSecurityPolicyPlugin implements BatchPolicyPlugin {
   private static final Logger LOGGER =
       LoggerFactory.getLogger(MetacardAttributeSecurityPolicyPlugin.class);
 
@@ -81,10 +87,15 @@ private Map<String, String> splitMetacardAttributes(List<String> metacardAttribu
   }
 
   private synchronized Map<String, Set<String>> buildSecurityMap(Metacard metacard) {
+    return buildSecurityMap(metacard, mcIntersectAttrs, mcUnionAttrs);
+  }
+
+  private Map<String, Set<String>> buildSecurityMap(
+      Metacard metacard, Map<String, String> intersectAttrs, Map<String, String> unionAttrs) {
     Map<String, Set<String>> securityMap = new HashMap<>();
     if (metacard != null) {
       // Process intersection attributes first
-      for (Map.Entry<String, String> row : mcIntersectAttrs.entrySet()) {
+      for (Map.Entry<String, String> row : intersectAttrs.entrySet()) {
         Attribute attribute = metacard.getAttribute(row.getKey());
         if (attribute != null) {
           securityMap.merge(
@@ -95,7 +106,7 @@ private synchronized Map<String, Set<String>> buildSecurityMap(Metacard metacard
       }
 
       // Process union attributes after intersects are complete
-      for (Map.Entry<String, String> row : mcUnionAttrs.entrySet()) {
+      for (Map.Entry<String, String> row : unionAttrs.entrySet()) {
         Attribute attribute = metacard.getAttribute(row.getKey());
         if (attribute != null) {
           securityMap.merge(
@@ -106,6 +117,27 @@ private synchronized Map<String, Set<String>> buildSecurityMap(Metacard metacard
     return securityMap;
   }
 
+  private List<PolicyResponse> buildPolicyResponses(List<Metacard> metacards) {
+    Map<String, String> intersectAttrs;
+    Map<String, String> unionAttrs;
+    synchronized (this) {
+      // the setters replace these maps rather than changing them, so they can be read unlocked
+      intersectAttrs = mcIntersectAttrs;
+      unionAttrs = mcUnionAttrs;
+    }
+
+    if (intersectAttrs.isEmpty() && unionAttrs.isEmpty()) {
+      return Collections.nCopies(metacards.size(), new PolicyResponseImpl());
+    }
+
+    List<PolicyResponse> responses = new ArrayList<>(metacards.size());
+    for (Metacard metacard : metacards) {
+      responses.add(
+          new PolicyResponseImpl(null, buildSecurityMap(metacard, intersectAttrs, unionAttrs)));
+    }
+    return responses;
+  }
+
   private List<String> listAsStrings(List list) {
     return list;
   }
@@ -122,6 +154,20 @@ public PolicyResponse processPreUpdate(Metacard newMetacard, Map<String, Seriali
     return new PolicyResponseImpl(null, buildSecurityMap(newMetacard));
   }
 
+  @Override
+  public List<PolicyResponse> processPreCreate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    return buildPolicyResponses(metacards);
+  }
+
+  @Override
+  public List<PolicyResponse> processPreUpdate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    return buildPolicyResponses(metacards);
+  }
+
   @Override
   public PolicyResponse processPreDelete(
       List<Metacard> metacards, Map<String, Serializable> properties)
@@ -158,6 +204,16 @@ public PolicyResponse processPostQuery(Result input, Map<String, Serializable> p
     return new PolicyResponseImpl(null, buildSecurityMap(input.getMetacard()));
   }
 
+  @Override
+  public List<PolicyResponse> processPostQuery(
+      List<Result> results, Map<String, Serializable> properties) throws StopProcessingException {
+    List<Metacard> metacards = new ArrayList<>(results.size());
+    for (Result result : results) {
+      metacards.add(result.getMetacard());
+    }
+    return buildPolicyResponses(metacards);
+  }
+
   @Override
   public PolicyResponse processPreResource(ResourceRequest resourceRequest)
       throws StopProcessingException {
@@ -31,7 +31,9 @@
 import ddf.catalog.plugin.PolicyResponse;
 import ddf.catalog.plugin.StopProcessingException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.junit.Before;
@@ -244,4 +246,63 @@ public void testUnusedMethods() throws StopProcessingException {
     policyResponse = plugin.processPreResource(mock(ResourceRequest.class));
     assertThat(policyResponse.itemPolicy().size(), is(0));
   }
+
+  @Test
+  public void testProcessPreCreateBatch() throws StopProcessingException {
+    plugin.setIntersectMetacardAttributes(Collections.singletonList("parsed.other=mapped.other"));
+
+    List<PolicyResponse> policyResponses =
+        plugin.processPreCreate(Arrays.asList(metacard, metacard1), new HashMap<>());
+
+    assertThat(policyResponses.size(), is(2));
+    assertThat(
+        policyResponses.get(0).itemPolicy(),
+        is(plugin.processPreCreate(metacard, new HashMap<>()).itemPolicy()));
+    assertThat(
+        policyResponses.get(1).itemPolicy(),
+        is(plugin.processPreCreate(metacard1, new HashMap<>()).itemPolicy()));
+    assertThat(
+        policyResponses.get(1).itemPolicy().get("mapped.other"), is(ImmutableSet.of("E", "F")));
+  }
+
+  @Test
+  public void testProcessPreUpdateBatchWithMissingMetacard() throws StopProcessingException {
+    List<PolicyResponse> policyResponses =
+        plugin.processPreUpdate(Arrays.asList(metacard, null), new HashMap<>());
+
+    assertThat(policyResponses.size(), is(2));
+    assertThat(policyResponses.get(0).itemPolicy().size(), is(2));
+    assertThat(policyResponses.get(1).itemPolicy().size(), is(0));
+  }
+
+  @Test
+  public void testProcessPostQueryBatch() throws StopProcessingException {
+    Result result = mock(Result.class);
+    when(result.getMetacard()).thenReturn(metacard);
+    Result result1 = mock(Result.class);
+    when(result1.getMetacard()).thenReturn(metacard1);
+
+    List<PolicyResponse> policyResponses =
+        plugin.processPostQuery(Arrays.asList(result, result1), new HashMap<>());
+
+    assertThat(policyResponses.size(), is(2));
+    assertThat(
+        policyResponses.get(0).itemPolicy().get("mapped.countries"),
+        is(ImmutableSet.of("USA", "CAN")));
+    assertThat(
+        policyResponses.get(1).itemPolicy().get("mapped.countries"),
+        is(ImmutableSet.of("GBR", "CAN")));
+  }
+
+  @Test
+  public void testProcessBatchWithoutAttributes() throws StopProcessingException {
+    plugin.setUnionMetacardAttributes(Collections.emptyList());
+
+    List<PolicyResponse> policyResponses =
+        plugin.processPreCreate(Arrays.asList(metacard, metacard1), new HashMap<>());
+
+    assertThat(policyResponses.size(), is(2));
+    assertThat(policyResponses.get(0).itemPolicy().size(), is(0));
+    assertThat(policyResponses.get(1).itemPolicy().size(), is(0));
+  }
 }
@@ -22,12 +22,15 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.ResourceRequest;
 import ddf.catalog.operation.ResourceResponse;
-import ddf.catalog.plugin.PolicyPlugin;
+import ddf.catalog.plugin.BatchPolicyPlugin;
 import ddf.catalog.plugin.PolicyResponse;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.plugin.impl.PolicyResponseImpl;
 import ddf.security.permission.Permissions;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,7 +39,7 @@
 import org.slf4j.LoggerFactory;
 
 /** Security-based plugin that adds a policy if the point-of-contact field changed on preUpdate. */
-public class PointOfContactPolicyPlugin implements PolicyPlugin {
+public class PointOfContactPolicyPlugin implements BatchPolicyPlugin {
   private static final String[] PERMISSION_STRING = {
     "read-only=Cannot update the point-of-contact field"
   };
@@ -57,11 +60,18 @@ public PolicyResponse processPreCreate(Metacard input, Map<String, Serializable>
     return new PolicyResponseImpl();
   }
 
+  @Override
+  public List<PolicyResponse> processPreCreate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    return Collections.nCopies(metacards.size(), new PolicyResponseImpl());
+  }
+
   @Override
   public PolicyResponse processPreUpdate(Metacard newMetacard, Map<String, Serializable> properties)
       throws StopProcessingException {
     // If it's not a resource metacard, don't apply the policy.
-    if (!newMetacard.getTags().isEmpty() && !newMetacard.getTags().contains("resource")) {
+    if (!isResource(newMetacard)) {
       return new PolicyResponseImpl();
     }
 
@@ -82,6 +92,50 @@ public PolicyResponse processPreUpdate(Metacard newMetacard, Map<String, Seriali
         : new PolicyResponseImpl();
   }
 
+  /**
+   * Looks up the previous state of all the metacards by id at once, instead of searching the
+   * previous state metacards once per updated metacard.
+   */
+  @Override
+  public List<PolicyResponse> processPreUpdate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    PolicyResponse emptyResponse = new PolicyResponseImpl();
+    PolicyResponse permissionResponse = new PolicyResponseImpl(null, permissionMap);
+    Map<String, Metacard> previousStateMetacards = null;
+    List<PolicyResponse> responses = new ArrayList<>(metacards.size());
+
+    for (Metacard newMetacard : metacards) {
+      if (newMetacard == null || !isResource(newMetacard)) {
+        responses.add(emptyResponse);
+        continue;
+      }
+
+      if (previousStateMetacards == null) {
+        previousStateMetacards = previousStateMetacardsById(properties);
+      }
+      responses.add(
+          pointOfContactChanged(newMetacard, previousStateMetacards.get(newMetacard.getId()))
+              ? permissionResponse
+              : emptyResponse);
+    }
+    return responses;
+  }
+
+  private boolean isResource(Metacard metacard) {
+    return metacard.getTags().isEmpty() || metacard.getTags().contains("resource");
+  }
+
+  private Map<String, Metacard> previousStateMetacardsById(Map<String, Serializable> properties) {
+    Map<String, Metacard> previousStateMetacards = new HashMap<>();
+    for (Metacard previous :
+        ((OperationTransaction) properties.get(OPERATION_TRANSACTION_KEY))
+            .getPreviousStateMetacards()) {
+      previousStateMetacards.putIfAbsent(previous.getId(), previous);
+    }
+    return previousStateMetacards;
+  }
+
   private boolean pointOfContactChanged(Metacard newMetacard, @Nullable Metacard previousMetacard) {
     if (previousMetacard == null) {
       LOGGER.debug("Cannot locate metacard {} for update.", newMetacard.getId());
@@ -124,6 +178,12 @@ public PolicyResponse processPostQuery(Result input, Map<String, Serializable> p
     return new PolicyResponseImpl();
   }
 
+  @Override
+  public List<PolicyResponse> processPostQuery(
+      List<Result> results, Map<String, Serializable> properties) throws StopProcessingException {
+    return Collections.nCopies(results.size(), new PolicyResponseImpl());
+  }
+
   @Override
   public PolicyResponse processPreResource(ResourceRequest resourceRequest)
       throws StopProcessingException {
@@ -31,6 +31,7 @@
 import ddf.security.permission.impl.PermissionsImpl;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -146,6 +147,62 @@ public void processPreUpdateReturnsPolicyWhenNewPointOfContactIsNull()
     responseHasPolicy(response);
   }
 
+  @Test
+  public void processPreUpdateBatchReturnsPolicyForChangedPointOfContacts()
+      throws java.lang.Exception {
+    MetacardImpl oldMetacard = getMetacardWithPointOfContact("edited-" + TEST_POINT_OF_CONTACT);
+    MetacardImpl otherOldMetacard = getMetacardWithPointOfContact(TEST_POINT_OF_CONTACT);
+    otherOldMetacard.setId("other-" + TEST_ID);
+    listWithMetacard.add(otherOldMetacard);
+    MetacardImpl otherNewMetacard = getMetacardWithPointOfContact(TEST_POINT_OF_CONTACT);
+    otherNewMetacard.setId("other-" + TEST_ID);
+    MetacardImpl missingMetacard = getMetacardWithPointOfContact(TEST_POINT_OF_CONTACT);
+    missingMetacard.setId("missing-" + TEST_ID);
+
+    List<PolicyResponse> responses =
+        pointOfContactPolicyPlugin.processPreUpdate(
+            Arrays.asList(
+                getMetacardWithPointOfContact(TEST_POINT_OF_CONTACT),
+                otherNewMetacard,
+                missingMetacard,
+                null),
+            setupAndGetInputProperties(oldMetacard));
+
+    assertThat(responses, hasSize(4));
+    responseHasPolicy(responses.get(0));
+    responseIsEmpty(responses.get(1));
+    responseIsEmpty(responses.get(2));
+    responseIsEmpty(responses.get(3));
+  }
+
+  @Test
+  public void processPreUpdateBatchDoesNothingWithWorkspaceMetacards() throws java.lang.Exception {
+    MetacardImpl newMetacard = getMetacardWithPointOfContact(TEST_POINT_OF_CONTACT);
+    newMetacard.setTags(getSetWithGivenTag("workspace"));
+
+    List<PolicyResponse> responses =
+        pointOfContactPolicyPlugin.processPreUpdate(
+            Collections.singletonList(newMetacard), Collections.emptyMap());
+
+    assertThat(responses, hasSize(1));
+    responseIsEmpty(responses.get(0));
+  }
+
+  @Test
+  public void processPreCreateAndPostQueryBatchesDoNothing() throws java.lang.Exception {
+    List<PolicyResponse> responses =
+        pointOfContactPolicyPlugin.processPreCreate(
+            Arrays.asList(new MetacardImpl(), new MetacardImpl()), Collections.emptyMap());
+    assertThat(responses, hasSize(2));
+    responses.forEach(this::responseIsEmpty);
+
+    responses =
+        pointOfContactPolicyPlugin.processPostQuery(
+            Arrays.asList(new ResultImpl(), new ResultImpl()), Collections.emptyMap());
+    assertThat(responses, hasSize(2));
+    responses.forEach(this::responseIsEmpty);
+  }
+
   @Test
   public void processPreDeleteDoesNothing() throws java.lang.Exception {
     PolicyResponse response =
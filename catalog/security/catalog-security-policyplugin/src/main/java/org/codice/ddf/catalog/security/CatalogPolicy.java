@@ -18,13 +18,14 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.ResourceRequest;
 import ddf.catalog.operation.ResourceResponse;
-import ddf.catalog.plugin.PolicyPlugin;
+import ddf.catalog.plugin.BatchPolicyPlugin;
 import ddf.catalog.plugin.PolicyResponse;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.plugin.impl.PolicyResponseImpl;
 import ddf.catalog.util.impl.Requests;
 import ddf.security.permission.Permissions;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -35,8 +36,11 @@
 /**
  * IngestPlugin is a PreIngestPlugin that restricts the create/update/delete operations on the
  * catalog to a group defined by a set of configurable user attributes.
+ *
+ * <p>Since its policies only apply to operations, only the first metacard of a batch gets the
+ * operation policy, which the framework applies to the whole operation anyway.
  */
-public class CatalogPolicy implements PolicyPlugin {
+public class CatalogPolicy implements BatchPolicyPlugin {
 
   private String[] createPermissions;
 
@@ -221,6 +225,32 @@ public PolicyResponse processPreUpdate(Metacard input, Map<String, Serializable>
     return new PolicyResponseImpl();
   }
 
+  @Override
+  public List<PolicyResponse> processPreCreate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    return operationPolicyResponses(metacards.size(), properties, getCreatePermissionMap());
+  }
+
+  @Override
+  public List<PolicyResponse> processPreUpdate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    return operationPolicyResponses(metacards.size(), properties, getUpdatePermissionMap());
+  }
+
+  private List<PolicyResponse> operationPolicyResponses(
+      int size, Map<String, Serializable> properties, Map<String, Set<String>> permissionMap) {
+    PolicyResponse emptyResponse = new PolicyResponseImpl();
+    if (size == 0 || !Requests.isLocal(properties)) {
+      return Collections.nCopies(size, emptyResponse);
+    }
+
+    List<PolicyResponse> responses = new ArrayList<>(Collections.nCopies(size, emptyResponse));
+    responses.set(0, new PolicyResponseImpl(permissionMap, null));
+    return responses;
+  }
+
   @Override
   public PolicyResponse processPreDelete(
       List<Metacard> metacards, Map<String, Serializable> properties)
@@ -253,6 +283,12 @@ public PolicyResponse processPostQuery(Result input, Map<String, Serializable> p
     return new PolicyResponseImpl();
   }
 
+  @Override
+  public List<PolicyResponse> processPostQuery(
+      List<Result> results, Map<String, Serializable> properties) throws StopProcessingException {
+    return Collections.nCopies(results.size(), new PolicyResponseImpl());
+  }
+
   @Override
   public PolicyResponse processPreResource(ResourceRequest resourceRequest)
       throws StopProcessingException {
@@ -31,8 +31,10 @@
 import ddf.security.permission.impl.PermissionsImpl;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.junit.Before;
@@ -228,4 +230,48 @@ public void testUnusedMethods() throws Exception {
     assertThat(policyPlugin.processPostDelete(null, null).itemPolicy().isEmpty(), is(true));
     assertThat(policyPlugin.processPostDelete(null, null).operationPolicy().isEmpty(), is(true));
   }
+
+  @Test
+  public void testPreCreateBatch() throws StopProcessingException {
+    policyPlugin.setCreatePermissions(new String[] {"role=admin"});
+    List<PolicyResponse> responses =
+        policyPlugin.processPreCreate(
+            Arrays.asList(mock(Metacard.class), mock(Metacard.class)), new HashMap<>());
+    assertThat(responses.size(), equalTo(2));
+    assertThat(responses.get(0).operationPolicy().size(), equalTo(1));
+    assertThat(responses.get(0).itemPolicy().size(), equalTo(0));
+    assertThat(responses.get(1).operationPolicy().size(), equalTo(0));
+    assertThat(responses.get(1).itemPolicy().size(), equalTo(0));
+
+    responses =
+        policyPlugin.processPreCreate(
+            Arrays.asList(mock(Metacard.class), mock(Metacard.class)),
+            Collections.singletonMap(Constants.LOCAL_DESTINATION_KEY, false));
+    assertThat(responses.size(), equalTo(2));
+    assertThat(responses.get(0).operationPolicy().size(), equalTo(0));
+    assertThat(responses.get(1).operationPolicy().size(), equalTo(0));
+  }
+
+  @Test
+  public void testPreUpdateBatch() throws StopProcessingException {
+    policyPlugin.setUpdatePermissions(new String[] {"role=admin"});
+    List<PolicyResponse> responses =
+        policyPlugin.processPreUpdate(Arrays.asList(mock(Metacard.class), null), new HashMap<>());
+    assertThat(responses.size(), equalTo(2));
+    assertThat(responses.get(0).operationPolicy().size(), equalTo(1));
+    assertThat(responses.get(1).operationPolicy().size(), equalTo(0));
+
+    responses = policyPlugin.processPreUpdate(Collections.emptyList(), new HashMap<>());
+    assertThat(responses.size(), equalTo(0));
+  }
+
+  @Test
+  public void testPostQueryBatch() throws StopProcessingException {
+    List<PolicyResponse> responses =
+        policyPlugin.processPostQuery(
+            Arrays.asList(mock(Result.class), mock(Result.class)), new HashMap<>());
+    assertThat(responses.size(), equalTo(2));
+    assertThat(responses.get(0).itemPolicy().size(), equalTo(0));
+    assertThat(responses.get(0).operationPolicy().size(), equalTo(0));
+  }
 }
@@ -21,7 +21,7 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.ResourceRequest;
 import ddf.catalog.operation.ResourceResponse;
-import ddf.catalog.plugin.PolicyPlugin;
+import ddf.catalog.plugin.BatchPolicyPlugin;
 import ddf.catalog.plugin.PolicyResponse;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.plugin.impl.PolicyResponseImpl;
@@ -29,8 +29,12 @@
 import ddf.security.permission.Permissions;
 import java.io.Serializable;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,8 +42,11 @@
 /**
  * Restricts how resource URIs are updated and created. There are security risk to allowing users to
  * update URIs as well as allowing users to pass in a URI when the metacard is created.
+ *
+ * <p>Batches of metacards are processed with the permissions parsed once and, on update, with the
+ * previous state of the metacards looked up by id.
  */
-public class ResourceUriPolicy implements PolicyPlugin {
+public class ResourceUriPolicy implements BatchPolicyPlugin {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ResourceUriPolicy.class);
 
@@ -107,6 +114,76 @@ public PolicyResponse processPreUpdate(Metacard input, Map<String, Serializable>
         : new PolicyResponseImpl();
   }
 
+  @Override
+  public List<PolicyResponse> processPreCreate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    PolicyResponse emptyResponse = new PolicyResponseImpl();
+    if (!Requests.isLocal(properties)) {
+      return Collections.nCopies(metacards.size(), emptyResponse);
+    }
+
+    PolicyResponse permissionResponse = null;
+    List<PolicyResponse> responses = new ArrayList<>(metacards.size());
+    for (Metacard input : metacards) {
+      if (input.getResourceURI() != null
+          && StringUtils.isNotEmpty(input.getResourceURI().toString())) {
+        if (permissionResponse == null) {
+          permissionResponse =
+              new PolicyResponseImpl(
+                  null, permissions.parsePermissionsFromString(getCreatePermissions()));
+        }
+        responses.add(permissionResponse);
+      } else {
+        responses.add(emptyResponse);
+      }
+    }
+    return responses;
+  }
+
+  @Override
+  public List<PolicyResponse> processPreUpdate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    PolicyResponse emptyResponse = new PolicyResponseImpl();
+    if (!Requests.isLocal(properties)) {
+      return Collections.nCopies(metacards.size(), emptyResponse);
+    }
+
+    Map<String, Set<String>> updatePermissionMap =
+        permissions.parsePermissionsFromString(getUpdatePermissions());
+    PolicyResponse permissionResponse = new PolicyResponseImpl(null, updatePermissionMap);
+
+    Map<String, Metacard> previousStateMetacards = new HashMap<>();
+    for (Metacard previous :
+        ((OperationTransaction) properties.get(OPERATION_TRANSACTION_KEY))
+            .getPreviousStateMetacards()) {
+      previousStateMetacards.putIfAbsent(previous.getId(), previous);
+    }
+
+    List<PolicyResponse> responses = new ArrayList<>(metacards.size());
+    for (Metacard input : metacards) {
+      if (input == null) {
+        responses.add(emptyResponse);
+        continue;
+      }
+
+      Metacard previous = previousStateMetacards.get(input.getId());
+      if (previous == null) {
+        LOGGER.debug(
+            "Cannot locate metacard {} for update. Applying permissions to the item",
+            input.getId());
+        responses.add(permissionResponse);
+      } else {
+        responses.add(
+            requiresPermission(input.getResourceURI(), previous.getResourceURI())
+                ? permissionResponse
+                : emptyResponse);
+      }
+    }
+    return responses;
+  }
+
   private boolean requiresPermission(URI input, URI catalog) {
 
     return !uriToString(input).equals(uriToString(catalog));
@@ -143,6 +220,12 @@ public PolicyResponse processPostQuery(Result input, Map<String, Serializable> p
     return new PolicyResponseImpl();
   }
 
+  @Override
+  public List<PolicyResponse> processPostQuery(
+      List<Result> results, Map<String, Serializable> properties) throws StopProcessingException {
+    return Collections.nCopies(results.size(), new PolicyResponseImpl());
+  }
+
   @Override
   public PolicyResponse processPreResource(ResourceRequest resourceRequest)
       throws StopProcessingException {
@@ -19,6 +19,7 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -31,8 +32,10 @@
 import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.junit.Test;
@@ -125,6 +128,57 @@ public void testMissingMetacard() throws URISyntaxException, StopProcessingExcep
         "If the existing metacard is not present, assume the resource URI is being changed and require permission");
   }
 
+  @Test
+  public void testUpdateBatch() throws URISyntaxException, StopProcessingException {
+    Metacard missing = getMockMetacard("sampleURI");
+    when(missing.getId()).thenReturn("this is not an id");
+
+    List<PolicyResponse> responses =
+        getPolicyPlugin()
+            .processPreUpdate(
+                Arrays.asList(
+                    getMockMetacard("sampleURI"), getMockMetacard("differentURI"), missing, null),
+                getMockProperties("sampleURI"));
+
+    assertThat(responses, hasSize(4));
+    assertEmptyResponse(responses.get(0));
+    assertNotEmpty(responses.get(1), "Changing the resource URI requires permission");
+    assertNotEmpty(responses.get(2), "Updating a missing metacard requires permission");
+    assertEmptyResponse(responses.get(3));
+    assertThat(responses.get(1).itemPolicy().get("fizzle"), containsInAnyOrder("bang"));
+  }
+
+  @Test
+  public void testCreateBatch() throws URISyntaxException, StopProcessingException {
+    List<PolicyResponse> responses =
+        getPolicyPlugin()
+            .processPreCreate(
+                Arrays.asList(getMockMetacard("sampleURI"), getMockMetacard("")),
+                getMockProperties("zoom"));
+
+    assertThat(responses, hasSize(2));
+    assertThat(responses.get(0).itemPolicy().get("fizzle"), containsInAnyOrder("bang"));
+    assertEmptyResponse(responses.get(1));
+  }
+
+  @Test
+  public void testNonLocalBatch() throws URISyntaxException, StopProcessingException {
+    Map<String, Serializable> properties = getMockProperties("fizzle");
+    properties.put(LOCAL_DESTINATION_KEY, false);
+
+    List<PolicyResponse> createResponses =
+        getPolicyPlugin()
+            .processPreCreate(Collections.singletonList(getMockMetacard("sampleURI")), properties);
+    List<PolicyResponse> updateResponses =
+        getPolicyPlugin()
+            .processPreUpdate(Collections.singletonList(getMockMetacard("sampleURI")), properties);
+
+    assertThat(createResponses, hasSize(1));
+    assertEmptyResponse(createResponses.get(0));
+    assertThat(updateResponses, hasSize(1));
+    assertEmptyResponse(updateResponses.get(0));
+  }
+
   private ResourceUriPolicy getPolicyPlugin() {
     ResourceUriPolicy resourceUriPolicy =
         new ResourceUriPolicy(
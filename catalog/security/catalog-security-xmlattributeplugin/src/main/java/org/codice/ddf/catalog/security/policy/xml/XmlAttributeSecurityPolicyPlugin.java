@@ -18,13 +18,15 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.ResourceRequest;
 import ddf.catalog.operation.ResourceResponse;
-import ddf.catalog.plugin.PolicyPlugin;
+import ddf.catalog.plugin.BatchPolicyPlugin;
 import ddf.catalog.plugin.PolicyResponse;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.plugin.impl.PolicyResponseImpl;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -43,8 +45,13 @@
 /**
  * Plugin that parses XML metadata for elements that contain attributes with security policy
  * information
+ *
+ * <p>When processing a batch of metacards, the configuration is read once, metadata that does not
+ * mention any of the configured elements and attributes is not parsed, metacards with the same
+ * metadata are only parsed once, and metacards with identical policies share one unmodifiable
+ * policy response.
  */
-public class XmlAttributeSecurityPolicyPlugin implements PolicyPlugin {
+public class XmlAttributeSecurityPolicyPlugin implements BatchPolicyPlugin {
   /** Logger */
   private static final Logger LOGGER =
       LoggerFactory.getLogger(XmlAttributeSecurityPolicyPlugin.class);
@@ -77,73 +84,173 @@ public class XmlAttributeSecurityPolicyPlugin implements PolicyPlugin {
    * @param metacard XML metadata to parse
    */
   public Map<String, Set<String>> parseSecurityMetadata(Metacard metacard) {
-    Map<String, Set<String>> securityMap = new HashMap<>();
-    String xmlMetadata = metacard.getMetadata();
-    if (xmlMetadata == null) {
-      return securityMap;
+    return new SecurityParser().parse(metacard.getMetadata());
+  }
+
+  @Override
+  public List<PolicyResponse> processPreCreate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    return processBatch(metacards);
+  }
+
+  @Override
+  public List<PolicyResponse> processPreUpdate(
+      List<Metacard> metacards, Map<String, Serializable> properties)
+      throws StopProcessingException {
+    return processBatch(metacards);
+  }
+
+  @Override
+  public List<PolicyResponse> processPostQuery(
+      List<Result> results, Map<String, Serializable> properties) throws StopProcessingException {
+    List<Metacard> metacards = new ArrayList<>(results.size());
+    for (Result result : results) {
+      metacards.add(result.getMetacard());
+    }
+    return processBatch(metacards);
+  }
+
+  private List<PolicyResponse> processBatch(List<Metacard> metacards) {
+    SecurityParser parser = new SecurityParser();
+    PolicyResponse emptyResponse = new PolicyResponseImpl(null, Collections.emptyMap());
+    Map<String, PolicyResponse> responsesByMetadata = new HashMap<>();
+    Map<Map<String, Set<String>>, PolicyResponse> responsesByPolicy = new HashMap<>();
+    List<PolicyResponse> responses = new ArrayList<>(metacards.size());
+
+    for (Metacard metacard : metacards) {
+      String metadata = metacard == null ? null : metacard.getMetadata();
+      if (!parser.mayContainSecurity(metadata)) {
+        responses.add(emptyResponse);
+        continue;
+      }
+
+      responses.add(
+          responsesByMetadata.computeIfAbsent(
+              metadata,
+              key -> {
+                Map<String, Set<String>> securityMap = parser.parse(key);
+                if (securityMap.isEmpty()) {
+                  return emptyResponse;
+                }
+                return responsesByPolicy.computeIfAbsent(
+                    securityMap,
+                    policy -> new PolicyResponseImpl(null, unmodifiablePolicy(policy)));
+              }));
+    }
+    return responses;
+  }
+
+  private static Map<String, Set<String>> unmodifiablePolicy(Map<String, Set<String>> policy) {
+    Map<String, Set<String>> unmodifiable = new HashMap<>();
+    for (Map.Entry<String, Set<String>> entry : policy.entrySet()) {
+      unmodifiable.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
     }
+    return Collections.unmodifiableMap(unmodifiable);
+  }
+
+  /** Parses metadata with a snapshot of the configuration taken when it is created. */
+  private class SecurityParser {
 
-    XMLStreamReader xmlStreamReader = null;
-    try {
-      xmlStreamReader = xmlInputFactory.createXMLStreamReader(new StringReader(xmlMetadata));
-      Map<String, Set<Set<String>>> intersectionMap = new HashMap<>();
-      while (xmlStreamReader.hasNext()) {
-        int event = xmlStreamReader.next();
-        if (event == XMLStreamConstants.START_ELEMENT) {
-          String localName = xmlStreamReader.getLocalName();
-
-          if (xmlElements.contains(localName)) {
-            LOGGER.debug("Parsing security attribute.");
-            parseSecurityBlock(securityMap, intersectionMap, xmlStreamReader);
+    private final Set<String> elements = new HashSet<>(getXmlElements());
+
+    private final Set<String> unions = copy(getSecurityAttributeUnions());
+
+    private final Set<String> intersections = copy(getSecurityAttributeIntersections());
+
+    /**
+     * Tells whether {@code metadata} mentions one of the configured elements and one of the
+     * configured attributes, which it must do to contain any security attribute. Checking this is
+     * much cheaper than parsing metadata that does not.
+     */
+    boolean mayContainSecurity(String metadata) {
+      return metadata != null
+          && containsAny(metadata, elements)
+          && (containsAny(metadata, unions) || containsAny(metadata, intersections));
+    }
+
+    Map<String, Set<String>> parse(String xmlMetadata) {
+      Map<String, Set<String>> securityMap = new HashMap<>();
+      if (xmlMetadata == null) {
+        return securityMap;
+      }
+
+      XMLStreamReader xmlStreamReader = null;
+      try {
+        xmlStreamReader = xmlInputFactory.createXMLStreamReader(new StringReader(xmlMetadata));
+        Map<String, Set<Set<String>>> intersectionMap = new HashMap<>();
+        while (xmlStreamReader.hasNext()) {
+          int event = xmlStreamReader.next();
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            String localName = xmlStreamReader.getLocalName();
+
+            if (elements.contains(localName)) {
+              LOGGER.debug("Parsing security attribute.");
+              parseSecurityBlock(securityMap, intersectionMap, xmlStreamReader);
+            }
+          }
+        }
+      } catch (XMLStreamException e) {
+        // if this happens and message redacting is enabled, the message will be excluded from
+        // results
+        LOGGER.info("Unable to parse security from XML metadata.", e);
+      } finally {
+        if (xmlStreamReader != null) {
+          try {
+            xmlStreamReader.close();
+          } catch (XMLStreamException e) {
+            // ignore
           }
         }
       }
-    } catch (XMLStreamException e) {
-      // if this happens and message redacting is enabled, the message will be excluded from results
-      LOGGER.info("Unable to parse security from XML metadata.", e);
-    } finally {
-      if (xmlStreamReader != null) {
-        try {
-          xmlStreamReader.close();
-        } catch (XMLStreamException e) {
-          // ignore
+
+      return securityMap;
+    }
+
+    /**
+     * Parses the security element in the metadata
+     *
+     * @param xmlStreamReader xml stream
+     */
+    private void parseSecurityBlock(
+        Map<String, Set<String>> securityMap,
+        Map<String, Set<Set<String>>> intersectionMap,
+        XMLStreamReader xmlStreamReader) {
+      LOGGER.debug("Parsing metacard security block");
+      int numAttrs = xmlStreamReader.getAttributeCount();
+
+      for (int i = 0; i < numAttrs; i++) {
+        String name = xmlStreamReader.getAttributeLocalName(i);
+        if (unions.contains(name)) {
+          LOGGER.debug("Found {} in metacard", name);
+          if (!securityMap.containsKey(name)) {
+            securityMap.put(name, new HashSet<>());
+          }
+          buildSecurityAttribute(securityMap.get(name), xmlStreamReader.getAttributeValue(i));
+        } else if (intersections.contains(name)) {
+          if (!intersectionMap.containsKey(name)) {
+            intersectionMap.put(name, new HashSet<>());
+          }
+          Set<String> valueSet = new HashSet<>();
+          buildSecurityAttribute(valueSet, xmlStreamReader.getAttributeValue(i));
+          intersectionMap.get(name).add(valueSet);
         }
       }
+      buildIntersectionAttributes(securityMap, intersectionMap);
     }
+  }
 
-    return securityMap;
+  private static Set<String> copy(Collection<String> values) {
+    return values == null ? Collections.emptySet() : new HashSet<>(values);
   }
 
-  /**
-   * Parses the security element in the metadata
-   *
-   * @param xmlStreamReader xml stream
-   */
-  private void parseSecurityBlock(
-      Map<String, Set<String>> securityMap,
-      Map<String, Set<Set<String>>> intersectionMap,
-      XMLStreamReader xmlStreamReader) {
-    LOGGER.debug("Parsing metacard security block");
-    int numAttrs = xmlStreamReader.getAttributeCount();
-
-    for (int i = 0; i < numAttrs; i++) {
-      String name = xmlStreamReader.getAttributeLocalName(i);
-      if (getSecurityAttributeUnions().contains(name)) {
-        LOGGER.debug("Found {} in metacard", name);
-        if (!securityMap.containsKey(name)) {
-          securityMap.put(name, new HashSet<>());
-        }
-        buildSecurityAttribute(securityMap.get(name), xmlStreamReader.getAttributeValue(i));
-      } else if (getSecurityAttributeIntersections().contains(name)) {
-        if (!intersectionMap.containsKey(name)) {
-          intersectionMap.put(name, new HashSet<>());
-        }
-        Set<String> valueSet = new HashSet<>();
-        buildSecurityAttribute(valueSet, xmlStreamReader.getAttributeValue(i));
-        intersectionMap.get(name).add(valueSet);
+  private static boolean containsAny(String metadata, Set<String> names) {
+    for (String name : names) {
+      if (metadata.contains(name)) {
+        return true;
       }
     }
-    buildIntersectionAttributes(securityMap, intersectionMap);
+    return false;
   }
 
   private void buildSecurityAttribute(Set<String> builderSet, String attributeValue) {
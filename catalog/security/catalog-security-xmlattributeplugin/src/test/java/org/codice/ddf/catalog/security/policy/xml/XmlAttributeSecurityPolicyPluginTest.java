@@ -13,9 +13,15 @@
  */
 package org.codice.ddf.catalog.security.policy.xml;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.operation.ResourceResponse;
@@ -27,6 +33,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -208,4 +215,73 @@ public void testProcessUnusedMethods() throws StopProcessingException {
     policyResponse = plugin.processPreResource(new ResourceRequestById(""));
     org.junit.Assert.assertThat(policyResponse.itemPolicy().entrySet().size(), Matchers.is(0));
   }
+
+  @Test
+  public void testProcessPreCreateBatch() throws StopProcessingException {
+    MetacardImpl metacard1 = new MetacardImpl();
+    metacard1.setMetadata(TEST_METADATA_3);
+
+    List<PolicyResponse> policyResponses =
+        plugin.processPreCreate(Arrays.asList(metacard, metacard1), new HashMap<>());
+
+    assertThat(policyResponses, hasSize(2));
+    assertThat(policyResponses.get(0).itemPolicy(), is(plugin.parseSecurityMetadata(metacard)));
+    assertThat(policyResponses.get(1).itemPolicy(), is(plugin.parseSecurityMetadata(metacard1)));
+  }
+
+  @Test
+  public void testProcessPreUpdateBatchWithMissingMetacard() throws StopProcessingException {
+    List<PolicyResponse> policyResponses =
+        plugin.processPreUpdate(Arrays.asList(null, metacard), new HashMap<>());
+
+    assertThat(policyResponses, hasSize(2));
+    assertThat(policyResponses.get(0).itemPolicy().isEmpty(), is(true));
+    assertThat(policyResponses.get(1).itemPolicy().entrySet().size(), is(3));
+  }
+
+  @Test
+  public void testProcessPostQueryBatchSharesIdenticalPolicies() throws StopProcessingException {
+    MetacardImpl sameMetadata = new MetacardImpl();
+    sameMetadata.setMetadata(TEST_METADATA);
+    MetacardImpl samePolicy = new MetacardImpl();
+    samePolicy.setMetadata(TEST_METADATA.replace("Title1!", "Another title"));
+
+    List<PolicyResponse> policyResponses =
+        plugin.processPostQuery(
+            Arrays.asList(result(metacard), result(sameMetadata), result(samePolicy)),
+            new HashMap<>());
+
+    assertThat(policyResponses, hasSize(3));
+    assertThat(policyResponses.get(1), sameInstance(policyResponses.get(0)));
+    assertThat(policyResponses.get(2), sameInstance(policyResponses.get(0)));
+    assertThat(policyResponses.get(0).itemPolicy().get("countries"), containsInAnyOrder("USA"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testBatchPoliciesCannotBeChanged() throws StopProcessingException {
+    List<PolicyResponse> policyResponses =
+        plugin.processPreCreate(Collections.singletonList(metacard), new HashMap<>());
+
+    policyResponses.get(0).itemPolicy().get("controls").add("none");
+  }
+
+  @Test
+  public void testProcessBatchWithoutSecurityElements() throws StopProcessingException {
+    MetacardImpl noSecurity = new MetacardImpl();
+    noSecurity.setMetadata("<metadata><description>No security</description></metadata>");
+    MetacardImpl noMetadata = new MetacardImpl();
+
+    List<PolicyResponse> policyResponses =
+        plugin.processPreCreate(Arrays.asList(noSecurity, noMetadata), new HashMap<>());
+
+    assertThat(policyResponses, hasSize(2));
+    assertThat(policyResponses.get(0).itemPolicy().isEmpty(), is(true));
+    assertThat(policyResponses.get(1).itemPolicy().isEmpty(), is(true));
+  }
+
+  private static Result result(Metacard metacard) {
+    Result result = mock(Result.class);
+    when(result.getMetacard()).thenReturn(metacard);
+    return result;
+  }
 }
@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import ddf.catalog.source.solr.json.MetacardTypeMapperFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the binary fields stored in Solr documents: the values of {@link AttributeFormat#OBJECT}
+ * attributes and the {@link MetacardType} of each document.
+ *
+ * <p>Encoded values start with a two byte header made of {@link #MAGIC} and a format version.
+ * Values written before this codec existed (Java serialized objects and JSON metacard types) do not
+ * start with that header and are still decoded, so existing indexes keep working until they are
+ * reindexed.
+ *
+ * <p>Object values of the common attribute value classes are written as a one byte tag followed by
+ * the value itself; any other {@link Serializable} falls back to Java serialization. Metacard types
+ * are written as their name and a compressed list of attribute descriptors.
+ */
+final class BinaryFieldCodec {
+
+  static final byte MAGIC = (byte) 0xDD;
+
+  static final byte VERSION = 1;
+
+  private static final byte JAVA_TAG = 0;
+
+  private static final byte STRING_TAG = 1;
+
+  private static final byte BOOLEAN_TAG = 2;
+
+  private static final byte SHORT_TAG = 3;
+
+  private static final byte INTEGER_TAG = 4;
+
+  private static final byte LONG_TAG = 5;
+
+  private static final byte FLOAT_TAG = 6;
+
+  private static final byte DOUBLE_TAG = 7;
+
+  private static final byte DATE_TAG = 8;
+
+  private static final byte BINARY_TAG = 9;
+
+  private static final int INDEXED = 1;
+
+  private static final int STORED = 1 << 1;
+
+  private static final int TOKENIZED = 1 << 2;
+
+  private static final int MULTI_VALUED = 1 << 3;
+
+  private static final ObjectMapper LEGACY_METACARD_TYPE_MAPPER =
+      MetacardTypeMapperFactory.newObjectMapper();
+
+  private BinaryFieldCodec() {}
+
+  static byte[] encodeObject(Serializable value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writeHeader(out);
+      if (value instanceof String) {
+        out.writeByte(STRING_TAG);
+        writeString(out, (String) value);
+      } else if (value instanceof Boolean) {
+        out.writeByte(BOOLEAN_TAG);
+        out.writeBoolean((Boolean) value);
+      } else if (value instanceof Short) {
+        out.writeByte(SHORT_TAG);
+        out.writeShort((Short) value);
+      } else if (value instanceof Integer) {
+        out.writeByte(INTEGER_TAG);
+        out.writeInt((Integer) value);
+      } else if (value instanceof Long) {
+        out.writeByte(LONG_TAG);
+        out.writeLong((Long) value);
+      } else if (value instanceof Float) {
+        out.writeByte(FLOAT_TAG);
+        out.writeFloat((Float) value);
+      } else if (value instanceof Double) {
+        out.writeByte(DOUBLE_TAG);
+        out.writeDouble((Double) value);
+      } else if (value != null && value.getClass() == Date.class) {
+        out.writeByte(DATE_TAG);
+        out.writeLong(((Date) value).getTime());
+      } else if (value instanceof byte[]) {
+        out.writeByte(BINARY_TAG);
+        out.write((byte[]) value);
+      } else {
+        out.writeByte(JAVA_TAG);
+        out.flush();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+          objectOut.writeObject(value);
+        }
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static Serializable decodeObject(byte[] bytes) throws IOException, ClassNotFoundException {
+    if (!hasHeader(bytes)) {
+      return readJavaObject(new ByteArrayInputStream(bytes));
+    }
+
+    ByteArrayInputStream stream = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+    DataInputStream in = new DataInputStream(stream);
+    byte tag = in.readByte();
+    switch (tag) {
+      case STRING_TAG:
+        return readString(in);
+      case BOOLEAN_TAG:
+        return in.readBoolean();
+      case SHORT_TAG:
+        return in.readShort();
+      case INTEGER_TAG:
+        return in.readInt();
+      case LONG_TAG:
+        return in.readLong();
+      case FLOAT_TAG:
+        return in.readFloat();
+      case DOUBLE_TAG:
+        return in.readDouble();
+      case DATE_TAG:
+        return new Date(in.readLong());
+      case BINARY_TAG:
+        byte[] value = new byte[bytes.length - 3];
+        in.readFully(value);
+        return value;
+      case JAVA_TAG:
+        return readJavaObject(stream);
+      default:
+        throw new IOException("Unknown object tag " + tag);
+    }
+  }
+
+  static byte[] encodeMetacardType(MetacardType metacardType) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bytes.write(MAGIC);
+    bytes.write(VERSION);
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+      out.writeUTF(metacardType.getName());
+      Set<AttributeDescriptor> descriptors = metacardType.getAttributeDescriptors();
+      out.writeInt(descriptors.size());
+      for (AttributeDescriptor descriptor : descriptors) {
+        out.writeUTF(descriptor.getName());
+        out.writeUTF(descriptor.getType().getAttributeFormat().name());
+        out.writeByte(flags(descriptor));
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static MetacardType decodeMetacardType(byte[] bytes) throws IOException {
+    if (!hasHeader(bytes)) {
+      return LEGACY_METACARD_TYPE_MAPPER.readValue(bytes, MetacardType.class);
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(
+            new InflaterInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2)))) {
+      String name = in.readUTF();
+      int count = in.readInt();
+      Set<AttributeDescriptor> descriptors = new HashSet<>(Math.max(count, 0) * 2);
+      for (int i = 0; i < count; i++) {
+        String attributeName = in.readUTF();
+        String format = in.readUTF();
+        int flags = in.readByte();
+        descriptors.add(
+            new AttributeDescriptorImpl(
+                attributeName,
+                (flags & INDEXED) != 0,
+                (flags & STORED) != 0,
+                (flags & TOKENIZED) != 0,
+                (flags & MULTI_VALUED) != 0,
+                BasicTypes.getAttributeType(format)));
+      }
+      return new MetacardTypeImpl(name, descriptors);
+    }
+  }
+
+  /** @return true if {@code bytes} were written by this version of the codec */
+  static boolean isCurrent(byte[] bytes) {
+    return hasHeader(bytes);
+  }
+
+  private static void writeHeader(DataOutputStream out) throws IOException {
+    out.writeByte(MAGIC);
+    out.writeByte(VERSION);
+  }
+
+  private static boolean hasHeader(byte[] bytes) {
+    return bytes.length >= 2 && bytes[0] == MAGIC && bytes[1] == VERSION;
+  }
+
+  private static int flags(AttributeDescriptor descriptor) {
+    return (descriptor.isIndexed() ? INDEXED : 0)
+        | (descriptor.isStored() ? STORED : 0)
+        | (descriptor.isTokenized() ? TOKENIZED : 0)
+        | (descriptor.isMultiValued() ? MULTI_VALUED : 0);
+  }
+
+  //  writeUTF is limited to 64KB, so strings are written as length-prefixed UTF-8 instead
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(utf8.length);
+    out.write(utf8);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] utf8 = new byte[in.readInt()];
+    in.readFully(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  private static Serializable readJavaObject(InputStream stream)
+      throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(stream)) {
+      return (Serializable) in.readObject();
+    }
+  }
+}
@@ -13,8 +13,6 @@
  */
 package ddf.catalog.source.solr;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -28,12 +26,7 @@
 import ddf.catalog.data.impl.BasicTypes;
 import ddf.catalog.data.impl.MetacardTypeImpl;
 import ddf.catalog.data.types.Validation;
-import ddf.catalog.source.solr.json.MetacardTypeMapperFactory;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.security.AccessController;
@@ -124,9 +117,6 @@ public class DynamicSchemaResolver implements ConfigurationListener {
 
   private static int metadataMaximumBytes;
 
-  private static final ObjectMapper METACARD_TYPE_MAPPER =
-      MetacardTypeMapperFactory.newObjectMapper();
-
   static {
     ClassLoader tccl = Thread.currentThread().getContextClassLoader();
     try {
@@ -311,14 +301,11 @@ void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
                     + getSpecialIndexSuffix(AttributeFormat.STRING),
                 attributeValues);
           } else if (AttributeFormat.OBJECT.equals(format)) {
-            ByteArrayOutputStream byteArrayOS = new ByteArrayOutputStream();
-            List<Serializable> byteArrays = new ArrayList<>();
+            List<Serializable> byteArrays = new ArrayList<>(attributeValues.size());
 
-            try (ObjectOutputStream out = new ObjectOutputStream(byteArrayOS)) {
+            try {
               for (Serializable serializable : attributeValues) {
-                out.writeObject(serializable);
-                byteArrays.add(byteArrayOS.toByteArray());
-                out.reset();
+                byteArrays.add(BinaryFieldCodec.encodeObject(serializable));
               }
             } catch (IOException e) {
               throw new MetacardCreationException(COULD_NOT_SERIALIZE_OBJECT_MESSAGE, e);
@@ -484,8 +471,6 @@ List<Serializable> getDocValues(String solrFieldName, Collection<Object> docValu
     return values;
   }
 
-  @SuppressWarnings(
-      "squid:S2093" /* try-with-resource will throw IOException with InputStream and we do not care to get that exception */)
   private Serializable getDocValue(String solrFieldName, Object docValue) {
 
     AttributeFormat format = getType(solrFieldName);
@@ -498,22 +483,13 @@ private Serializable getDocValue(String solrFieldName, Object docValue) {
        */
       return Short.parseShort(docValue.toString());
     } else if (AttributeFormat.OBJECT.equals(format)) {
-
-      ByteArrayInputStream bais = null;
-      ObjectInputStream in = null;
-
       try {
-        bais = new ByteArrayInputStream((byte[]) docValue);
-        in = new ObjectInputStream(bais);
-        return (Serializable) in.readObject();
+        return BinaryFieldCodec.decodeObject((byte[]) docValue);
       } catch (IOException e) {
         LOGGER.info("IO exception loading input document", e);
       } catch (ClassNotFoundException e) {
         LOGGER.info("Could not create object to return.", e);
         // TODO which exception to throw?
-      } finally {
-        IOUtils.closeQuietly(bais);
-        IOUtils.closeQuietly(in);
       }
 
       return null;
@@ -632,13 +608,16 @@ public MetacardType getMetacardType(SolrDocument doc) throws MetacardCreationExc
 
     byte[] bytes = (byte[]) doc.getFirstValue(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME);
     try {
-      cachedMetacardType = METACARD_TYPE_MAPPER.readValue(bytes, MetacardType.class);
+      cachedMetacardType = BinaryFieldCodec.decodeMetacardType(bytes);
     } catch (IOException e) {
       LOGGER.info("IO exception loading cached metacard type", e);
       throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE);
     }
 
-    metacardTypeNameToSerialCache.put(mTypeFieldName, bytes);
+    //  Documents written from now on get the current encoding, even if this one was read from a
+    //  document indexed before it existed
+    metacardTypeNameToSerialCache.put(
+        mTypeFieldName, BinaryFieldCodec.isCurrent(bytes) ? bytes : serialize(cachedMetacardType));
     metacardTypesCache.put(mTypeFieldName, cachedMetacardType);
     addToFieldsCache(cachedMetacardType.getAttributeDescriptors());
 
@@ -785,8 +764,8 @@ private void filterAnyTextFieldCache() {
 
   private byte[] serialize(MetacardType anywhereMType) throws MetacardCreationException {
     try {
-      return METACARD_TYPE_MAPPER.writeValueAsBytes(anywhereMType);
-    } catch (JsonProcessingException e) {
+      return BinaryFieldCodec.encodeMetacardType(anywhereMType);
+    } catch (IOException e) {
       throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE, e);
     }
   }
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the responses of Solr queries, keyed by the Solr query string sent for them.
+ *
+ * <p>Every write to the index invalidates the whole cache. Because Solr only makes writes visible
+ * at the next soft commit, responses are not cached for {@code visibilityWindowMs} after a write
+ * that was not committed immediately, otherwise a response read before the commit could outlive it.
+ * Writes made by other nodes sharing the same Solr cores are only bounded by the time to live.
+ *
+ * <p>The cache is bounded by an estimate of the memory used by the cached metacards. Cached
+ * responses are copied on the way in and on the way out so callers are free to modify them.
+ *
+ * <p>The statistics of the cache are published as a {@link QueryResultCacheMBean} by the provider
+ * using it.
+ */
+class QueryResultCache implements QueryResultCacheMBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryResultCache.class);
+
+  private static final int RESULT_OVERHEAD_BYTES = 256;
+
+  private static final int VALUE_OVERHEAD_BYTES = 16;
+
+  private final Cache<String, CachedResponse> cache;
+
+  private final long visibilityWindowNanos;
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private volatile long invisibleUntilNanos = System.nanoTime();
+
+  /**
+   * @param maximumBytes estimated memory, in bytes, the cached responses may use
+   * @param timeToLiveSeconds time after which a cached response is discarded
+   * @param visibilityWindowMs time it takes for an uncommitted write to become visible to queries
+   */
+  QueryResultCache(long maximumBytes, long timeToLiveSeconds, long visibilityWindowMs) {
+    cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumBytes)
+            .weigher((String key, CachedResponse value) -> value.weight)
+            .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+    visibilityWindowNanos = TimeUnit.MILLISECONDS.toNanos(visibilityWindowMs);
+  }
+
+  /**
+   * @return a token to pass to {@link #put} once the response for a query that missed the cache has
+   *     been read, used to discard the response if the index changed in between
+   */
+  long generation() {
+    return generation.get();
+  }
+
+  /** @return a copy of the cached response to {@code key} for {@code request}, or null */
+  @Nullable
+  SourceResponse get(String key, QueryRequest request) {
+    CachedResponse cached = cache.getIfPresent(key);
+    if (cached == null) {
+      return null;
+    }
+
+    LOGGER.trace("Query cache hit for [{}]", key);
+    return new SourceResponseImpl(
+        request, new HashMap<>(cached.properties), copy(cached.results), cached.hits);
+  }
+
+  void put(String key, long queryGeneration, SourceResponse response) {
+    if (queryGeneration != generation.get() || System.nanoTime() - invisibleUntilNanos < 0) {
+      return;
+    }
+
+    CachedResponse cached = new CachedResponse(response);
+    cache.put(key, cached);
+    // invalidate() bumps the generation before clearing the cache, so a write that raced with the
+    // put above either clears it or is seen here
+    if (queryGeneration != generation.get()) {
+      cache.asMap().remove(key, cached);
+    }
+  }
+
+  /**
+   * Discards every cached response after a write to the index.
+   *
+   * @param visible true if the write is already visible to queries
+   */
+  void invalidate(boolean visible) {
+    if (!visible) {
+      invisibleUntilNanos = System.nanoTime() + visibilityWindowNanos;
+    }
+    generation.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  CacheStats stats() {
+    return cache.stats();
+  }
+
+  @Override
+  public long getSize() {
+    return cache.size();
+  }
+
+  @Override
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  @Override
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  @Override
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  private static List<Result> copy(List<Result> results) {
+    List<Result> copies = new ArrayList<>(results.size());
+    for (Result result : results) {
+      Metacard metacard = result.getMetacard();
+      ResultImpl copy =
+          new ResultImpl(
+              metacard == null ? null : new MetacardImpl(metacard, metacard.getMetacardType()));
+      copy.setRelevanceScore(result.getRelevanceScore());
+      copy.setDistanceInMeters(result.getDistanceInMeters());
+      copies.add(copy);
+    }
+    return copies;
+  }
+
+  private static int estimateWeight(List<Result> results) {
+    long weight = 0;
+    for (Result result : results) {
+      weight += RESULT_OVERHEAD_BYTES;
+      Metacard metacard = result.getMetacard();
+      if (metacard == null) {
+        continue;
+      }
+      for (AttributeDescriptor descriptor : metacard.getMetacardType().getAttributeDescriptors()) {
+        Attribute attribute = metacard.getAttribute(descriptor.getName());
+        if (attribute != null && attribute.getValues() != null) {
+          for (Serializable value : attribute.getValues()) {
+            weight += estimateWeight(value);
+          }
+        }
+      }
+    }
+    return (int) Math.min(weight, Integer.MAX_VALUE);
+  }
+
+  private static long estimateWeight(Serializable value) {
+    if (value instanceof String) {
+      return VALUE_OVERHEAD_BYTES + 2L * ((String) value).length();
+    } else if (value instanceof byte[]) {
+      return VALUE_OVERHEAD_BYTES + (long) ((byte[]) value).length;
+    }
+    return VALUE_OVERHEAD_BYTES;
+  }
+
+  private static class CachedResponse {
+
+    private final List<Result> results;
+
+    private final Map<String, Serializable> properties;
+
+    private final long hits;
+
+    private final int weight;
+
+    CachedResponse(SourceResponse response) {
+      results = Collections.unmodifiableList(copy(response.getResults()));
+      properties = new HashMap<>(response.getProperties());
+      hits = response.getHits();
+      weight = estimateWeight(results);
+    }
+  }
+}
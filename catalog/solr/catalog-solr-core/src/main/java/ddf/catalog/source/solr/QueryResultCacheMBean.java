@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+/**
+ * MBean interface describing the cache placed in front of the queries of a Solr catalog provider.
+ */
+public interface QueryResultCacheMBean {
+
+  /** Object name of the caches, to be completed with a {@code core} key naming the queried core. */
+  String OBJECT_NAME = QueryResultCache.class.getName() + ":service=query-result-cache";
+
+  /**
+   * Gets the number of responses currently cached.
+   *
+   * @return the number of cached responses
+   */
+  long getSize();
+
+  /**
+   * Gets the number of queries answered from the cache.
+   *
+   * @return the number of hits
+   */
+  long getHitCount();
+
+  /**
+   * Gets the number of queries that had to be sent to Solr.
+   *
+   * @return the number of misses
+   */
+  long getMissCount();
+
+  /**
+   * Gets the ratio of queries answered from the cache, 1.0 if no query was made yet.
+   *
+   * @return the hit rate
+   */
+  double getHitRate();
+
+  /**
+   * Gets the number of responses evicted because the cache was full or they expired. Responses
+   * discarded after a write to the index are not counted.
+   *
+   * @return the number of evictions
+   */
+  long getEvictionCount();
+}
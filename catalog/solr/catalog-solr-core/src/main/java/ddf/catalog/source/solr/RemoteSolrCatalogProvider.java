@@ -35,6 +35,7 @@
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.codice.solr.client.solrj.SolrClient;
+import org.codice.solr.client.solrj.SolrUpdateBatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,6 +61,10 @@ public abstract class RemoteSolrCatalogProvider extends MaskableImpl implements
 
   private final SolrCatalogProviderImpl provider;
 
+  private int queryCacheSize;
+
+  private int queryCacheTimeToLive = 60;
+
   /**
    * Constructor.
    *
@@ -74,12 +79,33 @@ public RemoteSolrCatalogProvider(
       SolrClient client,
       SolrFilterDelegateFactory solrFilterDelegateFactory,
       @Nullable DynamicSchemaResolver resolver) {
+    this(filterAdapter, client, solrFilterDelegateFactory, resolver, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param filterAdapter filter adaptor this provider will use
+   * @param client client this provider will use to connect to Solr
+   * @param solrFilterDelegateFactory Solr filter delegate factory this provider will use
+   * @param resolver schema resolver this provider will use. A default schema resolver will be used
+   *     if this parameter is {@code null}.
+   * @param updateBatcher batcher of the client's core this provider will add documents through.
+   *     Documents will be added directly with the client if this parameter is {@code null}.
+   */
+  public RemoteSolrCatalogProvider(
+      FilterAdapter filterAdapter,
+      SolrClient client,
+      SolrFilterDelegateFactory solrFilterDelegateFactory,
+      @Nullable DynamicSchemaResolver resolver,
+      @Nullable SolrUpdateBatcher updateBatcher) {
     this.provider =
         new SolrCatalogProviderImpl(
             client,
             filterAdapter,
             solrFilterDelegateFactory,
-            (resolver == null) ? new DynamicSchemaResolver() : resolver);
+            (resolver == null) ? new DynamicSchemaResolver() : resolver,
+            updateBatcher);
     provider.maskId(getId());
   }
 
@@ -118,6 +144,26 @@ public void setAnyTextFieldBlacklist(List<String> anyTextFieldBlacklist) {
     ConfigurationStore.getInstance().setAnyTextFieldBlacklist(anyTextFieldBlacklist);
   }
 
+  /**
+   * Sets the estimated memory, in megabytes, used to cache query responses.
+   *
+   * @param queryCacheSize cache size in megabytes, 0 to disable query caching
+   */
+  public void setQueryCacheSize(int queryCacheSize) {
+    this.queryCacheSize = queryCacheSize;
+    provider.setQueryCache(queryCacheSize, queryCacheTimeToLive);
+  }
+
+  /**
+   * Sets how long a query response may be served from the cache.
+   *
+   * @param queryCacheTimeToLive time to live in seconds
+   */
+  public void setQueryCacheTimeToLive(int queryCacheTimeToLive) {
+    this.queryCacheTimeToLive = queryCacheTimeToLive;
+    provider.setQueryCache(queryCacheSize, queryCacheTimeToLive);
+  }
+
   @Override
   public Set<ContentType> getContentTypes() {
     return provider.getContentTypes();
@@ -41,6 +41,9 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -52,9 +55,16 @@
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -64,6 +74,7 @@
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
 import org.codice.solr.client.solrj.SolrClient;
+import org.codice.solr.client.solrj.SolrUpdateBatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,6 +90,8 @@ public class SolrCatalogProviderImpl extends MaskableImpl implements CatalogProv
 
   private static final String REQUEST_MUST_NOT_BE_NULL_MESSAGE = "Request must not be null";
 
+  private static final String SOFT_COMMIT_MAX_TIME_PROPERTY = "solr.autoSoftCommit.maxTime";
+
   static final int MAX_BOOLEAN_CLAUSES = 1024;
 
   private static final Properties DESCRIBABLE_PROPERTIES = new Properties();
@@ -98,6 +111,8 @@ public class SolrCatalogProviderImpl extends MaskableImpl implements CatalogProv
 
   private final SolrMetacardClientImpl client;
 
+  private QueryResultCache queryResultCache;
+
   /**
    * Constructor that creates a new instance and allows for a custom {@link DynamicSchemaResolver}
    *
@@ -110,6 +125,24 @@ public SolrCatalogProviderImpl(
       FilterAdapter adapter,
       SolrFilterDelegateFactory solrFilterDelegateFactory,
       DynamicSchemaResolver resolver) {
+    this(solrClient, adapter, solrFilterDelegateFactory, resolver, null);
+  }
+
+  /**
+   * Constructor that creates a new instance adding documents through the given {@link
+   * SolrUpdateBatcher}
+   *
+   * @param solrClient Solr client
+   * @param adapter injected implementation of FilterAdapter
+   * @param resolver Solr schema resolver
+   * @param updateBatcher batcher of the client's core, or {@code null} to add documents directly
+   */
+  public SolrCatalogProviderImpl(
+      SolrClient solrClient,
+      FilterAdapter adapter,
+      SolrFilterDelegateFactory solrFilterDelegateFactory,
+      DynamicSchemaResolver resolver,
+      @Nullable SolrUpdateBatcher updateBatcher) {
     Validate.notNull(solrClient, "SolrClient cannot be null.");
     Validate.notNull(adapter, "FilterAdapter cannot be null");
     Validate.notNull(solrFilterDelegateFactory, "SolrFilterDelegateFactory cannot be null");
@@ -122,7 +155,8 @@ public SolrCatalogProviderImpl(
 
     solr.whenAvailable(this::addFieldsFromClientToResolver);
     this.client =
-        new ProviderSolrMetacardClient(solrClient, adapter, solrFilterDelegateFactory, resolver);
+        new ProviderSolrMetacardClient(
+            solrClient, adapter, solrFilterDelegateFactory, resolver, updateBatcher);
   }
 
   @Override
@@ -193,6 +227,76 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
     return response;
   }
 
+  /**
+   * Configures the cache placed in front of Solr queries. Responses are not cached for {@code
+   * solr.autoSoftCommit.maxTime} milliseconds after a write that is not committed immediately. The
+   * statistics of the cache are published as a {@link QueryResultCacheMBean} while it is enabled.
+   *
+   * @param maximumMegabytes estimated memory the cached responses may use, 0 to disable the cache
+   * @param timeToLiveSeconds time after which a cached response is discarded, 0 to disable the
+   *     cache
+   */
+  public synchronized void setQueryCache(int maximumMegabytes, int timeToLiveSeconds) {
+    if (queryResultCache != null) {
+      LOGGER.debug("Discarding query cache with statistics {}", queryResultCache.stats());
+      unregisterQueryResultCacheMBean();
+    }
+
+    if (maximumMegabytes <= 0 || timeToLiveSeconds <= 0) {
+      queryResultCache = null;
+    } else {
+      queryResultCache =
+          new QueryResultCache(
+              maximumMegabytes * 1024L * 1024L, timeToLiveSeconds, getSoftCommitMaxTime());
+      registerQueryResultCacheMBean(queryResultCache);
+    }
+    client.setQueryResultCache(queryResultCache);
+  }
+
+  private void registerQueryResultCacheMBean(QueryResultCache cache) {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName objectName = queryResultCacheObjectName();
+      try {
+        mBeanServer.registerMBean(cache, objectName);
+      } catch (InstanceAlreadyExistsException e) {
+        LOGGER.debug("Re-registering query result cache MBean of core [{}]", solr.getCore());
+        mBeanServer.unregisterMBean(objectName);
+        mBeanServer.registerMBean(cache, objectName);
+      }
+    } catch (JMException e) {
+      LOGGER.info("Could not register query result cache MBean of core [{}].", solr.getCore(), e);
+    }
+  }
+
+  private void unregisterQueryResultCacheMBean() {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName objectName = queryResultCacheObjectName();
+      if (mBeanServer.isRegistered(objectName)) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+    } catch (JMException e) {
+      LOGGER.debug(
+          "Exception unregistering query result cache MBean of core [{}]", solr.getCore(), e);
+    }
+  }
+
+  private ObjectName queryResultCacheObjectName() throws MalformedObjectNameException {
+    return new ObjectName(
+        QueryResultCacheMBean.OBJECT_NAME
+            + ",core="
+            + ObjectName.quote(String.valueOf(solr.getCore())));
+  }
+
+  private static long getSoftCommitMaxTime() {
+    String maxTime =
+        AccessController.doPrivileged(
+            (PrivilegedAction<String>)
+                () -> System.getProperty(SOFT_COMMIT_MAX_TIME_PROPERTY, "30000"));
+    return Math.max(NumberUtils.toLong(maxTime, 30000L), 0L);
+  }
+
   @Override
   public CreateResponse create(CreateRequest request) throws IngestException {
     nonNull(request);
@@ -506,6 +610,12 @@ private boolean isForcedAutoCommit() {
   }
 
   public void shutdown() {
+    synchronized (this) {
+      if (queryResultCache != null) {
+        unregisterQueryResultCacheMBean();
+      }
+    }
+
     LOGGER.debug("Closing down Solr client.");
     try {
       solr.close();
@@ -526,8 +636,14 @@ public ProviderSolrMetacardClient(
         SolrClient client,
         FilterAdapter catalogFilterAdapter,
         SolrFilterDelegateFactory solrFilterDelegateFactory,
-        DynamicSchemaResolver dynamicSchemaResolver) {
-      super(client, catalogFilterAdapter, solrFilterDelegateFactory, dynamicSchemaResolver);
+        DynamicSchemaResolver dynamicSchemaResolver,
+        SolrUpdateBatcher updateBatcher) {
+      super(
+          client,
+          catalogFilterAdapter,
+          solrFilterDelegateFactory,
+          dynamicSchemaResolver,
+          updateBatcher);
     }
 
     @Override
@@ -13,7 +13,6 @@
  */
 package ddf.catalog.source.solr;
 
-import com.google.common.collect.ImmutableMap;
 import ddf.catalog.data.AttributeType.AttributeFormat;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
@@ -22,7 +21,6 @@
 import ddf.catalog.impl.filter.ProximityFunction;
 import ddf.measure.Distance;
 import ddf.measure.Distance.LinearUnit;
-import java.io.IOException;
 import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -31,6 +29,7 @@
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,23 +42,22 @@
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKTReader;
 import org.locationtech.jts.io.WKTWriter;
-import org.locationtech.spatial4j.context.SpatialContext;
-import org.locationtech.spatial4j.context.SpatialContextFactory;
-import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
-import org.locationtech.spatial4j.context.jts.ValidationRule;
 import org.locationtech.spatial4j.distance.DistanceUtils;
-import org.locationtech.spatial4j.exception.InvalidShapeException;
-import org.locationtech.spatial4j.io.ShapeReader;
-import org.locationtech.spatial4j.shape.Shape;
-import org.locationtech.spatial4j.shape.jts.JtsGeometry;
 import org.opengis.filter.sort.SortBy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Translates filter-proxy calls into Solr query syntax. */
+/**
+ * Translates filter-proxy calls into Solr query syntax.
+ *
+ * <p>Clauses that only restrict the results, such as exact matches, ranges and spatial predicates,
+ * are marked as filters. When they are operands of an {@code AND}, they are sent as filter queries
+ * ({@code fq}) instead of being part of the main query ({@code q}), so Solr does not score them and
+ * can reuse their results from its filter cache across queries. Filter queries of operands of an
+ * {@code OR} or a {@code NOT} are folded back into the main query since they only apply to the
+ * whole query.
+ */
 public class SolrFilterDelegate extends FilterDelegate<SolrQuery> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SolrFilterDelegate.class);
@@ -82,6 +80,10 @@ public class SolrFilterDelegate extends FilterDelegate<SolrQuery> {
 
   private static final String INTERSECTS_OPERATION = "Intersects";
 
+  private static final String DISJOINT_OPERATION = "IsDisjointTo";
+
+  private static final String CONTAINS_OPERATION = "Contains";
+
   private static final double NEAREST_NEIGHBOR_DISTANCE_LIMIT =
       metersToDegrees(new Distance(1000, LinearUnit.NAUTICAL_MILE).getAs(LinearUnit.METER));
 
@@ -90,20 +92,6 @@ public class SolrFilterDelegate extends FilterDelegate<SolrQuery> {
 
   private static final WKTWriter WKT_WRITER = new WKTWriter();
 
-  // For queries we use repairConvexHull which my cause false positives to be returned but this
-  // is better than potentially missing some results due to false negatives.
-  private static final Map<String, String> SPATIAL_CONTEXT_ARGUMENTS =
-      ImmutableMap.of(
-          "spatialContextFactory",
-          JtsSpatialContextFactory.class.getName(),
-          "validationRule",
-          ValidationRule.repairConvexHull.name());
-
-  private static final SpatialContext SPATIAL_CONTEXT =
-      SpatialContextFactory.makeSpatialContext(SPATIAL_CONTEXT_ARGUMENTS, null);
-
-  private static final ShapeReader WKT_READER = SPATIAL_CONTEXT.getFormats().getWktReader();
-
   private static final String END_PAREN = " ) ";
 
   private static final String START_PAREN = " ( ";
@@ -116,7 +104,16 @@ public class SolrFilterDelegate extends FilterDelegate<SolrQuery> {
 
   private static final String QUOTE = "\"";
 
-  private static final String FILTER_QUERY_PARAM_NAME = "fq";
+  private static final String MATCH_ALL_QUERY = "*:*";
+
+  private static final String CACHED_FILTER = "";
+
+  // The results of these filters differ on every query, so caching them would only evict others
+  private static final String UNCACHED_FILTER = "{!cache=false}";
+
+  // Spatial filters are rarely repeated exactly and are expensive, so they are not cached and run
+  // after the cheaper filters, on the documents those left
+  private static final String SPATIAL_FILTER = "{!cache=false cost=100}";
 
   private static final String SOLR_WILDCARD_CHAR = "*";
 
@@ -132,7 +129,7 @@ public class SolrFilterDelegate extends FilterDelegate<SolrQuery> {
 
   private static final double DEFAULT_ERROR_IN_METERS = 1;
 
-  private static final double DEFAULT_ERROR_IN_DEGREES = metersToDegrees(DEFAULT_ERROR_IN_METERS);
+  static final double DEFAULT_ERROR_IN_DEGREES = metersToDegrees(DEFAULT_ERROR_IN_METERS);
 
   private static final TimeZone UTC_TIME_ZONE = TimeZone.getTimeZone("UTC");
 
@@ -152,6 +149,9 @@ public class SolrFilterDelegate extends FilterDelegate<SolrQuery> {
 
   private Map<String, Serializable> enabledFeatures;
 
+  // local parameters of the filter queries of the clauses that are filters, by clause
+  private final Map<SolrQuery, String> filters = new IdentityHashMap<>();
+
   public SolrFilterDelegate(
       DynamicSchemaResolver resolver, Map<String, Serializable> enabledFeatures) {
     this.resolver = resolver;
@@ -192,19 +192,59 @@ public SolrQuery propertyIsEqualTo(String functionName, List<Object> arguments,
 
   @Override
   public SolrQuery and(List<SolrQuery> operands) {
-    SolrQuery query = logicalOperator(operands, AND);
+    verifyOperands(operands, AND);
+
+    List<String> clauses = new ArrayList<>();
+    List<String> filterQueries = new ArrayList<>();
+    for (SolrQuery operand : operands) {
+      String[] operandFilterQueries = operand.getFilterQueries();
+      if (operandFilterQueries != null) {
+        filterQueries.addAll(Arrays.asList(operandFilterQueries));
+      }
+
+      // an operand matching everything but its filter queries, such as an AND of filters only,
+      // adds nothing to the query or to the filter queries
+      String localParams = filters.get(operand);
+      boolean matchAll = MATCH_ALL_QUERY.equals(operand.getQuery());
+      if (localParams != null) {
+        if (!matchAll) {
+          filterQueries.add(localParams + operand.getQuery());
+        }
+      } else if (operandFilterQueries == null || !matchAll) {
+        clauses.add(operand.getQuery());
+      }
+    }
+
+    SolrQuery query =
+        new SolrQuery(
+            clauses.isEmpty()
+                ? MATCH_ALL_QUERY
+                : START_PAREN + String.join(AND, clauses) + END_PAREN);
+    if (!filterQueries.isEmpty()) {
+      query.setFilterQueries(filterQueries.toArray(new String[0]));
+    }
+    if (clauses.isEmpty()) {
+      filters.put(query, CACHED_FILTER);
+    }
     return query;
   }
 
   @Override
   public SolrQuery or(List<SolrQuery> operands) {
-    SolrQuery query = logicalOperator(operands, OR);
-    return query;
+    verifyOperands(operands, OR);
+
+    List<String> clauses = new ArrayList<>(operands.size());
+    for (SolrQuery operand : operands) {
+      clauses.add(toQueryString(operand));
+    }
+    return combinedFilter(
+        new SolrQuery(START_PAREN + String.join(OR, clauses) + END_PAREN), operands);
   }
 
   @Override
   public SolrQuery not(SolrQuery operand) {
-    return new SolrQuery(" NOT " + operand.getQuery());
+    return combinedFilter(
+        new SolrQuery(" NOT " + toQueryString(operand)), Collections.singletonList(operand));
   }
 
   @Override
@@ -298,7 +338,7 @@ public SolrQuery propertyIsEqualTo(String propertyName, String literal, boolean
     if (Metacard.ANY_TEXT.equals(propertyName)) {
       return new SolrQuery(wildcardSolrQuery(searchPhrase, propertyName, true, true));
     } else {
-      return new SolrQuery(mappedPropertyName + ":" + searchPhrase);
+      return filter(new SolrQuery(mappedPropertyName + ":" + searchPhrase));
     }
   }
 
@@ -346,7 +386,7 @@ public SolrQuery propertyIsEqualTo(String propertyName, Date exactDate) {
     String mappedPropertyName = getMappedPropertyName(propertyName, AttributeFormat.DATE, true);
     SolrQuery query = new SolrQuery();
     query.setQuery(" " + mappedPropertyName + ":" + QUOTE + dateFormat.format(exactDate) + QUOTE);
-    return query;
+    return filter(query);
   }
 
   @Override
@@ -377,7 +417,7 @@ public SolrQuery propertyIsEqualTo(String propertyName, double literal) {
   @Override
   public SolrQuery propertyIsEqualTo(String propertyName, boolean literal) {
     String mappedPropertyName = getMappedPropertyName(propertyName, AttributeFormat.BOOLEAN, true);
-    return new SolrQuery(mappedPropertyName + ":" + literal);
+    return filter(new SolrQuery(mappedPropertyName + ":" + literal));
   }
 
   @Override
@@ -644,12 +684,13 @@ public SolrQuery relative(String propertyName, long duration) {
     String formattedStartDate = formatDate(start);
     String formattedEndDate = formatDate(end);
 
-    return buildDateQuery(
-        propertyName,
-        SOLR_INCLUSIVE_START,
-        formattedStartDate,
-        formattedEndDate,
-        SOLR_INCLUSIVE_END);
+    return uncachedFilter(
+        dateQuery(
+            propertyName,
+            SOLR_INCLUSIVE_START,
+            formattedStartDate,
+            formattedEndDate,
+            SOLR_INCLUSIVE_END));
   }
 
   private SolrQuery buildDateQuery(
@@ -658,6 +699,15 @@ private SolrQuery buildDateQuery(
       String startDate,
       String endDate,
       String endCondition) {
+    return filter(dateQuery(propertyName, startCondition, startDate, endDate, endCondition));
+  }
+
+  private SolrQuery dateQuery(
+      String propertyName,
+      String startCondition,
+      String startDate,
+      String endDate,
+      String endCondition) {
     SolrQuery query = new SolrQuery();
     query.setQuery(
         " "
@@ -692,7 +742,7 @@ public SolrQuery nearestNeighbor(String propertyName, String wkt) {
             geoPointToCircleQuery(propertyName, NEAREST_NEIGHBOR_DISTANCE_LIMIT, pnt);
 
         updateDistanceSort(propertyName, pnt);
-        query = new SolrQuery(nearestNeighborQuery);
+        query = spatialFilter(new SolrQuery(nearestNeighborQuery));
       }
       return query;
     } else {
@@ -710,7 +760,7 @@ private String geoPointToCircleQuery(String propertyName, double distanceInDegre
 
   @Override
   public SolrQuery contains(String propertyName, String wkt) {
-    return operationToQuery("Contains", propertyName, wkt);
+    return operationToQuery(CONTAINS_OPERATION, propertyName, wkt);
   }
 
   @Override
@@ -724,7 +774,7 @@ public SolrQuery dwithin(String propertyName, String wkt, double distance) {
         String pointRadiusQuery = geoPointToCircleQuery(propertyName, distanceInDegrees, pnt);
 
         updateDistanceSort(propertyName, pnt);
-        return new SolrQuery(pointRadiusQuery);
+        return spatialFilter(new SolrQuery(pointRadiusQuery));
       } else {
         Geometry bufferGeo = geo.buffer(distanceInDegrees, QUADRANT_SEGMENTS);
         String bufferWkt = WKT_WRITER.write(bufferGeo);
@@ -736,30 +786,7 @@ public SolrQuery dwithin(String propertyName, String wkt, double distance) {
   }
 
   private Geometry getGeometry(String wkt) {
-    WKTReader reader = new WKTReader(GEOMETRY_FACTORY);
-
-    Geometry geo = null;
-    try {
-      geo = reader.read(fixSelfIntersectingGeometry(wkt));
-    } catch (ParseException e) {
-      LOGGER.info("Failed to read WKT: {}", wkt, e);
-    }
-    return geo;
-  }
-
-  private String fixSelfIntersectingGeometry(String wkt) {
-    try {
-      Shape wktShape = WKT_READER.read(wkt);
-      // All polygons will be an instance of JtsGeometry. If it is not a polygon we don't need
-      // to do anything with it so just return the original wkt string.
-      if (!(wktShape instanceof JtsGeometry)) {
-        return wkt;
-      }
-      return SPATIAL_CONTEXT.getFormats().getWktWriter().toString(wktShape);
-    } catch (IOException | java.text.ParseException | InvalidShapeException e) {
-      LOGGER.info("Failed to fix or read WKT: {}", wkt, e);
-    }
-    return wkt;
+    return SpatialQueryGeometry.of(wkt).getGeometry();
   }
 
   @Override
@@ -778,7 +805,7 @@ public SolrQuery intersects(String propertyName, String wkt) {
               geoPointToCircleQuery(propertyName, DEFAULT_ERROR_IN_DEGREES, pnt);
 
           updateDistanceSort(propertyName, pnt);
-          return new SolrQuery(pointRadiusQuery);
+          return spatialFilter(new SolrQuery(pointRadiusQuery));
         }
         if (MULTI_POINT_TYPE.equals(geo.getGeometryType()) && geo.getCoordinates().length == 1) {
           Point pnt = GEOMETRY_FACTORY.createPoint(geo.getCoordinate());
@@ -786,7 +813,7 @@ public SolrQuery intersects(String propertyName, String wkt) {
               geoPointToCircleQuery(propertyName, DEFAULT_ERROR_IN_DEGREES, pnt);
 
           updateDistanceSort(propertyName, pnt);
-          return new SolrQuery(pointRadiusQuery);
+          return spatialFilter(new SolrQuery(pointRadiusQuery));
         }
       }
     }
@@ -801,7 +828,7 @@ public SolrQuery within(String propertyName, String wkt) {
 
   @Override
   public SolrQuery disjoint(String propertyName, String wkt) {
-    return operationToQuery("IsDisjointTo", propertyName, wkt);
+    return operationToQuery(DISJOINT_OPERATION, propertyName, wkt);
   }
 
   @Override
@@ -855,7 +882,7 @@ private SolrQuery getEqualToQuery(String propertyName, AttributeFormat format, N
 
     query.setQuery(" " + mappedPropertyName + ":" + literalString);
 
-    return query;
+    return filter(query);
   }
 
   private SolrQuery getBetweenQuery(
@@ -872,7 +899,7 @@ private SolrQuery getBetweenQuery(
             + upperBoundary.toString()
             + "] ");
 
-    return query;
+    return filter(query);
   }
 
   private SolrQuery getGreaterThanOrEqualToQuery(
@@ -882,7 +909,7 @@ private SolrQuery getGreaterThanOrEqualToQuery(
     SolrQuery query = new SolrQuery();
     query.setQuery(" " + mappedPropertyName + ":[ " + literal.toString() + TO + "* ] ");
 
-    return query;
+    return filter(query);
   }
 
   private SolrQuery getGreaterThanQuery(
@@ -892,7 +919,7 @@ private SolrQuery getGreaterThanQuery(
     SolrQuery query = new SolrQuery();
     query.setQuery(" " + mappedPropertyName + ":{ " + literal.toString() + TO + "* ] ");
 
-    return query;
+    return filter(query);
   }
 
   private SolrQuery getLessThanOrEqualToQuery(
@@ -902,7 +929,7 @@ private SolrQuery getLessThanOrEqualToQuery(
     SolrQuery query = new SolrQuery();
     query.setQuery(" " + mappedPropertyName + ":[ * TO " + literal.toString() + " ] ");
 
-    return query;
+    return filter(query);
   }
 
   private SolrQuery getLessThanQuery(String propertyName, AttributeFormat format, Number literal) {
@@ -911,7 +938,7 @@ private SolrQuery getLessThanQuery(String propertyName, AttributeFormat format,
     SolrQuery query = new SolrQuery();
     query.setQuery(" " + mappedPropertyName + ":[ * TO " + literal.toString() + " } ");
 
-    return query;
+    return filter(query);
   }
 
   // @Override
@@ -963,10 +990,10 @@ public SolrQuery propertyIsNull(String propertyName) {
       solrExpressions.add(" (*:* -" + possibleField + ":[* TO *]) ");
     }
     String fullExpression = StringUtils.join(solrExpressions, " ");
-    return new SolrQuery(fullExpression);
+    return filter(new SolrQuery(fullExpression));
   }
 
-  private SolrQuery logicalOperator(List<SolrQuery> operands, String operator) {
+  private void verifyOperands(List<SolrQuery> operands, String operator) {
     if (operands == null || operands.size() < 1) {
       throw new UnsupportedOperationException(
           "[" + operator + "] operation must contain 1 or more filters.");
@@ -977,33 +1004,61 @@ private SolrQuery logicalOperator(List<SolrQuery> operands, String operator) {
         throw new UnsupportedOperationException("Null operand found");
       }
     }
+  }
 
-    int startIndex = 0;
-    SolrQuery query = operands.get(startIndex);
-    startIndex++;
-
-    if (query == null) {
-      throw new UnsupportedOperationException(
-          "Query was not interpreted properly. Query should not be null.");
+  /** @return the query string matching the same documents as {@code query} and its filters */
+  private String toQueryString(SolrQuery query) {
+    String[] filterQueries = query.getFilterQueries();
+    if (filterQueries == null) {
+      return query.getQuery();
     }
 
-    StringBuilder builder = new StringBuilder();
-    builder.append(START_PAREN);
-    builder.append(query.getQuery());
+    List<String> clauses = new ArrayList<>(filterQueries.length + 1);
+    if (!MATCH_ALL_QUERY.equals(query.getQuery())) {
+      clauses.add(query.getQuery());
+    }
+    for (String filterQuery : filterQueries) {
+      clauses.add(stripLocalParams(filterQuery));
+    }
+    return START_PAREN + String.join(AND, clauses) + END_PAREN;
+  }
 
-    for (int i = startIndex; i < operands.size(); i++) {
-      SolrQuery localQuery = operands.get(i);
+  private static String stripLocalParams(String filterQuery) {
+    return filterQuery.startsWith("{!")
+        ? filterQuery.substring(filterQuery.indexOf('}') + 1)
+        : filterQuery;
+  }
 
-      if (localQuery != null) {
-        builder.append(operator).append(localQuery.getQuery());
-      } else {
-        throw new UnsupportedOperationException(
-            "Query was not interpreted properly. Query should not be null.");
+  /** Marks {@code query} as a filter if all of its {@code operands} are filters. */
+  private SolrQuery combinedFilter(SolrQuery query, List<SolrQuery> operands) {
+    String localParams = CACHED_FILTER;
+    for (SolrQuery operand : operands) {
+      String operandLocalParams = filters.get(operand);
+      if (operandLocalParams == null) {
+        return query;
+      }
+      if (operandLocalParams.length() > localParams.length()) {
+        localParams = operandLocalParams;
       }
     }
-    builder.append(END_PAREN);
-    query.setQuery(builder.toString());
+    filters.put(query, localParams);
+    return query;
+  }
 
+  private SolrQuery filter(SolrQuery query) {
+    filters.put(query, CACHED_FILTER);
+    return query;
+  }
+
+  private SolrQuery uncachedFilter(SolrQuery query) {
+    filters.put(query, UNCACHED_FILTER);
+    return query;
+  }
+
+  private SolrQuery spatialFilter(SolrQuery query) {
+    if (query != null) {
+      filters.put(query, SPATIAL_FILTER);
+    }
     return query;
   }
 
@@ -1028,15 +1083,28 @@ private SolrQuery operationToQuery(String operation, String propertyName, String
       throw new UnsupportedOperationException("Wkt should not be null or empty.");
     }
 
-    String geoQuery =
-        geoIndexName + ":\"" + operation + "(" + fixSelfIntersectingGeometry(wkt) + ")\"";
+    SpatialQueryGeometry geometry = SpatialQueryGeometry.of(wkt);
+    // The simplified geometry covers a little more than the operand, which can only add matches to
+    // intersecting or within queries but would drop matches of contains or disjoint queries.
+    String operand =
+        CONTAINS_OPERATION.equals(operation) || DISJOINT_OPERATION.equals(operation)
+            ? geometry.getExactWkt()
+            : geometry.getWkt();
+    String geoQuery = geoIndexName + ":\"" + operation + "(" + operand + ")\"";
 
-    Geometry pnt = getGeometry(wkt);
+    Geometry pnt = geometry.getGeometry();
     if (pnt != null) {
       updateDistanceSort(propertyName, pnt.getCentroid());
     }
 
-    return new SolrQuery(geoQuery);
+    SolrQuery query = spatialFilter(new SolrQuery(geoQuery));
+    // Anything matching a large polygon must intersect its envelope, which is much cheaper to
+    // search, so the precise filter only has to run on the documents the envelope matches.
+    if (geometry.getEnvelope() != null && !DISJOINT_OPERATION.equals(operation)) {
+      query.setFilterQueries(
+          geoIndexName + ":\"" + INTERSECTS_OPERATION + "(" + geometry.getEnvelope() + ")\"");
+    }
+    return query;
   }
 
   private boolean isPoint(Geometry geo) {
@@ -16,6 +16,8 @@
 import static ddf.catalog.Constants.ADDITIONAL_SORT_BYS;
 import static ddf.catalog.Constants.EXPERIMENTAL_FACET_PROPERTIES_KEY;
 import static ddf.catalog.Constants.EXPERIMENTAL_FACET_RESULTS_KEY;
+import static ddf.catalog.Constants.EXPERIMENTAL_SPATIAL_FACET_PROPERTIES_KEY;
+import static ddf.catalog.Constants.EXPERIMENTAL_SPATIAL_FACET_RESULTS_KEY;
 import static ddf.catalog.Constants.SUGGESTION_BUILD_KEY;
 import static ddf.catalog.Constants.SUGGESTION_CONTEXT_KEY;
 import static ddf.catalog.Constants.SUGGESTION_DICT_KEY;
@@ -44,10 +46,12 @@
 import ddf.catalog.operation.FacetAttributeResult;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.SpatialFacetProperties;
 import ddf.catalog.operation.TermFacetProperties;
 import ddf.catalog.operation.impl.FacetAttributeResultImpl;
 import ddf.catalog.operation.impl.QueryResponseImpl;
 import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.operation.impl.SpatialFacetResultImpl;
 import ddf.catalog.source.UnsupportedQueryException;
 import ddf.measure.Distance;
 import java.io.IOException;
@@ -67,6 +71,7 @@
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.math.NumberUtils;
@@ -84,7 +89,10 @@
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.util.NamedList;
 import org.codice.solr.client.solrj.SolrClient;
+import org.codice.solr.client.solrj.SolrUpdateBatcher;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.sort.SortOrder;
 import org.slf4j.Logger;
@@ -109,6 +117,8 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
 
   private static final String GET_QUERY_HANDLER = "/get";
 
+  private static final String HEATMAP_FORMAT_INTS2D = "ints2D";
+
   private static final String IDS_KEY = "ids";
 
   public static final String SORT_FIELD_KEY = "sfield";
@@ -131,6 +141,8 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
 
   private final SolrClient client;
 
+  private final SolrUpdateBatcher updateBatcher;
+
   private final SolrFilterDelegateFactory filterDelegateFactory;
 
   private final FilterAdapter filterAdapter;
@@ -152,12 +164,28 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
 
   protected ResultHighlighter highlighter;
 
+  private volatile QueryResultCache queryResultCache;
+
   public SolrMetacardClientImpl(
       SolrClient client,
       FilterAdapter catalogFilterAdapter,
       SolrFilterDelegateFactory solrFilterDelegateFactory,
       DynamicSchemaResolver dynamicSchemaResolver) {
+    this(client, catalogFilterAdapter, solrFilterDelegateFactory, dynamicSchemaResolver, null);
+  }
+
+  /**
+   * @param updateBatcher the batcher of the client's core to add documents through, or {@code null}
+   *     to add them directly with the client
+   */
+  public SolrMetacardClientImpl(
+      SolrClient client,
+      FilterAdapter catalogFilterAdapter,
+      SolrFilterDelegateFactory solrFilterDelegateFactory,
+      DynamicSchemaResolver dynamicSchemaResolver,
+      @Nullable SolrUpdateBatcher updateBatcher) {
     this.client = client;
+    this.updateBatcher = updateBatcher;
     filterDelegateFactory = solrFilterDelegateFactory;
     filterAdapter = catalogFilterAdapter;
     resolver = dynamicSchemaResolver;
@@ -168,6 +196,11 @@ public SolrClient getClient() {
     return client;
   }
 
+  /** @param queryResultCache cache for query responses, or null to disable caching */
+  void setQueryResultCache(@Nullable QueryResultCache queryResultCache) {
+    this.queryResultCache = queryResultCache;
+  }
+
   @Override
   public SourceResponse query(QueryRequest request) throws UnsupportedQueryException {
     if (request == null || request.getQuery() == null) {
@@ -183,8 +216,12 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
     SolrQuery query = getSolrQuery(request, solrFilterDelegate);
 
     boolean isFacetedQuery = handleFacetRequest(query, request);
+    String heatmapField = handleSpatialFacetRequest(query, request);
     query = handleSuggestionQuery(query, request);
     boolean userSpellcheckIsOn = userSpellcheckIsOn(request);
+    QueryResultCache cache = queryResultCache;
+    String cacheKey = null;
+    long cacheGeneration = 0;
 
     try {
       QueryResponse solrResponse;
@@ -200,6 +237,14 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
       } else {
         query.setParam("spellcheck", userSpellcheckIsOn);
         highlighter.processPreQuery(request, query);
+        if (cache != null) {
+          cacheKey = query.toQueryString();
+          SourceResponse cached = cache.get(cacheKey, request);
+          if (cached != null) {
+            return cached;
+          }
+          cacheGeneration = cache.generation();
+        }
         solrResponse = client.query(query, METHOD.POST);
       }
 
@@ -207,6 +252,10 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         handleFacetResponse(solrResponse, responseProps);
       }
 
+      if (heatmapField != null) {
+        handleSpatialFacetResponse(solrResponse, request, heatmapField, responseProps);
+      }
+
       handleSuggestionResponse(solrResponse, responseProps);
 
       SolrDocumentList docs = solrResponse.getResults();
@@ -220,7 +269,11 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
       throw new UnsupportedQueryException("Could not complete solr query.", e);
     }
 
-    return new SourceResponseImpl(request, responseProps, results, totalHits);
+    SourceResponse response = new SourceResponseImpl(request, responseProps, results, totalHits);
+    if (cacheKey != null) {
+      cache.put(cacheKey, cacheGeneration, response);
+    }
+    return response;
   }
 
   private List<SolrDocument> getSolrDocs(Set<String> ids) throws UnsupportedQueryException {
@@ -261,6 +314,83 @@ private boolean handleFacetRequest(SolrQuery query, QueryRequest request) {
     return isFacetedQuery;
   }
 
+  /** @return the name of the field to compute a heatmap for, or null if none was requested */
+  @Nullable
+  private String handleSpatialFacetRequest(SolrQuery query, QueryRequest request) {
+    Serializable spatialFacetPropRaw =
+        request.getPropertyValue(EXPERIMENTAL_SPATIAL_FACET_PROPERTIES_KEY);
+    if (!(spatialFacetPropRaw instanceof SpatialFacetProperties)) {
+      return null;
+    }
+
+    SpatialFacetProperties spatialFacetProp = (SpatialFacetProperties) spatialFacetPropRaw;
+    String field =
+        resolver.getField(
+            spatialFacetProp.getFacetAttribute(),
+            AttributeType.AttributeFormat.GEOMETRY,
+            false,
+            request.getProperties());
+    LOGGER.trace("Enabling heatmap facet for request [{}] on field {}", request, field);
+
+    query.setFacet(true);
+    query.set(FacetParams.FACET_HEATMAP, field);
+    query.set(
+        FacetParams.FACET_HEATMAP_GEOM,
+        String.format(
+            "[\"%s %s\" TO \"%s %s\"]",
+            spatialFacetProp.getWest(),
+            spatialFacetProp.getSouth(),
+            spatialFacetProp.getEast(),
+            spatialFacetProp.getNorth()));
+    query.set(FacetParams.FACET_HEATMAP_MAX_CELLS, spatialFacetProp.getMaxCells());
+    query.set(FacetParams.FACET_HEATMAP_FORMAT, HEATMAP_FORMAT_INTS2D);
+    return field;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void handleSpatialFacetResponse(
+      QueryResponse solrResponse,
+      QueryRequest request,
+      String field,
+      Map<String, Serializable> responseProps) {
+    NamedList<Object> response = solrResponse.getResponse();
+    Object heatmapRaw =
+        response == null ? null : response.findRecursive("facet_counts", "facet_heatmaps", field);
+    if (!(heatmapRaw instanceof NamedList)) {
+      LOGGER.debug("No heatmap returned for field {}", field);
+      return;
+    }
+
+    NamedList<Object> heatmap = (NamedList<Object>) heatmapRaw;
+    int rows = ((Number) heatmap.get("rows")).intValue();
+    int columns = ((Number) heatmap.get("columns")).intValue();
+    int[][] counts = new int[rows][columns];
+    // Solr leaves out the counts entirely, or a row of them, when they are all zero
+    List<List<Number>> countRows = (List<List<Number>>) heatmap.get("counts_ints2D");
+    if (countRows != null) {
+      for (int row = 0; row < rows && row < countRows.size(); row++) {
+        List<Number> countRow = countRows.get(row);
+        for (int column = 0; countRow != null && column < columns; column++) {
+          counts[row][column] = countRow.get(column).intValue();
+        }
+      }
+    }
+
+    String attributeName =
+        ((SpatialFacetProperties)
+                request.getPropertyValue(EXPERIMENTAL_SPATIAL_FACET_PROPERTIES_KEY))
+            .getFacetAttribute();
+    responseProps.put(
+        EXPERIMENTAL_SPATIAL_FACET_RESULTS_KEY,
+        new SpatialFacetResultImpl(
+            attributeName,
+            ((Number) heatmap.get("minX")).doubleValue(),
+            ((Number) heatmap.get("minY")).doubleValue(),
+            ((Number) heatmap.get("maxX")).doubleValue(),
+            ((Number) heatmap.get("maxY")).doubleValue(),
+            counts));
+  }
+
   private SolrQuery handleSuggestionQuery(SolrQuery query, QueryRequest request) {
     Serializable suggestQuery = request.getPropertyValue(SUGGESTION_QUERY_KEY);
     Serializable suggestContext = request.getPropertyValue(SUGGESTION_CONTEXT_KEY);
@@ -576,8 +706,8 @@ protected SolrQuery getRealTimeQuery(SolrQuery originalQuery, Collection<String>
     }
     SolrQuery realTimeQuery = new SolrQuery();
     for (Map.Entry<String, String[]> entry : originalQuery.getMap().entrySet()) {
-      if (CommonParams.Q.equals(entry.getKey())) {
-        realTimeQuery.set(CommonParams.FQ, entry.getValue());
+      if (CommonParams.Q.equals(entry.getKey()) || CommonParams.FQ.equals(entry.getKey())) {
+        realTimeQuery.add(CommonParams.FQ, entry.getValue());
       } else {
         realTimeQuery.set(entry.getKey(), entry.getValue());
       }
@@ -843,14 +973,21 @@ public List<SolrInputDocument> add(List<Metacard> metacards, boolean forceAutoCo
       }
     }
 
-    if (!forceAutoCommit) {
-      if (isNrtCommit) {
-        client.add(docs, commitNrtCommitWithinMs);
+    try {
+      if (!forceAutoCommit) {
+        int commitWithinMs = isNrtCommit ? commitNrtCommitWithinMs : -1;
+        if (updateBatcher != null) {
+          updateBatcher.add(client, docs, commitWithinMs);
+        } else if (commitWithinMs >= 0) {
+          client.add(docs, commitWithinMs);
+        } else {
+          client.add(docs);
+        }
       } else {
-        client.add(docs);
+        softCommit(docs);
       }
-    } else {
-      softCommit(docs);
+    } finally {
+      invalidateQueryResultCache(forceAutoCommit);
     }
 
     return docs;
@@ -873,6 +1010,18 @@ public void deleteByIds(
       return;
     }
 
+    try {
+      deleteIdentifiers(fieldName, identifiers);
+      if (forceCommit) {
+        client.commit();
+      }
+    } finally {
+      invalidateQueryResultCache(forceCommit);
+    }
+  }
+
+  private void deleteIdentifiers(String fieldName, List<? extends Serializable> identifiers)
+      throws IOException, SolrServerException {
     if (Metacard.ID.equals(fieldName)) {
       CollectionUtils.transform(identifiers, Object::toString);
       client.deleteById((List<String>) identifiers);
@@ -896,15 +1045,22 @@ public void deleteByIds(
                     i - SolrCatalogProviderImpl.MAX_BOOLEAN_CLAUSES, identifiers.size())));
       }
     }
-
-    if (forceCommit) {
-      client.commit();
-    }
   }
 
   @Override
   public void deleteByQuery(String query) throws IOException, SolrServerException {
-    client.deleteByQuery(query);
+    try {
+      client.deleteByQuery(query);
+    } finally {
+      invalidateQueryResultCache(false);
+    }
+  }
+
+  private void invalidateQueryResultCache(boolean committed) {
+    QueryResultCache cache = queryResultCache;
+    if (cache != null) {
+      cache.invalidate(committed);
+    }
   }
 
   public String getIdentifierQuery(String fieldName, List<? extends Serializable> identifiers) {
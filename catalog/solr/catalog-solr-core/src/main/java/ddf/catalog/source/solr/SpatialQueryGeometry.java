@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.io.WKTWriter;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.context.SpatialContextFactory;
+import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
+import org.locationtech.spatial4j.context.jts.ValidationRule;
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.io.ShapeReader;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The geometry of a spatial query operand, prepared for Solr.
+ *
+ * <p>The WKT is repaired once, which also splits shapes crossing the antimeridian, and polygons
+ * with many vertices are simplified within the error the Solr queries already allow for, then grown
+ * by that error so that the simplified polygon still covers the original one. Since users tend to
+ * page through the results of the same drawn shape, prepared geometries are cached by WKT and
+ * shared between queries.
+ */
+final class SpatialQueryGeometry {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpatialQueryGeometry.class);
+
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private static final Geometry WORLD =
+      GEOMETRY_FACTORY.toGeometry(new Envelope(-180, 180, -90, 90));
+
+  // For queries we use repairConvexHull which my cause false positives to be returned but this
+  // is better than potentially missing some results due to false negatives.
+  private static final Map<String, String> SPATIAL_CONTEXT_ARGUMENTS =
+      ImmutableMap.of(
+          "spatialContextFactory",
+          JtsSpatialContextFactory.class.getName(),
+          "validationRule",
+          ValidationRule.repairConvexHull.name());
+
+  private static final SpatialContext SPATIAL_CONTEXT =
+      SpatialContextFactory.makeSpatialContext(SPATIAL_CONTEXT_ARGUMENTS, null);
+
+  private static final ShapeReader WKT_READER = SPATIAL_CONTEXT.getFormats().getWktReader();
+
+  /** Polygons with more vertices than this are simplified and prefiltered by their envelope. */
+  static final int LARGE_POLYGON_VERTICES = 200;
+
+  private static final Cache<String, SpatialQueryGeometry> CACHE =
+      CacheBuilder.newBuilder().maximumSize(512).build();
+
+  private final String wkt;
+
+  private final String exactWkt;
+
+  private final Geometry geometry;
+
+  private final String envelope;
+
+  private SpatialQueryGeometry(String wkt, Geometry geometry) {
+    this(wkt, wkt, geometry, null);
+  }
+
+  private SpatialQueryGeometry(String wkt, String exactWkt, Geometry geometry, String envelope) {
+    this.wkt = wkt;
+    this.exactWkt = exactWkt;
+    this.geometry = geometry;
+    this.envelope = envelope;
+  }
+
+  /**
+   * @param wkt the WKT of the query operand
+   * @return the prepared geometry of {@code wkt}
+   */
+  static SpatialQueryGeometry of(@Nullable String wkt) {
+    if (wkt == null) {
+      return new SpatialQueryGeometry(null, null);
+    }
+
+    try {
+      return CACHE.get(wkt, () -> prepare(wkt));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      LOGGER.debug("Failed to prepare WKT: {}", wkt, e);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException("Failed to prepare WKT: " + wkt, e.getCause());
+    }
+  }
+
+  /** @return the WKT to send to Solr, which may cover a little more than the operand */
+  String getWkt() {
+    return wkt;
+  }
+
+  /**
+   * @return the repaired WKT of the operand, not simplified, for operations that a larger operand
+   *     would miss matches of
+   */
+  String getExactWkt() {
+    return exactWkt;
+  }
+
+  /** @return the geometry of the WKT sent to Solr, or null if JTS cannot read it */
+  @Nullable
+  Geometry getGeometry() {
+    return geometry;
+  }
+
+  /**
+   * @return the WKT of an envelope containing the geometry, or null if the geometry is simple
+   *     enough to not need one
+   */
+  @Nullable
+  String getEnvelope() {
+    return envelope;
+  }
+
+  private static SpatialQueryGeometry prepare(String wkt) {
+    Shape shape = readShape(wkt);
+    // All polygons will be an instance of JtsGeometry. If it is not a polygon we don't need
+    // to do anything with it so just use the original wkt string.
+    if (!(shape instanceof JtsGeometry)) {
+      return new SpatialQueryGeometry(wkt, readGeometry(wkt));
+    }
+
+    Geometry geometry = ((JtsGeometry) shape).getGeom();
+    String repairedWkt = SPATIAL_CONTEXT.getFormats().getWktWriter().toString(shape);
+    if (!(geometry instanceof Polygonal) || geometry.getNumPoints() <= LARGE_POLYGON_VERTICES) {
+      return new SpatialQueryGeometry(repairedWkt, readGeometry(repairedWkt));
+    }
+
+    // Simplifying may move edges inwards by up to the tolerance, so the result is buffered by it.
+    // A buffer with a single segment per quadrant cuts its corners by up to a factor of sqrt(2),
+    // which buffering by a larger distance makes up for.
+    double tolerance = SolrFilterDelegate.DEFAULT_ERROR_IN_DEGREES;
+    Geometry simplified =
+        TopologyPreservingSimplifier.simplify(geometry, tolerance)
+            .buffer(tolerance * Math.sqrt(2), 1)
+            .intersection(WORLD);
+    LOGGER.trace(
+        "Simplified query geometry from {} to {} vertices",
+        geometry.getNumPoints(),
+        simplified.getNumPoints());
+    return new SpatialQueryGeometry(
+        new WKTWriter().write(simplified),
+        repairedWkt,
+        simplified,
+        toEnvelope(shape.getBoundingBox()));
+  }
+
+  @Nullable
+  private static Shape readShape(String wkt) {
+    try {
+      return WKT_READER.read(wkt);
+    } catch (IOException | java.text.ParseException | InvalidShapeException e) {
+      LOGGER.info("Failed to fix or read WKT: {}", wkt, e);
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Geometry readGeometry(String wkt) {
+    try {
+      return new WKTReader(GEOMETRY_FACTORY).read(wkt);
+    } catch (ParseException e) {
+      LOGGER.info("Failed to read WKT: {}", wkt, e);
+    }
+    return null;
+  }
+
+  // A rectangle crossing the antimeridian has a minX greater than its maxX, which is how the
+  // ENVELOPE syntax expresses it as well.
+  private static String toEnvelope(Rectangle rectangle) {
+    return "ENVELOPE("
+        + rectangle.getMinX()
+        + ", "
+        + rectangle.getMaxX()
+        + ", "
+        + rectangle.getMaxY()
+        + ", "
+        + rectangle.getMinY()
+        + ")";
+  }
+}
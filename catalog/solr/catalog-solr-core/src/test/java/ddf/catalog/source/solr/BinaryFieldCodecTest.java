@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.source.solr.json.MetacardTypeMapperFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import org.junit.Test;
+
+public class BinaryFieldCodecTest {
+
+  @Test
+  public void testObjectRoundTrip() throws Exception {
+    for (Serializable value :
+        Arrays.<Serializable>asList(
+            "a string",
+            true,
+            (short) 3,
+            42,
+            42L,
+            4.2f,
+            4.2d,
+            new Date(1234567890L),
+            new HashMap<>(Collections.singletonMap("key", "value")))) {
+      assertThat(BinaryFieldCodec.decodeObject(BinaryFieldCodec.encodeObject(value)), is(value));
+    }
+  }
+
+  @Test
+  public void testBinaryRoundTrip() throws Exception {
+    byte[] value = {1, 2, 3};
+
+    assertThat(
+        (byte[]) BinaryFieldCodec.decodeObject(BinaryFieldCodec.encodeObject(value)), is(value));
+  }
+
+  @Test
+  public void testDecodeJavaSerializedObject() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject("legacy");
+    }
+
+    assertThat(BinaryFieldCodec.decodeObject(bytes.toByteArray()), is("legacy"));
+  }
+
+  @Test
+  public void testCommonValuesAreSmallerThanJavaSerialization() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(42L);
+    }
+
+    assertThat(BinaryFieldCodec.encodeObject(42L).length, lessThan(bytes.size()));
+  }
+
+  @Test
+  public void testMetacardTypeRoundTrip() throws Exception {
+    MetacardType type = MetacardImpl.BASIC_METACARD;
+
+    MetacardType decoded =
+        BinaryFieldCodec.decodeMetacardType(BinaryFieldCodec.encodeMetacardType(type));
+
+    assertThat(decoded.getName(), is(type.getName()));
+    assertThat(decoded.getAttributeDescriptors(), equalTo(type.getAttributeDescriptors()));
+  }
+
+  @Test
+  public void testDecodeJsonMetacardType() throws Exception {
+    ObjectMapper mapper = MetacardTypeMapperFactory.newObjectMapper();
+    byte[] json = mapper.writeValueAsBytes(MetacardImpl.BASIC_METACARD);
+
+    MetacardType decoded = BinaryFieldCodec.decodeMetacardType(json);
+
+    assertThat(BinaryFieldCodec.isCurrent(json), is(false));
+    assertThat(decoded.getName(), is(MetacardImpl.BASIC_METACARD.getName()));
+    assertThat(
+        BinaryFieldCodec.encodeMetacardType(MetacardImpl.BASIC_METACARD).length,
+        lessThan(json.length));
+  }
+}
@@ -30,7 +30,6 @@
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.AttributeType.AttributeFormat;
@@ -39,7 +38,6 @@
 import ddf.catalog.data.impl.AttributeDescriptorImpl;
 import ddf.catalog.data.impl.BasicTypes;
 import ddf.catalog.data.impl.MetacardImpl;
-import ddf.catalog.source.solr.json.MetacardTypeMapperFactory;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -59,9 +57,6 @@ public class DynamicSchemaResolverTest {
 
   private static final int INITIAL_FIELDS_CACHE_COUNT = 8;
 
-  private static final ObjectMapper METACARD_TYPE_MAPPER =
-      MetacardTypeMapperFactory.newObjectMapper();
-
   private DynamicSchemaResolver dynamicSchemaResolver;
 
   @Before
@@ -210,7 +205,7 @@ public void testAdditionalFieldConstructor() {
   }
 
   private MetacardType deserializeMetacardType(byte[] serializedMetacardType) throws IOException {
-    return METACARD_TYPE_MAPPER.readValue(serializedMetacardType, MetacardType.class);
+    return BinaryFieldCodec.decodeMetacardType(serializedMetacardType);
   }
 
   @Test
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import java.util.Collections;
+import org.junit.Test;
+
+public class QueryResultCacheTest {
+
+  private static final String KEY = "?q=title:normal";
+
+  private final QueryRequest request = mock(QueryRequest.class);
+
+  @Test
+  public void testCachedResponseIsCopied() {
+    QueryResultCache cache = new QueryResultCache(1024 * 1024, 60, 0);
+    SourceResponse response = response("normal");
+
+    cache.put(KEY, cache.generation(), response);
+    SourceResponse cached = cache.get(KEY, request);
+
+    assertThat(cached, is(notNullValue()));
+    assertThat(cached.getHits(), is(1L));
+    Result result = cached.getResults().get(0);
+    assertThat(result.getMetacard().getTitle(), is("normal"));
+    assertThat(result.getRelevanceScore(), is(0.5));
+    assertThat(
+        result.getMetacard(), is(not(sameInstance(response.getResults().get(0).getMetacard()))));
+    assertThat(cache.stats().hitCount(), is(1L));
+  }
+
+  @Test
+  public void testInvalidate() {
+    QueryResultCache cache = new QueryResultCache(1024 * 1024, 60, 0);
+    cache.put(KEY, cache.generation(), response("normal"));
+
+    cache.invalidate(true);
+
+    assertThat(cache.get(KEY, request), is(nullValue()));
+  }
+
+  @Test
+  public void testResponseReadBeforeWriteIsNotCached() {
+    QueryResultCache cache = new QueryResultCache(1024 * 1024, 60, 0);
+    long generation = cache.generation();
+
+    cache.invalidate(true);
+    cache.put(KEY, generation, response("normal"));
+
+    assertThat(cache.get(KEY, request), is(nullValue()));
+  }
+
+  @Test
+  public void testResponseIsNotCachedWhenWriteRacesWithPut() {
+    QueryResultCache cache = new QueryResultCache(1024 * 1024, 60, 0);
+    long generation = cache.generation();
+    SourceResponse response = spy(response("normal"));
+    doAnswer(
+            invocation -> {
+              cache.invalidate(true);
+              return invocation.callRealMethod();
+            })
+        .when(response)
+        .getResults();
+
+    cache.put(KEY, generation, response);
+
+    assertThat(cache.get(KEY, request), is(nullValue()));
+  }
+
+  @Test
+  public void testResponseIsNotCachedUntilWriteIsVisible() {
+    QueryResultCache cache = new QueryResultCache(1024 * 1024, 60, 60000);
+
+    cache.invalidate(false);
+    cache.put(KEY, cache.generation(), response("normal"));
+
+    assertThat(cache.get(KEY, request), is(nullValue()));
+  }
+
+  @Test
+  public void testCacheIsBoundedByWeight() {
+    QueryResultCache cache = new QueryResultCache(1024, 60, 0);
+
+    cache.put(KEY, cache.generation(), response(String.join("", Collections.nCopies(1024, "a"))));
+
+    assertThat(cache.get(KEY, request), is(nullValue()));
+    assertThat(cache.getEvictionCount(), is(1L));
+  }
+
+  @Test
+  public void testStatistics() {
+    QueryResultCache cache = new QueryResultCache(1024 * 1024, 60, 0);
+    cache.put(KEY, cache.generation(), response("normal"));
+
+    cache.get(KEY, request);
+    cache.get("?q=title:other", request);
+
+    assertThat(cache.getSize(), is(1L));
+    assertThat(cache.getHitCount(), is(1L));
+    assertThat(cache.getMissCount(), is(1L));
+    assertThat(cache.getHitRate(), is(0.5));
+    assertThat(cache.getEvictionCount(), is(0L));
+  }
+
+  private SourceResponse response(String title) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId("id");
+    metacard.setTitle(title);
+    ResultImpl result = new ResultImpl(metacard);
+    result.setRelevanceScore(0.5);
+    return new SourceResponseImpl(request, Collections.singletonList(result), 1L);
+  }
+}
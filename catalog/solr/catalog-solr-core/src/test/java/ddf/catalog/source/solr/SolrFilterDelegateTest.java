@@ -13,8 +13,12 @@
  */
 package ddf.catalog.source.solr;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.Matchers.arrayContaining;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -22,6 +26,7 @@
 import ddf.catalog.data.AttributeType.AttributeFormat;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.types.Core;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -167,6 +172,45 @@ public void polygonWithHole() {
             "testProperty_geohash_index:\"Contains(POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30)))\""));
   }
 
+  @Test
+  public void largePolygonIsPrefilteredByEnvelope() {
+    when(mockResolver.getField(
+            "testProperty", AttributeFormat.GEOMETRY, false, Collections.emptyMap()))
+        .thenReturn("testProperty_geohash_index");
+    StringBuilder wkt = new StringBuilder("POLYGON ((0 0, ");
+    for (int i = 1; i <= SpatialQueryGeometry.LARGE_POLYGON_VERTICES; i++) {
+      wkt.append((double) i / SpatialQueryGeometry.LARGE_POLYGON_VERTICES).append(" 0, ");
+    }
+    wkt.append("1 1, 0 1, 0 0))");
+
+    SolrQuery query = toTest.within("testProperty", wkt.toString());
+
+    assertThat(query.getQuery(), startsWith("testProperty_geohash_index:\"IsWithin(POLYGON (("));
+    assertThat(query.getQuery(), not(containsString("0.005 0")));
+    assertThat(
+        query.getFilterQueries(),
+        arrayContaining("testProperty_geohash_index:\"Intersects(ENVELOPE(0.0, 1.0, 1.0, 0.0))\""));
+  }
+
+  @Test
+  public void largePolygonIsNotSimplifiedForContains() {
+    when(mockResolver.getField(
+            "testProperty", AttributeFormat.GEOMETRY, false, Collections.emptyMap()))
+        .thenReturn("testProperty_geohash_index");
+    StringBuilder wkt = new StringBuilder("POLYGON ((0 0, ");
+    for (int i = 1; i <= SpatialQueryGeometry.LARGE_POLYGON_VERTICES; i++) {
+      wkt.append((double) i / SpatialQueryGeometry.LARGE_POLYGON_VERTICES).append(" 0, ");
+    }
+    wkt.append("1 1, 0 1, 0 0))");
+
+    SolrQuery query = toTest.contains("testProperty", wkt.toString());
+
+    assertThat(query.getQuery(), containsString("0.005 0"));
+    assertThat(
+        query.getFilterQueries(),
+        arrayContaining("testProperty_geohash_index:\"Intersects(ENVELOPE(0.0, 1.0, 1.0, 0.0))\""));
+  }
+
   @Test
   public void reservedSpecialCharactersIsEqual() {
     // given a text property
@@ -673,6 +717,171 @@ public void testPropertyIsDivisibleBy() {
     assertThat(isLikeQuery.getQuery(), is(expectedQuery));
   }
 
+  @Test
+  public void testAndSplitsFiltersFromScoringClauses() {
+    when(mockResolver.getField("created", AttributeFormat.DATE, false, Collections.emptyMap()))
+        .thenReturn("created_date");
+    when(mockResolver.getField("aboolean", AttributeFormat.BOOLEAN, true, Collections.emptyMap()))
+        .thenReturn("aboolean_bln");
+    when(mockResolver.getField(
+            "testProperty", AttributeFormat.GEOMETRY, false, Collections.emptyMap()))
+        .thenReturn("testProperty_geohash_index");
+    when(mockResolver.anyTextFields())
+        .thenReturn(Collections.singletonList("metadata_txt").stream());
+    when(mockResolver.getSpecialIndexSuffix(AttributeFormat.STRING, Collections.emptyMap()))
+        .thenReturn(SchemaFields.TOKENIZED);
+
+    SolrQuery andQuery =
+        toTest.and(
+            Arrays.asList(
+                toTest.propertyIsLike(Metacard.ANY_TEXT, "term", false),
+                toTest.before(Metacard.CREATED, getCannedTime()),
+                toTest.propertyIsEqualTo("aboolean", true),
+                toTest.intersects("testProperty", "POLYGON ((0 10, 0 30, 20 30, 20 10, 0 10))")));
+
+    assertThat(andQuery.getQuery(), is(" ( (" + TOKENIZED_METADATA_FIELD + ":\"term\") ) "));
+    assertThat(
+        andQuery.getFilterQueries(),
+        arrayContaining(
+            " created_date:[ * TO 1995-11-24T23:59:56.765Z } ",
+            "aboolean_bln:true",
+            "{!cache=false cost=100}testProperty_geohash_index:\"Intersects(POLYGON ((0 10, 0 30, 20 30, 20 10, 0 10)))\""));
+  }
+
+  @Test
+  public void testAndOfFiltersOnly() {
+    when(mockResolver.getField("aboolean", AttributeFormat.BOOLEAN, true, Collections.emptyMap()))
+        .thenReturn("aboolean_bln");
+    when(mockResolver.getField("anumber", AttributeFormat.INTEGER, true, Collections.emptyMap()))
+        .thenReturn("anumber_int");
+
+    SolrQuery andQuery =
+        toTest.and(
+            Arrays.asList(
+                toTest.propertyIsEqualTo("aboolean", true),
+                toTest.propertyIsEqualTo("anumber", 1)));
+
+    assertThat(andQuery.getQuery(), is("*:*"));
+    assertThat(andQuery.getFilterQueries(), arrayContaining("aboolean_bln:true", " anumber_int:1"));
+  }
+
+  @Test
+  public void testNestedAndKeepsFilters() {
+    when(mockResolver.getField("aboolean", AttributeFormat.BOOLEAN, true, Collections.emptyMap()))
+        .thenReturn("aboolean_bln");
+    when(mockResolver.getField("anumber", AttributeFormat.INTEGER, true, Collections.emptyMap()))
+        .thenReturn("anumber_int");
+    when(mockResolver.anyTextFields())
+        .thenReturn(Collections.singletonList("metadata_txt").stream());
+    when(mockResolver.getSpecialIndexSuffix(AttributeFormat.STRING, Collections.emptyMap()))
+        .thenReturn(SchemaFields.TOKENIZED);
+
+    SolrQuery innerAnd =
+        toTest.and(
+            Arrays.asList(
+                toTest.propertyIsLike(Metacard.ANY_TEXT, "term", false),
+                toTest.propertyIsEqualTo("aboolean", true)));
+    SolrQuery andQuery =
+        toTest.and(Arrays.asList(innerAnd, toTest.propertyIsEqualTo("anumber", 1)));
+
+    assertThat(andQuery.getQuery(), is(" (  ( (" + TOKENIZED_METADATA_FIELD + ":\"term\") )  ) "));
+    assertThat(andQuery.getFilterQueries(), arrayContaining("aboolean_bln:true", " anumber_int:1"));
+  }
+
+  @Test
+  public void testNestedAndOfFiltersOnly() {
+    when(mockResolver.getField("aboolean", AttributeFormat.BOOLEAN, true, Collections.emptyMap()))
+        .thenReturn("aboolean_bln");
+    when(mockResolver.getField("anumber", AttributeFormat.INTEGER, true, Collections.emptyMap()))
+        .thenReturn("anumber_int");
+    when(mockResolver.anyTextFields())
+        .thenReturn(Collections.singletonList("metadata_txt").stream());
+    when(mockResolver.getSpecialIndexSuffix(AttributeFormat.STRING, Collections.emptyMap()))
+        .thenReturn(SchemaFields.TOKENIZED);
+
+    SolrQuery innerAnd =
+        toTest.and(
+            Arrays.asList(
+                toTest.propertyIsEqualTo("aboolean", true),
+                toTest.propertyIsEqualTo("anumber", 1)));
+    SolrQuery andQuery =
+        toTest.and(
+            Arrays.asList(innerAnd, toTest.propertyIsLike(Metacard.ANY_TEXT, "term", false)));
+
+    assertThat(andQuery.getQuery(), is(" ( (" + TOKENIZED_METADATA_FIELD + ":\"term\") ) "));
+    assertThat(andQuery.getFilterQueries(), arrayContaining("aboolean_bln:true", " anumber_int:1"));
+  }
+
+  @Test
+  public void testOrFoldsFiltersIntoQuery() {
+    when(mockResolver.getField("aboolean", AttributeFormat.BOOLEAN, true, Collections.emptyMap()))
+        .thenReturn("aboolean_bln");
+    when(mockResolver.getField("anumber", AttributeFormat.INTEGER, true, Collections.emptyMap()))
+        .thenReturn("anumber_int");
+    when(mockResolver.anyTextFields())
+        .thenReturn(Collections.singletonList("metadata_txt").stream());
+    when(mockResolver.getSpecialIndexSuffix(AttributeFormat.STRING, Collections.emptyMap()))
+        .thenReturn(SchemaFields.TOKENIZED);
+
+    SolrQuery andQuery =
+        toTest.and(
+            Arrays.asList(
+                toTest.propertyIsLike(Metacard.ANY_TEXT, "term", false),
+                toTest.propertyIsEqualTo("aboolean", true)));
+    SolrQuery orQuery = toTest.or(Arrays.asList(andQuery, toTest.propertyIsEqualTo("anumber", 1)));
+
+    assertThat(
+        orQuery.getQuery(),
+        is(
+            " (  (  ( ("
+                + TOKENIZED_METADATA_FIELD
+                + ":\"term\") )  AND aboolean_bln:true )  OR  anumber_int:1 ) "));
+    assertThat(orQuery.getFilterQueries(), is(nullValue()));
+  }
+
+  @Test
+  public void testOrOfFiltersIsFilter() {
+    when(mockResolver.getField("aboolean", AttributeFormat.BOOLEAN, true, Collections.emptyMap()))
+        .thenReturn("aboolean_bln");
+    when(mockResolver.getField("anumber", AttributeFormat.INTEGER, true, Collections.emptyMap()))
+        .thenReturn("anumber_int");
+    when(mockResolver.anyTextFields())
+        .thenReturn(Collections.singletonList("metadata_txt").stream());
+    when(mockResolver.getSpecialIndexSuffix(AttributeFormat.STRING, Collections.emptyMap()))
+        .thenReturn(SchemaFields.TOKENIZED);
+
+    SolrQuery orQuery =
+        toTest.or(
+            Arrays.asList(
+                toTest.propertyIsEqualTo("aboolean", true),
+                toTest.propertyIsEqualTo("anumber", 1)));
+    SolrQuery andQuery =
+        toTest.and(Arrays.asList(toTest.propertyIsLike(Metacard.ANY_TEXT, "term", false), orQuery));
+
+    assertThat(andQuery.getQuery(), is(" ( (" + TOKENIZED_METADATA_FIELD + ":\"term\") ) "));
+    assertThat(
+        andQuery.getFilterQueries(), arrayContaining(" ( aboolean_bln:true OR  anumber_int:1 ) "));
+  }
+
+  @Test
+  public void testNotOfFilterIsFilter() {
+    when(mockResolver.getField("aboolean", AttributeFormat.BOOLEAN, true, Collections.emptyMap()))
+        .thenReturn("aboolean_bln");
+    when(mockResolver.anyTextFields())
+        .thenReturn(Collections.singletonList("metadata_txt").stream());
+    when(mockResolver.getSpecialIndexSuffix(AttributeFormat.STRING, Collections.emptyMap()))
+        .thenReturn(SchemaFields.TOKENIZED);
+
+    SolrQuery andQuery =
+        toTest.and(
+            Arrays.asList(
+                toTest.propertyIsLike(Metacard.ANY_TEXT, "term", false),
+                toTest.not(toTest.propertyIsEqualTo("aboolean", true))));
+
+    assertThat(andQuery.getQuery(), is(" ( (" + TOKENIZED_METADATA_FIELD + ":\"term\") ) "));
+    assertThat(andQuery.getFilterQueries(), arrayContaining(" NOT aboolean_bln:true"));
+  }
+
   private Date getCannedTime() {
     return getCannedTime(1995, Calendar.NOVEMBER, 24, 23);
   }
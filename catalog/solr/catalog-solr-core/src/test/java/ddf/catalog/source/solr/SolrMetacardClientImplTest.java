@@ -13,6 +13,8 @@
  */
 package ddf.catalog.source.solr;
 
+import static ddf.catalog.Constants.EXPERIMENTAL_SPATIAL_FACET_PROPERTIES_KEY;
+import static ddf.catalog.Constants.EXPERIMENTAL_SPATIAL_FACET_RESULTS_KEY;
 import static ddf.catalog.Constants.QUERY_HIGHLIGHT_KEY;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -21,12 +23,14 @@
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardCreationException;
 import ddf.catalog.data.MetacardType;
@@ -43,9 +47,11 @@
 import ddf.catalog.operation.ResultAttributeHighlight;
 import ddf.catalog.operation.ResultHighlight;
 import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.SpatialFacetResult;
 import ddf.catalog.operation.impl.HighlightImpl;
 import ddf.catalog.operation.impl.QueryImpl;
 import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SpatialFacetPropertiesImpl;
 import ddf.catalog.source.UnsupportedQueryException;
 import java.io.IOException;
 import java.io.Serializable;
@@ -69,6 +75,8 @@
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.util.NamedList;
 import org.codice.solr.client.solrj.SolrClient;
 import org.junit.Before;
 import org.junit.Test;
@@ -249,6 +257,31 @@ public void testQueryNullResults() throws Exception {
     assertThat(results, is(Collections.EMPTY_LIST));
   }
 
+  @Test
+  public void testQueryResultCache() throws Exception {
+    QueryRequest request = createQuery(builder.attribute("anyText").is().like().text("normal"));
+
+    List<String> names = Collections.singletonList("title");
+    List<String> values = Collections.singletonList("normal");
+
+    Map<String, String> attributes = createAttributes(names, values);
+
+    when(queryResponse.getResults()).thenReturn(createSolrDocumentList(attributes));
+    when(solrQuery.toQueryString()).thenReturn("?q=anyText:normal");
+    mockDynamicSchemsolverCalls(createAttributeDescriptor(names), attributes);
+    clientImpl.setQueryResultCache(new QueryResultCache(1024 * 1024, 60, 0));
+
+    clientImpl.query(request);
+    List<Result> results = clientImpl.query(request).getResults();
+    assertThat(results.size(), is(1));
+    assertThat(results.get(0).getMetacard().getAttribute("title").getValue(), is("normal"));
+    verify(client, times(1)).query(solrQuery, SolrRequest.METHOD.POST);
+
+    clientImpl.deleteByQuery("title:normal");
+    clientImpl.query(request);
+    verify(client, times(2)).query(solrQuery, SolrRequest.METHOD.POST);
+  }
+
   @Test
   public void testQuerySpellCheckOn() throws Exception {
     QueryRequest request = createQuery(builder.attribute("anyText").is().like().text("normal"));
@@ -365,6 +398,56 @@ private void mockDynamicSchemsolverCalls(
     }
   }
 
+  @Test
+  public void testSpatialFacetQuery() throws Exception {
+    QueryRequest request = createQuery(builder.attribute("anyText").is().like().text("normal"));
+    request
+        .getProperties()
+        .put(
+            EXPERIMENTAL_SPATIAL_FACET_PROPERTIES_KEY,
+            new SpatialFacetPropertiesImpl(Metacard.GEOGRAPHY, -10, -5, 10, 5, 16));
+    when(solrFilterDelegateFactory.newInstance(dynamicSchemaResolver, request.getProperties()))
+        .thenReturn(mock(SolrFilterDelegate.class));
+    when(dynamicSchemaResolver.getField(
+            eq(Metacard.GEOGRAPHY), eq(AttributeFormat.GEOMETRY), eq(false), any()))
+        .thenReturn("location_geo_index");
+
+    NamedList<Object> heatmap = new NamedList<>();
+    heatmap.add("gridLevel", 2);
+    heatmap.add("columns", 2);
+    heatmap.add("rows", 2);
+    heatmap.add("minX", -11.25);
+    heatmap.add("maxX", 11.25);
+    heatmap.add("minY", -5.625);
+    heatmap.add("maxY", 5.625);
+    heatmap.add("counts_ints2D", Arrays.asList(null, Arrays.asList(3, 0)));
+    NamedList<Object> heatmaps = new NamedList<>();
+    heatmaps.add("location_geo_index", heatmap);
+    NamedList<Object> facetCounts = new NamedList<>();
+    facetCounts.add("facet_heatmaps", heatmaps);
+    NamedList<Object> response = new NamedList<>();
+    response.add("facet_counts", facetCounts);
+    when(queryResponse.getResponse()).thenReturn(response);
+    when(queryResponse.getResults()).thenReturn(new SolrDocumentList());
+
+    SourceResponse sourceResponse = clientImpl.query(request);
+
+    verify(solrQuery).set(FacetParams.FACET_HEATMAP, "location_geo_index");
+    verify(solrQuery).set(FacetParams.FACET_HEATMAP_GEOM, "[\"-10.0 -5.0\" TO \"10.0 5.0\"]");
+    verify(solrQuery).set(FacetParams.FACET_HEATMAP_MAX_CELLS, 16);
+    SpatialFacetResult result =
+        (SpatialFacetResult)
+            sourceResponse.getPropertyValue(EXPERIMENTAL_SPATIAL_FACET_RESULTS_KEY);
+    assertThat(result.getAttributeName(), is(Metacard.GEOGRAPHY));
+    assertThat(result.getRows(), is(2));
+    assertThat(result.getColumns(), is(2));
+    assertThat(result.getWest(), is(-11.25));
+    assertThat(result.getNorth(), is(5.625));
+    assertThat(result.getCount(0, 0), is(0));
+    assertThat(result.getCount(1, 0), is(3));
+    assertThat(result.getCount(1, 1), is(0));
+  }
+
   private QueryRequest createQuery(Filter query) {
     return new QueryRequestImpl(
         new QueryImpl(
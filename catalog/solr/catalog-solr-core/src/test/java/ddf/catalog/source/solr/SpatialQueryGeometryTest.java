@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+
+public class SpatialQueryGeometryTest {
+
+  @Test
+  public void smallPolygonIsRepairedOnly() {
+    SpatialQueryGeometry geometry =
+        SpatialQueryGeometry.of("POLYGON((0 0, 10 0, 10 20, 5 -5, 0 20, 0 0))");
+
+    assertThat(geometry.getWkt(), is("POLYGON ((5 -5, 0 0, 0 20, 10 20, 10 0, 5 -5))"));
+    assertThat(geometry.getGeometry(), notNullValue());
+    assertThat(geometry.getEnvelope(), nullValue());
+  }
+
+  @Test
+  public void largePolygonIsSimplified() throws Exception {
+    String wkt = denseSquare(10, 20, 1000);
+    SpatialQueryGeometry geometry = SpatialQueryGeometry.of(wkt);
+
+    assertThat(geometry.getGeometry().getNumPoints(), lessThan(10));
+    assertThat(geometry.getGeometry().covers(new WKTReader().read(wkt)), is(true));
+    assertThat(geometry.getWkt(), is(geometry.getGeometry().toText()));
+    assertThat(new WKTReader().read(geometry.getExactWkt()).getNumPoints(), is(4001));
+    assertThat(geometry.getEnvelope(), is("ENVELOPE(10.0, 11.0, 21.0, 20.0)"));
+  }
+
+  @Test
+  public void simplifiedPolygonCoversTheOriginal() throws Exception {
+    // a dense circle, whose simplified edges are chords that cut into it
+    StringBuilder wkt = new StringBuilder("POLYGON((");
+    int vertices = 2000;
+    for (int i = 0; i <= vertices; i++) {
+      double angle = 2 * Math.PI * i / vertices;
+      wkt.append(20 + 0.001 * Math.cos(angle)).append(' ').append(30 + 0.001 * Math.sin(angle));
+      wkt.append(i < vertices ? ", " : "))");
+    }
+    Geometry original = new WKTReader().read(wkt.toString());
+
+    SpatialQueryGeometry geometry = SpatialQueryGeometry.of(wkt.toString());
+
+    assertThat(geometry.getGeometry().getNumPoints(), lessThan(vertices));
+    assertThat(geometry.getGeometry().covers(original), is(true));
+  }
+
+  @Test
+  public void largePolygonAcrossAntimeridianHasWrappingEnvelope() {
+    SpatialQueryGeometry geometry = SpatialQueryGeometry.of(denseSquare(179.5, 0, 1000));
+
+    assertThat(geometry.getWkt(), is(geometry.getGeometry().toText()));
+    assertThat(geometry.getEnvelope(), is("ENVELOPE(179.5, -179.5, 1.0, 0.0)"));
+  }
+
+  @Test
+  public void preparedGeometryIsCached() {
+    String wkt = denseSquare(30, 40, 500);
+
+    assertThat(SpatialQueryGeometry.of(wkt), sameInstance(SpatialQueryGeometry.of(wkt)));
+  }
+
+  @Test
+  public void invalidWktHasNoGeometry() {
+    SpatialQueryGeometry geometry = SpatialQueryGeometry.of("invalid wkt");
+
+    assertThat(geometry.getWkt(), is("invalid wkt"));
+    assertThat(geometry.getGeometry(), nullValue());
+    assertThat(geometry.getEnvelope(), nullValue());
+  }
+
+  /** @return a one degree square with {@code pointsPerSide} collinear vertices on each side */
+  private static String denseSquare(double x, double y, int pointsPerSide) {
+    StringBuilder wkt = new StringBuilder("POLYGON((");
+    for (int i = 0; i < pointsPerSide; i++) {
+      wkt.append(normalize(x + (double) i / pointsPerSide)).append(' ').append(y).append(", ");
+    }
+    for (int i = 0; i < pointsPerSide; i++) {
+      wkt.append(normalize(x + 1)).append(' ').append(y + (double) i / pointsPerSide).append(", ");
+    }
+    for (int i = 0; i < pointsPerSide; i++) {
+      wkt.append(normalize(x + 1 - (double) i / pointsPerSide))
+          .append(' ')
+          .append(y + 1)
+          .append(", ");
+    }
+    for (int i = 0; i < pointsPerSide; i++) {
+      wkt.append(normalize(x)).append(' ').append(y + 1 - (double) i / pointsPerSide).append(", ");
+    }
+    return wkt.append(normalize(x)).append(' ').append(y).append("))").toString();
+  }
+
+  private static double normalize(double longitude) {
+    return longitude > 180 ? longitude - 360 : longitude;
+  }
+}
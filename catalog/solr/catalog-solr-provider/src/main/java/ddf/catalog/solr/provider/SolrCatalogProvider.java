@@ -30,6 +30,7 @@ public SolrCatalogProvider(
         filterAdapter,
         clientFactory.newClient(SOLR_CATALOG_CORE_NAME),
         solrFilterDelegateFactory,
-        dynamicSchemaResolver);
+        dynamicSchemaResolver,
+        clientFactory.getUpdateBatcher(SOLR_CATALOG_CORE_NAME));
   }
 }
@@ -17,29 +17,46 @@
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.ClassPathTemplateLoader;
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.Constants;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.federation.FederationException;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.operation.QueryResponse;
 import ddf.catalog.operation.SourceInfoResponse;
+import ddf.catalog.operation.SpatialFacetResult;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
 import ddf.catalog.operation.impl.SourceInfoRequestEnterprise;
+import ddf.catalog.operation.impl.SpatialFacetPropertiesImpl;
 import ddf.catalog.source.SourceDescriptor;
 import ddf.catalog.source.SourceUnavailableException;
+import ddf.catalog.source.UnsupportedQueryException;
 import de.micromata.opengis.kml.v_2_2_0.Folder;
 import de.micromata.opengis.kml.v_2_2_0.Kml;
 import de.micromata.opengis.kml.v_2_2_0.KmlFactory;
 import de.micromata.opengis.kml.v_2_2_0.Link;
 import de.micromata.opengis.kml.v_2_2_0.NetworkLink;
+import de.micromata.opengis.kml.v_2_2_0.Placemark;
 import de.micromata.opengis.kml.v_2_2_0.RefreshMode;
+import de.micromata.opengis.kml.v_2_2_0.Region;
 import de.micromata.opengis.kml.v_2_2_0.ViewRefreshMode;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response.Status;
@@ -80,6 +97,12 @@ public class KmlEndpoint {
 
   private static final String OPENSEARCH_FORMAT_KEY = "format";
 
+  private static final String OPENSEARCH_BBOX_KEY = "bbox";
+
+  private static final String OPENSEARCH_COUNT_KEY = "count";
+
+  private static final String REGIONS_URL_PATH = "regions";
+
   private static final String ICONS_RESOURCE_LOC = "icons/";
 
   private static final long REFRESH_INTERVAL = 12L * 60 * 60; // 12 Hours in Seconds
@@ -98,10 +121,20 @@ public class KmlEndpoint {
 
   private static final String COUNT_PARAM = "count=";
 
+  /**
+   * Size on screen, in pixels, at which a cluster of results is replaced by the individual results,
+   * or by a finer set of clusters.
+   */
+  private static final int CLUSTER_LOD_PIXELS = 256;
+
+  private static final String BBOX_SEPARATOR = ",";
+
   private static final Logger LOGGER = LoggerFactory.getLogger(KmlEndpoint.class);
 
   private CatalogFramework framework;
 
+  private FilterBuilder filterBuilder;
+
   private Kml styleDoc;
 
   private String styleUrl;
@@ -114,6 +147,10 @@ public class KmlEndpoint {
 
   private Integer maxResults = 100;
 
+  private boolean clusterResults = false;
+
+  private Integer maxClusterCells = SpatialFacetPropertiesImpl.DEFAULT_MAX_CELLS;
+
   private String webSite;
 
   private String logo;
@@ -124,10 +161,14 @@ public class KmlEndpoint {
 
   private ClassPathTemplateLoader templateLoader;
 
-  public KmlEndpoint(BrandingRegistry brandingPlugin, CatalogFramework catalogFramework) {
+  public KmlEndpoint(
+      BrandingRegistry brandingPlugin,
+      CatalogFramework catalogFramework,
+      FilterBuilder filterBuilder) {
     Optional<BrandingRegistry> brandingRegistry = Optional.ofNullable(brandingPlugin);
     LOGGER.trace("ENTERING: KML Endpoint Constructor");
     this.framework = catalogFramework;
+    this.filterBuilder = filterBuilder;
     templateLoader = new ClassPathTemplateLoader();
     templateLoader.setPrefix("/templates");
     templateLoader.setSuffix(".hbt");
@@ -198,6 +239,26 @@ public void setMaxResults(Integer maxResults) {
     this.maxResults = maxResults;
   }
 
+  /**
+   * Sets if the ddf.catalog.source.Source {@link NetworkLink}s should show clusters of results when
+   * zoomed out, instead of at most {@link #setMaxResults(Integer)} individual results. Only sources
+   * able to count results over a grid, such as the Solr catalog provider, return clusters.
+   *
+   * @param clusterResults - true to enable, false or null to disable
+   */
+  public void setClusterResults(Boolean clusterResults) {
+    this.clusterResults = Boolean.TRUE.equals(clusterResults);
+  }
+
+  /**
+   * Sets the maximum number of grid cells results are clustered into for the current view.
+   *
+   * @param maxClusterCells - maximum number of grid cells
+   */
+  public void setMaxClusterCells(Integer maxClusterCells) {
+    this.maxClusterCells = maxClusterCells;
+  }
+
   public String getWebSite() {
     return this.webSite;
   }
@@ -314,18 +375,10 @@ public Kml getAvailableSources(@Context UriInfo uriInfo) {
       Folder folder = kml.createAndSetFolder();
       folder.setOpen(true);
       for (SourceDescriptor descriptor : response.getSourceInfo()) {
-        UriBuilder builder = UriBuilder.fromUri(uriInfo.getBaseUri());
-        builder =
-            generateEndpointUrl(
-                SystemBaseUrl.EXTERNAL.getRootContext()
-                    + FORWARD_SLASH
-                    + CATALOG_URL_PATH
-                    + FORWARD_SLASH
-                    + OPENSEARCH_URL_PATH,
-                builder);
-        builder = builder.queryParam(SOURCE_PARAM, descriptor.getSourceId());
-        builder = builder.queryParam(OPENSEARCH_SORT_KEY, OPENSEARCH_DEFAULT_SORT);
-        builder = builder.queryParam(OPENSEARCH_FORMAT_KEY, KML_TRANSFORM_PARAM);
+        UriBuilder builder =
+            clusterResults
+                ? regionsUrl(uriInfo, descriptor.getSourceId())
+                : openSearchUrl(uriInfo, descriptor.getSourceId());
         NetworkLink networkLink =
             generateViewBasedNetworkLink(builder.build().toURL(), descriptor.getSourceId());
         folder.getFeature().add(networkLink);
@@ -345,6 +398,213 @@ public Kml getAvailableSources(@Context UriInfo uriInfo) {
     }
   }
 
+  /**
+   * Returns the results of a source within a bounding box, as clusters of results when there are
+   * more than the maximum number of results to return. Each cluster holds a {@link NetworkLink} to
+   * the results within it, which KML clients load once the cluster is zoomed in on.
+   *
+   * @param uriInfo - injected resource providing the URI.
+   * @param sourceId - the id of the source to query.
+   * @param bbox - the bounding box to query, as west,south,east,north.
+   * @return - {@link Kml} containing a folder of clusters, or a {@link NetworkLink} to the results.
+   */
+  @GET
+  @Path(FORWARD_SLASH + REGIONS_URL_PATH)
+  @Produces(KML_MIME_TYPE)
+  public Kml getRegion(
+      @Context UriInfo uriInfo,
+      @QueryParam(SOURCE_PARAM) String sourceId,
+      @QueryParam(OPENSEARCH_BBOX_KEY) String bbox) {
+    double[] bounds = parseBbox(bbox);
+    if (StringUtils.isBlank(sourceId) || bounds == null) {
+      throw new WebApplicationException(
+          new IllegalArgumentException("A source and a bounding box are required."),
+          Status.BAD_REQUEST);
+    }
+
+    try {
+      Kml kml = KmlFactory.createKml();
+      SpatialFacetResult clusters = queryClusters(sourceId, bounds);
+      if (clusters == null) {
+        kml.setFeature(generateResultsNetworkLink(uriInfo, sourceId, bbox));
+      } else {
+        kml.setFeature(generateClusters(uriInfo, sourceId, clusters));
+      }
+      return kml;
+    } catch (UnknownHostException | MalformedURLException | UriBuilderException e) {
+      throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Counts the results of the source over a grid covering the bounding box.
+   *
+   * @return the counts, or null if there are no more results than can be returned individually or
+   *     if the source does not support counting over a grid
+   */
+  private SpatialFacetResult queryClusters(String sourceId, double[] bounds) {
+    if (bounds[0] > bounds[2]) {
+      // bounding boxes crossing the antimeridian are not clustered
+      return null;
+    }
+
+    String wkt =
+        String.format(
+            "POLYGON ((%1$s %2$s, %3$s %2$s, %3$s %4$s, %1$s %4$s, %1$s %2$s))",
+            bounds[0], bounds[1], bounds[2], bounds[3]);
+    QueryImpl query =
+        new QueryImpl(
+            filterBuilder.attribute(Metacard.ANY_GEO).is().intersecting().wkt(wkt),
+            1,
+            1,
+            null,
+            true,
+            0);
+    Map<String, Serializable> properties = new HashMap<>();
+    properties.put(
+        Constants.EXPERIMENTAL_SPATIAL_FACET_PROPERTIES_KEY,
+        new SpatialFacetPropertiesImpl(
+            Metacard.ANY_GEO, bounds[0], bounds[1], bounds[2], bounds[3], maxClusterCells));
+
+    try {
+      QueryResponse response =
+          framework.query(
+              new QueryRequestImpl(query, false, Collections.singletonList(sourceId), properties));
+      Serializable clusters =
+          response.getPropertyValue(Constants.EXPERIMENTAL_SPATIAL_FACET_RESULTS_KEY);
+      if (response.getHits() <= maxResults || !(clusters instanceof SpatialFacetResult)) {
+        return null;
+      }
+      return (SpatialFacetResult) clusters;
+    } catch (UnsupportedQueryException | SourceUnavailableException | FederationException e) {
+      LOGGER.debug(
+          "Unable to cluster results of source {}, returning individual results.",
+          LogSanitizer.sanitize(sourceId),
+          e);
+      return null;
+    }
+  }
+
+  private Folder generateClusters(UriInfo uriInfo, String sourceId, SpatialFacetResult clusters)
+      throws UnknownHostException, MalformedURLException {
+    Folder folder = KmlFactory.createFolder();
+    folder.setName(sourceId);
+    double cellWidth = (clusters.getEast() - clusters.getWest()) / clusters.getColumns();
+    double cellHeight = (clusters.getNorth() - clusters.getSouth()) / clusters.getRows();
+
+    for (int row = 0; row < clusters.getRows(); row++) {
+      double north = Math.min(clusters.getNorth() - row * cellHeight, 90);
+      double south = Math.max(north - cellHeight, -90);
+      for (int column = 0; column < clusters.getColumns(); column++) {
+        int count = clusters.getCount(row, column);
+        if (count == 0) {
+          continue;
+        }
+        double west = Math.max(clusters.getWest() + column * cellWidth, -180);
+        double east = Math.min(west + cellWidth, 180);
+
+        // the cluster is shown until it is large enough on screen to be replaced by its results
+        Placemark cluster = folder.createAndAddPlacemark();
+        cluster.setName(String.valueOf(count));
+        cluster.createAndSetPoint().addToCoordinates((west + east) / 2, (south + north) / 2);
+        Region clusterRegion = createRegion(west, south, east, north);
+        clusterRegion.getLod().setMaxLodPixels(CLUSTER_LOD_PIXELS);
+        cluster.setRegion(clusterRegion);
+
+        NetworkLink results = folder.createAndAddNetworkLink();
+        results.setName(String.valueOf(count));
+        Region resultsRegion = createRegion(west, south, east, north);
+        resultsRegion.getLod().setMinLodPixels(CLUSTER_LOD_PIXELS);
+        results.setRegion(resultsRegion);
+        Link link = results.createAndSetLink();
+        link.setHref(
+            regionsUrl(uriInfo, sourceId)
+                .queryParam(OPENSEARCH_BBOX_KEY, formatBbox(west, south, east, north))
+                .build()
+                .toURL()
+                .toString());
+        link.setViewRefreshMode(ViewRefreshMode.ON_REGION);
+      }
+    }
+    return folder;
+  }
+
+  private NetworkLink generateResultsNetworkLink(UriInfo uriInfo, String sourceId, String bbox)
+      throws UnknownHostException, MalformedURLException {
+    NetworkLink networkLink = KmlFactory.createNetworkLink();
+    networkLink.setName(sourceId);
+    Link link = networkLink.createAndSetLink();
+    link.setHref(
+        openSearchUrl(uriInfo, sourceId)
+            .queryParam(OPENSEARCH_BBOX_KEY, bbox)
+            .queryParam(OPENSEARCH_COUNT_KEY, maxResults)
+            .build()
+            .toURL()
+            .toString());
+    link.setViewRefreshMode(ViewRefreshMode.NEVER);
+    return networkLink;
+  }
+
+  private Region createRegion(double west, double south, double east, double north) {
+    Region region = KmlFactory.createRegion();
+    region
+        .createAndSetLatLonAltBox()
+        .withWest(west)
+        .withSouth(south)
+        .withEast(east)
+        .withNorth(north);
+    region.createAndSetLod();
+    return region;
+  }
+
+  private static double[] parseBbox(String bbox) {
+    String[] parts = StringUtils.split(bbox, BBOX_SEPARATOR);
+    if (parts == null || parts.length != 4) {
+      return null;
+    }
+    double[] bounds = new double[4];
+    try {
+      for (int i = 0; i < bounds.length; i++) {
+        bounds[i] = Double.parseDouble(parts[i].trim());
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return bounds;
+  }
+
+  private static String formatBbox(double west, double south, double east, double north) {
+    return west + BBOX_SEPARATOR + south + BBOX_SEPARATOR + east + BBOX_SEPARATOR + north;
+  }
+
+  private UriBuilder openSearchUrl(UriInfo uriInfo, String sourceId) throws UnknownHostException {
+    UriBuilder builder =
+        generateEndpointUrl(
+            SystemBaseUrl.EXTERNAL.getRootContext()
+                + FORWARD_SLASH
+                + CATALOG_URL_PATH
+                + FORWARD_SLASH
+                + OPENSEARCH_URL_PATH,
+            UriBuilder.fromUri(uriInfo.getBaseUri()));
+    builder = builder.queryParam(SOURCE_PARAM, sourceId);
+    builder = builder.queryParam(OPENSEARCH_SORT_KEY, OPENSEARCH_DEFAULT_SORT);
+    return builder.queryParam(OPENSEARCH_FORMAT_KEY, KML_TRANSFORM_PARAM);
+  }
+
+  private UriBuilder regionsUrl(UriInfo uriInfo, String sourceId) throws UnknownHostException {
+    UriBuilder builder =
+        generateEndpointUrl(
+            SystemBaseUrl.EXTERNAL.getRootContext()
+                + FORWARD_SLASH
+                + CATALOG_URL_PATH
+                + FORWARD_SLASH
+                + KML_TRANSFORM_PARAM
+                + FORWARD_SLASH
+                + REGIONS_URL_PATH,
+            UriBuilder.fromUri(uriInfo.getBaseUri()));
+    return builder.queryParam(SOURCE_PARAM, sourceId);
+  }
+
   /*
    * Generates xml for View-based Network Link
    *
@@ -367,7 +627,9 @@ private NetworkLink generateViewBasedNetworkLink(URL networkLinkUrl, String sour
     link.setViewRefreshTime(DEFAULT_VIEW_REFRESH_TIME);
     link.setViewFormat(VIEW_FORMAT_STRING);
     link.setViewBoundScale(1);
-    link.setHttpQuery(COUNT_PARAM + maxResults);
+    if (!clusterResults) {
+      link.setHttpQuery(COUNT_PARAM + maxResults);
+    }
 
     return networkLink;
   }
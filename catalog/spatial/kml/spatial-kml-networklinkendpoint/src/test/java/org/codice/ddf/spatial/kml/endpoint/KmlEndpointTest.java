@@ -15,16 +15,24 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.Constants;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.SourceInfoRequest;
 import ddf.catalog.operation.SourceInfoResponse;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.operation.impl.SpatialFacetResultImpl;
 import ddf.catalog.source.SourceDescriptor;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.impl.SourceDescriptorImpl;
@@ -32,14 +40,19 @@
 import de.micromata.opengis.kml.v_2_2_0.Kml;
 import de.micromata.opengis.kml.v_2_2_0.Link;
 import de.micromata.opengis.kml.v_2_2_0.NetworkLink;
+import de.micromata.opengis.kml.v_2_2_0.Placemark;
+import de.micromata.opengis.kml.v_2_2_0.Point;
 import java.io.IOException;
+import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MultivaluedMap;
@@ -83,6 +96,8 @@ public class KmlEndpointTest {
 
   private static BrandingRegistry mockBranding = mock(BrandingRegistry.class);
 
+  private static FilterBuilder mockFilterBuilder = mock(FilterBuilder.class, RETURNS_DEEP_STUBS);
+
   private static byte[] bomberBytes;
 
   private static byte[] jetBtyes;
@@ -124,7 +139,7 @@ public static void setUp() throws IOException, URISyntaxException, SourceUnavail
   @Test
   public void testGetKmlNetworkLink() {
     when(mockUriInfo.getQueryParameters(false)).thenReturn(mockMap);
-    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
     kmlEndpoint.setDescription("This is some description.");
     kmlEndpoint.setLogo(
         "https://tools.codice.org/wiki/download/attachments/3047457/DDF?version=1&modificationDate=1369422662164&api=v2");
@@ -148,7 +163,7 @@ public void testGetAvailableSources()
       throws UnknownHostException, MalformedURLException, IllegalArgumentException,
           UriBuilderException, SourceUnavailableException {
     when(mockUriInfo.getQueryParameters(false)).thenReturn(mockMap);
-    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
     Kml response = kmlEndpoint.getAvailableSources(mockUriInfo);
     assertThat(response, notNullValue());
     assertThat(response.getFeature(), instanceOf(Folder.class));
@@ -168,7 +183,7 @@ public void testGetAvailableSourcesVisibleByDefault()
       throws UnknownHostException, MalformedURLException, IllegalArgumentException,
           UriBuilderException, SourceUnavailableException {
     when(mockUriInfo.getQueryParameters(false)).thenReturn(mockMap);
-    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
     Kml response = kmlEndpoint.getAvailableSources(mockUriInfo);
     assertThat(response, notNullValue());
     assertThat(response.getFeature(), instanceOf(Folder.class));
@@ -190,7 +205,7 @@ public void testGetAvailableSourcesWithCount()
       throws UnknownHostException, MalformedURLException, IllegalArgumentException,
           UriBuilderException, SourceUnavailableException {
     when(mockUriInfo.getQueryParameters(false)).thenReturn(mockMap);
-    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
     kmlEndpoint.setMaxResults(250);
     Kml response = kmlEndpoint.getAvailableSources(mockUriInfo);
     assertThat(response, notNullValue());
@@ -208,10 +223,89 @@ public void testGetAvailableSourcesWithCount()
     assertThat(nl2.getLink().getHttpQuery(), is("count=250"));
   }
 
+  @Test
+  public void testGetAvailableSourcesWithClustering() throws Exception {
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
+    kmlEndpoint.setClusterResults(true);
+    Kml response = kmlEndpoint.getAvailableSources(mockUriInfo);
+    Folder folder = (Folder) response.getFeature();
+    assertThat(folder.getFeature().size(), is(2));
+    NetworkLink nl1 = (NetworkLink) folder.getFeature().get(0);
+    URI uri = UriBuilder.fromUri(nl1.getLink().getHref()).build();
+    assertThat(uri.getPath(), is("/services/catalog/kml/regions"));
+    assertThat(uri.getQuery(), containsString("src=" + nl1.getName()));
+    assertThat(nl1.getLink().getHttpQuery(), nullValue());
+  }
+
+  @Test
+  public void testGetAvailableSourcesWithUnsetClustering() throws Exception {
+    when(mockUriInfo.getQueryParameters(false)).thenReturn(mockMap);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
+    kmlEndpoint.setClusterResults(null);
+    Kml response = kmlEndpoint.getAvailableSources(mockUriInfo);
+    Folder folder = (Folder) response.getFeature();
+    assertThat(folder.getFeature().size(), is(2));
+    NetworkLink nl1 = (NetworkLink) folder.getFeature().get(0);
+    assertThat(nl1.getLink().getHttpQuery(), is("count=100"));
+  }
+
+  @Test
+  public void testGetRegionClustersResults() throws Exception {
+    Map<String, Serializable> properties = new HashMap<>();
+    properties.put(
+        Constants.EXPERIMENTAL_SPATIAL_FACET_RESULTS_KEY,
+        new SpatialFacetResultImpl("anyGeo", -180, -90, 180, 90, new int[][] {{0, 400}, {100, 0}}));
+    when(mockFramework.query(any(QueryRequest.class)))
+        .thenReturn(new QueryResponseImpl(null, Collections.emptyList(), true, 500, properties));
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
+
+    Kml response = kmlEndpoint.getRegion(mockUriInfo, LOCAL_SITE_NAME, "-180,-90,180,90");
+
+    Folder folder = (Folder) response.getFeature();
+    assertThat(folder.getFeature().size(), is(4));
+    Placemark cluster = (Placemark) folder.getFeature().get(0);
+    assertThat(cluster.getName(), is("400"));
+    Point point = (Point) cluster.getGeometry();
+    assertThat(point.getCoordinates().get(0).getLongitude(), is(90.0));
+    assertThat(point.getCoordinates().get(0).getLatitude(), is(45.0));
+    assertThat(cluster.getRegion().getLod().getMaxLodPixels(), is(256.0));
+    NetworkLink results = (NetworkLink) folder.getFeature().get(1);
+    assertThat(results.getRegion().getLod().getMinLodPixels(), is(256.0));
+    URI uri = UriBuilder.fromUri(results.getLink().getHref()).build();
+    assertThat(uri.getPath(), is("/services/catalog/kml/regions"));
+    assertThat(uri.getQuery(), containsString("bbox=0.0,0.0,180.0,90.0"));
+    assertThat(((Placemark) folder.getFeature().get(2)).getName(), is("100"));
+  }
+
+  @Test
+  public void testGetRegionReturnsResultsBelowMaxResults() throws Exception {
+    Map<String, Serializable> properties = new HashMap<>();
+    properties.put(
+        Constants.EXPERIMENTAL_SPATIAL_FACET_RESULTS_KEY,
+        new SpatialFacetResultImpl("anyGeo", -180, -90, 180, 90, new int[][] {{10}}));
+    when(mockFramework.query(any(QueryRequest.class)))
+        .thenReturn(new QueryResponseImpl(null, Collections.emptyList(), true, 10, properties));
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
+
+    Kml response = kmlEndpoint.getRegion(mockUriInfo, LOCAL_SITE_NAME, "-10,-10,10,10");
+
+    NetworkLink networkLink = (NetworkLink) response.getFeature();
+    URI uri = UriBuilder.fromUri(networkLink.getLink().getHref()).build();
+    assertThat(uri.getPath(), is("/services/catalog/query"));
+    assertThat(uri.getQuery(), containsString("bbox=-10,-10,10,10"));
+    assertThat(uri.getQuery(), containsString("count=100"));
+  }
+
+  @Test(expected = WebApplicationException.class)
+  public void testGetRegionInvalidBbox() {
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
+    kmlEndpoint.getRegion(mockUriInfo, LOCAL_SITE_NAME, "-10,-10,10");
+  }
+
   /** Tests setting the icon directory location */
   @Test
   public void testGetIconLocation() {
-    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
     byte[] response = kmlEndpoint.getIcon(null, BOMBER_ICON);
     assertThat(response, is(bomberBytes));
   }
@@ -219,13 +313,13 @@ public void testGetIconLocation() {
   /** Tests missing icon in the default resource */
   @Test(expected = WebApplicationException.class)
   public void testExceptionGetIconLocation() {
-    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
     kmlEndpoint.getIcon(null, JET_ICON);
   }
 
   @Test
   public void testGetIconCustomLocation() {
-    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
     kmlEndpoint.setIconLoc(jetPath);
     byte[] response = kmlEndpoint.getIcon(null, JET_ICON);
     assertThat(response, is(jetBtyes));
@@ -234,7 +328,7 @@ public void testGetIconCustomLocation() {
   /** Tests missing icon in the directory location */
   @Test(expected = WebApplicationException.class)
   public void testExceptionGetCustomIconLocation() {
-    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework);
+    KmlEndpoint kmlEndpoint = new KmlEndpoint(mockBranding, mockFramework, mockFilterBuilder);
     kmlEndpoint.setIconLoc(bomberPath);
     kmlEndpoint.getIcon(null, JET_ICON);
   }
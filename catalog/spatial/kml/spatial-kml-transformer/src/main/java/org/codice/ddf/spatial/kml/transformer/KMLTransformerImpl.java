@@ -17,7 +17,6 @@
 import static org.codice.ddf.spatial.kml.converter.MetacardToKml.addJtsGeoPointsToKmlGeo;
 import static org.codice.ddf.spatial.kml.converter.MetacardToKml.getJtsGeoFromWkt;
 import static org.codice.ddf.spatial.kml.converter.MetacardToKml.getKmlGeoFromJtsGeo;
-import static org.codice.ddf.spatial.kml.util.KmlTransformations.encloseKml;
 
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
@@ -31,11 +30,9 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.BinaryContentImpl;
-import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.transform.CatalogTransformerException;
 import de.micromata.opengis.kml.v_2_2_0.Data;
-import de.micromata.opengis.kml.v_2_2_0.Document;
 import de.micromata.opengis.kml.v_2_2_0.ExtendedData;
 import de.micromata.opengis.kml.v_2_2_0.Feature;
 import de.micromata.opengis.kml.v_2_2_0.Geometry;
@@ -44,12 +41,10 @@
 import de.micromata.opengis.kml.v_2_2_0.Placemark;
 import de.micromata.opengis.kml.v_2_2_0.StyleSelector;
 import de.micromata.opengis.kml.v_2_2_0.TimeSpan;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
@@ -67,9 +62,11 @@
 import javax.activation.MimeTypeParseException;
 import javax.security.auth.Subject;
 import javax.xml.bind.DatatypeConverter;
+import javax.xml.bind.JAXBException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.codice.ddf.log.sanitizer.LogSanitizer;
+import org.codice.ddf.spatial.kml.util.KmlDocumentWriter;
 import org.codice.ddf.spatial.kml.util.KmlMarshaller;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
@@ -116,6 +113,10 @@ public class KMLTransformerImpl implements KMLTransformer {
 
   private ClassPathTemplateLoader templateLoader;
 
+  private final Handlebars handlebars;
+
+  private volatile Template descriptionTemplate;
+
   private KmlStyleMap styleMapper;
 
   private DescriptionTemplateHelper templateHelper;
@@ -154,6 +155,9 @@ public KMLTransformerImpl(
     templateLoader = new ClassPathTemplateLoader();
     templateLoader.setPrefix(TEMPLATE_DIRECTORY);
     templateLoader.setSuffix(TEMPLATE_SUFFIX);
+
+    handlebars = new Handlebars(templateLoader);
+    handlebars.registerHelpers(templateHelper);
   }
 
   /**
@@ -186,7 +190,8 @@ protected Placemark performDefaultTransformation(Metacard entry)
       throws CatalogTransformerException {
 
     // wrap metacard to work around classLoader/reflection issues
-    entry = new MetacardImpl(entry);
+    HandlebarsMetacard handlebarsMetacard = new HandlebarsMetacard(entry);
+    entry = handlebarsMetacard;
     Placemark kmlPlacemark = KmlFactory.createPlacemark();
     kmlPlacemark.setId("Placemark-" + entry.getId());
     kmlPlacemark.setName(entry.getTitle());
@@ -206,11 +211,8 @@ protected Placemark performDefaultTransformation(Metacard entry)
     kmlPlacemark.setGeometry(getKmlGeoWithPointsFromWkt(entry.getLocation()));
 
     String description = entry.getTitle();
-    Handlebars handlebars = new Handlebars(templateLoader);
-    handlebars.registerHelpers(templateHelper);
     try {
-      Template template = handlebars.compile(DESCRIPTION_TEMPLATE);
-      description = template.apply(new HandlebarsMetacard(entry));
+      description = getDescriptionTemplate().apply(handlebarsMetacard);
       LOGGER.debug(description);
 
     } catch (IOException e) {
@@ -229,6 +231,24 @@ protected Placemark performDefaultTransformation(Metacard entry)
     return kmlPlacemark;
   }
 
+  /**
+   * The description template is loaded from this bundle, so it is compiled once and reused for
+   * every placemark. Compiled templates are thread safe.
+   */
+  private Template getDescriptionTemplate() throws IOException {
+    Template template = descriptionTemplate;
+    if (template == null) {
+      synchronized (this) {
+        template = descriptionTemplate;
+        if (template == null) {
+          template = handlebars.compile(DESCRIPTION_TEMPLATE);
+          descriptionTemplate = template;
+        }
+      }
+    }
+    return template;
+  }
+
   private void setExtendedData(Placemark placemark, Metacard metacard) {
     final ExtendedData extendedData = new ExtendedData();
 
@@ -323,12 +343,7 @@ public BinaryContent transform(Metacard metacard, Map<String, Serializable> argu
       }
       Kml kml = KmlFactory.createKml().withFeature(placemark);
 
-      String transformedKmlString = kmlMarshaller.marshal(kml);
-
-      InputStream kmlInputStream =
-          new ByteArrayInputStream(transformedKmlString.getBytes(StandardCharsets.UTF_8));
-
-      return new BinaryContentImpl(kmlInputStream, KML_MIMETYPE);
+      return marshal(kml);
     } catch (Exception e) {
       LOGGER.debug("Error transforming metacard ({}) to KML: {}", metacard.getId(), e.getMessage());
       throw new CatalogTransformerException("Error transforming metacard to KML.", e);
@@ -349,42 +364,51 @@ public BinaryContent transform(
     String restUriAbsolutePath = (String) arguments.get("url");
     LOGGER.debug("rest string url arg: {}", LogSanitizer.sanitize(restUriAbsolutePath));
 
-    // Transform Metacards to KML
-    Document kmlDoc = KmlFactory.createDocument();
-    boolean needDefaultStyle = false;
-    for (Result result : upstreamResponse.getResults()) {
-      try {
-        Placemark placemark = transformEntry(null, result.getMetacard(), arguments);
-        if (placemark.getStyleSelector().isEmpty()
-            && StringUtils.isEmpty(placemark.getStyleUrl())) {
-          placemark.setStyleUrl("#default");
-          needDefaultStyle = true;
+    // Transform Metacards to KML, writing each placemark as soon as it is transformed
+    try (KmlDocumentWriter documentWriter = kmlMarshaller.newDocumentWriter()) {
+      int placemarkCount = 0;
+      boolean needDefaultStyle = false;
+      for (Result result : upstreamResponse.getResults()) {
+        try {
+          Placemark placemark = transformEntry(null, result.getMetacard(), arguments);
+          if (placemark.getStyleSelector().isEmpty()
+              && StringUtils.isEmpty(placemark.getStyleUrl())) {
+            placemark.setStyleUrl("#default");
+            needDefaultStyle = true;
+          }
+          documentWriter.writeFeature(placemark);
+          placemarkCount++;
+        } catch (CatalogTransformerException e) {
+          LOGGER.debug(
+              "Error transforming current metacard ({}) to KML and will continue with remaining query responses.",
+              LogSanitizer.sanitize(result.getMetacard().getId()),
+              e);
         }
-        kmlDoc.getFeature().add(placemark);
-      } catch (CatalogTransformerException e) {
-        LOGGER.debug(
-            "Error transforming current metacard ({}) to KML and will continue with remaining query responses.",
-            LogSanitizer.sanitize(result.getMetacard().getId()),
-            e);
       }
-    }
 
-    if (needDefaultStyle) {
-      kmlDoc.getStyleSelector().addAll(defaultStyle);
+      InputStream kmlInputStream =
+          documentWriter.finish(
+              docId,
+              KML_RESPONSE_QUEUE_PREFIX + placemarkCount + CLOSE_PARENTHESIS,
+              needDefaultStyle ? defaultStyle : emptyList());
+      LOGGER.trace("EXITING: ResponseQueue transform");
+      return new BinaryContentImpl(kmlInputStream, KML_MIMETYPE);
+    } catch (JAXBException | IOException e) {
+      throw new CatalogTransformerException("Failed to marshal KML.", e);
     }
+  }
 
-    Kml kmlResult =
-        encloseKml(
-            kmlDoc,
-            docId,
-            KML_RESPONSE_QUEUE_PREFIX + kmlDoc.getFeature().size() + CLOSE_PARENTHESIS);
-
-    String transformedKml = kmlMarshaller.marshal(kmlResult);
-
-    InputStream kmlInputStream =
-        new ByteArrayInputStream(transformedKml.getBytes(StandardCharsets.UTF_8));
-    LOGGER.trace("EXITING: ResponseQueue transform");
-    return new BinaryContentImpl(kmlInputStream, KML_MIMETYPE);
+  /**
+   * Marshals the KML to a buffer that is written to a temporary file once it gets large, instead of
+   * to a {@link String} that is then copied to a byte array. The temporary file is deleted when the
+   * returned content's stream is closed or abandoned.
+   */
+  private BinaryContent marshal(Kml kml) throws CatalogTransformerException {
+    try {
+      return new BinaryContentImpl(kmlMarshaller.marshalToStream(kml), KML_MIMETYPE);
+    } catch (JAXBException | IOException e) {
+      throw new CatalogTransformerException("Failed to marshal KML.", e);
+    }
   }
 
   private Geometry getKmlGeoWithPointsFromWkt(String wkt) throws CatalogTransformerException {
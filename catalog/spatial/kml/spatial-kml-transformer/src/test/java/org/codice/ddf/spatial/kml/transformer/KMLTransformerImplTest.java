@@ -47,10 +47,12 @@
 import de.micromata.opengis.kml.v_2_2_0.Polygon;
 import de.micromata.opengis.kml.v_2_2_0.TimeSpan;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -396,6 +398,35 @@ public void testTransformMetacardFromUpstreamResponse()
     assertXpathEvaluatesTo("myTitle", "//m:Placemark/m:name", kmlString);
   }
 
+  @Test
+  public void testTransformMultipleMetacardsFromUpstreamResponse()
+      throws CatalogTransformerException, IOException, XpathException, SAXException {
+    MetacardImpl first = createMockMetacard();
+    first.setId("first");
+    first.setLocation(POINT_WKT);
+    MetacardImpl second = createMockMetacard();
+    second.setId("second");
+    second.setLocation(LINESTRING_WKT);
+
+    SourceResponseImpl sourceResponse =
+        new SourceResponseImpl(null, Arrays.asList(new ResultImpl(first), new ResultImpl(second)));
+    BinaryContent content = kmlTransformer.transform(sourceResponse, emptyMap());
+    final String kmlString;
+    try (InputStream inputStream = content.getInputStream()) {
+      kmlString = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+
+    assertXpathEvaluatesTo("Results (2)", "/m:kml/m:Document/m:name", kmlString);
+    assertXpathEvaluatesTo(
+        "true",
+        "contains(//m:Placemark[@id='Placemark-first']/m:description, 'Download...')",
+        kmlString);
+    assertXpathEvaluatesTo(
+        "true",
+        "contains(//m:Placemark[@id='Placemark-second']/m:description, 'Download...')",
+        kmlString);
+  }
+
   private MetacardImpl createMockMetacard() {
     MetacardImpl metacard = new MetacardImpl();
     metacard.setContentTypeName(METACARD_TYPE);
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.kml.util;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.io.FileBackedOutputStream;
+import de.micromata.opengis.kml.v_2_2_0.Feature;
+import de.micromata.opengis.kml.v_2_2_0.StyleSelector;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes a KML Document one feature at a time, so that the features of a large document are never
+ * all held in memory.
+ *
+ * <p>Each feature is marshaled with an {@link XMLStreamWriter} as soon as it is written, to a
+ * buffer that is moved to a temporary file once it gets large. The name and styles of the Document
+ * have to precede its features, but usually depend on all of them, so they are only given to {@link
+ * #finish(String, String, List)} and are written in front of the buffered features when the
+ * document is read.
+ */
+public class KmlDocumentWriter implements Closeable {
+
+  static final int FILE_THRESHOLD = 1000000;
+
+  private static final String UTF_8 = StandardCharsets.UTF_8.name();
+
+  private static final String KML_NAMESPACE = "http://www.opengis.net/kml/2.2";
+
+  private static final Map<String, String> NAMESPACES = new LinkedHashMap<>();
+
+  static {
+    NAMESPACES.put("gx", "http://www.google.com/kml/ext/2.2");
+    NAMESPACES.put("atom", "http://www.w3.org/2005/Atom");
+    NAMESPACES.put("xal", "urn:oasis:names:tc:ciq:xsdschema:xAL:2.0");
+  }
+
+  private static final byte[] END_DOCUMENT = "</Document></kml>".getBytes(StandardCharsets.UTF_8);
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  private final Marshaller marshaller;
+
+  private final FileBackedOutputStream buffer;
+
+  private final XMLStreamWriter featureWriter;
+
+  private final long featuresOffset;
+
+  private boolean finished;
+
+  KmlDocumentWriter(Marshaller marshaller) throws JAXBException, IOException {
+    this.marshaller = marshaller;
+    marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+
+    // the buffer deletes its temporary file if the document is never read to the end and closed
+    buffer = new FileBackedOutputStream(FILE_THRESHOLD, true);
+    CountingOutputStream countingBuffer = new CountingOutputStream(buffer);
+    try {
+      // The features are written inside the same elements as the final document so that their
+      // namespaces are bound, but those start tags are skipped when the document is read.
+      featureWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(countingBuffer, UTF_8);
+      writeStartDocumentElements(featureWriter);
+      featureWriter.writeCharacters("");
+      featureWriter.flush();
+    } catch (XMLStreamException e) {
+      buffer.reset();
+      throw new IOException("Unable to start the KML document.", e);
+    }
+    featuresOffset = countingBuffer.getCount();
+  }
+
+  /**
+   * Marshals a feature of the Document.
+   *
+   * @param feature the feature to write
+   * @throws JAXBException if the feature could not be marshaled
+   */
+  public void writeFeature(Feature feature) throws JAXBException {
+    if (finished) {
+      throw new IllegalStateException("The KML document is already finished.");
+    }
+    marshaller.marshal(feature, featureWriter);
+  }
+
+  /**
+   * Finishes the Document. The returned stream deletes the temporary file holding the features once
+   * it is closed, or once it is garbage collected if it is abandoned without being closed.
+   *
+   * @param documentId the id of the Document
+   * @param documentName the name of the Document
+   * @param styleSelectors the styles of the Document
+   * @return a stream of the UTF-8 encoded KML document
+   * @throws JAXBException if the styles could not be marshaled
+   * @throws IOException if the features could not be written
+   */
+  public InputStream finish(
+      String documentId, String documentName, List<StyleSelector> styleSelectors)
+      throws JAXBException, IOException {
+    if (finished) {
+      throw new IllegalStateException("The KML document is already finished.");
+    }
+    ByteArrayOutputStream startDocument = new ByteArrayOutputStream();
+    try {
+      featureWriter.flush();
+
+      XMLStreamWriter documentWriter =
+          XML_OUTPUT_FACTORY.createXMLStreamWriter(startDocument, UTF_8);
+      documentWriter.writeStartDocument(UTF_8, "1.0");
+      writeStartDocumentElements(documentWriter);
+      documentWriter.writeAttribute("id", documentId);
+      writeElement(documentWriter, "name", documentName);
+      writeElement(documentWriter, "open", "0");
+      for (StyleSelector styleSelector : styleSelectors) {
+        marshaller.marshal(styleSelector, documentWriter);
+      }
+      documentWriter.writeCharacters("");
+      documentWriter.flush();
+    } catch (XMLStreamException e) {
+      throw new IOException("Unable to finish the KML document.", e);
+    }
+
+    ByteSource features = buffer.asByteSource().slice(featuresOffset, Long.MAX_VALUE);
+    finished = true;
+    return new BufferInputStream(
+        ByteSource.concat(
+                ByteSource.wrap(startDocument.toByteArray()),
+                features,
+                ByteSource.wrap(END_DOCUMENT))
+            .openStream(),
+        buffer);
+  }
+
+  /**
+   * Discards the features written so far. Does nothing once the document is finished, since the
+   * buffer is then released by the stream returned from {@link #finish(String, String, List)}.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!finished) {
+      finished = true;
+      buffer.reset();
+    }
+  }
+
+  private static void writeStartDocumentElements(XMLStreamWriter writer) throws XMLStreamException {
+    writer.setDefaultNamespace(KML_NAMESPACE);
+    writer.writeStartElement(KML_NAMESPACE, "kml");
+    writer.writeDefaultNamespace(KML_NAMESPACE);
+    for (Map.Entry<String, String> namespace : NAMESPACES.entrySet()) {
+      writer.setPrefix(namespace.getKey(), namespace.getValue());
+      writer.writeNamespace(namespace.getKey(), namespace.getValue());
+    }
+    writer.writeStartElement(KML_NAMESPACE, "Document");
+  }
+
+  private static void writeElement(XMLStreamWriter writer, String name, String value)
+      throws XMLStreamException {
+    writer.writeStartElement(KML_NAMESPACE, name);
+    writer.writeCharacters(value);
+    writer.writeEndElement();
+  }
+
+  /** Reads a document back from its buffer and deletes the buffer once closed. */
+  static class BufferInputStream extends FilterInputStream {
+
+    private final FileBackedOutputStream buffer;
+
+    BufferInputStream(InputStream inputStream, FileBackedOutputStream buffer) {
+      super(inputStream);
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        buffer.reset();
+      }
+    }
+  }
+}
@@ -13,8 +13,11 @@
  */
 package org.codice.ddf.spatial.kml.util;
 
+import com.google.common.io.FileBackedOutputStream;
 import de.micromata.opengis.kml.v_2_2_0.Kml;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.util.Optional;
 import javax.xml.bind.JAXBContext;
@@ -71,10 +74,7 @@ public String marshal(Kml kml) {
     StringWriter writer = new StringWriter();
 
     try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
-      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
-      marshaller.setProperty(Marshaller.JAXB_ENCODING, UTF_8);
-      marshaller.marshal(kml, writer);
+      createMarshaller().marshal(kml, writer);
     } catch (JAXBException e) {
       LOGGER.debug("Failed to marshal KML: ", e);
     }
@@ -83,4 +83,57 @@ public String marshal(Kml kml) {
 
     return kmlResultString;
   }
+
+  /**
+   * Marshals the KML as UTF-8 directly to the {@link OutputStream}, without building the whole
+   * document as a {@link String} first.
+   *
+   * @param kml the KML to marshal
+   * @param outputStream the stream to write to, which is left open
+   * @throws JAXBException if the KML could not be marshaled
+   */
+  public void marshal(Kml kml, OutputStream outputStream) throws JAXBException {
+    createMarshaller().marshal(kml, outputStream);
+  }
+
+  /**
+   * Marshals the KML as UTF-8 to a buffer that is moved to a temporary file once it gets large. The
+   * returned stream deletes the temporary file once it is closed, or once it is garbage collected
+   * if it is abandoned without being closed.
+   *
+   * @param kml the KML to marshal
+   * @return a stream of the marshaled KML
+   * @throws JAXBException if the KML could not be marshaled
+   * @throws IOException if the KML could not be buffered
+   */
+  public InputStream marshalToStream(Kml kml) throws JAXBException, IOException {
+    FileBackedOutputStream buffer =
+        new FileBackedOutputStream(KmlDocumentWriter.FILE_THRESHOLD, true);
+    try {
+      marshal(kml, buffer);
+      buffer.flush();
+      return new KmlDocumentWriter.BufferInputStream(buffer.asByteSource().openStream(), buffer);
+    } catch (JAXBException | IOException | RuntimeException e) {
+      buffer.reset();
+      throw e;
+    }
+  }
+
+  /**
+   * Creates a writer of a KML Document that marshals each of its features as soon as it is written.
+   *
+   * @return a new document writer, which must be finished or closed
+   * @throws JAXBException if no marshaller could be created
+   * @throws IOException if the document could not be started
+   */
+  public KmlDocumentWriter newDocumentWriter() throws JAXBException, IOException {
+    return new KmlDocumentWriter(createMarshaller());
+  }
+
+  private Marshaller createMarshaller() throws JAXBException {
+    Marshaller marshaller = jaxbContext.createMarshaller();
+    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+    marshaller.setProperty(Marshaller.JAXB_ENCODING, UTF_8);
+    return marshaller;
+  }
 }
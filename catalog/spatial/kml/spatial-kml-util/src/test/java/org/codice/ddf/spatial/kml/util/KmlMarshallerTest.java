@@ -14,16 +14,22 @@
 package org.codice.ddf.spatial.kml.util;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import com.google.common.io.ByteStreams;
+import de.micromata.opengis.kml.v_2_2_0.Document;
 import de.micromata.opengis.kml.v_2_2_0.Feature;
 import de.micromata.opengis.kml.v_2_2_0.Kml;
 import de.micromata.opengis.kml.v_2_2_0.Placemark;
+import de.micromata.opengis.kml.v_2_2_0.Style;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.NoSuchElementException;
@@ -65,6 +71,89 @@ public void marshall() throws SAXException, IOException, XpathException {
     assertXpathEvaluatesTo("a", "//m:Placemark/m:name", kmlString);
   }
 
+  @Test
+  public void marshallToStream() throws Exception {
+    Placemark placemark = new Placemark();
+    placemark.setName("a");
+
+    Kml kml = new Kml();
+    kml.setFeature(placemark);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    kmlMarshaller.marshal(kml, outputStream);
+
+    final String kmlString = outputStream.toString(UTF_8.name());
+
+    assertXpathExists("/m:kml", kmlString);
+    assertXpathEvaluatesTo("a", "//m:Placemark/m:name", kmlString);
+  }
+
+  @Test
+  public void marshallToBufferedStream() throws Exception {
+    Placemark placemark = new Placemark();
+    placemark.setName("a");
+
+    final String kmlString;
+    try (InputStream inputStream =
+        kmlMarshaller.marshalToStream(new Kml().withFeature(placemark))) {
+      kmlString = new String(ByteStreams.toByteArray(inputStream), UTF_8);
+    }
+
+    assertXpathExists("/m:kml", kmlString);
+    assertXpathEvaluatesTo("a", "//m:Placemark/m:name", kmlString);
+  }
+
+  @Test
+  public void writeDocument() throws Exception {
+    Style style = new Style().withId("default");
+    final String kmlString;
+    try (KmlDocumentWriter documentWriter = kmlMarshaller.newDocumentWriter()) {
+      documentWriter.writeFeature(new Placemark().withName("a").withStyleUrl("#default"));
+      documentWriter.writeFeature(new Placemark().withName("b & c"));
+
+      try (InputStream inputStream =
+          documentWriter.finish("doc-id", "Results (2)", singletonList(style))) {
+        kmlString = new String(ByteStreams.toByteArray(inputStream), UTF_8);
+      }
+    }
+
+    assertXpathEvaluatesTo("doc-id", "/m:kml/m:Document/@id", kmlString);
+    assertXpathEvaluatesTo("Results (2)", "/m:kml/m:Document/m:name", kmlString);
+    assertXpathEvaluatesTo("0", "/m:kml/m:Document/m:open", kmlString);
+    assertXpathExists("/m:kml/m:Document/m:Style[@id='default']", kmlString);
+    assertXpathEvaluatesTo("2", "count(/m:kml/m:Document/m:Placemark)", kmlString);
+    assertXpathEvaluatesTo("a", "/m:kml/m:Document/m:Placemark[1]/m:name", kmlString);
+    assertXpathEvaluatesTo("b & c", "/m:kml/m:Document/m:Placemark[2]/m:name", kmlString);
+    // the name and style precede the placemarks, as the KML schema requires
+    assertXpathEvaluatesTo(
+        "0", "count(/m:kml/m:Document/m:Placemark[1]/following-sibling::m:Style)", kmlString);
+
+    Kml kml = kmlMarshaller.unmarshal(new ByteArrayInputStream(kmlString.getBytes(UTF_8))).get();
+    assertThat(((Document) kml.getFeature()).getFeature().size(), is(2));
+  }
+
+  @Test
+  public void writeLargeDocumentThroughTemporaryFile() throws Exception {
+    int placemarks = 20000;
+    try (KmlDocumentWriter documentWriter = kmlMarshaller.newDocumentWriter()) {
+      for (int i = 0; i < placemarks; i++) {
+        documentWriter.writeFeature(new Placemark().withId("placemark-" + i).withName("a"));
+      }
+
+      try (InputStream inputStream = documentWriter.finish("doc-id", "large", emptyList())) {
+        Kml kml = kmlMarshaller.unmarshal(inputStream).get();
+        assertThat(((Document) kml.getFeature()).getFeature().size(), is(placemarks));
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void writeFeatureAfterFinish() throws Exception {
+    try (KmlDocumentWriter documentWriter = kmlMarshaller.newDocumentWriter()) {
+      documentWriter.finish("doc-id", "empty", emptyList()).close();
+      documentWriter.writeFeature(new Placemark());
+    }
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void marshallNull() {
     kmlMarshaller.marshal(null);
@@ -0,0 +1,381 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.transformer.xml.streaming.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateFilter;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+
+/**
+ * Builds a JTS {@link Geometry} directly from the sax events of a GML 3 geometry, without
+ * re-serializing it and parsing it again with a schema aware parser.
+ *
+ * <p>Supports points, line strings, linear rings, polygons, envelopes and their multi geometry
+ * collections, with coordinates in {@code pos}, {@code posList} or {@code coordinates} elements.
+ * Any other GML element makes the geometry unsupported, in which case {@link #getGeometry()}
+ * returns null and the caller is expected to fall back to {@link Gml3ToWktImpl}.
+ *
+ * <p>As with {@link Gml3ToWktImpl}, coordinates are read as latitude/longitude and the returned
+ * geometry is in longitude/latitude order.
+ */
+class Gml3GeometryBuilder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Gml3GeometryBuilder.class);
+
+  private static final String SRS_DIMENSION = "srsDimension";
+
+  private static final int DEFAULT_DIMENSION = 2;
+
+  private static final CoordinateFilter SWAP_AXES =
+      coordinate -> {
+        double x = coordinate.x;
+        coordinate.x = coordinate.y;
+        coordinate.y = x;
+      };
+
+  private final GeometryFactory geometryFactory;
+
+  private final Deque<GeometryFrame> frames = new ArrayDeque<>();
+
+  private final StringBuilder text = new StringBuilder();
+
+  private boolean readingCoordinates;
+
+  private boolean readingCoordinatesElement;
+
+  private int coordinatesDimension;
+
+  private boolean interiorRing;
+
+  private boolean unsupported;
+
+  private Geometry geometry;
+
+  Gml3GeometryBuilder(GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+  }
+
+  void startElement(String localName, Attributes attributes) {
+    if (unsupported) {
+      return;
+    }
+
+    switch (localName) {
+      case "Point":
+      case "LineString":
+      case "LinearRing":
+      case "Polygon":
+      case "Envelope":
+      case "MultiPoint":
+      case "MultiLineString":
+      case "MultiCurve":
+      case "MultiPolygon":
+      case "MultiSurface":
+      case "MultiGeometry":
+        frames.push(new GeometryFrame(localName, dimension(attributes, currentDimension())));
+        break;
+      case "pos":
+      case "posList":
+      case "lowerCorner":
+      case "upperCorner":
+        startCoordinates(attributes, false);
+        break;
+      case "coordinates":
+        if (!isDefaultSeparator(attributes, "decimal", ".")
+            || !isDefaultSeparator(attributes, "cs", ",")
+            || !isDefaultSeparator(attributes, "ts", " ")) {
+          unsupported = true;
+          return;
+        }
+        startCoordinates(attributes, true);
+        break;
+      case "exterior":
+      case "outerBoundaryIs":
+        interiorRing = false;
+        break;
+      case "interior":
+      case "innerBoundaryIs":
+        interiorRing = true;
+        break;
+      case "pointMember":
+      case "pointMembers":
+      case "lineStringMember":
+      case "curveMember":
+      case "curveMembers":
+      case "polygonMember":
+      case "surfaceMember":
+      case "surfaceMembers":
+      case "geometryMember":
+      case "geometryMembers":
+        break;
+      default:
+        LOGGER.trace("Unsupported GML element {}, falling back to the GML parser", localName);
+        unsupported = true;
+    }
+  }
+
+  void characters(char[] ch, int start, int length) {
+    if (readingCoordinates) {
+      text.append(ch, start, length);
+    }
+  }
+
+  void endElement(String localName) {
+    if (unsupported) {
+      return;
+    }
+
+    try {
+      if (readingCoordinates) {
+        endCoordinates();
+      } else if (!frames.isEmpty() && frames.peek().name.equals(localName)) {
+        endGeometry();
+      }
+    } catch (IllegalArgumentException e) {
+      LOGGER.trace("Invalid GML geometry, falling back to the GML parser", e);
+      unsupported = true;
+    }
+  }
+
+  /** @return the geometry built from the events received, or null if it could not be built */
+  @Nullable
+  Geometry getGeometry() {
+    return unsupported ? null : geometry;
+  }
+
+  void reset() {
+    frames.clear();
+    text.setLength(0);
+    readingCoordinates = false;
+    interiorRing = false;
+    unsupported = false;
+    geometry = null;
+  }
+
+  private void startCoordinates(Attributes attributes, boolean coordinatesElement) {
+    if (frames.isEmpty()) {
+      unsupported = true;
+      return;
+    }
+    readingCoordinates = true;
+    readingCoordinatesElement = coordinatesElement;
+    coordinatesDimension = dimension(attributes, currentDimension());
+    text.setLength(0);
+  }
+
+  private void endCoordinates() {
+    readingCoordinates = false;
+    double[] ordinates = parseOrdinates(text, readingCoordinatesElement);
+    int dimension =
+        readingCoordinatesElement ? coordinateElementDimension(text) : coordinatesDimension;
+    if (dimension < DEFAULT_DIMENSION || ordinates.length % dimension != 0) {
+      throw new IllegalArgumentException("Coordinates do not match dimension " + dimension);
+    }
+
+    List<Coordinate> coordinates = frames.peek().coordinates;
+    for (int i = 0; i < ordinates.length; i += dimension) {
+      coordinates.add(
+          dimension > DEFAULT_DIMENSION
+              ? new Coordinate(ordinates[i], ordinates[i + 1], ordinates[i + 2])
+              : new Coordinate(ordinates[i], ordinates[i + 1]));
+    }
+  }
+
+  private void endGeometry() {
+    GeometryFrame frame = frames.pop();
+    Geometry built = frame.build();
+    GeometryFrame parent = frames.peek();
+    if (parent == null) {
+      built.apply(SWAP_AXES);
+      built.geometryChanged();
+      geometry = built;
+    } else if (built instanceof LinearRing && "Polygon".equals(parent.name)) {
+      if (interiorRing) {
+        parent.holes.add((LinearRing) built);
+      } else if (parent.shell == null) {
+        parent.shell = (LinearRing) built;
+      } else {
+        throw new IllegalArgumentException("Polygon has more than one exterior ring");
+      }
+    } else {
+      parent.members.add(built);
+    }
+  }
+
+  private int currentDimension() {
+    return frames.isEmpty() ? DEFAULT_DIMENSION : frames.peek().dimension;
+  }
+
+  private static int dimension(Attributes attributes, int defaultDimension) {
+    String value = attributes == null ? null : attributes.getValue(SRS_DIMENSION);
+    if (value == null) {
+      return defaultDimension;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static boolean isDefaultSeparator(Attributes attributes, String name, String value) {
+    String separator = attributes == null ? null : attributes.getValue(name);
+    return separator == null || separator.equals(value);
+  }
+
+  /**
+   * Parses the whitespace separated numbers of a {@code pos} or {@code posList}, or the comma and
+   * whitespace separated numbers of a {@code coordinates} element, without splitting the text.
+   */
+  static double[] parseOrdinates(CharSequence text, boolean commaSeparated) {
+    double[] ordinates = new double[16];
+    int count = 0;
+    int length = text.length();
+    int i = 0;
+    while (i < length) {
+      while (i < length && isSeparator(text.charAt(i), commaSeparated)) {
+        i++;
+      }
+      int start = i;
+      while (i < length && !isSeparator(text.charAt(i), commaSeparated)) {
+        i++;
+      }
+      if (start < i) {
+        if (count == ordinates.length) {
+          ordinates = Arrays.copyOf(ordinates, count * 2);
+        }
+        ordinates[count++] = Double.parseDouble(text.subSequence(start, i).toString());
+      }
+    }
+    return Arrays.copyOf(ordinates, count);
+  }
+
+  /** @return the number of ordinates in the first tuple of a {@code coordinates} element */
+  private static int coordinateElementDimension(CharSequence text) {
+    int length = text.length();
+    int i = 0;
+    while (i < length && Character.isWhitespace(text.charAt(i))) {
+      i++;
+    }
+    int dimension = 1;
+    for (; i < length && !Character.isWhitespace(text.charAt(i)); i++) {
+      if (text.charAt(i) == ',') {
+        dimension++;
+      }
+    }
+    return dimension;
+  }
+
+  private static boolean isSeparator(char c, boolean commaSeparated) {
+    return Character.isWhitespace(c) || (commaSeparated && c == ',');
+  }
+
+  private class GeometryFrame {
+
+    private final String name;
+
+    private final int dimension;
+
+    private final List<Coordinate> coordinates = new ArrayList<>();
+
+    private final List<LinearRing> holes = new ArrayList<>();
+
+    private final List<Geometry> members = new ArrayList<>();
+
+    private LinearRing shell;
+
+    GeometryFrame(String name, int dimension) {
+      this.name = name;
+      this.dimension = dimension;
+    }
+
+    Geometry build() {
+      switch (name) {
+        case "Point":
+          if (coordinates.size() != 1) {
+            throw new IllegalArgumentException("Point must have exactly one position");
+          }
+          return geometryFactory.createPoint(coordinates.get(0));
+        case "LineString":
+          return geometryFactory.createLineString(coordinateArray());
+        case "LinearRing":
+          return geometryFactory.createLinearRing(coordinateArray());
+        case "Polygon":
+          if (shell == null) {
+            throw new IllegalArgumentException("Polygon has no exterior ring");
+          }
+          return geometryFactory.createPolygon(shell, holes.toArray(new LinearRing[0]));
+        case "Envelope":
+          if (coordinates.size() != 2) {
+            throw new IllegalArgumentException("Envelope must have a lower and upper corner");
+          }
+          return envelopeToPolygon(new Envelope(coordinates.get(0), coordinates.get(1)));
+        case "MultiPoint":
+          return geometryFactory.createMultiPoint(members(Point.class).toArray(new Point[0]));
+        case "MultiLineString":
+        case "MultiCurve":
+          return geometryFactory.createMultiLineString(
+              members(LineString.class).toArray(new LineString[0]));
+        case "MultiPolygon":
+        case "MultiSurface":
+          return geometryFactory.createMultiPolygon(members(Polygon.class).toArray(new Polygon[0]));
+        default:
+          return geometryFactory.createGeometryCollection(members.toArray(new Geometry[0]));
+      }
+    }
+
+    /** Uses the same ring orientation as {@code org.geotools.geometry.jts.JTS#toGeometry}. */
+    private Polygon envelopeToPolygon(Envelope envelope) {
+      return geometryFactory.createPolygon(
+          new Coordinate[] {
+            new Coordinate(envelope.getMinX(), envelope.getMinY()),
+            new Coordinate(envelope.getMaxX(), envelope.getMinY()),
+            new Coordinate(envelope.getMaxX(), envelope.getMaxY()),
+            new Coordinate(envelope.getMinX(), envelope.getMaxY()),
+            new Coordinate(envelope.getMinX(), envelope.getMinY())
+          });
+    }
+
+    private Coordinate[] coordinateArray() {
+      return coordinates.toArray(new Coordinate[0]);
+    }
+
+    private <T extends Geometry> List<T> members(Class<T> type) {
+      List<T> typed = new ArrayList<>(members.size());
+      for (Geometry member : members) {
+        if (!type.isInstance(member)) {
+          throw new IllegalArgumentException(
+              name + " cannot contain a " + member.getGeometryType());
+        }
+        typed.add(type.cast(member));
+      }
+      return typed;
+    }
+  }
+}
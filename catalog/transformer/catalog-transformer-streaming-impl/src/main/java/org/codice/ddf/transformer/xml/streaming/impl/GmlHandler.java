@@ -34,6 +34,7 @@
 import org.codice.ddf.transformer.xml.streaming.lib.SaxEventHandlerUtils;
 import org.codice.ddf.transformer.xml.streaming.lib.SaxEventToXmlElementConverter;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.io.WKTWriter;
 import org.locationtech.jts.io.gml2.GMLHandler;
 import org.slf4j.Logger;
@@ -45,8 +46,11 @@
  * A sax event handler to handle GML sax events and stores the data as a WKT. Delegates GML events
  * to {@link org.locationtech.jts.io.gml2.GMLHandler}. Uses {@link
  * org.locationtech.jts.io.WKTWriter} to write the Geometries to WKT. Note: ONLY CAN PARSE GML2
- * points. Will throw hard-to-debug Null Pointer Exceptions if used with GML3 or other GML2
- * geometries. {@inheritDoc}
+ * points. Will throw hard-to-debug Null Pointer Exceptions if used with other GML2 geometries.
+ *
+ * <p>GML3 geometries are built directly from the sax events by a {@link Gml3GeometryBuilder}. The
+ * events are also recorded as XML so that geometries the builder does not support can be converted
+ * by the {@link Gml3ToWkt} converter instead. {@inheritDoc}
  */
 public class GmlHandler extends AbstractSaxEventHandler {
 
@@ -68,6 +72,8 @@ public class GmlHandler extends AbstractSaxEventHandler {
 
   private Gml3ToWkt gml3Converter;
 
+  private Gml3GeometryBuilder gml3GeometryBuilder;
+
   private Deque<String> state;
 
   private SaxEventHandlerUtils saxEventHandlerUtils = new SaxEventHandlerUtils();
@@ -81,6 +87,7 @@ public GmlHandler(GMLHandler gmlHandler, Gml3ToWkt gml3Converter) {
     this.gh = gmlHandler;
     this.gml3Converter = gml3Converter;
     wktWriter = new WKTWriter();
+    gml3GeometryBuilder = new Gml3GeometryBuilder(new GeometryFactory());
     attributes = new ArrayList<>();
     try {
       gml3Element = new SaxEventToXmlElementConverter();
@@ -136,7 +143,8 @@ public void startElement(String uri, String localName, String qName, Attributes
       } catch (XMLStreamException e) {
         LOGGER.debug("Error writing toElement in SaxEventToXmlConverter()", e);
       }
-      if (localName.equalsIgnoreCase("pos")) {
+      gml3GeometryBuilder.startElement(localName, attributes);
+      if (isGml3Coordinates(localName)) {
         readingGml3 = true;
       }
       if (!readingGml3) {
@@ -171,6 +179,7 @@ public void endElement(String namespaceURI, String localName, String qName) {
       } catch (XMLStreamException e) {
         LOGGER.debug("Error writing to element in SaxEventToXmlConverter()", e);
       }
+      gml3GeometryBuilder.endElement(localName);
       if (!readingGml3) {
         try {
           gh.endElement(namespaceURI, localName, qName);
@@ -185,17 +194,11 @@ public void endElement(String namespaceURI, String localName, String qName) {
           Geometry geo = gh.getGeometry();
           attributes.add(new AttributeImpl(Metacard.GEOGRAPHY, wktWriter.write(geo)));
         } else {
-          try {
-            attributes.add(
-                new AttributeImpl(
-                    Metacard.GEOGRAPHY, gml3Converter.convert(gml3Element.toString())));
-          } catch (ValidationException e) {
-            this.attributes.add(
-                new AttributeImpl(Validation.VALIDATION_ERRORS, "geospatial-handler"));
-          }
+          addGml3Geometry();
         }
         readingGml3 = false;
         gml3Element.reset();
+        gml3GeometryBuilder.reset();
       }
     }
   }
@@ -221,6 +224,7 @@ public void characters(char[] ch, int start, int length) {
       } catch (XMLStreamException e) {
         LOGGER.debug("Error writing to element in SaxEventToXmlConverter()", e);
       }
+      gml3GeometryBuilder.characters(ch, start, length);
       if (!readingGml3) {
         try {
           gh.characters(ch, start, length);
@@ -230,4 +234,26 @@ public void characters(char[] ch, int start, int length) {
       }
     }
   }
+
+  private void addGml3Geometry() {
+    Geometry geometry = gml3GeometryBuilder.getGeometry();
+    if (geometry != null) {
+      attributes.add(new AttributeImpl(Metacard.GEOGRAPHY, wktWriter.write(geometry)));
+      return;
+    }
+
+    try {
+      attributes.add(
+          new AttributeImpl(Metacard.GEOGRAPHY, gml3Converter.convert(gml3Element.toString())));
+    } catch (ValidationException e) {
+      this.attributes.add(new AttributeImpl(Validation.VALIDATION_ERRORS, "geospatial-handler"));
+    }
+  }
+
+  private static boolean isGml3Coordinates(String localName) {
+    return localName.equalsIgnoreCase("pos")
+        || localName.equalsIgnoreCase("posList")
+        || localName.equalsIgnoreCase("lowerCorner")
+        || localName.equalsIgnoreCase("upperCorner");
+  }
 }
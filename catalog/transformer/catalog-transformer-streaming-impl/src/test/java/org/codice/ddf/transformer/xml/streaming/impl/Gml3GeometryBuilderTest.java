@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.transformer.xml.streaming.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.StringReader;
+import javax.xml.parsers.SAXParserFactory;
+import org.codice.ddf.transformer.xml.streaming.Gml3ToWkt;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.WKTWriter;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class Gml3GeometryBuilderTest {
+
+  private static final String GML = "xmlns:gml=\"http://www.opengis.net/gml\"";
+
+  private Gml3GeometryBuilder builder;
+
+  private Gml3ToWkt gml3ToWkt;
+
+  @Before
+  public void setUp() {
+    builder = new Gml3GeometryBuilder(new GeometryFactory());
+    gml3ToWkt = Gml3ToWktImpl.newGml3ToWkt();
+  }
+
+  @Test
+  public void testPoint() throws Exception {
+    assertMatchesConverter("<gml:Point " + GML + "><gml:pos>1.5 -2</gml:pos></gml:Point>");
+  }
+
+  @Test
+  public void testLineStringPosList() throws Exception {
+    assertMatchesConverter(
+        "<gml:LineString " + GML + "><gml:posList>0 0\n 1 1 2\t2</gml:posList></gml:LineString>");
+  }
+
+  @Test
+  public void testPolygonPosListWithThreeDimensions() throws Exception {
+    assertMatchesConverter(
+        "<gml:Polygon "
+            + GML
+            + "><gml:exterior><gml:LinearRing><gml:posList srsDimension=\"3\">"
+            + "0 0 5 0 10 5 10 10 5 0 0 5"
+            + "</gml:posList></gml:LinearRing></gml:exterior></gml:Polygon>");
+  }
+
+  @Test
+  public void testPolygonWithHole() throws Exception {
+    assertMatchesConverter(
+        "<gml:Polygon "
+            + GML
+            + "><gml:exterior><gml:LinearRing>"
+            + "<gml:posList>35 10 10 20 15 40 45 45 35 10</gml:posList>"
+            + "</gml:LinearRing></gml:exterior><gml:interior><gml:LinearRing>"
+            + "<gml:posList>20 30 35 35 30 20 20 30</gml:posList>"
+            + "</gml:LinearRing></gml:interior></gml:Polygon>");
+  }
+
+  @Test
+  public void testEnvelope() throws Exception {
+    assertMatchesConverter(
+        "<gml:Envelope "
+            + GML
+            + "><gml:lowerCorner>1.0 0.0</gml:lowerCorner>"
+            + "<gml:upperCorner>0.0 1.0</gml:upperCorner></gml:Envelope>");
+  }
+
+  @Test
+  public void testMultiSurface() throws Exception {
+    assertMatchesConverter(
+        "<gml:MultiSurface "
+            + GML
+            + "><gml:surfaceMember><gml:Polygon><gml:exterior><gml:LinearRing>"
+            + "<gml:posList>0 0 0 1 1 1 0 0</gml:posList>"
+            + "</gml:LinearRing></gml:exterior></gml:Polygon></gml:surfaceMember>"
+            + "<gml:surfaceMember><gml:Polygon><gml:exterior><gml:LinearRing>"
+            + "<gml:posList>5 5 5 6 6 6 5 5</gml:posList>"
+            + "</gml:LinearRing></gml:exterior></gml:Polygon></gml:surfaceMember>"
+            + "</gml:MultiSurface>");
+  }
+
+  @Test
+  public void testUnsupportedGeometry() throws Exception {
+    Geometry geometry =
+        build(
+            "<gml:Curve "
+                + GML
+                + "><gml:segments><gml:LineStringSegment><gml:posList>0 0 1 1</gml:posList>"
+                + "</gml:LineStringSegment></gml:segments></gml:Curve>");
+
+    assertThat(geometry, is(nullValue()));
+  }
+
+  @Test
+  public void testUnclosedRing() throws Exception {
+    Geometry geometry =
+        build(
+            "<gml:Polygon "
+                + GML
+                + "><gml:exterior><gml:LinearRing><gml:posList>0 0 0 1 1 1 1 0</gml:posList>"
+                + "</gml:LinearRing></gml:exterior></gml:Polygon>");
+
+    assertThat(geometry, is(nullValue()));
+  }
+
+  @Test
+  public void testOddNumberOfOrdinates() throws Exception {
+    Geometry geometry =
+        build("<gml:LineString " + GML + "><gml:posList>0 0 1</gml:posList></gml:LineString>");
+
+    assertThat(geometry, is(nullValue()));
+  }
+
+  private void assertMatchesConverter(String gml) throws Exception {
+    assertThat(new WKTWriter().write(build(gml)), is(gml3ToWkt.convert(gml)));
+  }
+
+  private Geometry build(String gml) throws Exception {
+    builder.reset();
+    SAXParserFactory factory = SAXParserFactory.newInstance();
+    factory.setNamespaceAware(true);
+    factory
+        .newSAXParser()
+        .parse(
+            new InputSource(new StringReader(gml)),
+            new DefaultHandler() {
+              @Override
+              public void startElement(
+                  String uri, String localName, String qName, Attributes attributes) {
+                builder.startElement(localName, attributes);
+              }
+
+              @Override
+              public void endElement(String uri, String localName, String qName) {
+                builder.endElement(localName);
+              }
+
+              @Override
+              public void characters(char[] ch, int start, int length) {
+                builder.characters(ch, start, length);
+              }
+            });
+    return builder.getGeometry();
+  }
+}
@@ -164,12 +164,30 @@ public void testGml3Conversion() throws FileNotFoundException, CatalogTransforme
   }
 
   @Test
-  public void testBadGml3Converter()
+  public void testGml3ConversionWithoutConverter()
       throws FileNotFoundException, CatalogTransformerException, ValidationException {
     inputStream = new FileInputStream("src/test/resources/metacard1.xml");
     xmlInputTransformer = new XmlInputTransformer();
     xmlInputTransformer.setSaxEventHandlerConfiguration(Collections.singletonList("gml-handler"));
     GmlHandlerFactory factory = new GmlHandlerFactory();
+    Gml3ToWkt unusedGml3toWkt = mock(Gml3ToWkt.class);
+    when(unusedGml3toWkt.convert(anyString())).thenThrow(new ValidationExceptionImpl());
+    factory.setGml3ToWkt(unusedGml3toWkt);
+    xmlInputTransformer.setSaxEventHandlerFactories(Collections.singletonList(factory));
+    Metacard metacard = xmlInputTransformer.transform(inputStream);
+    assertThat(
+        metacard.getAttribute(Metacard.GEOGRAPHY).getValue(),
+        is("POLYGON ((10 35, 20 10, 40 15, 45 45, 10 35), (30 20, 35 35, 20 30, 30 20))"));
+    assertThat(metacard.getAttribute(Validation.VALIDATION_ERRORS), is(nullValue()));
+  }
+
+  @Test
+  public void testBadGml3Converter()
+      throws FileNotFoundException, CatalogTransformerException, ValidationException {
+    inputStream = new FileInputStream("src/test/resources/metacard3.xml");
+    xmlInputTransformer = new XmlInputTransformer();
+    xmlInputTransformer.setSaxEventHandlerConfiguration(Collections.singletonList("gml-handler"));
+    GmlHandlerFactory factory = new GmlHandlerFactory();
     Gml3ToWkt badGml3toWkt = mock(Gml3ToWkt.class);
     when(badGml3toWkt.convert(anyString())).thenThrow(new ValidationExceptionImpl());
     factory.setGml3ToWkt(badGml3toWkt);
@@ -20,12 +20,13 @@
 import ddf.catalog.util.Describable;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.codice.ddf.platform.util.TemporaryFileBackedOutputStream;
 import org.codice.ddf.transformer.xml.streaming.SaxEventHandler;
 import org.codice.ddf.transformer.xml.streaming.SaxEventHandlerFactory;
 import org.slf4j.Logger;
@@ -40,6 +41,8 @@ public class XmlInputTransformer implements InputTransformer, Describable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(XmlInputTransformer.class);
 
+  private static final int DEFAULT_METADATA_FILE_THRESHOLD = 1000000;
+
   /*
    * The Describable attributes that can be used to describe this (specific configuration of) transformer
    */
@@ -66,6 +69,14 @@ public class XmlInputTransformer implements InputTransformer, Describable {
    */
   private List<String> saxEventHandlerConfiguration;
 
+  /*
+   * Number of bytes of metadata kept in memory while parsing, past which the copy of the metadata
+   * is written to a temporary file instead. This only bounds memory while parsing: once parsing
+   * completes, the metadata is read back into the Metacard.METADATA attribute as a String.
+   * Set through the metatype, generally
+   */
+  private int metadataFileThreshold = DEFAULT_METADATA_FILE_THRESHOLD;
+
   /**
    * Method to create a new {@link SaxEventHandlerDelegate}, configured to parse a metacard
    * according to {@link XmlInputTransformer#saxEventHandlerConfiguration} and {@link
@@ -111,10 +122,12 @@ public Metacard transform(InputStream inputStream) throws CatalogTransformerExce
      */
     SaxEventHandlerDelegate delegate = create();
     /*
-     * Split the input stream, so that we can use it for parsing as well as read it into the Metacard.METADATA attribute
+     * Split the input stream, so that we can use it for parsing as well as read it into the Metacard.METADATA attribute.
+     * The copy spills to a temporary file once it gets large, so the parser does not run alongside a full in memory copy
      */
-    try (OutputStream baos = new ByteArrayOutputStream();
-        OutputStream outputStream = new BufferedOutputStream(baos);
+    try (TemporaryFileBackedOutputStream metadataCopy =
+            new TemporaryFileBackedOutputStream(metadataFileThreshold);
+        OutputStream outputStream = new BufferedOutputStream(metadataCopy);
         InputStream teeInputStream =
             new BufferedInputStream(delegate.getMetadataStream(inputStream, outputStream))) {
 
@@ -129,7 +142,7 @@ public Metacard transform(InputStream inputStream) throws CatalogTransformerExce
        * with no metadata
        */
       outputStream.flush();
-      String metadata = baos.toString();
+      String metadata = metadataCopy.asByteSource().asCharSource(StandardCharsets.UTF_8).read();
       if (metadata.isEmpty()) {
         throw new CatalogTransformerException(
             "Metadata is empty from output stream. Could not properly parse metacard.");
@@ -183,6 +196,16 @@ public void setSaxEventHandlerConfiguration(List<String> saxEventHandlerConfigur
     this.saxEventHandlerConfiguration = saxEventHandlerConfiguration;
   }
 
+  /**
+   * Setter to set the number of bytes of metadata kept in memory while a metacard is parsed, past
+   * which the metadata is buffered to a temporary file until parsing completes
+   *
+   * @param metadataFileThreshold a number of bytes
+   */
+  public void setMetadataFileThreshold(int metadataFileThreshold) {
+    this.metadataFileThreshold = metadataFileThreshold;
+  }
+
   @Override
   public String getVersion() {
     return version;
@@ -35,6 +35,9 @@
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -68,6 +71,31 @@ public void testNormalTransform() throws FileNotFoundException, CatalogTransform
     assertThat(metacard.getAttribute(Metacard.ID).getValue(), is("test"));
   }
 
+  @Test
+  public void testTransformWithMetadataLargerThanFileThreshold()
+      throws IOException, CatalogTransformerException {
+    SaxEventHandlerFactory saxEventHandlerFactory = mock(SaxEventHandlerFactory.class);
+    when(saxEventHandlerFactory.getId()).thenReturn("test");
+    SaxEventHandler handler = getNewHandler();
+    when(saxEventHandlerFactory.getNewSaxEventHandler()).thenReturn(handler);
+    XmlInputTransformer xmlInputTransformer = new XmlInputTransformer();
+    xmlInputTransformer.setSaxEventHandlerConfiguration(Collections.singletonList("test"));
+    xmlInputTransformer.setSaxEventHandlerFactories(
+        Collections.singletonList(saxEventHandlerFactory));
+    xmlInputTransformer.setMetadataFileThreshold(16);
+
+    Metacard metacard;
+    try (InputStream inputStream = new FileInputStream("src/test/resources/metacard2.xml")) {
+      metacard = xmlInputTransformer.transform(inputStream, "test");
+    }
+
+    String expected =
+        new String(
+            Files.readAllBytes(Paths.get("src/test/resources/metacard2.xml")),
+            StandardCharsets.UTF_8);
+    assertThat(metacard.getAttribute(Metacard.METADATA).getValue(), is(expected));
+  }
+
   @Test(expected = CatalogTransformerException.class)
   public void testBadInputTransform() throws FileNotFoundException, CatalogTransformerException {
 
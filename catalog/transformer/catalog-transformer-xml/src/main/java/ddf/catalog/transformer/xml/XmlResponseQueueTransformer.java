@@ -26,20 +26,26 @@
 import ddf.catalog.transformer.api.PrintWriter;
 import ddf.catalog.transformer.api.PrintWriterProvider;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
-import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveTask;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ForkJoinTask;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
-import javax.xml.bind.DataBindingException;
 import org.codice.ddf.parser.Parser;
 import org.codice.ddf.platform.util.ForkJoinPoolFactory;
 import org.slf4j.Logger;
@@ -55,110 +61,165 @@ public class XmlResponseQueueTransformer extends AbstractXmlTransformer
 
   public static final int BUFFER_SIZE = 1024;
 
-  private static class MetacardForkTask extends RecursiveTask<StringWriter> {
-    private static final long serialVersionUID = 1L;
+  /**
+   * Streams the marshalled metacards of a response. Results are marshalled in chunks on the fork
+   * join pool, at most one chunk per pool thread ahead of the reader, and the chunks are read back
+   * in order as soon as each one is complete. Chunk buffers are reused once read, so memory is
+   * bounded by the pool parallelism times the chunk size rather than by the size of the response.
+   */
+  private class MetacardStream extends InputStream {
+
+    private final List<Result> results;
+
+    private final int chunkSize;
+
+    private final Deque<ForkJoinTask<ChunkBuffer>> pending = new ArrayDeque<>();
 
-    private final transient ImmutableList<Result> resultList;
+    private final Queue<ChunkBuffer> buffers = new ConcurrentLinkedQueue<>();
 
-    private final transient ForkJoinPool fjp;
+    private final byte[] footer;
 
-    private final transient GeometryTransformer geometryTransformer;
+    private int nextChunk;
 
-    private final int threshold;
+    private InputStream current;
 
-    private final AtomicBoolean cancelOperation;
+    private ChunkBuffer currentBuffer;
+
+    private boolean footerRead;
+
+    private volatile boolean closed;
+
+    MetacardStream(List<Result> results, int chunkSize, byte[] header, byte[] footer) {
+      this.results = results;
+      this.chunkSize = Math.max(chunkSize, 1);
+      this.footer = footer;
+      current = new ByteArrayInputStream(header);
+      for (int i = 0; i < fjp.getParallelism() && nextChunk < results.size(); i++) {
+        submitNextChunk();
+      }
+    }
 
-    private final transient MetacardMarshaller metacardMarshaller;
+    /** Waits for the first chunk so that failures to marshal it are reported to the caller. */
+    void awaitFirstChunk() throws IOException {
+      ForkJoinTask<ChunkBuffer> first = pending.peek();
+      if (first != null) {
+        join(first);
+      }
+    }
 
-    MetacardForkTask(
-        ImmutableList<Result> resultList,
-        ForkJoinPool fjp,
-        GeometryTransformer geometryTransformer,
-        int threshold,
-        MetacardMarshaller mcm) {
-      this(resultList, fjp, geometryTransformer, threshold, new AtomicBoolean(false), mcm);
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
     }
 
-    private MetacardForkTask(
-        ImmutableList<Result> resultList,
-        ForkJoinPool fjp,
-        GeometryTransformer geometryTransformer,
-        int threshold,
-        AtomicBoolean cancelOperation,
-        MetacardMarshaller mcm) {
-      this.resultList = resultList;
-      this.fjp = fjp;
-      this.geometryTransformer = geometryTransformer;
-      this.threshold = threshold;
-      this.cancelOperation = cancelOperation;
-      this.metacardMarshaller = mcm;
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (len == 0) {
+        return 0;
+      }
+
+      while (current != null) {
+        int read = current.read(b, off, len);
+        if (read > 0) {
+          return read;
+        }
+        advance();
+      }
+      return -1;
     }
 
     @Override
-    protected StringWriter compute() {
-      if (cancelOperation.get()) {
-        return null;
+    public void close() {
+      closed = true;
+      current = null;
+      for (ForkJoinTask<ChunkBuffer> task : pending) {
+        task.cancel(false);
+      }
+      pending.clear();
+    }
+
+    private void advance() throws IOException {
+      if (currentBuffer != null) {
+        buffers.offer(currentBuffer);
+        currentBuffer = null;
       }
 
-      if (resultList.size() < threshold) {
-        return doCompute();
+      ForkJoinTask<ChunkBuffer> next = pending.poll();
+      if (next != null) {
+        currentBuffer = join(next);
+        current = currentBuffer.toInputStream();
+        submitNextChunk();
+      } else if (!footerRead) {
+        footerRead = true;
+        current = new ByteArrayInputStream(footer);
       } else {
-        int half = resultList.size() / 2;
-
-        MetacardForkTask fLeft =
-            new MetacardForkTask(
-                resultList.subList(0, half),
-                fjp,
-                geometryTransformer,
-                threshold,
-                cancelOperation,
-                metacardMarshaller);
-        fLeft.fork();
-        MetacardForkTask fRight =
-            new MetacardForkTask(
-                resultList.subList(half, resultList.size()),
-                fjp,
-                geometryTransformer,
-                threshold,
-                cancelOperation,
-                metacardMarshaller);
-        StringWriter rightList = fRight.compute();
-        StringWriter leftList = fLeft.join();
-
-        leftList.append(rightList.getBuffer());
-        return leftList;
+        current = null;
+      }
+    }
+
+    private void submitNextChunk() {
+      if (nextChunk >= results.size()) {
+        return;
       }
-    } // end compute()
 
-    private StringWriter doCompute() {
-      StringWriter sw = new StringWriter(BUFFER_SIZE);
+      List<Result> chunk =
+          results.subList(nextChunk, Math.min(nextChunk + chunkSize, results.size()));
+      nextChunk += chunk.size();
+      pending.add(fjp.submit(() -> marshal(chunk)));
+    }
+
+    private ChunkBuffer marshal(List<Result> chunk)
+        throws XmlPullParserException, IOException, CatalogTransformerException {
+      ChunkBuffer buffer = buffers.poll();
+      if (buffer == null) {
+        buffer = new ChunkBuffer(BUFFER_SIZE * chunk.size());
+      }
+      buffer.reset();
+
       Map<String, Serializable> args = new HashMap<>();
       args.put(MetacardMarshallerImpl.OMIT_XML_DECL, Boolean.TRUE);
-      try {
-        for (Result result : resultList) {
-          Metacard metacard = result.getMetacard();
-          String xmlString = metacardMarshaller.marshal(metacard, args);
-          sw.append(xmlString);
+      Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+      for (Result result : chunk) {
+        if (closed) {
+          break;
         }
-      } catch (XmlPullParserException | IOException | CatalogTransformerException e) {
-        cancelOperation.set(true);
-        throw new DataBindingException("Failure to write node; operation aborted", e);
+        writer.write(metacardMarshaller.marshal(result.getMetacard(), args));
       }
-      return sw;
+      writer.flush();
+      return buffer;
     }
 
-    private void writeObject(ObjectOutputStream stream) throws IOException {
-      stream.defaultWriteObject();
+    private ChunkBuffer join(ForkJoinTask<ChunkBuffer> task) throws IOException {
+      try {
+        return task.get();
+      } catch (ExecutionException e) {
+        close();
+        throw new IOException("Failure to write node; operation aborted", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        close();
+        throw new InterruptedIOException("Interrupted while marshalling metacards");
+      }
     }
+  }
 
-    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
-      stream.defaultReadObject();
+  /** Byte buffer that can be read back without copying its content. */
+  private static class ChunkBuffer extends ByteArrayOutputStream {
+
+    ChunkBuffer(int size) {
+      super(size);
     }
-  } // end MetacardForkTask class
 
-  private final ForkJoinPool fjp;
+    InputStream toInputStream() {
+      return new ByteArrayInputStream(buf, 0, count);
+    }
+  }
 
-  private final GeometryTransformer geometryTransformer;
+  private final ForkJoinPool fjp;
 
   private final PrintWriterProvider printWriterProvider;
 
@@ -199,7 +260,6 @@ public XmlResponseQueueTransformer(
       Parser parser, PrintWriterProvider pwp, MetacardMarshaller mcm, MimeType mimeType) {
     super(parser);
     this.fjp = ForkJoinPoolFactory.getNewForkJoinPool(null, false);
-    geometryTransformer = new GeometryTransformer(parser);
     this.printWriterProvider = pwp;
     this.metacardMarshaller = mcm;
     this.mimeType = mimeType;
@@ -213,8 +273,9 @@ public XmlResponseQueueTransformer(
   }
 
   /**
-   * @param threshold the fork threshold: result lists smaller than this size will be processed
-   *     serially; larger than this size will be processed in threshold-sized chunks in parallel
+   * @param threshold the chunk size: result lists up to this size will be processed serially;
+   *     larger than this size will be processed in threshold-sized chunks in parallel and written
+   *     in order as each chunk completes
    */
   public void setThreshold(int threshold) {
     this.threshold = threshold <= 1 ? 2 : threshold;
@@ -232,25 +293,30 @@ public BinaryContent transform(SourceResponse response, Map<String, Serializable
         writer.addAttribute(nsRow.getKey(), nsRow.getValue());
       }
 
-      if (response.getResults() != null && !response.getResults().isEmpty()) {
-        StringWriter metacardContent =
-            fjp.invoke(
-                new MetacardForkTask(
-                    ImmutableList.copyOf(response.getResults()),
-                    fjp,
-                    geometryTransformer,
-                    threshold,
-                    metacardMarshaller));
-
-        writer.setRawValue(metacardContent.getBuffer().toString());
+      if (response.getResults() == null || response.getResults().isEmpty()) {
+        writer.endNode(); // metacards
+
+        ByteArrayInputStream bais =
+            new ByteArrayInputStream(writer.makeString().getBytes(StandardCharsets.UTF_8));
+
+        return new BinaryContentImpl(bais, mimeType);
       }
 
+      writer.setRawValue("");
+      writer.flush();
+      String header = writer.makeString();
       writer.endNode(); // metacards
+      String footer = writer.makeString().substring(header.length());
 
-      ByteArrayInputStream bais =
-          new ByteArrayInputStream(writer.makeString().getBytes(StandardCharsets.UTF_8));
+      MetacardStream metacards =
+          new MetacardStream(
+              ImmutableList.copyOf(response.getResults()),
+              threshold,
+              header.getBytes(StandardCharsets.UTF_8),
+              footer.getBytes(StandardCharsets.UTF_8));
+      metacards.awaitFirstChunk();
 
-      return new BinaryContentImpl(bais, mimeType);
+      return new BinaryContentImpl(metacards, mimeType);
     } catch (Exception e) {
       LOGGER.info("Failed Query response transformation", e);
       throw new CatalogTransformerException("Failed Query response transformation");
@@ -22,6 +22,7 @@
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -391,6 +392,55 @@ public void testCompareSerialToFork()
     assertEquals(serialOutput.replaceAll("\\s", ""), forkOutput.replaceAll("\\s", ""));
   }
 
+  @Test
+  public void testChunksAreWrittenInOrder()
+      throws CatalogTransformerException, IOException, XpathException, SAXException {
+    // given
+    transformer.setThreshold(3);
+
+    Metacard[] metacards = new Metacard[20];
+    for (int i = 0; i < metacards.length; i++) {
+      metacards[i] = new MetacardStub("source" + i, "id" + i);
+    }
+    SourceResponse response = givenSourceResponse(metacards);
+
+    // when
+    BinaryContent binaryContent = transformer.transform(response, null);
+
+    // then
+    String output = new String(binaryContent.getByteArray());
+
+    assertXpathEvaluatesTo("20", "count(/mc:metacards/mc:metacard)", output);
+    for (int i = 0; i < metacards.length; i++) {
+      assertXpathEvaluatesTo(
+          "id" + i, "/mc:metacards/mc:metacard[" + (i + 1) + "]/@gml:id", output);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testMarshallingFailureAfterFirstChunk()
+      throws IOException, CatalogTransformerException, XmlPullParserException,
+          MimeTypeParseException {
+    Metacard failing = new MetacardStub("source3", "id3");
+    SourceResponse response =
+        givenSourceResponse(
+            new MetacardStub("source1", "id1"), new MetacardStub("source2", "id2"), failing);
+
+    MetacardMarshaller mockMetacardMarshaller = mock(MetacardMarshaller.class);
+    when(mockMetacardMarshaller.marshal(any(Metacard.class), any(Map.class))).thenReturn("");
+    when(mockMetacardMarshaller.marshal(eq(failing), any(Map.class)))
+        .thenThrow(new XmlPullParserException(""));
+
+    XmlResponseQueueTransformer xrqt =
+        new XmlResponseQueueTransformer(
+            parser, new PrintWriterProviderImpl(), mockMetacardMarshaller, getMimeType());
+    xrqt.setThreshold(2);
+
+    BinaryContent binaryContent = xrqt.transform(response, null);
+
+    binaryContent.getByteArray();
+  }
+
   @Test
   public void testXmlResponseQueueTransformer() throws Exception {
 
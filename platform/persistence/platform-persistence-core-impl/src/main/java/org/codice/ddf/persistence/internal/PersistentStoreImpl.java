@@ -109,7 +109,10 @@ public void add(String type, Collection<Map<String, Object>> items) throws Persi
     }
 
     try {
-      UpdateResponse response = solrClient.add(inputDocuments, commitNrtCommitWithinMs);
+      UpdateResponse response =
+          clientFactory
+              .getUpdateBatcher(type)
+              .add(solrClient, inputDocuments, commitNrtCommitWithinMs);
       LOGGER.debug("UpdateResponse from add of SolrInputDocument:  {}", response);
     } catch (SolrServerException | SolrException | IOException e) {
       LOGGER.info("Exception while adding Solr index for persistent type {}", type, e);
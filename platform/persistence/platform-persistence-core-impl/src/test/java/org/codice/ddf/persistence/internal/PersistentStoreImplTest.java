@@ -39,6 +39,7 @@
 import org.codice.ddf.persistence.PersistenceException;
 import org.codice.ddf.persistence.PersistentItem;
 import org.codice.solr.client.solrj.SolrClient;
+import org.codice.solr.client.solrj.SolrUpdateBatcher;
 import org.codice.solr.factory.SolrClientFactory;
 import org.junit.Before;
 import org.junit.Test;
@@ -69,9 +70,12 @@ public void setup() throws Exception {
   @Test
   public void testAdd() throws Exception {
     ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
-    PersistentItem props = new PersistentItem();
-    props.addProperty("property", "value");
-    persistentStore.add("testcore", props);
+    try (SolrUpdateBatcher batcher = new SolrUpdateBatcher("testcore")) {
+      when(solrClientFactory.getUpdateBatcher("testcore")).thenReturn(batcher);
+      PersistentItem props = new PersistentItem();
+      props.addProperty("property", "value");
+      persistentStore.add("testcore", props);
+    }
     verify(solrClient).add(captor.capture(), any(Integer.class));
     List docs = captor.getValue();
     assertThat(docs.size(), equalTo(1));
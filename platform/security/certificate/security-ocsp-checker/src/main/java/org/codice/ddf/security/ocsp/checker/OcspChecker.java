@@ -16,11 +16,17 @@
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import ddf.security.SecurityConstants;
 import ddf.security.audit.SecurityLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.AccessController;
@@ -33,6 +39,9 @@
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -41,8 +50,17 @@
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
+import javax.security.auth.x500.X500Principal;
 import javax.ws.rs.ProcessingException;
 import javax.ws.rs.core.Response;
 import org.apache.cxf.jaxrs.client.WebClient;
@@ -74,6 +92,7 @@
 import org.codice.ddf.cxf.client.ClientBuilder;
 import org.codice.ddf.cxf.client.ClientBuilderFactory;
 import org.codice.ddf.cxf.client.SecureCxfClientFactory;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.codice.ddf.security.OcspService;
 import org.codice.ddf.system.alerts.NoticePriority;
 import org.codice.ddf.system.alerts.SystemNotice;
@@ -82,22 +101,75 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Checks certificates against OCSP servers.
+ *
+ * <p>The outcome of the check of each certificate is cached, keyed by its issuer and serial number,
+ * until the earliest nextUpdate time of the OCSP responses it is based on. Responses without a
+ * nextUpdate time, or with a thisUpdate time in the future, are not cached, and neither are
+ * outcomes based on an unknown status or a failed request. Cached outcomes that are still in use
+ * when they near their nextUpdate time are refreshed in the background, and concurrent checks of
+ * the same certificate share a single round of OCSP requests.
+ */
 public class OcspChecker implements OcspService {
   private static final Logger LOGGER = LoggerFactory.getLogger(OcspChecker.class);
   private static final String NOT_VERIFIED_MSG = " The certificate status could not be verified.";
   private static final String CONTINUING_MSG = " Continuing OCSP check.";
 
+  private static final String METRICS_PREFIX = "ddf.security.ocsp";
+
+  private static final int DEFAULT_CACHE_SIZE = 1000;
+
+  // cached outcomes are refreshed during the last fifth of the validity period of their responses
+  private static final int REFRESH_DIVISOR = 5;
+
+  // allowed clock skew between this server and the OCSP responders
+  private static final long MAX_CLOCK_SKEW_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
   private final ClientBuilderFactory factory;
   private final EventAdmin eventAdmin;
+  private final ExecutorService refreshExecutor;
+
+  private final ConcurrentMap<CertificateKey, CompletableFuture<OcspCheck>> checksInProgress =
+      new ConcurrentHashMap<>();
+
+  private final Counter cacheHits = Metrics.counter(METRICS_PREFIX + ".cache.hits");
+
+  private final Counter cacheMisses = Metrics.counter(METRICS_PREFIX + ".cache.misses");
+
+  private final DistributionSummary latency =
+      DistributionSummary.builder(METRICS_PREFIX + ".latency")
+          .description("Latency of OCSP checks that were not answered from the cache.")
+          .baseUnit("milliseconds")
+          .publishPercentiles(0.5, 0.95)
+          .register(Metrics.globalRegistry);
 
   private boolean ocspEnabled; // metatype value
   private List<URI> ocspServerUrls = new ArrayList<>(); // metatype value
+  private int ocspCacheSize = DEFAULT_CACHE_SIZE; // metatype value
+
+  private volatile Cache<CertificateKey, OcspCheck> ocspCache = newCache(DEFAULT_CACHE_SIZE);
 
   private SecurityLogger securityLogger;
 
   public OcspChecker(ClientBuilderFactory factory, EventAdmin eventAdmin) {
+    this(
+        factory,
+        eventAdmin,
+        Executors.newSingleThreadExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("ocspRefreshThread")));
+  }
+
+  @VisibleForTesting
+  OcspChecker(
+      ClientBuilderFactory factory, EventAdmin eventAdmin, ExecutorService refreshExecutor) {
     this.factory = factory;
     this.eventAdmin = eventAdmin;
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  public void destroy() {
+    refreshExecutor.shutdownNow();
   }
 
   /**
@@ -118,10 +190,7 @@ public boolean passesOcspCheck(X509Certificate[] certs) {
     LOGGER.debug("OCSP check for {} certificate(s)", certs == null ? "0" : certs.length);
     for (X509Certificate cert : certs) {
       try {
-        Certificate certificate = convertToBouncyCastleCert(cert);
-        OCSPReq ocspRequest = generateOcspRequest(certificate);
-        Map<URI, CertificateStatus> ocspStatuses = sendOcspRequests(cert, ocspRequest);
-        URI revokedStatusUrl = getFirstRevokedStatusUrl(ocspStatuses);
+        URI revokedStatusUrl = getOcspCheck(cert).revokedStatusUrl;
         if (revokedStatusUrl != null) {
           securityLogger.audit(
               "Certificate {} has been revoked by the OCSP server at URL {}.",
@@ -143,6 +212,102 @@ public boolean passesOcspCheck(X509Certificate[] certs) {
     return true;
   }
 
+  /**
+   * Returns the cached outcome of the OCSP check of the given {@param cert}, or checks it if there
+   * is no such outcome or if it expired. Schedules a refresh of the cached outcome if it nears its
+   * expiry.
+   *
+   * @param cert - the certificate to check.
+   * @return the outcome of the OCSP check.
+   * @throws OcspCheckerException if the certificate could not be checked.
+   */
+  private OcspCheck getOcspCheck(X509Certificate cert) throws OcspCheckerException {
+    CertificateKey key = new CertificateKey(cert);
+    OcspCheck cached = ocspCache.getIfPresent(key);
+    long now = System.currentTimeMillis();
+
+    if (cached != null && now < cached.expiresAt) {
+      cacheHits.increment();
+      if (now >= cached.refreshAt && cached.refreshing.compareAndSet(false, true)) {
+        LOGGER.debug("Refreshing the cached OCSP status of certificate {}.", key);
+        refreshExecutor.execute(() -> refreshOcspCheck(key, cert));
+      }
+      return cached;
+    }
+
+    cacheMisses.increment();
+    return checkCertificate(key, cert, false);
+  }
+
+  private void refreshOcspCheck(CertificateKey key, X509Certificate cert) {
+    try {
+      checkCertificate(key, cert, true);
+    } catch (OcspCheckerException e) {
+      LOGGER.debug("Unable to refresh the cached OCSP status of certificate {}.", key, e);
+    }
+  }
+
+  /**
+   * Checks the given {@param cert} against the OCSP servers and caches the outcome if it can be
+   * cached. If the same certificate is already being checked, waits for that check instead.
+   *
+   * @param key - the cache key of the certificate.
+   * @param cert - the certificate to check.
+   * @param refresh - true to leave a previously cached outcome in place if the new outcome cannot
+   *     be cached, until it expires.
+   * @return the outcome of the OCSP check.
+   * @throws OcspCheckerException if the certificate could not be checked.
+   */
+  private OcspCheck checkCertificate(CertificateKey key, X509Certificate cert, boolean refresh)
+      throws OcspCheckerException {
+    CompletableFuture<OcspCheck> check = new CompletableFuture<>();
+    CompletableFuture<OcspCheck> checkInProgress = checksInProgress.putIfAbsent(key, check);
+    if (checkInProgress != null) {
+      return awaitCheck(checkInProgress);
+    }
+
+    Cache<CertificateKey, OcspCheck> cache = ocspCache;
+    try {
+      long start = System.currentTimeMillis();
+      Certificate certificate = convertToBouncyCastleCert(cert);
+      OCSPReq ocspRequest = generateOcspRequest(certificate);
+      Map<URI, ResponderStatus> ocspStatuses = sendOcspRequests(cert, ocspRequest);
+      long end = System.currentTimeMillis();
+      latency.record(end - start);
+
+      OcspCheck ocspCheck =
+          new OcspCheck(getFirstRevokedStatusUrl(ocspStatuses), ocspStatuses, end);
+      if (ocspCheck.expiresAt > end) {
+        cache.put(key, ocspCheck);
+      } else if (!refresh) {
+        cache.invalidate(key);
+      }
+      check.complete(ocspCheck);
+      return ocspCheck;
+    } catch (OcspCheckerException | RuntimeException e) {
+      check.completeExceptionally(e);
+      throw e;
+    } finally {
+      checksInProgress.remove(key, check);
+    }
+  }
+
+  private OcspCheck awaitCheck(CompletableFuture<OcspCheck> check) throws OcspCheckerException {
+    try {
+      return check.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OcspCheckerException(
+          "Interrupted while waiting for the OCSP check of the certificate." + NOT_VERIFIED_MSG, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof OcspCheckerException) {
+        throw (OcspCheckerException) e.getCause();
+      }
+      throw new OcspCheckerException(
+          "Problem checking the certificate against the OCSP servers." + NOT_VERIFIED_MSG, e);
+    }
+  }
+
   /**
    * Converts a {@link java.security.cert.X509Certificate} to a {@link Certificate}.
    *
@@ -281,12 +446,12 @@ private X509CertificateHolder getCertFromTruststoreWithX500Name(
    *
    * @param cert - the {@link X509Certificate} to check.
    * @param ocspRequest - the {@link OCSPReq} to send.
-   * @return a {@link List} of {@link OCSPResp}s for every configured {@code ocspServerUrls} & the
-   *     OCSP server * urls optionally given in the given {@param cert}. Problematic responses are
-   *     represented as null values.
+   * @return a {@link Map} of the {@link ResponderStatus} returned by every configured {@code
+   *     ocspServerUrls} & the OCSP server urls optionally given in the given {@param cert}.
+   *     Problematic responses are represented as {@link UnknownStatus}es.
    */
   @VisibleForTesting
-  Map<URI, CertificateStatus> sendOcspRequests(X509Certificate cert, OCSPReq ocspRequest) {
+  Map<URI, ResponderStatus> sendOcspRequests(X509Certificate cert, OCSPReq ocspRequest) {
     Set<URI> urlsToCheck = new HashSet<>();
     if (ocspServerUrls != null) {
       urlsToCheck.addAll(ocspServerUrls);
@@ -299,7 +464,7 @@ Map<URI, CertificateStatus> sendOcspRequests(X509Certificate cert, OCSPReq ocspR
       logRequest(ocspRequest);
     }
 
-    Map<URI, CertificateStatus> ocspStatuses = new HashMap<>();
+    Map<URI, ResponderStatus> ocspStatuses = new HashMap<>();
 
     for (URI ocspServerUrl : urlsToCheck) {
       try {
@@ -328,7 +493,7 @@ Map<URI, CertificateStatus> sendOcspRequests(X509Certificate cert, OCSPReq ocspR
       }
       ocspStatuses.put(
           ocspServerUrl,
-          new UnknownStatus()); // if ocspServerUrl is null or if there was an exception
+          ResponderStatus.unknown()); // if ocspServerUrl is null or if there was an exception
     }
 
     return ocspStatuses;
@@ -397,24 +562,24 @@ private OCSPResp createOcspResponse(Response response) throws OcspCheckerExcepti
   }
 
   /**
-   * Gets the {@link CertificateStatus} from the given {@param ocspResponse}.
+   * Gets the {@link ResponderStatus} from the given {@param ocspResponse}.
    *
-   * @param ocspResponse - the {@link OCSPResp} to get the {@link CertificateStatus} from.
-   * @return the {@link CertificateStatus} from the given {@param ocspResponse}. Returns an {@link
+   * @param ocspResponse - the {@link OCSPResp} to get the {@link ResponderStatus} from.
+   * @return the {@link ResponderStatus} from the given {@param ocspResponse}. Returns an {@link
    *     UnknownStatus} if the status could not be found.
    */
-  private CertificateStatus getStatusFromOcspResponse(
+  private ResponderStatus getStatusFromOcspResponse(
       OCSPResp ocspResponse, X509Certificate certificate) {
     try {
       BasicOCSPResp basicResponse = (BasicOCSPResp) ocspResponse.getResponseObject();
 
       if (basicResponse == null) {
-        return new UnknownStatus();
+        return ResponderStatus.unknown();
       }
 
       SingleResp[] singleResps = basicResponse.getResponses();
       if (singleResps == null) {
-        return new UnknownStatus();
+        return ResponderStatus.unknown();
       }
       SingleResp response =
           Arrays.stream(singleResps)
@@ -429,30 +594,29 @@ private CertificateStatus getStatusFromOcspResponse(
               .orElse(null);
       if (response == null) {
         LOGGER.debug("Certificate status from OCSP response is unknown.");
-        return new UnknownStatus();
+        return ResponderStatus.unknown();
       }
       if (response.getCertStatus() == null) {
         LOGGER.debug("Certificate status from OCSP response is good.");
-        return CertificateStatus.GOOD;
       }
-      return response.getCertStatus();
+      return new ResponderStatus(
+          response.getCertStatus(), response.getThisUpdate(), response.getNextUpdate());
     } catch (OCSPException e) {
-      return new UnknownStatus();
+      return ResponderStatus.unknown();
     }
   }
 
   /**
    * Check if any {@link CertificateStatus} in the given {@param ocspStatuses} are revoked.
    *
-   * @param ocspStatuses - a {@link Map} of OCSP URLs and their respective {@link
-   *     CertificateStatus}.
+   * @param ocspStatuses - a {@link Map} of OCSP URLs and their respective {@link ResponderStatus}.
    * @return the URL of the first revoked status, or null if no revoked status was found.
    */
-  private @Nullable URI getFirstRevokedStatusUrl(Map<URI, CertificateStatus> ocspStatuses) {
+  private @Nullable URI getFirstRevokedStatusUrl(Map<URI, ResponderStatus> ocspStatuses) {
     return ocspStatuses
         .entrySet()
         .stream()
-        .filter(entry -> entry.getValue() instanceof RevokedStatus)
+        .filter(entry -> entry.getValue().status instanceof RevokedStatus)
         .map(Entry::getKey)
         .findFirst()
         .orElse(null);
@@ -668,6 +832,16 @@ private void logResponse(OCSPResp response) {
 
   public void setOcspEnabled(boolean ocspEnabled) {
     this.ocspEnabled = ocspEnabled;
+    ocspCache = newCache(ocspCacheSize);
+  }
+
+  public void setOcspCacheSize(int ocspCacheSize) {
+    this.ocspCacheSize = Math.max(ocspCacheSize, 0);
+    ocspCache = newCache(this.ocspCacheSize);
+  }
+
+  private static Cache<CertificateKey, OcspCheck> newCache(int size) {
+    return CacheBuilder.newBuilder().maximumSize(size).build();
   }
 
   public void setOcspServerUrls(List<String> ocspServerUrls) {
@@ -685,6 +859,7 @@ public void setOcspServerUrls(List<String> ocspServerUrls) {
                 })
             .filter(Objects::nonNull)
             .collect(Collectors.toList());
+    ocspCache = newCache(ocspCacheSize);
   }
 
   /**
@@ -709,6 +884,121 @@ public OcspCheckerException(String msg, Exception cause) {
     }
   }
 
+  /** The {@link CertificateStatus} of a certificate returned by one OCSP server. */
+  static class ResponderStatus {
+
+    private final CertificateStatus status;
+
+    private final Date thisUpdate;
+
+    private final Date nextUpdate;
+
+    ResponderStatus(
+        CertificateStatus status, @Nullable Date thisUpdate, @Nullable Date nextUpdate) {
+      this.status = status;
+      this.thisUpdate = thisUpdate;
+      this.nextUpdate = nextUpdate;
+    }
+
+    static ResponderStatus unknown() {
+      return new ResponderStatus(new UnknownStatus(), null, null);
+    }
+
+    /** @return the status, which is {@link CertificateStatus#GOOD} (null) if the cert is good */
+    CertificateStatus getStatus() {
+      return status;
+    }
+
+    /**
+     * @param now - the current time, in milliseconds.
+     * @return true if this status is good or revoked and states the period it is valid for
+     */
+    boolean isCacheable(long now) {
+      boolean definitive = status == CertificateStatus.GOOD || status instanceof RevokedStatus;
+      return definitive
+          && thisUpdate != null
+          && nextUpdate != null
+          && thisUpdate.getTime() <= now + MAX_CLOCK_SKEW_MILLIS;
+    }
+
+    long getExpiry() {
+      return nextUpdate.getTime();
+    }
+
+    long getRefreshTime() {
+      return nextUpdate.getTime()
+          - Math.max(nextUpdate.getTime() - thisUpdate.getTime(), 0) / REFRESH_DIVISOR;
+    }
+  }
+
+  /** The outcome of the OCSP check of a certificate. */
+  private static class OcspCheck {
+
+    private final URI revokedStatusUrl;
+
+    private final long expiresAt;
+
+    private final long refreshAt;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * @param revokedStatusUrl - the URL of the OCSP server that revoked the certificate, or null.
+     * @param ocspStatuses - the statuses the outcome is based on.
+     * @param now - the time of the check, in milliseconds.
+     */
+    OcspCheck(@Nullable URI revokedStatusUrl, Map<URI, ResponderStatus> ocspStatuses, long now) {
+      this.revokedStatusUrl = revokedStatusUrl;
+
+      // a revocation stands on its own, but a good outcome needs every server to agree
+      Collection<ResponderStatus> statuses =
+          revokedStatusUrl != null
+              ? Collections.singleton(ocspStatuses.get(revokedStatusUrl))
+              : ocspStatuses.values();
+      if (statuses.isEmpty() || !statuses.stream().allMatch(status -> status.isCacheable(now))) {
+        expiresAt = Long.MIN_VALUE;
+        refreshAt = Long.MIN_VALUE;
+        return;
+      }
+      expiresAt = statuses.stream().mapToLong(ResponderStatus::getExpiry).min().getAsLong();
+      refreshAt = statuses.stream().mapToLong(ResponderStatus::getRefreshTime).min().getAsLong();
+    }
+  }
+
+  private static class CertificateKey {
+
+    private final X500Principal issuer;
+
+    private final BigInteger serialNumber;
+
+    CertificateKey(X509Certificate cert) {
+      issuer = cert.getIssuerX500Principal();
+      serialNumber = cert.getSerialNumber();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CertificateKey)) {
+        return false;
+      }
+      CertificateKey that = (CertificateKey) o;
+      return issuer.equals(that.issuer) && serialNumber.equals(that.serialNumber);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(issuer, serialNumber);
+    }
+
+    @Override
+    public String toString() {
+      return serialNumber + " issued by " + issuer;
+    }
+  }
+
   private static <T> T getValueOrDefault(T value, T defaultValue) {
     return value == null ? defaultValue : value;
   }
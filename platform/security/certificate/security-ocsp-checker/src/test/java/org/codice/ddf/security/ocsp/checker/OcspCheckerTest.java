@@ -18,33 +18,51 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
-import static org.junit.Assert.assertNull;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import ddf.security.SecurityConstants;
 import ddf.security.audit.SecurityLogger;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.security.auth.x500.X500Principal;
 import javax.ws.rs.core.Response;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.Certificate;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
 import org.bouncycastle.cert.ocsp.CertificateStatus;
 import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.RespID;
 import org.bouncycastle.cert.ocsp.RevokedStatus;
 import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
 import org.codice.ddf.cxf.client.ClientBuilder;
 import org.codice.ddf.cxf.client.ClientBuilderFactory;
 import org.codice.ddf.cxf.client.SecureCxfClientFactory;
@@ -52,6 +70,7 @@
 import org.codice.ddf.cxf.oauth.OAuthSecurity;
 import org.codice.ddf.security.jaxrs.SamlSecurity;
 import org.codice.ddf.security.ocsp.checker.OcspChecker.OcspCheckerException;
+import org.codice.ddf.security.ocsp.checker.OcspChecker.ResponderStatus;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -81,26 +100,34 @@ public class OcspCheckerTest {
   private final List<URI> revokedEndpoints = new ArrayList<>();
   private final List<URI> unknownEndpoints = new ArrayList<>();
   private final List<URI> brokenEndpoints = new ArrayList<>();
+  private final List<URI> stubEndpoints = new ArrayList<>();
+
+  // response of the stub endpoints, created per method
+  private byte[] stubOcspResponse;
 
   // mocks
   @Mock private Response goodResponse;
   @Mock private Response revokedResponse;
   @Mock private Response unknownResponse;
   @Mock private Response brokenResponse;
+  @Mock private Response stubResponse;
   @Mock private WebClient goodWebClient;
   @Mock private WebClient revokedWebClient;
   @Mock private WebClient unknownWebClient;
   @Mock private WebClient brokenWebClient;
+  @Mock private WebClient stubWebClient;
   @Mock private SecureCxfClientFactory<WebClient> goodSecureCxfClientFactory;
   @Mock private SecureCxfClientFactory<WebClient> revokedSecureCxfClientFactory;
   @Mock private SecureCxfClientFactory<WebClient> unknownSecureCxfClientFactory;
   @Mock private SecureCxfClientFactory<WebClient> brokenSecureCxfClientFactory;
+  @Mock private SecureCxfClientFactory<WebClient> stubSecureCxfClientFactory;
 
   // mockito argument matchers for list matching
   private final ArgumentMatcher<URI> inGoodList = goodEndpoints::contains;
   private final ArgumentMatcher<URI> inRevokedList = revokedEndpoints::contains;
   private final ArgumentMatcher<URI> inUnknownList = unknownEndpoints::contains;
   private final ArgumentMatcher<URI> inBrokenList = brokenEndpoints::contains;
+  private final ArgumentMatcher<URI> inStubList = stubEndpoints::contains;
 
   @BeforeClass
   public static void setupClass() throws Exception {
@@ -136,10 +163,15 @@ public void setup() throws Exception {
     when(brokenWebClient.accept(anyString())).thenReturn(brokenWebClient);
     when(brokenWebClient.post(any())).thenReturn(brokenResponse);
 
+    when(stubWebClient.type(anyString())).thenReturn(stubWebClient);
+    when(stubWebClient.accept(anyString())).thenReturn(stubWebClient);
+    when(stubWebClient.post(any())).thenReturn(stubResponse);
+
     when(goodSecureCxfClientFactory.getWebClient()).thenReturn(goodWebClient);
     when(revokedSecureCxfClientFactory.getWebClient()).thenReturn(revokedWebClient);
     when(unknownSecureCxfClientFactory.getWebClient()).thenReturn(unknownWebClient);
     when(brokenSecureCxfClientFactory.getWebClient()).thenReturn(brokenWebClient);
+    when(stubSecureCxfClientFactory.getWebClient()).thenReturn(stubWebClient);
 
     when(goodResponse.getEntity()).then(getResourceStreamAsAnswer("goodOcspResponse.streamData"));
     when(revokedResponse.getEntity())
@@ -147,6 +179,7 @@ public void setup() throws Exception {
     when(unknownResponse.getEntity())
         .then(getResourceStreamAsAnswer("unknownOcspResponse.streamData"));
     when(brokenResponse.getEntity()).thenReturn(null);
+    when(stubResponse.getEntity()).then(invocation -> new ByteArrayInputStream(stubOcspResponse));
 
     ClientBuilder<WebClient> clientBuilder =
         new ClientBuilderImpl<WebClient>(
@@ -165,6 +198,9 @@ public SecureCxfClientFactory<WebClient> build() {
             if (inBrokenList.matches(endpointUrl)) {
               return brokenSecureCxfClientFactory;
             }
+            if (inStubList.matches(endpointUrl)) {
+              return stubSecureCxfClientFactory;
+            }
             return null;
           }
         };
@@ -231,8 +267,7 @@ public void testSendOcspRequestsGoodStatus() throws Exception {
         ocspServerUrls.stream().map(URI::toString).collect(Collectors.toList()));
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -250,8 +285,7 @@ public void testSendOcspRequestsRevokedStatus() throws Exception {
         ocspServerUrls.stream().map(URI::toString).collect(Collectors.toList()));
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -269,8 +303,7 @@ public void testSendOcspRequestsUnknownStatus() throws Exception {
         ocspServerUrls.stream().map(URI::toString).collect(Collectors.toList()));
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -297,8 +330,7 @@ public void testSendOcspRequestsAllStatuses() throws Exception {
         ocspServerUrls.stream().map(URI::toString).collect(Collectors.toList()));
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -318,8 +350,7 @@ public void testSendOcspRequestsGoodEmbeddedUrl() throws Exception {
         ocspServerUrls.stream().map(URI::toString).collect(Collectors.toList()));
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -339,8 +370,7 @@ public void testSendOcspRequestsRevokedEmbeddedUrl() throws Exception {
         ocspServerUrls.stream().map(URI::toString).collect(Collectors.toList()));
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -361,8 +391,7 @@ public void testSendOcspRequestsUnknownEmbeddedUrl() throws Exception {
         ocspServerUrls.stream().map(URI::toString).collect(Collectors.toList()));
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -376,8 +405,7 @@ public void testSendOcspRequestNoServerUrls() throws Exception {
     ocspChecker.setOcspEnabled(true);
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -399,8 +427,7 @@ public void testSendOcspRequestBrokenServerUrls() throws Exception {
         ocspServerUrls.stream().map(URI::toString).collect(Collectors.toList()));
 
     OCSPReq ocspReq = ocspChecker.generateOcspRequest(trustedCertBc);
-    Map<URI, CertificateStatus> ocspStatuses =
-        ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
+    Map<URI, ResponderStatus> ocspStatuses = ocspChecker.sendOcspRequests(trustedCertX509, ocspReq);
 
     assertStatuses(ocspStatuses);
   }
@@ -632,6 +659,176 @@ public void testOcspCheckDisabled() throws Exception {
     assertThat(ocspChecker.passesOcspCheck(certs), is(true));
   }
 
+  @Test
+  public void testOcspCheckCachesStatusUntilNextUpdate() throws Exception {
+    stubEndpoints.add(new URI("https://stuburl:8993"));
+    stubEndpoints.add(new URI(EMBEDDED_OCSP_SERVER_URL));
+    long now = System.currentTimeMillis();
+    stubOcspResponse =
+        createOcspResponse(
+            CertificateStatus.GOOD, new Date(now), new Date(now + TimeUnit.HOURS.toMillis(1)));
+
+    OcspChecker ocspChecker = new OcspChecker(factory, eventAdmin);
+    ocspChecker.setSecurityLogger(mock(SecurityLogger.class));
+    ocspChecker.setOcspEnabled(true);
+    ocspChecker.setOcspServerUrls(Collections.singletonList("https://stuburl:8993"));
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    verify(stubWebClient, times(2)).post(any());
+  }
+
+  @Test
+  public void testOcspCheckCachesRevokedStatus() throws Exception {
+    stubEndpoints.add(new URI(EMBEDDED_OCSP_SERVER_URL));
+    long now = System.currentTimeMillis();
+    stubOcspResponse =
+        createOcspResponse(
+            new RevokedStatus(new Date(now), 0),
+            new Date(now),
+            new Date(now + TimeUnit.HOURS.toMillis(1)));
+
+    OcspChecker ocspChecker = new OcspChecker(factory, eventAdmin);
+    ocspChecker.setSecurityLogger(mock(SecurityLogger.class));
+    ocspChecker.setOcspEnabled(true);
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+    verify(stubWebClient, times(1)).post(any());
+  }
+
+  @Test
+  public void testOcspCheckDoesNotCacheStatusWithoutNextUpdate() throws Exception {
+    goodEndpoints.add(new URI(EMBEDDED_OCSP_SERVER_URL));
+
+    OcspChecker ocspChecker = new OcspChecker(factory, eventAdmin);
+    ocspChecker.setSecurityLogger(mock(SecurityLogger.class));
+    ocspChecker.setOcspEnabled(true);
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    verify(goodWebClient, times(2)).post(any());
+  }
+
+  @Test
+  public void testOcspCheckDoesNotCacheStatusWithUnavailableServer() throws Exception {
+    stubEndpoints.add(new URI(EMBEDDED_OCSP_SERVER_URL));
+    brokenEndpoints.add(new URI("https://brokenurl:8993"));
+    long now = System.currentTimeMillis();
+    stubOcspResponse =
+        createOcspResponse(
+            CertificateStatus.GOOD, new Date(now), new Date(now + TimeUnit.HOURS.toMillis(1)));
+
+    OcspChecker ocspChecker = new OcspChecker(factory, eventAdmin);
+    ocspChecker.setSecurityLogger(mock(SecurityLogger.class));
+    ocspChecker.setOcspEnabled(true);
+    ocspChecker.setOcspServerUrls(Collections.singletonList("https://brokenurl:8993"));
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    verify(stubWebClient, times(2)).post(any());
+  }
+
+  @Test
+  public void testOcspCheckWithCacheDisabled() throws Exception {
+    stubEndpoints.add(new URI(EMBEDDED_OCSP_SERVER_URL));
+    long now = System.currentTimeMillis();
+    stubOcspResponse =
+        createOcspResponse(
+            CertificateStatus.GOOD, new Date(now), new Date(now + TimeUnit.HOURS.toMillis(1)));
+
+    OcspChecker ocspChecker = new OcspChecker(factory, eventAdmin);
+    ocspChecker.setSecurityLogger(mock(SecurityLogger.class));
+    ocspChecker.setOcspEnabled(true);
+    ocspChecker.setOcspCacheSize(0);
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    verify(stubWebClient, times(2)).post(any());
+  }
+
+  @Test
+  public void testOcspCheckRefreshesStatusNearNextUpdate() throws Exception {
+    stubEndpoints.add(new URI(EMBEDDED_OCSP_SERVER_URL));
+    long now = System.currentTimeMillis();
+    stubOcspResponse =
+        createOcspResponse(
+            CertificateStatus.GOOD,
+            new Date(now - TimeUnit.HOURS.toMillis(1)),
+            new Date(now + TimeUnit.MINUTES.toMillis(5)));
+
+    OcspChecker ocspChecker =
+        new OcspChecker(factory, eventAdmin, MoreExecutors.newDirectExecutorService());
+    ocspChecker.setSecurityLogger(mock(SecurityLogger.class));
+    ocspChecker.setOcspEnabled(true);
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    verify(stubWebClient, times(1)).post(any());
+
+    // the cached status is returned and refreshed since it is in the last fifth of its validity
+    stubOcspResponse =
+        createOcspResponse(
+            new RevokedStatus(new Date(now), 0),
+            new Date(now),
+            new Date(now + TimeUnit.HOURS.toMillis(1)));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    verify(stubWebClient, times(2)).post(any());
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+    verify(stubWebClient, times(2)).post(any());
+  }
+
+  @Test
+  public void testConcurrentOcspChecksShareRequests() throws Exception {
+    stubEndpoints.add(new URI(EMBEDDED_OCSP_SERVER_URL));
+    stubOcspResponse = createOcspResponse(CertificateStatus.GOOD, new Date(), null);
+
+    CountDownLatch requestSent = new CountDownLatch(1);
+    CountDownLatch respond = new CountDownLatch(1);
+    when(stubWebClient.post(any()))
+        .then(
+            invocation -> {
+              requestSent.countDown();
+              respond.await();
+              return stubResponse;
+            });
+
+    OcspChecker ocspChecker = new OcspChecker(factory, eventAdmin);
+    ocspChecker.setSecurityLogger(mock(SecurityLogger.class));
+    ocspChecker.setOcspEnabled(true);
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    Thread first = new Thread(() -> ocspChecker.passesOcspCheck(certs));
+    first.start();
+    assertThat(requestSent.await(10, TimeUnit.SECONDS), is(true));
+
+    Thread second = new Thread(() -> ocspChecker.passesOcspCheck(certs));
+    second.start();
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while (second.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    respond.countDown();
+    first.join();
+    second.join();
+
+    verify(stubWebClient, times(1)).post(any());
+  }
+
   private static X509Certificate getX509Certificate(String filename) throws Exception {
     try (InputStream certInputStream =
         OcspCheckerTest.class.getClassLoader().getResourceAsStream(filename)) {
@@ -644,6 +841,29 @@ private static Certificate getBouncyCastleCertificate(X509Certificate cert) thro
     return Certificate.getInstance(cert.getEncoded());
   }
 
+  /** Creates the response of a stub OCSP server for {@code trustedCertX509}. */
+  private static byte[] createOcspResponse(
+      CertificateStatus status, Date thisUpdate, Date nextUpdate) throws Exception {
+    CertificateID certId =
+        new CertificateID(
+            new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+            new X509CertificateHolder(trustedCertX509.getEncoded()),
+            trustedCertX509.getSerialNumber());
+
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+    BasicOCSPResp basicResponse =
+        new BasicOCSPRespBuilder(new RespID(new X500Name("CN=Stub OCSP Server")))
+            .addResponse(certId, status, thisUpdate, nextUpdate)
+            .build(
+                new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate()),
+                null,
+                thisUpdate);
+    return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).getEncoded();
+  }
+
   private Answer<InputStream> getResourceStreamAsAnswer(String filename) {
     return new Answer<InputStream>() {
       @Override
@@ -653,13 +873,17 @@ public InputStream answer(InvocationOnMock invocationOnMock) {
     };
   }
 
-  private void assertStatuses(Map<URI, CertificateStatus> ocspStatuses) {
-    goodEndpoints.forEach(endpoint -> assertNull(ocspStatuses.get(endpoint)));
+  private void assertStatuses(Map<URI, ResponderStatus> ocspStatuses) {
+    goodEndpoints.forEach(
+        endpoint -> assertThat(ocspStatuses.get(endpoint).getStatus(), is(nullValue())));
     revokedEndpoints.forEach(
-        endpoint -> assertThat(ocspStatuses.get(endpoint), instanceOf(RevokedStatus.class)));
+        endpoint ->
+            assertThat(ocspStatuses.get(endpoint).getStatus(), instanceOf(RevokedStatus.class)));
     unknownEndpoints.forEach(
-        endpoint -> assertThat(ocspStatuses.get(endpoint), instanceOf(UnknownStatus.class)));
+        endpoint ->
+            assertThat(ocspStatuses.get(endpoint).getStatus(), instanceOf(UnknownStatus.class)));
     brokenEndpoints.forEach(
-        endpoint -> assertThat(ocspStatuses.get(endpoint), instanceOf(UnknownStatus.class)));
+        endpoint ->
+            assertThat(ocspStatuses.get(endpoint).getStatus(), instanceOf(UnknownStatus.class)));
   }
 }
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.security.policy.context.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import org.codice.ddf.security.policy.context.ContextPolicy;
+
+/**
+ * Immutable trie of the context policies and white listed contexts of a {@link PolicyManager},
+ * keyed by the {@code /} separated segments of their context paths.
+ *
+ * <p>A lookup walks the requested path once, from its first segment, and resolves the same context
+ * as {@link PolicyManager#rollbackPath(String)} would by rolling the path back one fragment at a
+ * time: the longest of the first {@code traversalDepth + 2} rolled back paths that has a policy or
+ * is white listed, or the root policy if there is none. Lookups do not allocate.
+ */
+final class ContextPolicyTrie {
+
+  private static final char SEPARATOR = '/';
+
+  private final Node root = new Node();
+
+  private final ContextPolicy rootPolicy;
+
+  private final int maxRollbacks;
+
+  /**
+   * @param policies context policies, keyed by context path, which must include the root policy
+   * @param whiteListContexts contexts that do not have a policy
+   * @param rootContext path of the root policy
+   * @param traversalDepth traversal depth of the {@link PolicyManager}
+   */
+  ContextPolicyTrie(
+      Map<String, ContextPolicy> policies,
+      Collection<String> whiteListContexts,
+      String rootContext,
+      int traversalDepth) {
+    for (String context : whiteListContexts) {
+      node(context).whiteListed = true;
+    }
+    for (Map.Entry<String, ContextPolicy> entry : policies.entrySet()) {
+      node(entry.getKey()).policy = copy(entry.getValue());
+    }
+    rootPolicy = node(rootContext).policy;
+    maxRollbacks = traversalDepth + 1;
+  }
+
+  /** @return the policy of the context of {@code path}, or null if that context is white listed */
+  ContextPolicy getContextPolicy(String path) {
+    int length = path.length();
+    Node node = root;
+    Node match = null;
+    int matchIndex = 0;
+    int candidates = 0;
+    boolean leadingSeparators = true;
+    int segmentStart = 0;
+    int hash = 0;
+
+    for (int i = 0; i <= length; i++) {
+      char c = i < length ? path.charAt(i) : SEPARATOR;
+      if (c != SEPARATOR) {
+        hash = 31 * hash + c;
+        leadingSeparators = false;
+        continue;
+      }
+
+      if (node != null) {
+        node = node.child(path, segmentStart, i, hash);
+      }
+      if (isRollbackPath(path, i, leadingSeparators)) {
+        if (node != null && (node.policy != null || node.whiteListed)) {
+          match = node;
+          matchIndex = candidates;
+        }
+        candidates++;
+      }
+      segmentStart = i + 1;
+      hash = 0;
+    }
+
+    if (match != null && candidates - 1 - matchIndex <= maxRollbacks) {
+      return match.policy;
+    }
+    return rootPolicy;
+  }
+
+  /**
+   * Tells whether the first {@code end} characters of {@code path}, which end right before a
+   * separator or at the end of the path, are one of the paths {@link
+   * PolicyManager#rollbackPath(String)} goes through when rolled back from {@code path}. The root
+   * context is left out since it is the fallback anyway.
+   *
+   * <p>Rolling back a path ending with a segment cuts it at its last separator, and rolling back a
+   * path ending with separators removes all of them. Within a run of separators, the paths gone
+   * through are therefore the ones ending right before its first and right before its last
+   * separator, the latter only when more segments follow.
+   */
+  private static boolean isRollbackPath(String path, int end, boolean leadingSeparators) {
+    int length = path.length();
+    if (end == length) {
+      return true;
+    }
+
+    boolean runStart = end == 0 || path.charAt(end - 1) != SEPARATOR;
+    boolean runEndBeforeSegment = end + 1 < length && path.charAt(end + 1) != SEPARATOR;
+    if (leadingSeparators) {
+      return end > 0 && runEndBeforeSegment;
+    }
+    return runStart || runEndBeforeSegment;
+  }
+
+  private Node node(String context) {
+    Node node = root;
+    for (String segment : context.split(String.valueOf(SEPARATOR), -1)) {
+      node = node.getOrCreateChild(segment);
+    }
+    return node;
+  }
+
+  /** Copies the policy once, so callers cannot change the authentication methods of a context. */
+  private static ContextPolicy copy(ContextPolicy policy) {
+    return new Policy(
+        policy.getContextPath(),
+        Collections.unmodifiableList(new ArrayList<>(policy.getAuthenticationMethods())),
+        policy.getAllowedAttributes());
+  }
+
+  private static class Node {
+
+    private String[] labels = new String[0];
+
+    private Node[] children = new Node[0];
+
+    private ContextPolicy policy;
+
+    private boolean whiteListed;
+
+    Node child(String path, int start, int end, int hash) {
+      int length = end - start;
+      for (int i = 0; i < labels.length; i++) {
+        String label = labels[i];
+        if (label.length() == length
+            && label.hashCode() == hash
+            && path.regionMatches(start, label, 0, length)) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    Node getOrCreateChild(String label) {
+      for (int i = 0; i < labels.length; i++) {
+        if (labels[i].equals(label)) {
+          return children[i];
+        }
+      }
+      labels = Arrays.copyOf(labels, labels.length + 1);
+      children = Arrays.copyOf(children, children.length + 1);
+      labels[labels.length - 1] = label;
+      children[children.length - 1] = new Node();
+      return children[children.length - 1];
+    }
+  }
+}
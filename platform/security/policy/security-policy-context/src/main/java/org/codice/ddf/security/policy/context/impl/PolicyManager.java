@@ -73,6 +73,8 @@ public class PolicyManager implements ContextPolicyManager {
 
   private Map<String, ContextPolicy> policyStore = new HashMap<>();
 
+  private volatile ContextPolicyTrie contextPolicies;
+
   private List<String> whiteListContexts = new ArrayList<>();
 
   private ContextPolicy defaultPolicy =
@@ -98,35 +100,12 @@ public class PolicyManager implements ContextPolicyManager {
 
   public PolicyManager() {
     policyStore.put(ROOT_CONTEXT, defaultPolicy);
+    updateContextPolicies();
   }
 
   @Override
   public ContextPolicy getContextPolicy(String path) {
-    return getContextPolicy(path, getPolicyStore(), getWhiteListContexts(), 0);
-  }
-
-  private ContextPolicy getContextPolicy(
-      String path,
-      Map<String, ContextPolicy> policyStore,
-      List<String> whiteListContexts,
-      int depth) {
-    ContextPolicy entry;
-    entry = policyStore.get(path);
-
-    if (entry != null) {
-      return entry;
-    } else if (whiteListContexts.contains(path)) {
-      return null;
-    } else {
-      String pathFragment = rollbackPath(path);
-      if (StringUtils.isNotEmpty(pathFragment) && depth <= traversalDepth) {
-        return getContextPolicy(pathFragment, policyStore, whiteListContexts, ++depth);
-      } else {
-        // this is just here for safety
-        // if we get down to the point where we can never get an entry, return the default
-        return policyStore.get(ROOT_CONTEXT);
-      }
-    }
+    return contextPolicies.getContextPolicy(path);
   }
 
   @Override
@@ -300,6 +279,16 @@ private void setPolicyStore(
     }
 
     policyStore = newPolicyStore;
+    updateContextPolicies();
+  }
+
+  /**
+   * Compiles the policy store and white list contexts used to resolve the policy of each request.
+   * Called every time either of them, or the traversal depth, changes.
+   */
+  private void updateContextPolicies() {
+    contextPolicies =
+        new ContextPolicyTrie(policyStore, whiteListContexts, ROOT_CONTEXT, traversalDepth);
   }
 
   /**
@@ -332,6 +321,7 @@ public void setWhiteListContexts(List<String> contexts) {
     LOGGER.debug("setWhiteListContexts(List<String>) called with {}", contexts);
     if (contexts != null && !contexts.isEmpty()) {
       this.whiteListContexts = PropertyResolver.resolveProperties(contexts);
+      updateContextPolicies();
     }
   }
 
@@ -465,6 +455,7 @@ public void setTraversalDepth(int traversalDepth) {
     if (this.traversalDepth > MAX_TRAVERSAL_DEPTH) {
       this.traversalDepth = MAX_TRAVERSAL_DEPTH;
     }
+    updateContextPolicies();
   }
 
   public void setGuestAccess(boolean guestAccess) {
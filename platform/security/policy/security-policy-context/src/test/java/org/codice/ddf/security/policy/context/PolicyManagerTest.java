@@ -306,6 +306,31 @@ public void testFindContextPaths() {
     assertThat(manager.isWhiteListed("/foo/bar"), is(false));
   }
 
+  @Test
+  public void testWhiteListedContextUnderPolicy() {
+    manager.setWhiteListContexts(Arrays.asList("/foo", "/search/public"));
+
+    assertThat(manager.isWhiteListed("/search/public"), is(true));
+    assertThat(manager.isWhiteListed("/search/public/images/logo.png"), is(true));
+    assertThat(manager.isWhiteListed("/search/publicity"), is(false));
+    assertThat(manager.getContextPolicy("/search/other").getContextPath(), is("/search"));
+  }
+
+  @Test
+  public void testPolicyChangesAreResolved() {
+    assertThat(manager.getContextPolicy("/new/context").getContextPath(), is("/"));
+
+    manager.setContextPolicy("/new", new Policy("/new", new ArrayList<>(), null));
+    assertThat(manager.getContextPolicy("/new/context").getContextPath(), is("/new"));
+
+    manager.setWhiteListContexts(Arrays.asList("/new/context"));
+    assertThat(manager.getContextPolicy("/new/context"), is(nullValue()));
+    assertThat(manager.isWhiteListed("/foo"), is(false));
+
+    manager.setTraversalDepth(0);
+    assertThat(manager.getContextPolicy("/new/context/a/b").getContextPath(), is("/"));
+  }
+
   @Test
   public void testConfiguration() {
     Map<String, Object> properties = new HashMap<>();
@@ -13,14 +13,21 @@
  */
 package org.codice.ddf.security.saml.assertion.validator.impl;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import ddf.security.assertion.SecurityAssertion;
 import ddf.security.assertion.saml.impl.SecurityAssertionSaml;
 import ddf.security.service.SecurityServiceException;
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.SignatureException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
@@ -39,6 +46,7 @@
 import org.apache.wss4j.common.ext.WSSecurityException;
 import org.apache.wss4j.common.saml.OpenSAMLUtil;
 import org.apache.wss4j.common.saml.SamlAssertionWrapper;
+import org.apache.wss4j.common.util.DOM2Writer;
 import org.apache.wss4j.dom.WSDocInfo;
 import org.apache.wss4j.dom.engine.WSSConfig;
 import org.apache.wss4j.dom.handler.RequestData;
@@ -57,18 +65,29 @@
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.saml.common.SAMLObjectBuilder;
 import org.opensaml.saml.common.SAMLVersion;
+import org.opensaml.saml.saml2.core.Assertion;
+import org.opensaml.saml.saml2.core.Conditions;
 import org.opensaml.saml.saml2.core.Issuer;
 import org.opensaml.saml.saml2.core.Response;
 import org.opensaml.saml.saml2.core.Status;
 import org.opensaml.saml.saml2.core.StatusCode;
 import org.opensaml.saml.saml2.core.StatusMessage;
 import org.opensaml.saml.saml2.core.SubjectConfirmation;
+import org.opensaml.saml.saml2.core.SubjectConfirmationData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+/**
+ * Validates SAML assertions against the system signature crypto.
+ *
+ * <p>Assertions that passed validation are remembered until their {@code NotOnOrAfter} time, keyed
+ * by their ID and a digest of their content and of the certificates of the TLS connection they were
+ * presented on, so an assertion replayed by a client on every request is only parsed and has its
+ * signature verified once. Assertions without a {@code NotOnOrAfter} time are always validated.
+ */
 public class SamlAssertionValidatorImpl implements SamlAssertionValidator {
 
   static {
@@ -79,6 +98,8 @@ public class SamlAssertionValidatorImpl implements SamlAssertionValidator {
 
   private static final XMLUtils XML_UTILS = XMLUtils.getInstance();
 
+  private static final int VALIDATED_ASSERTIONS_CACHE_SIZE = 1000;
+
   private static final ThreadLocal<DocumentBuilder> BUILDER =
       ThreadLocal.withInitial(
           () -> {
@@ -107,7 +128,20 @@ public class SamlAssertionValidatorImpl implements SamlAssertionValidator {
 
   private String signatureProperties;
 
-  private Validator assertionValidator = new org.apache.wss4j.dom.validate.SamlAssertionValidator();
+  private final Validator assertionValidator;
+
+  // NotOnOrAfter time, in milliseconds, of the assertions that passed validation
+  private final Cache<String, Long> validatedAssertions =
+      CacheBuilder.newBuilder().maximumSize(VALIDATED_ASSERTIONS_CACHE_SIZE).build();
+
+  public SamlAssertionValidatorImpl() {
+    this(new org.apache.wss4j.dom.validate.SamlAssertionValidator());
+  }
+
+  @VisibleForTesting
+  SamlAssertionValidatorImpl(Validator assertionValidator) {
+    this.assertionValidator = assertionValidator;
+  }
 
   /**
    * Validates a SAMLAuthenticationToken by checking it's signature against the configured system
@@ -136,8 +170,16 @@ public void validate(SAMLAuthenticationToken token) throws AuthenticationFailure
         throw new AuthenticationFailureException(
             "Unable to validate SAML token. Token is not SAML.");
       }
-      SamlAssertionWrapper assertion =
-          new SamlAssertionWrapper((Element) securityAssertion.getToken());
+      Element assertionElement = (Element) securityAssertion.getToken();
+      X509Certificate[] x509Certs = token.getX509Certs();
+
+      String cacheKey = getCacheKey(assertionElement, x509Certs);
+      if (cacheKey != null && isValidated(cacheKey)) {
+        LOGGER.debug("SAML Assertion was already validated");
+        return;
+      }
+
+      SamlAssertionWrapper assertion = new SamlAssertionWrapper(assertionElement);
 
       // get the crypto junk
       Crypto crypto = getSignatureCrypto();
@@ -161,7 +203,6 @@ public void validate(SAMLAuthenticationToken token) throws AuthenticationFailure
       WSSConfig wssConfig = WSSConfig.getNewInstance();
       requestData.setWssConfig(wssConfig);
 
-      X509Certificate[] x509Certs = token.getX509Certs();
       requestData.setTlsCerts(x509Certs);
 
       validateHolderOfKeyConfirmation(assertion, x509Certs);
@@ -179,6 +220,9 @@ public void validate(SAMLAuthenticationToken token) throws AuthenticationFailure
 
       assertionValidator.validate(credential, requestData);
 
+      if (cacheKey != null) {
+        cacheValidatedAssertion(cacheKey, assertion.getSaml2(), x509Certs);
+      }
     } catch (SecurityServiceException e) {
       LOGGER.debug("Unable to get subject from SAML request.", e);
       throw new AuthenticationFailureException(e);
@@ -188,6 +232,79 @@ public void validate(SAMLAuthenticationToken token) throws AuthenticationFailure
     }
   }
 
+  /**
+   * Returns the key of an assertion in the cache of validated assertions, made of the ID of the
+   * assertion and of a digest of the assertion, signature included, and of the TLS certificates.
+   *
+   * @param assertionElement assertion to validate
+   * @param x509Certs certificates of the TLS connection the assertion was presented on
+   * @return the cache key, or null if the assertion cannot be cached
+   */
+  private String getCacheKey(Element assertionElement, X509Certificate[] x509Certs) {
+    String id = assertionElement.getAttribute("ID");
+    if (id.isEmpty()) {
+      return null;
+    }
+
+    Hasher hasher =
+        Hashing.sha256()
+            .newHasher()
+            .putString(DOM2Writer.nodeToString(assertionElement), StandardCharsets.UTF_8);
+    if (x509Certs != null) {
+      for (X509Certificate x509Cert : x509Certs) {
+        try {
+          hasher.putBytes(x509Cert.getEncoded());
+        } catch (CertificateEncodingException e) {
+          LOGGER.debug("Unable to encode TLS certificate, SAML Assertion will not be cached.", e);
+          return null;
+        }
+      }
+    }
+    return id + ":" + hasher.hash();
+  }
+
+  private boolean isValidated(String cacheKey) {
+    Long notOnOrAfter = validatedAssertions.getIfPresent(cacheKey);
+    if (notOnOrAfter == null) {
+      return false;
+    }
+    if (System.currentTimeMillis() >= notOnOrAfter) {
+      validatedAssertions.invalidate(cacheKey);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Caches a validated assertion until the earliest of its {@code NotOnOrAfter} times and the
+   * expiry of the TLS certificate it was presented with.
+   */
+  private void cacheValidatedAssertion(
+      String cacheKey, Assertion assertion, X509Certificate[] x509Certs) {
+    Conditions conditions = assertion == null ? null : assertion.getConditions();
+    if (conditions == null || conditions.getNotOnOrAfter() == null) {
+      return;
+    }
+
+    long notOnOrAfter = conditions.getNotOnOrAfter().getMillis();
+    if (assertion.getSubject() != null) {
+      for (SubjectConfirmation subjectConfirmation :
+          assertion.getSubject().getSubjectConfirmations()) {
+        SubjectConfirmationData data = subjectConfirmation.getSubjectConfirmationData();
+        if (data != null && data.getNotOnOrAfter() != null) {
+          notOnOrAfter = Math.min(notOnOrAfter, data.getNotOnOrAfter().getMillis());
+        }
+      }
+    }
+    if (x509Certs != null && x509Certs.length > 0) {
+      notOnOrAfter = Math.min(notOnOrAfter, x509Certs[0].getNotAfter().getTime());
+    }
+
+    if (notOnOrAfter > System.currentTimeMillis()) {
+      validatedAssertions.put(cacheKey, notOnOrAfter);
+    }
+  }
+
   /**
    * Creates the SAML response that we use for validation against the CXF code.
    *
@@ -404,6 +521,7 @@ private void validateHolderOfKeyConfirmation(
   @Override
   public void setSignatureProperties(String signatureProperties) {
     this.signatureProperties = signatureProperties;
+    validatedAssertions.invalidateAll();
   }
 
   @Override
@@ -13,8 +13,12 @@
  */
 package org.codice.ddf.security.saml.assertion.validator.impl;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.security.assertion.saml.impl.SecurityAssertionSaml;
@@ -34,6 +38,9 @@
 import org.apache.wss4j.common.crypto.CryptoType;
 import org.apache.wss4j.common.saml.OpenSAMLUtil;
 import org.apache.wss4j.common.util.DOM2Writer;
+import org.apache.wss4j.dom.handler.RequestData;
+import org.apache.wss4j.dom.validate.Credential;
+import org.apache.wss4j.dom.validate.Validator;
 import org.bouncycastle.util.encoders.Base64;
 import org.codice.ddf.platform.filter.AuthenticationFailureException;
 import org.codice.ddf.security.handler.SAMLAuthenticationToken;
@@ -96,13 +103,17 @@ public class SamlAssertionValidatorImplTest {
 
   private SamlAssertionValidatorImpl samlAssertionValidator;
 
+  private Validator assertionValidator;
+
+  private File signatureFile;
+
   static {
     OpenSAMLUtil.initSamlEngine();
   }
 
   @Before
   public void setUp() throws Exception {
-    File signatureFile = temporaryFolder.newFile("signature.properties");
+    signatureFile = temporaryFolder.newFile("signature.properties");
     File encryptionFile = temporaryFolder.newFile("encryption.properties");
     File jksFile = temporaryFolder.newFile("serverKeystore.jks");
 
@@ -142,7 +153,8 @@ public void setUp() throws Exception {
             .getSignatureCrypto()
             .getPrivateKey(crypto.getSignatureAlias(), crypto.getSignaturePassword());
 
-    samlAssertionValidator = new SamlAssertionValidatorImpl();
+    assertionValidator = spy(new org.apache.wss4j.dom.validate.SamlAssertionValidator());
+    samlAssertionValidator = new SamlAssertionValidatorImpl(assertionValidator);
     samlAssertionValidator.setSignatureProperties(signatureFile.getAbsolutePath());
   }
 
@@ -258,6 +270,68 @@ public void testValidateInvalidSignature() throws Exception {
     samlAssertionValidator.validate(samlAuthenticationToken);
   }
 
+  @Test
+  public void testValidatedAssertionIsCached() throws Exception {
+    String assertion =
+        samlObjectToString(createAssertion(true, true, ISSUER, new DateTime().plusDays(3)));
+
+    samlAssertionValidator.validate(createToken(assertion, certificate));
+    samlAssertionValidator.validate(createToken(assertion, certificate));
+
+    verify(assertionValidator, times(1)).validate(any(Credential.class), any(RequestData.class));
+  }
+
+  @Test
+  public void testCachedAssertionIsValidatedWithOtherCertificates() throws Exception {
+    String assertion =
+        samlObjectToString(createAssertion(true, true, ISSUER, new DateTime().plusDays(3)));
+    X509Certificate otherCertificate;
+    try (InputStream inputStream = getClass().getResourceAsStream("/localhost.crt")) {
+      otherCertificate =
+          (X509Certificate)
+              CertificateFactory.getInstance("X.509").generateCertificate(inputStream);
+    }
+
+    samlAssertionValidator.validate(createToken(assertion, certificate));
+    samlAssertionValidator.validate(createToken(assertion, otherCertificate));
+
+    verify(assertionValidator, times(2)).validate(any(Credential.class), any(RequestData.class));
+  }
+
+  @Test(expected = AuthenticationFailureException.class)
+  public void testChangedCachedAssertionIsValidated() throws Exception {
+    String assertion =
+        samlObjectToString(createAssertion(true, true, ISSUER, new DateTime().plusDays(3)));
+    samlAssertionValidator.validate(createToken(assertion, certificate));
+
+    String changedAssertion = assertion.replaceFirst(">admin<", ">guest<");
+    samlAssertionValidator.validate(createToken(changedAssertion, certificate));
+  }
+
+  @Test
+  public void testCacheIsClearedWhenSignaturePropertiesChange() throws Exception {
+    String assertion =
+        samlObjectToString(createAssertion(true, true, ISSUER, new DateTime().plusDays(3)));
+
+    samlAssertionValidator.validate(createToken(assertion, certificate));
+    samlAssertionValidator.setSignatureProperties(signatureFile.getAbsolutePath());
+    samlAssertionValidator.validate(createToken(assertion, certificate));
+
+    verify(assertionValidator, times(2)).validate(any(Credential.class), any(RequestData.class));
+  }
+
+  private SAMLAuthenticationToken createToken(String assertion, X509Certificate certificate)
+      throws Exception {
+    Element securityToken = SAMLUtils.getInstance().getSecurityTokenFromSAMLAssertion(assertion);
+    SimplePrincipalCollection simplePrincipalCollection = new SimplePrincipalCollection();
+    simplePrincipalCollection.add(new SecurityAssertionSaml(securityToken), "default");
+    SAMLAuthenticationToken samlAuthenticationToken =
+        new SAMLAuthenticationToken(
+            simplePrincipalCollection, simplePrincipalCollection, "127.0.0.1");
+    samlAuthenticationToken.setX509Certs(new X509Certificate[] {certificate});
+    return samlAuthenticationToken;
+  }
+
   private Assertion createAssertion(
       boolean sign, boolean validSignature, String issuerString, DateTime notOnOrAfter)
       throws Exception {
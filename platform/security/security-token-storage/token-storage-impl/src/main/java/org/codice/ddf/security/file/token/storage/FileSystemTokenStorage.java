@@ -13,13 +13,18 @@
  */
 package org.codice.ddf.security.file.token.storage;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.apache.http.HttpStatus.SC_INTERNAL_SERVER_ERROR;
 import static org.apache.http.HttpStatus.SC_OK;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import ddf.security.encryption.crypter.Crypter;
+import ddf.security.encryption.crypter.Crypter.CrypterException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,22 +36,59 @@
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.codice.ddf.security.token.storage.api.TokenInformation;
 import org.codice.ddf.security.token.storage.api.TokenInformation.TokenEntry;
+import org.codice.ddf.security.token.storage.api.TokenInformationImpl;
 import org.codice.ddf.security.token.storage.api.TokenStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Stores the tokens of each user or client in a file encrypted with a {@link Crypter}.
+ *
+ * <p>Decrypted token information is kept in a bounded in-memory cache, keyed by the hash of the ID,
+ * so token lookups do not read nor decrypt files. Cached entries are immutable and are dropped when
+ * they have not been used for {@link #CACHE_IDLE_MINUTES} minutes.
+ *
+ * <p>Changes are applied to the cache right away and written to the files in the background by a
+ * single thread. Consecutive changes to the tokens of the same ID are written once, and every file
+ * is replaced atomically so a failed write never leaves a partially written file behind. Failed
+ * writes are retried a few times before the change is discarded, so the status codes returned by
+ * {@link #create} and {@link #delete} only report whether the change was accepted.
+ */
 public class FileSystemTokenStorage implements TokenStorage {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemTokenStorage.class);
   private static final String KARAF_HOME = "karaf.home";
 
+  private static final long CACHE_SIZE = 1000;
+  private static final long CACHE_IDLE_MINUTES = 30;
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+  private static final int MAX_WRITE_ATTEMPTS = 3;
+  private static final long RETRY_DELAY_MILLIS = 50;
+
   private final Map<String, Map<String, Object>> stateMap;
+  private final Cache<String, Optional<TokenInformation>> tokenCache =
+      CacheBuilder.newBuilder()
+          .maximumSize(CACHE_SIZE)
+          .expireAfterAccess(CACHE_IDLE_MINUTES, TimeUnit.MINUTES)
+          .build();
+  // JSON not yet written to the file of each ID hash, or empty if the file is to be deleted
+  private final Map<String, Optional<String>> pendingWrites = new ConcurrentHashMap<>();
+  private final ExecutorService writeExecutor;
   private Crypter crypter;
   private Path baseDirectory;
 
@@ -55,12 +97,30 @@ public FileSystemTokenStorage() {
     crypter =
         AccessController.doPrivileged(
             (PrivilegedAction<Crypter>) () -> new Crypter("token-storage"));
+    writeExecutor =
+        Executors.newSingleThreadExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("tokenStorageWriterThread"));
   }
 
   @VisibleForTesting
-  FileSystemTokenStorage(Crypter crypter) {
+  FileSystemTokenStorage(Crypter crypter, ExecutorService writeExecutor) {
     stateMap = new ConcurrentHashMap<>();
     this.crypter = crypter;
+    this.writeExecutor = writeExecutor;
+  }
+
+  /** Writes the pending changes to the files before shutting down. */
+  public void destroy() {
+    writeExecutor.shutdown();
+    try {
+      if (!writeExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOGGER.warn("Unable to write {} token storage change(s) to disk.", pendingWrites.size());
+        writeExecutor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      writeExecutor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
   }
 
   /**
@@ -92,7 +152,7 @@ public Map<String, Map<String, Object>> getStateMap() {
    * @return an HTTP status code
    */
   @Override
-  public int create(
+  public synchronized int create(
       String id, String sourceId, String accessToken, String refreshToken, String discoveryUrl) {
     LOGGER.trace("Create: Updating a Token Storage entry.");
     String fileName;
@@ -112,8 +172,7 @@ public int create(
               tokenInformation.getTokenJson(), sourceId, accessToken, refreshToken, discoveryUrl);
     }
 
-    Path contentItemPath = Paths.get(baseDirectory.toAbsolutePath().toString(), fileName);
-    return writeToFile(contentItemPath, json);
+    return scheduleWrite(fileName, json);
   }
 
   /**
@@ -127,13 +186,12 @@ public TokenInformation read(String id) {
     LOGGER.trace("Read: Retrieving a Token Storage entry.");
 
     String hash = hashId(id);
-    Path contentItemPath = Paths.get(baseDirectory.toAbsolutePath().toString(), hash);
-
-    String json = readFromFile(contentItemPath);
-    if (json == null) {
+    try {
+      return tokenCache.get(hash, () -> load(hash)).orElse(null);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      LOGGER.debug("Error reading token file.", e);
       return null;
     }
-    return TokenInformationUtil.fromJson(hash, json);
   }
 
   /**
@@ -173,7 +231,7 @@ public boolean isAvailable(String id, String sourceId) {
    * @return an HTTP status code
    */
   @Override
-  public int delete(String id) {
+  public synchronized int delete(String id) {
     LOGGER.trace("Delete: Deleting Token Storage.");
 
     TokenInformation tokenInformation = read(id);
@@ -181,17 +239,7 @@ public int delete(String id) {
       return SC_OK;
     }
 
-    Path contentItemPath =
-        Paths.get(baseDirectory.toAbsolutePath().toString(), tokenInformation.getId());
-
-    // delete file
-    try {
-      Files.delete(contentItemPath);
-      return SC_OK;
-    } catch (IOException e) {
-      LOGGER.debug("Error deleting token file.", e);
-      return SC_INTERNAL_SERVER_ERROR;
-    }
+    return scheduleWrite(tokenInformation.getId(), null);
   }
 
   /**
@@ -202,7 +250,7 @@ public int delete(String id) {
    * @return an HTTP status code
    */
   @Override
-  public int delete(String id, String sourceId) {
+  public synchronized int delete(String id, String sourceId) {
     LOGGER.trace("Delete: Deleting a Token Storage entry.");
 
     TokenInformation tokenInformation = read(id);
@@ -215,51 +263,144 @@ public int delete(String id, String sourceId) {
       return SC_OK;
     }
 
-    Path contentItemPath =
-        Paths.get(baseDirectory.toAbsolutePath().toString(), tokenInformation.getId());
     if (tokenInformation.getTokenEntries().size() == 1) {
       // delete file
-      try {
-        Files.delete(contentItemPath);
-        return SC_OK;
-      } catch (IOException e) {
-        LOGGER.debug("Error deleting token file.", e);
-        return SC_INTERNAL_SERVER_ERROR;
-      }
+      return scheduleWrite(tokenInformation.getId(), null);
     }
 
     String json = TokenInformationUtil.removeTokens(tokenInformation.getTokenJson(), sourceId);
-    return writeToFile(contentItemPath, json);
+    return scheduleWrite(tokenInformation.getId(), json);
   }
 
-  private int writeToFile(Path contentItemPath, String tokenJson) {
-    try (InputStream inputStream = new ByteArrayInputStream(tokenJson.getBytes());
-        InputStream encryptedInputStream = crypter.encrypt(inputStream)) {
+  /**
+   * Loads the token information of an ID hash, from its pending change if it has one or from its
+   * file otherwise.
+   */
+  private Optional<TokenInformation> load(String hash) throws IOException {
+    Optional<String> pending = pendingWrites.get(hash);
+    if (pending != null) {
+      return pending.map(json -> toCachedTokenInformation(hash, json));
+    }
 
-      int available = encryptedInputStream.available();
-      long copySize = Files.copy(encryptedInputStream, contentItemPath, REPLACE_EXISTING);
+    Path contentItemPath = getPath(hash);
+    if (!contentItemPath.toFile().exists()) {
+      return Optional.empty();
+    }
+    return Optional.of(toCachedTokenInformation(hash, readFromFile(contentItemPath)));
+  }
 
-      if (copySize < available) {
-        LOGGER.warn("Unable to write full token content to file.");
-        return SC_INTERNAL_SERVER_ERROR;
+  /**
+   * Applies a change to the cache and queues it to be written to the file of the ID hash.
+   *
+   * @param hash the hash of the ID
+   * @param json the new content of the file, or null to delete the file
+   * @return an HTTP status code
+   */
+  private int scheduleWrite(String hash, String json) {
+    Optional<String> change = Optional.ofNullable(json);
+    tokenCache.put(hash, change.map(value -> toCachedTokenInformation(hash, value)));
+
+    // a change that is already pending is written along with this one
+    if (pendingWrites.put(hash, change) == null) {
+      try {
+        writeExecutor.execute(() -> writePendingChanges(hash));
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Token storage is shutting down, writing token file immediately.", e);
+        return writePendingChanges(hash) ? SC_OK : SC_INTERNAL_SERVER_ERROR;
       }
-    } catch (IOException e) {
-      LOGGER.debug("Error updating token file.", e);
-      return SC_INTERNAL_SERVER_ERROR;
     }
     return SC_OK;
   }
 
-  private String readFromFile(Path contentItemPath) {
-    String json = null;
+  /**
+   * Writes the latest pending change of the ID hash to its file. The change stays pending until it
+   * is written, so reads keep returning it even if it is evicted from the cache in the meantime. A
+   * failed write is retried, with the latest change if a newer one was queued in the meantime, and
+   * a change that failed {@link #MAX_WRITE_ATTEMPTS} times is discarded.
+   *
+   * @return false if the change could not be written and was discarded
+   */
+  private boolean writePendingChanges(String hash) {
+    Optional<String> change;
+    Optional<String> failedChange = null;
+    int failedAttempts = 0;
+    while ((change = pendingWrites.get(hash)) != null) {
+      try {
+        if (change.isPresent()) {
+          writeToFile(getPath(hash), change.get());
+        } else {
+          Files.deleteIfExists(getPath(hash));
+        }
+      } catch (IOException | CrypterException e) {
+        LOGGER.debug("Error updating token file.", e);
+        if (change != failedChange) {
+          failedChange = change;
+          failedAttempts = 0;
+        }
+        if (++failedAttempts < MAX_WRITE_ATTEMPTS && waitBeforeRetry(failedAttempts)) {
+          continue;
+        }
+
+        if (pendingWrites.remove(hash, change)) {
+          LOGGER.warn("Error updating token file. Last change to the tokens has been discarded.");
+          tokenCache.invalidate(hash);
+          return false;
+        }
+        // a newer change was queued while writing, it replaces the one that failed
+        continue;
+      }
+
+      if (pendingWrites.remove(hash, change)) {
+        return true;
+      }
+    }
+    return true;
+  }
+
+  /** @return false if the writer was interrupted and should not retry */
+  private static boolean waitBeforeRetry(int failedAttempts) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MILLIS * failedAttempts);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /** Encrypts the JSON to a temporary file and moves it over the file to replace. */
+  private void writeToFile(Path contentItemPath, String tokenJson) throws IOException {
+    Path tempPath =
+        Files.createTempFile(baseDirectory, contentItemPath.getFileName() + "-", ".tmp");
+    try (InputStream inputStream =
+            new ByteArrayInputStream(tokenJson.getBytes(StandardCharsets.UTF_8));
+        InputStream encryptedInputStream = crypter.encrypt(inputStream)) {
+      Files.copy(encryptedInputStream, tempPath, REPLACE_EXISTING);
+      Files.move(tempPath, contentItemPath, ATOMIC_MOVE, REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempPath);
+    }
+  }
+
+  private String readFromFile(Path contentItemPath) throws IOException {
     try (InputStream contentInputStream = Files.newInputStream(contentItemPath);
         InputStream decryptedInputStream = crypter.decrypt(contentInputStream)) {
-
-      json = IOUtils.toString(decryptedInputStream, StandardCharsets.UTF_8);
-    } catch (IOException e) {
-      LOGGER.debug("Error reading token file.", e);
+      return IOUtils.toString(decryptedInputStream, StandardCharsets.UTF_8);
     }
-    return json;
+  }
+
+  /** @return token information that cannot be changed by the callers sharing it */
+  private static TokenInformation toCachedTokenInformation(String hash, String json) {
+    TokenInformation tokenInformation = TokenInformationUtil.fromJson(hash, json);
+    return new TokenInformationImpl(
+        hash,
+        Collections.unmodifiableMap(tokenInformation.getTokenEntries()),
+        Collections.unmodifiableSet(new HashSet<>(tokenInformation.getDiscoveryUrls())),
+        json);
+  }
+
+  private Path getPath(String hash) {
+    return Paths.get(baseDirectory.toAbsolutePath().toString(), hash);
   }
 
   /** @return a hash of the given ID */
@@ -23,23 +23,34 @@
 import static org.codice.ddf.security.token.storage.api.TokenStorage.SECRET;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
 import ddf.security.encryption.crypter.Crypter;
+import ddf.security.encryption.crypter.Crypter.CrypterException;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.codice.ddf.security.token.storage.api.TokenInformation;
 import org.junit.After;
 import org.junit.Before;
@@ -66,7 +77,7 @@ public class FileSystemTokenStorageTest {
   @Before
   public void setUp() throws Exception {
     crypter = mock(Crypter.class);
-    tokenStorage = new FileSystemTokenStorage(crypter);
+    tokenStorage = new FileSystemTokenStorage(crypter, MoreExecutors.newDirectExecutorService());
     tokenStorage.setBaseDirectory(folder.getRoot().getAbsolutePath());
   }
 
@@ -315,6 +326,166 @@ public void testDeleteOneSource() throws Exception {
     assertFalse(Files.exists(Paths.get(path)));
   }
 
+  @Test
+  public void testReadIsCached() throws Exception {
+    String path = folder.getRoot().getAbsolutePath() + "/" + USERNAME_HASH;
+    Files.write(Paths.get(path), ENCRYPTED.getBytes());
+
+    String json =
+        GSON.toJson(
+            ImmutableMap.of(
+                SOURCE_ID,
+                ImmutableMap.of(
+                    ACCESS_TOKEN,
+                    ACCESS_TOKEN_VAL,
+                    REFRESH_TOKEN,
+                    REFRESH_TOKEN_VAL,
+                    DISCOVERY_URL,
+                    DISCOVERY_URL_VAL)));
+
+    when(crypter.decrypt(any(InputStream.class)))
+        .thenReturn(new ByteArrayInputStream(json.getBytes()));
+
+    assertTrue(tokenStorage.isAvailable(USERNAME, SOURCE_ID));
+    assertTrue(tokenStorage.isAvailable(USERNAME, SOURCE_ID));
+    assertEquals(ACCESS_TOKEN_VAL, tokenStorage.read(USERNAME, SOURCE_ID).getAccessToken());
+    verify(crypter, times(1)).decrypt(any(InputStream.class));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testCachedTokensCannotBeChanged() throws Exception {
+    when(crypter.encrypt(any(InputStream.class)))
+        .thenReturn(new ByteArrayInputStream(ENCRYPTED.getBytes()));
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+
+    tokenStorage.read(USERNAME).getTokenEntries().remove(SOURCE_ID);
+  }
+
+  @Test
+  public void testCreateUpdatesCache() throws Exception {
+    when(crypter.encrypt(any(InputStream.class)))
+        .thenAnswer(i -> new ByteArrayInputStream(ENCRYPTED.getBytes()));
+
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, "newAccessToken", REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+
+    assertEquals("newAccessToken", tokenStorage.read(USERNAME, SOURCE_ID).getAccessToken());
+    verify(crypter, never()).decrypt(any(InputStream.class));
+  }
+
+  @Test
+  public void testDeleteUpdatesCache() throws Exception {
+    when(crypter.encrypt(any(InputStream.class)))
+        .thenReturn(new ByteArrayInputStream(ENCRYPTED.getBytes()));
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+
+    assertEquals(SC_OK, tokenStorage.delete(USERNAME));
+
+    assertNull(tokenStorage.read(USERNAME));
+    assertFalse(Files.exists(Paths.get(folder.getRoot().getAbsolutePath(), USERNAME_HASH)));
+    verify(crypter, never()).decrypt(any(InputStream.class));
+  }
+
+  @Test
+  public void testPendingWritesAreCoalesced() throws Exception {
+    QueuedExecutorService writeExecutor = new QueuedExecutorService();
+    tokenStorage = new FileSystemTokenStorage(crypter, writeExecutor);
+    tokenStorage.setBaseDirectory(folder.getRoot().getAbsolutePath());
+    when(crypter.encrypt(any(InputStream.class))).thenAnswer(i -> i.getArgument(0));
+
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+    tokenStorage.create(
+        USERNAME, "OpenSearch", ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+
+    String path = folder.getRoot().getAbsolutePath() + "/" + USERNAME_HASH;
+    assertFalse(Files.exists(Paths.get(path)));
+    assertTrue(tokenStorage.isAvailable(USERNAME, "OpenSearch"));
+
+    writeExecutor.runAll();
+
+    verify(crypter, times(1)).encrypt(any(InputStream.class));
+    String lines = String.join("", Files.readAllLines(Paths.get(path)));
+    assertTrue(lines.contains("OpenSearch"));
+    assertTrue(lines.contains(SOURCE_ID));
+    assertEquals(1, folder.getRoot().list().length);
+  }
+
+  @Test
+  public void testFailedWriteIsDiscarded() throws Exception {
+    when(crypter.encrypt(any(InputStream.class))).thenThrow(new CrypterException("failed"));
+
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+
+    assertFalse(tokenStorage.isAvailable(USERNAME, SOURCE_ID));
+    assertEquals(0, folder.getRoot().list().length);
+    verify(crypter, times(3)).encrypt(any(InputStream.class));
+  }
+
+  @Test
+  public void testFailedWriteIsRetried() throws Exception {
+    when(crypter.encrypt(any(InputStream.class)))
+        .thenThrow(new CrypterException("failed"))
+        .thenAnswer(i -> i.getArgument(0));
+
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+
+    String path = folder.getRoot().getAbsolutePath() + "/" + USERNAME_HASH;
+    assertTrue(String.join("", Files.readAllLines(Paths.get(path))).contains(SOURCE_ID));
+    assertTrue(tokenStorage.isAvailable(USERNAME, SOURCE_ID));
+  }
+
+  @Test
+  public void testChangeQueuedDuringFailedWriteIsWritten() throws Exception {
+    when(crypter.encrypt(any(InputStream.class)))
+        .thenAnswer(
+            i -> {
+              tokenStorage.create(
+                  USERNAME, "OpenSearch", ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+              throw new CrypterException("failed");
+            })
+        .thenThrow(new CrypterException("failed"))
+        .thenThrow(new CrypterException("failed"))
+        .thenAnswer(i -> i.getArgument(0));
+
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+
+    String path = folder.getRoot().getAbsolutePath() + "/" + USERNAME_HASH;
+    String lines = String.join("", Files.readAllLines(Paths.get(path)));
+    assertTrue(lines.contains("OpenSearch"));
+    assertTrue(lines.contains(SOURCE_ID));
+    assertTrue(tokenStorage.isAvailable(USERNAME, "OpenSearch"));
+
+    when(crypter.encrypt(any(InputStream.class))).thenAnswer(i -> i.getArgument(0));
+    tokenStorage.delete(USERNAME, SOURCE_ID);
+
+    lines = String.join("", Files.readAllLines(Paths.get(path)));
+    assertTrue(lines.contains("OpenSearch"));
+    assertFalse(lines.contains(SOURCE_ID));
+  }
+
+  @Test
+  public void testDestroyWritesPendingChanges() throws Exception {
+    tokenStorage = new FileSystemTokenStorage(crypter, Executors.newSingleThreadExecutor());
+    tokenStorage.setBaseDirectory(folder.getRoot().getAbsolutePath());
+    when(crypter.encrypt(any(InputStream.class)))
+        .thenReturn(new ByteArrayInputStream(ENCRYPTED.getBytes()));
+
+    tokenStorage.create(
+        USERNAME, SOURCE_ID, ACCESS_TOKEN_VAL, REFRESH_TOKEN_VAL, DISCOVERY_URL_VAL);
+    tokenStorage.destroy();
+
+    String path = folder.getRoot().getAbsolutePath() + "/" + USERNAME_HASH;
+    assertTrue(Files.readAllLines(Paths.get(path)).contains(ENCRYPTED));
+  }
+
   @Test
   public void testGetStateMap() {
     String state = UUID.randomUUID().toString();
@@ -328,4 +499,44 @@ public void testGetStateMap() {
 
     assertEquals(0, tokenStorage.getStateMap().size());
   }
+
+  /** Runs the submitted tasks only when asked to. */
+  private static class QueuedExecutorService extends AbstractExecutorService {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    void runAll() {
+      while (!tasks.isEmpty()) {
+        tasks.remove(0).run();
+      }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
 }
@@ -21,6 +21,8 @@
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.codice.ddf.persistence.PersistenceException;
 import org.codice.ddf.persistence.PersistentItem;
 import org.codice.ddf.persistence.PersistentStore;
@@ -49,6 +51,11 @@ public class SolrAppender implements EventHandler {
 
   private ConcurrentLinkedQueue<PersistentItem> queue = new ConcurrentLinkedQueue<>();
 
+  //  ConcurrentLinkedQueue.size() traverses the whole queue, so the size is tracked separately
+  private final AtomicInteger queueSize = new AtomicInteger();
+
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
   private ScheduledExecutorService executorService;
 
   private ScheduledFuture scheduledFuture;
@@ -73,8 +80,8 @@ public void handleEvent(Event event) throws IllegalArgumentException {
       item.addProperty(key, event.getProperty(key));
     }
     queue.add(item);
-    if (queue.size() > batchSize) {
-      flushItems();
+    if (queueSize.incrementAndGet() > batchSize && flushScheduled.compareAndSet(false, true)) {
+      executorService.execute(this::flushItems);
     }
   }
 
@@ -88,14 +95,18 @@ public void destroy() {
   }
 
   synchronized void flushItems() {
+    flushScheduled.set(false);
     if (queue.isEmpty()) {
       return;
     }
 
     try {
       Collection<Map<String, Object>> items = new ArrayList<>();
-      items.addAll(queue);
-      queue.removeAll(items);
+      PersistentItem item;
+      while ((item = queue.poll()) != null) {
+        items.add(item);
+      }
+      queueSize.addAndGet(-items.size());
       LOGGER.debug("Flushing {} items to decanter core", items.size());
       persistentStore.add("decanter", items);
     } catch (PersistenceException e) {
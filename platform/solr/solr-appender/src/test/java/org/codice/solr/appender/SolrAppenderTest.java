@@ -13,13 +13,16 @@
  */
 package org.codice.solr.appender;
 
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -63,9 +66,28 @@ public void testHandleEvent() throws Exception {
     Event event = new Event("decanter/collect", notice.getProperties());
     solrAppender.setBatchSize(0);
     solrAppender.handleEvent(event);
+    runScheduledFlush();
     verify(persistentStore).add(eq("decanter"), any(Collection.class));
   }
 
+  @Test
+  public void testHandleEventFlushesOffEventThread() throws Exception {
+    SystemNotice notice = new SystemNotice();
+    Event event = new Event("decanter/collect", notice.getProperties());
+    solrAppender.setBatchSize(0);
+    solrAppender.handleEvent(event);
+    solrAppender.handleEvent(event);
+    verify(persistentStore, never()).add(eq("decanter"), any(Collection.class));
+
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService, times(1)).execute(captor.capture());
+    captor.getValue().run();
+
+    ArgumentCaptor<Collection> items = ArgumentCaptor.forClass(Collection.class);
+    verify(persistentStore).add(eq("decanter"), items.capture());
+    assertThat(items.getValue().size(), is(2));
+  }
+
   @Test
   public void testHandleEventNoId() throws Exception {
     ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
@@ -74,6 +96,7 @@ public void testHandleEventNoId() throws Exception {
     Event event = new Event("decanter/collect", map);
     solrAppender.setBatchSize(0);
     solrAppender.handleEvent(event);
+    runScheduledFlush();
     verify(persistentStore).add(eq("decanter"), captor.capture());
     Map<String, Object> item = (Map<String, Object>) captor.getValue().iterator().next();
     assertNotNull(item.get("id_txt"));
@@ -91,11 +114,18 @@ public void testHandleEventSizeBatching() throws Exception {
     Event event = new Event("decanter/collect", notice.getProperties());
     solrAppender.setBatchSize(1);
     solrAppender.handleEvent(event);
-    verify(persistentStore, never()).add(eq("decanter"), any(Collection.class));
+    verify(executorService, never()).execute(any(Runnable.class));
     solrAppender.handleEvent(event);
+    runScheduledFlush();
     verify(persistentStore).add(eq("decanter"), any(Collection.class));
   }
 
+  private void runScheduledFlush() {
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).execute(captor.capture());
+    captor.getValue().run();
+  }
+
   @Test
   public void testSetPeriod() {
     solrAppender.setPeriod(5);
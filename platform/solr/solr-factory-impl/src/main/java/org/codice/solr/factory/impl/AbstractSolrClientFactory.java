@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.factory.impl;
+
+import static org.apache.commons.lang.Validate.notNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.codice.solr.client.solrj.SolrUpdateBatcher;
+import org.codice.solr.client.solrj.SolrUpdateBatcherMBean;
+import org.codice.solr.factory.SolrClientFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class of the {@link SolrClientFactory} implementations, owning one {@link SolrUpdateBatcher}
+ * per core. Each batcher is published as a {@link SolrUpdateBatcherMBean} until the factory is
+ * closed.
+ */
+public abstract class AbstractSolrClientFactory implements SolrClientFactory {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractSolrClientFactory.class);
+
+  private final Map<String, SolrUpdateBatcher> updateBatchers = new ConcurrentHashMap<>();
+
+  @Override
+  public SolrUpdateBatcher getUpdateBatcher(String core) {
+    notNull(core, "Solr core name cannot be null");
+    return updateBatchers.computeIfAbsent(core, this::newUpdateBatcher);
+  }
+
+  /** Sends the pending document additions of every core and stops batching them. */
+  public void close() {
+    updateBatchers.forEach(
+        (core, batcher) -> {
+          batcher.close();
+          unregisterMBean(core);
+        });
+    updateBatchers.clear();
+  }
+
+  private SolrUpdateBatcher newUpdateBatcher(String core) {
+    SolrUpdateBatcher batcher = new SolrUpdateBatcher(core);
+    registerMBean(core, batcher);
+    return batcher;
+  }
+
+  private static void registerMBean(String core, SolrUpdateBatcher batcher) {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName objectName = objectName(core);
+      try {
+        mBeanServer.registerMBean(batcher, objectName);
+      } catch (InstanceAlreadyExistsException e) {
+        LOGGER.debug("Re-registering Solr update batcher MBean of core [{}]", core);
+        mBeanServer.unregisterMBean(objectName);
+        mBeanServer.registerMBean(batcher, objectName);
+      }
+    } catch (Exception e) {
+      LOGGER.info("Could not register Solr update batcher MBean of core [{}].", core, e);
+    }
+  }
+
+  private static void unregisterMBean(String core) {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName objectName = objectName(core);
+      if (mBeanServer.isRegistered(objectName)) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+    } catch (Exception e) {
+      LOGGER.debug("Exception unregistering Solr update batcher MBean of core [{}]", core, e);
+    }
+  }
+
+  static ObjectName objectName(String core) throws MalformedObjectNameException {
+    return new ObjectName(SolrUpdateBatcherMBean.OBJECT_NAME + ",core=" + ObjectName.quote(core));
+  }
+}
@@ -25,7 +25,7 @@
  * Factory class used to create the proper {@link SolrClient} based on the current {@code
  * solr.client} system property.
  */
-public final class SolrClientFactoryImpl implements SolrClientFactory {
+public final class SolrClientFactoryImpl extends AbstractSolrClientFactory {
 
   private String clientType;
   private SolrClientFactory factory;
@@ -48,6 +48,11 @@ public SolrClient newClient(String core) {
     return factory.newClient(core);
   }
 
+  /** Sends the pending document additions of every core and stops batching them. */
+  public void destroy() {
+    close();
+  }
+
   @VisibleForTesting
   SolrClientFactory getFactory() {
     return factory;
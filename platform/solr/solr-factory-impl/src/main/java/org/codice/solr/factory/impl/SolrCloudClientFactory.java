@@ -36,7 +36,6 @@
 import org.apache.solr.client.solrj.response.CollectionAdminResponse;
 import org.apache.solr.common.SolrException;
 import org.apache.zookeeper.KeeperException;
-import org.codice.solr.factory.SolrClientFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,7 +48,7 @@
  *   <li>org.codice.ddf.system.threadPoolSize: Solr query thread pool size
  * </ul>
  */
-public class SolrCloudClientFactory implements SolrClientFactory {
+public class SolrCloudClientFactory extends AbstractSolrClientFactory {
   private static final Logger LOGGER = LoggerFactory.getLogger(SolrCloudClientFactory.class);
 
   @Override
@@ -16,9 +16,14 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.when;
 
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.codice.solr.client.solrj.SolrClient;
 import org.junit.Before;
 import org.junit.Test;
@@ -62,6 +67,35 @@ public void newCloudSolrClient() {
     assertThat(factory.getFactory(), is(instanceOf(SolrCloudClientFactory.class)));
   }
 
+  @Test
+  public void updateBatcherIsSharedPerCore() {
+    SolrClientFactoryImpl factory = new SolrClientFactoryImpl(mockHttpSolrClientFactory);
+
+    try {
+      assertThat(
+          factory.getUpdateBatcher("core"), is(sameInstance(factory.getUpdateBatcher("core"))));
+      assertThat(factory.getUpdateBatcher("core"), is(not(factory.getUpdateBatcher("other"))));
+    } finally {
+      factory.destroy();
+    }
+  }
+
+  @Test
+  public void updateBatcherIsPublishedAsAnMBean() throws Exception {
+    SolrClientFactoryImpl factory = new SolrClientFactoryImpl(mockHttpSolrClientFactory);
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName = AbstractSolrClientFactory.objectName("core");
+
+    try {
+      factory.getUpdateBatcher("core");
+      assertThat(mBeanServer.getAttribute(objectName, "PendingSubmissions"), is(0));
+      assertThat(mBeanServer.getAttribute(objectName, "Core"), is("core"));
+    } finally {
+      factory.destroy();
+    }
+    assertThat(mBeanServer.isRegistered(objectName), is(false));
+  }
+
   @Test
   public void newClientWithUnknownClientType() {
     System.setProperty("solr.client", "Unknown");
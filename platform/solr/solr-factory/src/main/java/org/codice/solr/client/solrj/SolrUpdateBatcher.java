@@ -0,0 +1,466 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.client.solrj;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces concurrent document additions to a single Solr core into fewer, larger update requests.
+ * A batcher is shared by every client of its core, see {@link
+ * org.codice.solr.factory.SolrClientFactory#getUpdateBatcher(String)}.
+ *
+ * <p>Callers of {@link #add(SolrClient, Collection, int)} still block until their documents were
+ * accepted by Solr and see the same exceptions as a direct call to {@link
+ * SolrClient#add(Collection, int)}. Submissions are queued in a bounded queue and sent by a small
+ * pool of sender threads. Whenever all senders are busy, submissions that arrive in the meantime
+ * are combined into the next update request, so bursts of small writes turn into a few batched
+ * requests while a single writer sees no added latency.
+ *
+ * <p>Requests failing because of a communication error or an unavailable core are retried with an
+ * exponential backoff, and every submission of the request fails once the retries are exhausted. If
+ * a combined request is rejected by Solr, each of its submissions is sent again once on its own so
+ * that only the submissions at fault fail.
+ *
+ * <p>The following system properties control the batching:
+ *
+ * <ul>
+ *   <li>{@value #MAX_BATCH_SIZE_PROPERTY}: number of documents after which a batch stops collecting
+ *       submissions (default: {@value #DEFAULT_MAX_BATCH_SIZE})
+ *   <li>{@value #LINGER_PROPERTY}: time in milliseconds a sender waits for more submissions before
+ *       sending a batch that is not full (default: {@value #DEFAULT_LINGER_MS})
+ *   <li>{@value #SENDERS_PROPERTY}: maximum number of update requests sent concurrently to the core
+ *       (default: {@value #DEFAULT_SENDERS})
+ *   <li>{@value #QUEUE_SIZE_PROPERTY}: maximum number of queued submissions before callers block
+ *       (default: {@value #DEFAULT_QUEUE_SIZE})
+ *   <li>{@value #MAX_ATTEMPTS_PROPERTY}: number of times an update request is attempted (default:
+ *       {@value #DEFAULT_MAX_ATTEMPTS})
+ *   <li>{@value #BACKOFF_PROPERTY}: delay in milliseconds before the first retry, doubled for every
+ *       following one (default: {@value #DEFAULT_BACKOFF_MS})
+ * </ul>
+ *
+ * <p>The queue depth and the request, retry and failure counters are published through {@link
+ * SolrUpdateBatcherMBean} by the factory owning the batcher.
+ */
+public class SolrUpdateBatcher implements SolrUpdateBatcherMBean, Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SolrUpdateBatcher.class);
+
+  public static final String MAX_BATCH_SIZE_PROPERTY = "solr.update.batch.maxDocuments";
+
+  public static final String LINGER_PROPERTY = "solr.update.batch.lingerMs";
+
+  public static final String SENDERS_PROPERTY = "solr.update.senders";
+
+  public static final String QUEUE_SIZE_PROPERTY = "solr.update.queueSize";
+
+  public static final String MAX_ATTEMPTS_PROPERTY = "solr.update.retry.maxAttempts";
+
+  public static final String BACKOFF_PROPERTY = "solr.update.retry.backoffMs";
+
+  private static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+  private static final int DEFAULT_LINGER_MS = 0;
+
+  private static final int DEFAULT_SENDERS = 2;
+
+  private static final int DEFAULT_QUEUE_SIZE = 1000;
+
+  private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+  private static final int DEFAULT_BACKOFF_MS = 100;
+
+  private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+  private final String core;
+
+  private final int maxBatchSize;
+
+  private final long lingerMs;
+
+  private final int maxSenders;
+
+  private final int maxAttempts;
+
+  private final long backoffMs;
+
+  private final BlockingQueue<Submission> pending;
+
+  private final ThreadPoolExecutor senders;
+
+  private final AtomicInteger activeSenders = new AtomicInteger();
+
+  private final AtomicLong updateRequests = new AtomicLong();
+
+  private final AtomicLong sentDocuments = new AtomicLong();
+
+  private final AtomicLong retries = new AtomicLong();
+
+  private final AtomicLong failures = new AtomicLong();
+
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a batcher for a core, configured from system properties.
+   *
+   * @param core the name of the core the batched documents are added to
+   */
+  public SolrUpdateBatcher(String core) {
+    this(
+        core,
+        intProperty(MAX_BATCH_SIZE_PROPERTY, DEFAULT_MAX_BATCH_SIZE, 1),
+        intProperty(LINGER_PROPERTY, DEFAULT_LINGER_MS, 0),
+        intProperty(SENDERS_PROPERTY, DEFAULT_SENDERS, 1),
+        intProperty(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE, 1),
+        intProperty(MAX_ATTEMPTS_PROPERTY, DEFAULT_MAX_ATTEMPTS, 1),
+        intProperty(BACKOFF_PROPERTY, DEFAULT_BACKOFF_MS, 0));
+  }
+
+  SolrUpdateBatcher(
+      String core,
+      int maxBatchSize,
+      long lingerMs,
+      int maxSenders,
+      int queueSize,
+      int maxAttempts,
+      long backoffMs) {
+    this.core = core;
+    this.maxBatchSize = maxBatchSize;
+    this.lingerMs = lingerMs;
+    this.maxSenders = maxSenders;
+    this.maxAttempts = maxAttempts;
+    this.backoffMs = backoffMs;
+    this.pending = new LinkedBlockingQueue<>(queueSize);
+    this.senders =
+        new ThreadPoolExecutor(
+            maxSenders,
+            maxSenders,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            StandardThreadFactoryBuilder.newThreadFactory("solrUpdateThread-" + core));
+    senders.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Adds a collection of documents, waiting until they have been sent to Solr as part of a batched
+   * update request.
+   *
+   * @param client a client of the batcher's core, used to send the update request if the documents
+   *     are the first of their batch
+   * @param docs the collection of documents
+   * @param commitWithinMs max time (in ms) before a commit will happen, or a negative value to rely
+   *     on the core's auto commit settings. Documents batched together are committed within the
+   *     shortest time requested by any of them.
+   * @return the {@link UpdateResponse} of the update request the documents were sent with
+   * @throws IOException if there is a communication error with the server
+   * @throws SolrServerException if there is an error on the server
+   * @throws UnavailableSolrException if the Solr server or the core is unavailable
+   */
+  public UpdateResponse add(
+      SolrClient client, Collection<SolrInputDocument> docs, int commitWithinMs)
+      throws SolrServerException, IOException {
+    if (closed) {
+      return sendWithRetries(client, docs, commitWithinMs);
+    }
+
+    Submission submission = new Submission(client, new ArrayList<>(docs), commitWithinMs);
+    try {
+      pending.put(submission);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while queuing documents for Solr update");
+    }
+    startSender();
+    return submission.await();
+  }
+
+  @Override
+  public String getCore() {
+    return core;
+  }
+
+  @Override
+  public int getPendingSubmissions() {
+    return pending.size();
+  }
+
+  @Override
+  public long getUpdateRequestCount() {
+    return updateRequests.get();
+  }
+
+  @Override
+  public long getSentDocumentCount() {
+    return sentDocuments.get();
+  }
+
+  @Override
+  public long getRetryCount() {
+    return retries.get();
+  }
+
+  @Override
+  public long getFailureCount() {
+    return failures.get();
+  }
+
+  /**
+   * Stops batching and waits for the queued submissions to be sent. Documents added afterwards are
+   * sent right away on the caller's thread.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    senders.shutdown();
+    try {
+      if (!senders.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOGGER.debug("Timed out waiting for pending Solr updates of core [{}] to be sent", core);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    //  Anything left behind is sent by the caller rather than dropped
+    drain();
+  }
+
+  private void startSender() {
+    int active;
+    while ((active = activeSenders.get()) < maxSenders) {
+      if (activeSenders.compareAndSet(active, active + 1)) {
+        try {
+          senders.execute(this::runSender);
+        } catch (RejectedExecutionException e) {
+          LOGGER.trace("Sender pool of core [{}] is shut down, sending inline", core);
+          runSender();
+        }
+        return;
+      }
+    }
+  }
+
+  private void runSender() {
+    try {
+      drain();
+    } finally {
+      activeSenders.decrementAndGet();
+    }
+
+    //  A submission queued after the last poll but while every sender was still counted as active
+    //  would otherwise be left waiting
+    if (!pending.isEmpty()) {
+      startSender();
+    }
+  }
+
+  private void drain() {
+    Submission first;
+    while ((first = pending.poll()) != null) {
+      send(collectBatch(first));
+    }
+  }
+
+  private List<Submission> collectBatch(Submission first) {
+    List<Submission> batch = new ArrayList<>();
+    batch.add(first);
+    int batchSize = first.docs.size();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+
+    while (batchSize < maxBatchSize) {
+      Submission next;
+      try {
+        long remaining = deadline - System.nanoTime();
+        next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+      batchSize += next.docs.size();
+    }
+    return batch;
+  }
+
+  private void send(List<Submission> batch) {
+    List<SolrInputDocument> docs = new ArrayList<>();
+    int commitWithinMs = -1;
+    for (Submission submission : batch) {
+      docs.addAll(submission.docs);
+      commitWithinMs = earliestCommit(commitWithinMs, submission.commitWithinMs);
+    }
+
+    try {
+      UpdateResponse response = sendWithRetries(batch.get(0).client, docs, commitWithinMs);
+      LOGGER.trace(
+          "Sent {} documents from {} submissions to core [{}]", docs.size(), batch.size(), core);
+      batch.forEach(submission -> submission.result.complete(response));
+      return;
+    } catch (SolrServerException | IOException | UnavailableSolrException e) {
+      //  Already retried, sending the submissions separately would only repeat the retries
+      batch.forEach(submission -> fail(submission, e));
+      return;
+    } catch (RuntimeException e) {
+      if (batch.size() == 1) {
+        fail(batch.get(0), e);
+        return;
+      }
+      LOGGER.debug(
+          "Batched update of {} submissions to core [{}] was rejected, sending them individually",
+          batch.size(),
+          core,
+          e);
+    }
+
+    for (Submission submission : batch) {
+      try {
+        updateRequests.incrementAndGet();
+        submission.result.complete(
+            send(submission.client, submission.docs, submission.commitWithinMs));
+      } catch (SolrServerException | IOException | RuntimeException e) {
+        fail(submission, e);
+      }
+    }
+  }
+
+  private void fail(Submission submission, Exception e) {
+    failures.incrementAndGet();
+    submission.result.completeExceptionally(e);
+  }
+
+  private UpdateResponse sendWithRetries(
+      SolrClient client, Collection<SolrInputDocument> docs, int commitWithinMs)
+      throws SolrServerException, IOException {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        updateRequests.incrementAndGet();
+        return send(client, docs, commitWithinMs);
+      } catch (SolrServerException | IOException | UnavailableSolrException e) {
+        if (attempt >= maxAttempts) {
+          throw e;
+        }
+        long delay = backoffMs << (attempt - 1);
+        LOGGER.debug(
+            "Update of {} documents to core [{}] failed on attempt {}, retrying in {} ms",
+            docs.size(),
+            core,
+            attempt,
+            delay,
+            e);
+        retries.incrementAndGet();
+        sleep(delay);
+      }
+    }
+  }
+
+  private UpdateResponse send(
+      SolrClient client, Collection<SolrInputDocument> docs, int commitWithinMs)
+      throws SolrServerException, IOException {
+    UpdateResponse response =
+        (commitWithinMs >= 0) ? client.add(docs, commitWithinMs) : client.add(docs);
+    sentDocuments.addAndGet(docs.size());
+    return response;
+  }
+
+  private static void sleep(long delay) throws InterruptedIOException {
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to retry Solr update");
+    }
+  }
+
+  private static int earliestCommit(int commitWithinMs, int otherCommitWithinMs) {
+    if (commitWithinMs < 0) {
+      return otherCommitWithinMs;
+    }
+    if (otherCommitWithinMs < 0) {
+      return commitWithinMs;
+    }
+    return Math.min(commitWithinMs, otherCommitWithinMs);
+  }
+
+  private static int intProperty(String key, int defaultValue, int minimum) {
+    String value =
+        AccessController.doPrivileged(
+            (PrivilegedAction<String>) () -> System.getProperty(key, String.valueOf(defaultValue)));
+    try {
+      return Math.max(Integer.parseInt(value.trim()), minimum);
+    } catch (NumberFormatException e) {
+      LOGGER.debug(
+          "Invalid value [{}] for system property [{}], using {}", value, key, defaultValue);
+      return defaultValue;
+    }
+  }
+
+  private static class Submission {
+
+    private final SolrClient client;
+
+    private final List<SolrInputDocument> docs;
+
+    private final int commitWithinMs;
+
+    private final CompletableFuture<UpdateResponse> result = new CompletableFuture<>();
+
+    private Submission(SolrClient client, List<SolrInputDocument> docs, int commitWithinMs) {
+      this.client = client;
+      this.docs = docs;
+      this.commitWithinMs = commitWithinMs;
+    }
+
+    private UpdateResponse await() throws SolrServerException, IOException {
+      try {
+        return result.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for Solr update");
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof SolrServerException) {
+          throw (SolrServerException) cause;
+        } else if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new SolrServerException(cause);
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.client.solrj;
+
+/** MBean interface describing the batching of the document additions to a Solr core. */
+public interface SolrUpdateBatcherMBean {
+
+  /**
+   * Object name of the batchers, to be completed with a {@code core} key naming the batcher's core.
+   */
+  String OBJECT_NAME = SolrUpdateBatcher.class.getName() + ":service=solr-update-batcher";
+
+  /**
+   * Gets the name of the core the batched documents are added to.
+   *
+   * @return the name of the core
+   */
+  String getCore();
+
+  /**
+   * Gets the number of submissions queued and waiting to be sent.
+   *
+   * @return the number of pending submissions
+   */
+  int getPendingSubmissions();
+
+  /**
+   * Gets the number of update requests sent to Solr, including retries.
+   *
+   * @return the number of update requests
+   */
+  long getUpdateRequestCount();
+
+  /**
+   * Gets the number of documents successfully sent to Solr.
+   *
+   * @return the number of sent documents
+   */
+  long getSentDocumentCount();
+
+  /**
+   * Gets the number of update requests that were retried.
+   *
+   * @return the number of retries
+   */
+  long getRetryCount();
+
+  /**
+   * Gets the number of submissions that failed.
+   *
+   * @return the number of failed submissions
+   */
+  long getFailureCount();
+}
@@ -14,6 +14,7 @@
 package org.codice.solr.factory;
 
 import org.codice.solr.client.solrj.SolrClient;
+import org.codice.solr.client.solrj.SolrUpdateBatcher;
 
 /** Interface implemented by factory classes used to create new {@link SolrClient} instances. */
 public interface SolrClientFactory {
@@ -31,4 +32,15 @@ public interface SolrClientFactory {
    * @throws IllegalArgumentException if <code>core</code> is <code>null</code>
    */
   SolrClient newClient(String core);
+
+  /**
+   * Gets the {@link SolrUpdateBatcher} that batches the document additions of every client of a
+   * specific Solr core. The same batcher is returned for every call with the same core. It is owned
+   * by the factory and must not be closed by its callers.
+   *
+   * @param core the name of the Solr core to get the batcher of
+   * @return the {@code SolrUpdateBatcher} of the core
+   * @throws IllegalArgumentException if <code>core</code> is <code>null</code>
+   */
+  SolrUpdateBatcher getUpdateBatcher(String core);
 }
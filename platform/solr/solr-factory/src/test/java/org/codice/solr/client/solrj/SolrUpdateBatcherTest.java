@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.client.solrj;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SolrUpdateBatcherTest {
+
+  private SolrClient client;
+
+  private UpdateResponse response;
+
+  private SolrUpdateBatcher batcher;
+
+  private ExecutorService callers;
+
+  private final CountDownLatch firstRequestStarted = new CountDownLatch(1);
+
+  @Before
+  public void setUp() throws Exception {
+    client = mock(SolrClient.class);
+    response = new UpdateResponse();
+    when(client.add(anyCollection(), anyInt())).thenReturn(response);
+    when(client.add(anyCollection())).thenReturn(response);
+    batcher = new SolrUpdateBatcher("core", 100, 0, 1, 100, 3, 1);
+    callers = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    callers.shutdownNow();
+    batcher.close();
+  }
+
+  @Test
+  public void testAdd() throws Exception {
+    List<SolrInputDocument> docs = docs(2);
+
+    assertThat(batcher.add(client, docs, 1000), is(sameInstance(response)));
+
+    verify(client).add(docs, 1000);
+    assertThat(batcher.getSentDocumentCount(), is(2L));
+  }
+
+  @Test
+  public void testAddWithoutCommitWithin() throws Exception {
+    List<SolrInputDocument> docs = docs(1);
+
+    batcher.add(client, docs, -1);
+
+    verify(client).add(docs);
+    verify(client, never()).add(anyCollection(), anyInt());
+  }
+
+  @Test
+  public void testConcurrentAddsAreBatched() throws Exception {
+    CountDownLatch releaseFirstRequest = blockFirstRequest();
+
+    Future<UpdateResponse> first = callers.submit(() -> batcher.add(client, docs(1), 1000));
+    List<Future<UpdateResponse>> others = queueBehindFirstRequest(3);
+    releaseFirstRequest.countDown();
+
+    first.get(10, TimeUnit.SECONDS);
+    for (Future<UpdateResponse> other : others) {
+      assertThat(other.get(10, TimeUnit.SECONDS), is(sameInstance(response)));
+    }
+    verify(client).add(docsOfSize(size -> size == 6), anyInt());
+    assertThat(batcher.getUpdateRequestCount(), is(2L));
+    assertThat(batcher.getSentDocumentCount(), is(7L));
+  }
+
+  @Test
+  public void testFailedBatchIsNotRetriedPerSubmission() throws Exception {
+    CountDownLatch releaseFirstRequest = blockFirstRequest();
+    when(client.add(docsOfSize(size -> size > 1), anyInt()))
+        .thenThrow(new IOException("connection refused"));
+
+    Future<UpdateResponse> first = callers.submit(() -> batcher.add(client, docs(1), 1000));
+    List<Future<UpdateResponse>> others = queueBehindFirstRequest(3);
+    releaseFirstRequest.countDown();
+
+    first.get(10, TimeUnit.SECONDS);
+    for (Future<UpdateResponse> other : others) {
+      try {
+        other.get(10, TimeUnit.SECONDS);
+        fail("Expected the batched submission to fail");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause(), is(instanceOf(IOException.class)));
+      }
+    }
+    verify(client, times(3)).add(docsOfSize(size -> size > 1), anyInt());
+    assertThat(batcher.getUpdateRequestCount(), is(4L));
+    assertThat(batcher.getFailureCount(), is(3L));
+  }
+
+  @Test
+  public void testRejectedBatchIsSplitOnce() throws Exception {
+    CountDownLatch releaseFirstRequest = blockFirstRequest();
+    when(client.add(docsOfSize(size -> size > 1), anyInt()))
+        .thenThrow(new SolrException(ErrorCode.BAD_REQUEST, "bad document"))
+        .thenThrow(new SolrException(ErrorCode.BAD_REQUEST, "bad document"))
+        .thenReturn(response);
+
+    Future<UpdateResponse> first = callers.submit(() -> batcher.add(client, docs(1), 1000));
+    List<Future<UpdateResponse>> others = queueBehindFirstRequest(2);
+    releaseFirstRequest.countDown();
+
+    first.get(10, TimeUnit.SECONDS);
+    int rejected = 0;
+    for (Future<UpdateResponse> other : others) {
+      try {
+        assertThat(other.get(10, TimeUnit.SECONDS), is(sameInstance(response)));
+      } catch (ExecutionException e) {
+        assertThat(e.getCause(), is(instanceOf(SolrException.class)));
+        rejected++;
+      }
+    }
+    assertThat(rejected, is(1));
+    assertThat(batcher.getUpdateRequestCount(), is(4L));
+    assertThat(batcher.getFailureCount(), is(1L));
+    assertThat(batcher.getRetryCount(), is(0L));
+  }
+
+  @Test
+  public void testRetryOnIOException() throws Exception {
+    when(client.add(anyCollection(), anyInt()))
+        .thenThrow(new IOException("connection reset"))
+        .thenReturn(response);
+
+    assertThat(batcher.add(client, docs(1), 1000), is(sameInstance(response)));
+
+    verify(client, times(2)).add(anyCollection(), anyInt());
+    assertThat(batcher.getRetryCount(), is(1L));
+  }
+
+  @Test(expected = IOException.class)
+  public void testRetriesExhausted() throws Exception {
+    when(client.add(anyCollection(), anyInt())).thenThrow(new IOException("connection refused"));
+
+    try {
+      batcher.add(client, docs(1), 1000);
+    } finally {
+      verify(client, times(3)).add(anyCollection(), anyInt());
+      assertThat(batcher.getFailureCount(), is(1L));
+    }
+  }
+
+  @Test
+  public void testRejectedDocumentIsNotRetried() throws Exception {
+    when(client.add(anyCollection(), anyInt()))
+        .thenThrow(new SolrException(ErrorCode.BAD_REQUEST, "bad document"));
+
+    try {
+      batcher.add(client, docs(1), 1000);
+      fail("Expected the rejected document to fail");
+    } catch (SolrException e) {
+      verify(client, times(1)).add(anyCollection(), anyInt());
+    }
+  }
+
+  @Test
+  public void testAddAfterClose() throws Exception {
+    batcher.close();
+    List<SolrInputDocument> docs = docs(1);
+
+    batcher.add(client, docs, 1000);
+
+    verify(client).add(docs, 1000);
+  }
+
+  /** Makes the single document requests block until the returned latch is released. */
+  private CountDownLatch blockFirstRequest() throws Exception {
+    CountDownLatch releaseFirstRequest = new CountDownLatch(1);
+    when(client.add(docsOfSize(size -> size == 1), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              firstRequestStarted.countDown();
+              releaseFirstRequest.await(10, TimeUnit.SECONDS);
+              return response;
+            });
+    return releaseFirstRequest;
+  }
+
+  /** Queues submissions of two documents each while the first request is blocked. */
+  private List<Future<UpdateResponse>> queueBehindFirstRequest(int count) throws Exception {
+    firstRequestStarted.await(10, TimeUnit.SECONDS);
+    List<Future<UpdateResponse>> submissions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      submissions.add(callers.submit(() -> batcher.add(client, docs(2), 1000)));
+    }
+    while (batcher.getPendingSubmissions() < count) {
+      Thread.sleep(10);
+    }
+    return submissions;
+  }
+
+  private static Collection<SolrInputDocument> docsOfSize(IntPredicate size) {
+    return argThat(docs -> docs != null && size.test(docs.size()));
+  }
+
+  private static List<SolrInputDocument> docs(int count) {
+    List<SolrInputDocument> docs = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      SolrInputDocument doc = new SolrInputDocument();
+      doc.addField("id_txt", String.valueOf(i));
+      docs.add(doc);
+    }
+    return docs;
+  }
+}